@@ -26,4 +26,19 @@ public class CommandLineOptions {
         }
 		return false;
 	}
+
+	/**
+	 * Find the value that follows an option, as in <code>--samples 500</code>.
+	 * @param option the option to find
+	 * @param defaultValue returned if the option is missing or has no value
+	 * @return the value of the option
+	 */
+	public String getOption(String option,String defaultValue) {
+		for(int i=0;i<argv.length-1;++i) {
+			if(argv[i].equals(option)) {
+				return argv[i+1];
+			}
+		}
+		return defaultValue;
+	}
 }
@@ -11,6 +11,7 @@ import com.marginallyclever.convenience.helpers.StringHelper;
  * <ul>
  * <li>It can get the inverse Jacobian matrix.</li>
  * <li>It can get the joint velocity from the Cartesian velocity.</li>
+ * <li>It can get the joint velocity from the Cartesian velocity without allocating memory.</li>
  * <li>It can get the Cartesian velocity from the joint velocity.</li>
  * <li>It can get the Jacobian matrix.</li>
  * <li>It can get the time derivative of the Jacobian matrix.</li>
@@ -24,10 +25,19 @@ public abstract class ApproximateJacobian {
      */
     protected final double[][] jacobian;
     protected final int DOF;
+    // default damping of the damped least squares solve.
+    public static final double DAMPING = 0.0001;
+    private double damping = DAMPING;
+    // workspace for the damped least squares solve.  the system is the smaller of DOF x DOF and 6 x 6.
+    private final double[][] system;
+    private final double[] rhs;
 
     protected ApproximateJacobian(int DOF) {
         this.DOF = DOF;
         jacobian = new double[6][DOF];
+        int n = Math.min(6,DOF);
+        system = new double[n][n];
+        rhs = new double[n];
     }
 
     /**
@@ -40,7 +50,7 @@ public abstract class ApproximateJacobian {
         if(rows<cols) return getPseudoInverseOverdetermined();
         else if (rows>cols) return getPseudoInverseUnderdetermined();
         else {
-            return getInverseDampedLeastSquares(0.0001);
+            return getInverseDampedLeastSquares(DAMPING);
             //return MatrixHelper.invert(jacobian);  // old way
         }
     }
@@ -108,6 +118,89 @@ public abstract class ApproximateJacobian {
         return jointVelocity;
     }
 
+    /**
+     * <p>Use the Jacobian to get the joint velocity from the cartesian velocity with a damped least squares solve.
+     * Does not allocate.</p>
+     * <p>With fewer than six joints this solves (J^T*J + lambda^2*I) * q = J^T * v.  Otherwise it finds
+     * q = J^T * (J*J^T + lambda^2*I)^-1 * v.  Both give the same answer but the smaller system is better behaved.</p>
+     * @param cartesianVelocity 6 doubles - the XYZ translation and UVW rotation forces on the end effector.
+     *                          The rotation component is in radians.
+     * @param jointVelocity filled with the joint velocity in degrees.  Must have one value for every joint.
+     * @throws Exception if the system cannot be solved.  Singularity?
+     */
+    public void getJointFromCartesian(final double[] cartesianVelocity, double[] jointVelocity) throws Exception {
+        if(jointVelocity.length!=DOF) throw new IllegalArgumentException("jointVelocity must be the same length as the number of joints.");
+
+        if(DOF<6) {
+            for(int i=0;i<DOF;++i) {
+                for(int j=0;j<DOF;++j) {
+                    double sum = 0;
+                    for(int k=0;k<6;++k) sum += jacobian[k][i] * jacobian[k][j];
+                    system[i][j] = sum;
+                }
+                system[i][i] += damping * damping;
+                double sum = 0;
+                for(int k=0;k<6;++k) sum += jacobian[k][i] * cartesianVelocity[k];
+                rhs[i] = sum;
+            }
+            solveInPlace(system,rhs);
+            for(int i=0;i<DOF;++i) jointVelocity[i] = rhs[i];
+        } else {
+            for(int i=0;i<6;++i) {
+                for(int j=0;j<6;++j) {
+                    double sum = 0;
+                    for(int k=0;k<DOF;++k) sum += jacobian[i][k] * jacobian[j][k];
+                    system[i][j] = sum;
+                }
+                system[i][i] += damping * damping;
+                rhs[i] = cartesianVelocity[i];
+            }
+            solveInPlace(system,rhs);
+            for(int k=0;k<DOF;++k) {
+                double sum = 0;
+                for(int i=0;i<6;++i) sum += jacobian[i][k] * rhs[i];
+                jointVelocity[k] = sum;
+            }
+        }
+
+        for(int k=0;k<DOF;++k) {
+            if (Double.isNaN(jointVelocity[k])) {
+                throw new Exception("Bad inverse Jacobian.  Singularity?");
+            }
+            jointVelocity[k] = Math.toDegrees(jointVelocity[k]);
+        }
+    }
+
+    /**
+     * Solve a*x=b with gaussian elimination and partial pivoting.  a is destroyed and b is replaced with x.
+     * @throws Exception if a is singular.
+     */
+    private static void solveInPlace(double[][] a, double[] b) throws Exception {
+        int n = b.length;
+        for(int col=0;col<n;++col) {
+            int pivot = col;
+            for(int row=col+1;row<n;++row) {
+                if(Math.abs(a[row][col]) > Math.abs(a[pivot][col])) pivot = row;
+            }
+            if(Math.abs(a[pivot][col]) < 1e-15) throw new Exception("Bad inverse Jacobian.  Singularity?");
+            if(pivot!=col) {
+                double[] t = a[pivot];  a[pivot] = a[col];  a[col] = t;
+                double u = b[pivot];  b[pivot] = b[col];  b[col] = u;
+            }
+            for(int row=col+1;row<n;++row) {
+                double f = a[row][col] / a[col][col];
+                if(f==0) continue;
+                for(int k=col;k<n;++k) a[row][k] -= f * a[col][k];
+                b[row] -= f * b[col];
+            }
+        }
+        for(int row=n-1;row>=0;--row) {
+            double sum = b[row];
+            for(int k=row+1;k<n;++k) sum -= a[row][k] * b[k];
+            b[row] = sum / a[row][row];
+        }
+    }
+
     /**
      * Use the jacobian to convert joint velocity to cartesian velocity.
      * @param joint joint velocity in degrees.
@@ -127,6 +220,19 @@ public abstract class ApproximateJacobian {
         return cartesianVelocity;
     }
 
+    public double getDamping() {
+        return damping;
+    }
+
+    /**
+     * @param damping the lambda of {@link #getJointFromCartesian(double[], double[])}.  Larger values give smaller,
+     *                smoother joint velocities near a singularity at the cost of accuracy.  Must be &gt;= 0.
+     */
+    public void setDamping(double damping) {
+        if(damping<0) throw new IllegalArgumentException("damping must be >= 0");
+        this.damping = damping;
+    }
+
     public double[][] getJacobian() {
         return jacobian;
     }
@@ -1,6 +1,7 @@
 package com.marginallyclever.convenience.approximatejacobian;
 
-import com.marginallyclever.convenience.helpers.MatrixHelper;
+import com.marginallyclever.ro3.node.NodePath;
+import com.marginallyclever.ro3.node.nodes.Motor;
 import com.marginallyclever.ro3.node.nodes.pose.Pose;
 import com.marginallyclever.ro3.node.nodes.pose.poses.Limb;
 
@@ -9,78 +10,87 @@ import javax.vecmath.Vector3d;
 import java.security.InvalidParameterException;
 
 /**
- * Given the current pose of the robot, find the approximate jacobian, which describe the relationship between joint
- * velocity and cartesian velocity.  This version uses screw theory.
- *
+ * <p>Given the current pose of the robot, find the approximate jacobian, which describe the relationship between joint
+ * velocity and cartesian velocity.  This version uses screw theory.</p>
+ * <p>Each column is found from the axis and origin of one joint and the position of the end effector, all in world
+ * space.  The world matrices are read once from the pose caches, so the scene is not changed.  One instance can be
+ * reused with {@link #update(Limb)} as long as the number of joints does not change.</p>
+ * <p>The rotation rows use the same sign as {@link ApproximateJacobianFiniteDifferences} and
+ * {@link com.marginallyclever.convenience.helpers.MatrixHelper#getCartesianBetweenTwoMatrices(Matrix4d, Matrix4d, double[])}.</p>
  */
 public class ApproximateJacobianScrewTheory extends ApproximateJacobian {
+	// world space axis and origin of each joint, kept between updates.
+	private final Vector3d [] axes;
+	private final Vector3d [] origins;
+	private final Matrix4d pose = new Matrix4d();
+	private final Vector3d endEffector = new Vector3d();
+	private final Vector3d r = new Vector3d();
+	private final Vector3d sXr = new Vector3d();
+
 	/**
 	 * Given the current pose of the robot, find the approximate jacobian.
 	 * @param arm the robot to analyze.
 	 */
 	public ApproximateJacobianScrewTheory(Limb arm) {
 		super(arm.getNumJoints());
+		axes = new Vector3d[DOF];
+		origins = new Vector3d[DOF];
+		for(int i=0;i<DOF;++i) {
+			axes[i] = new Vector3d();
+			origins[i] = new Vector3d();
+		}
+		update(arm);
+	}
 
-		Pose parentPose = arm.findParent(Pose.class);
-		Matrix4d iBaseWorld = parentPose==null ? MatrixHelper.createIdentityMatrix4() : parentPose.getWorld();
-		iBaseWorld.invert();
-
-		var ee = arm.getEndEffector().getSubject();
+	/**
+	 * Find the jacobian for the current pose of the robot.
+	 * @param arm the robot to analyze.  Must have the same number of joints as when this instance was made.
+	 * @throws InvalidParameterException if the robot has no end effector or the number of joints has changed.
+	 */
+	public void update(Limb arm) {
+		if(arm.getNumJoints()!=DOF) throw new InvalidParameterException("Robot has "+arm.getNumJoints()+" joints, expected "+DOF+".");
+		Pose ee = arm.getEndEffector().getSubject();
 		if(ee==null) throw new InvalidParameterException("Robot has no end effector.");
 
-		// For each joint
-		for (int i = 0; i < DOF; ++i) {
-			// get pose of joint i relative to the robot base
-			var motor = arm.getJoint(i);
-			if(motor==null) throw new InvalidParameterException("joint "+i+" is null.");
-			var hinge = motor.getHinge();
-			if(hinge==null) throw new InvalidParameterException("motor "+i+" has no hinge.");
-			var axle = hinge.getAxle();
-			if(axle==null) throw new InvalidParameterException("hinge "+i+" has no axle.");
+		ee.getWorld(pose);
+		pose.get(endEffector);
 
-			Matrix4d jointPose = axle.getWorld();
-			jointPose.mul(iBaseWorld);
+		int i=0;
+		for(NodePath<Motor> path : arm.getMotors()) {
+			Motor motor = path.getSubject();
+			if(motor==null) continue;
+			readJoint(motor,i);
 
-			// TODO if (hinge.isRevolute)
-			{
-				// the screw axis is the rotation axis
-				Vector3d s = MatrixHelper.getZAxis(jointPose);
-				// The angular velocity component of the screw is the same as s
-				double[] w = new double[] { s.x,s.y,s.z };
+			// revolute joint.  the screw axis is the rotation axis.
+			// Compute the cross product of s and the vector from joint origin to end effector
+			r.sub(endEffector,origins[i]);
+			sXr.cross(axes[i],r);
 
-				// Compute the position of the joint origin and end effector
-				Vector3d p = MatrixHelper.getPosition(jointPose);  // position of joint origin
-				Matrix4d m = ee.getWorld();
-				m.mul(iBaseWorld);
-				Vector3d p_endEffector = MatrixHelper.getPosition(m); // position of end effector
-
-				// Compute the cross product of s and the vector from joint origin to end effector
-				Vector3d r = new Vector3d();
-				r.sub(p_endEffector, p); // Vector from joint origin to end effector
-				Vector3d sXr = new Vector3d();
-				sXr.cross(s,r);
-				double[] v1 = new double[] { sXr.x,sXr.y,sXr.z };
-
-				// Fill in the Jacobian column
-				jacobian[0][i] = v1[0];
-				jacobian[1][i] = v1[1];
-				jacobian[2][i] = v1[2];
-				jacobian[3][i] = w[0];
-				jacobian[4][i] = w[1];
-				jacobian[5][i] = w[2];
-			} // TODO else if(hinge.isPrismatic)
-			/*
-			{
-				// for prismatic joint, the screw axis is the direction of translation
-				double[] v = new double[] {T.m02, T.m12, T.m22};
-				double[] w = new double[]{0, 0, 0};
+			// Fill in the Jacobian column
+			jacobian[0][i] = sXr.x;
+			jacobian[1][i] = sXr.y;
+			jacobian[2][i] = sXr.z;
+			jacobian[3][i] = -axes[i].x;
+			jacobian[4][i] = -axes[i].y;
+			jacobian[5][i] = -axes[i].z;
+			i++;
+		}
+	}
 
-				// Fill in the Jacobian column
-				for (int j = 0; j < 3; ++j) {
-					jacobian[j    ][i] = v[j];
-					jacobian[j + 3][i] = w[j];
-				}
-			}*/
+	/**
+	 * Cache the axis and origin of one joint.  A joint without an axle does not move the end effector.
+	 */
+	private void readJoint(Motor motor,int i) {
+		var hinge = motor.getHinge();
+		var axle = (hinge==null) ? null : hinge.getAxle();
+		if(axle==null) {
+			axes[i].set(0,0,0);
+			origins[i].set(endEffector);
+			return;
 		}
+		// the hinge turns the axle about its own Z axis.
+		axle.getWorld(pose);
+		axes[i].set(pose.m02,pose.m12,pose.m22);
+		pose.get(origins[i]);
 	}
 }
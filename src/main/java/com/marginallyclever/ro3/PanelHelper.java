@@ -65,7 +65,7 @@ public class PanelHelper {
                                                                    GridBagConstraints gbc) {
         NodeSelector<T> selector = new NodeSelector<>(nodePath.getType(), nodePath.getSubject());
         selector.addPropertyChangeListener("subject", (e) -> {
-            nodePath.setUniqueIDByNode((T)e.getNewValue());
+            Registry.changeScene(() -> nodePath.setUniqueIDByNode((T)e.getNewValue()));
         });
         PanelHelper.addLabelAndComponent(pane, label, selector, gbc);
         return selector;
@@ -85,7 +85,7 @@ public class PanelHelper {
         button.addActionListener(e -> {
             Color color = JColorChooser.showDialog(parent,title,startColor.get());
             if(color!=null) {
-                consumer.accept(color);
+                Registry.changeScene(() -> consumer.accept(color));
                 button.setBackground(color);
             }
         });
@@ -145,7 +145,7 @@ public class PanelHelper {
         limitCheckBox.addActionListener(e -> enableLimit(limitCheckBox.isSelected(),spinner,consumer,infinite) );
         spinner.addChangeListener(e -> {
             if (limitCheckBox.isSelected()) {
-                consumer.accept((Double) spinner.getValue());
+                Registry.changeScene(() -> consumer.accept((Double) spinner.getValue()));
             }
         });
         enableLimit(!Double.isInfinite(value),spinner,consumer,infinite);
@@ -160,7 +160,8 @@ public class PanelHelper {
 
     public static void enableLimit(boolean isSelected, JSpinner spinner, Consumer<Double> consumer,double infinite) {
         spinner.setEnabled(isSelected);
-        consumer.accept( (!isSelected) ? infinite : (Double)spinner.getValue() );
+        double limit = (!isSelected) ? infinite : (Double)spinner.getValue();
+        Registry.changeScene(() -> consumer.accept(limit));
     }
 
     /**
@@ -173,7 +174,7 @@ public class PanelHelper {
      */
     public static void addSelector(JPanel pane,GridBagConstraints gbc, String label, NodePath<ODEBody> originalValue, Consumer<ODEBody> consumer) {
         NodeSelector<ODEBody> selector = new NodeSelector<>(ODEBody.class,originalValue.getSubject());
-        selector.addPropertyChangeListener("subject", (evt) ->consumer.accept((ODEBody)evt.getNewValue()));
+        selector.addPropertyChangeListener("subject", (evt) ->Registry.changeScene(() -> consumer.accept((ODEBody)evt.getNewValue())));
         PanelHelper.addLabelAndComponent(pane, label,selector,gbc);
         gbc.gridy++;
     }
@@ -193,7 +194,7 @@ public class PanelHelper {
         double range = (int)((max-min)*100);
         JSlider slider = new JSlider((int)(min*100),(int)(max*100),(int)(value*100));
         slider.addChangeListener((e)->{
-            if(consumer!=null) consumer.accept(slider.getValue()/range);
+            if(consumer!=null) Registry.changeScene(() -> consumer.accept(slider.getValue()/range));
             f.setValue(slider.getValue()/100.0);
         });
         slider.setPreferredSize(new Dimension(100,20));
@@ -14,11 +14,11 @@ public class RO3 {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RO3.class);
 
     public static void main(String[] args) {
-        Registry.start();
-        setLookAndFeel();
+        StartupTimer.time("Registry",Registry::start);
+        StartupTimer.time("Look and feel",RO3::setLookAndFeel);
 
         if(!GraphicsEnvironment.isHeadless()) {
-            SwingUtilities.invokeLater(() -> (new RO3Frame()).setVisible(true));
+            SwingUtilities.invokeLater(() -> StartupTimer.time("RO3Frame",() -> new RO3Frame()).setVisible(true));
         }
     }
 
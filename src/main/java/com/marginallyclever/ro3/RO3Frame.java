@@ -22,6 +22,7 @@ import com.marginallyclever.ro3.apps.viewport.OpenGLPanel;
 import com.marginallyclever.ro3.apps.viewport.ViewportSettingsPanel;
 import com.marginallyclever.ro3.apps.viewport.viewporttool.ViewportToolPanel;
 import com.marginallyclever.ro3.apps.webcam.WebCamPanel;
+import com.marginallyclever.ro3.node.NodeBinaryWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,7 +46,7 @@ import java.util.Properties;
 public class RO3Frame extends JFrame {
     private static final Logger logger = LoggerFactory.getLogger(RO3Frame.class);
 
-    public static final FileNameExtensionFilter FILE_FILTER = new FileNameExtensionFilter("RO files", "RO");
+    public static final FileNameExtensionFilter FILE_FILTER = new FileNameExtensionFilter("RO files", "RO", NodeBinaryWriter.EXTENSION);
     public static String VERSION;
 
     private final List<DockingPanel> windows = new ArrayList<>();
@@ -86,7 +87,7 @@ public class RO3Frame extends JFrame {
         resetDefaultLayout();
         saveAndRestoreLayout();
 
-        UndoSystem.start();
+        StartupTimer.time("UndoSystem",UndoSystem::start);
 
         setJMenuBar(new MainMenu(this));
 
@@ -27,8 +27,11 @@ import com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies.ODECylinder
 import com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies.ODESphere;
 import com.marginallyclever.ro3.node.nodes.pose.Pose;
 import com.marginallyclever.ro3.node.nodes.pose.poses.*;
+import com.marginallyclever.ro3.node.nodes.pose.poses.space.CelestialBody;
 import com.marginallyclever.ro3.node.nodes.pose.poses.space.SpaceShip;
 import com.marginallyclever.ro3.physics.ODEPhysics;
+import com.marginallyclever.ro3.raypicking.RayPickIndex;
+import com.marginallyclever.ro3.simulation.SimulationScheduler;
 import com.marginallyclever.ro3.texture.TextureFactory;
 
 import javax.swing.event.EventListenerList;
@@ -48,10 +51,21 @@ public class Registry {
     public static final ListWithEvents<Camera> cameras = new ListWithEvents<>();
     public static final ListWithEvents<Node> selection = new ListWithEvents<>();
     private static final ODEPhysics physics = new ODEPhysics();
+    // lets a thread simulate in its own physics world.  see RolloutPool.
+    private static final ThreadLocal<ODEPhysics> threadPhysics = new ThreadLocal<>();
+    private static final SimulationScheduler simulation = new SimulationScheduler(physics,Registry::getScene);
+    private static final RayPickIndex rayPickIndex = new RayPickIndex();
 
+    static {
+        rayPickIndex.setRoot(scene);
+    }
+
+    /**
+     * Register every type of {@link Node} with the {@link #nodeFactory} and reset the scene.  This list is the index
+     * of node types.  Set the system property {@link NodeFactory#SCAN_PROPERTY} to check it for missing types.
+     */
     public static void start() {
         nodeFactory.clear();
-        nodeFactory.scan();
         NodeFactory.Category node = nodeFactory.getRoot();
         {
             NodeFactory.Category behavior = node.add("Behavior", null);
@@ -63,12 +77,14 @@ public class Registry {
                 behavior.add("Control", null);
                 NodeFactory.Category decorator = behavior.add("Decorator", null);
                 {
+                    decorator.add("Delay", Delay::new);
                     decorator.add("ForceFailure", ForceFailure::new);
                     decorator.add("ForceSuccess", ForceSuccess::new);
                     decorator.add("Inverter", Inverter::new);
                     decorator.add("KeepRunningUntilFailure", KeepRunningUntilFailure::new);
                     decorator.add("Repeat", Repeat::new);
                     decorator.add("RetryUntilSuccessful", RetryUntilSuccessful::new);
+                    decorator.add("RunOnce", RunOnce::new);
                 }
                 behavior.add("Fallback", Fallback::new);
                 behavior.add("Sequence", Sequence::new);
@@ -96,6 +112,7 @@ public class Registry {
             {
                 pose.add("AttachmentPoint", AttachmentPoint::new);
                 pose.add("Camera", Camera::new);
+                pose.add("CelestialBody", CelestialBody::new);
                 pose.add("Limb", Limb::new);
                 pose.add("LookAt", LookAt::new);
                 pose.add("MeshInstance", MeshInstance::new);
@@ -116,10 +133,21 @@ public class Registry {
             }
         }
 
+        if(Boolean.getBoolean(NodeFactory.SCAN_PROPERTY)) {
+            StartupTimer.time("Node type scan",nodeFactory::scan);
+        }
+
+        physics.loadPrefs();
         reset();
     }
 
     public static void reset() {
+        synchronized (simulation.getLock()) {
+            resetWhileLocked();
+        }
+    }
+
+    private static void resetWhileLocked() {
         selection.removeAll();
 
         // reset camera
@@ -152,9 +180,25 @@ public class Registry {
     }
 
     public static void setScene(Node newScene) {
-        fireBeforeSceneChange(newScene);
-        scene = newScene;
-        fireAfterSceneChange(newScene);
+        synchronized (simulation.getLock()) {
+            fireBeforeSceneChange(newScene);
+            scene = newScene;
+            rayPickIndex.setRoot(newScene);
+            simulation.reset();
+            fireAfterSceneChange(newScene);
+        }
+    }
+
+    /**
+     * Make a change to the scene while holding the simulation lock, so that it never lands in the middle of a step.
+     * Changes made anywhere but the simulation thread - by the user interface, imports, undo and redo - go through
+     * here.
+     * @param change the change to make
+     */
+    public static void changeScene(Runnable change) {
+        synchronized (simulation.getLock()) {
+            change.run();
+        }
     }
 
     private static void fireBeforeSceneChange(Node newScene) {
@@ -173,7 +217,36 @@ public class Registry {
         return scene;
     }
 
+    /**
+     * @return the physics world set for this thread by {@link #setThreadPhysics(ODEPhysics)}, or the physics world of
+     * the scene.
+     */
     public static ODEPhysics getPhysics() {
-        return physics;
+        ODEPhysics local = threadPhysics.get();
+        return local!=null ? local : physics;
+    }
+
+    /**
+     * Make {@link #getPhysics()} return a different physics world on the calling thread.  ODE nodes attached and
+     * updated on this thread will use it.
+     * @param local the physics world for this thread, or null to use the physics world of the scene again.
+     */
+    public static void setThreadPhysics(ODEPhysics local) {
+        if(local==null) threadPhysics.remove();
+        else threadPhysics.set(local);
+    }
+
+    /**
+     * @return the scheduler that advances the physics and the scene.
+     */
+    public static SimulationScheduler getSimulation() {
+        return simulation;
+    }
+
+    /**
+     * @return the index of every {@link MeshInstance} in the current scene.
+     */
+    public static RayPickIndex getRayPickIndex() {
+        return rayPickIndex;
     }
 }
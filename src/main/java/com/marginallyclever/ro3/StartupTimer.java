@@ -0,0 +1,58 @@
+package com.marginallyclever.ro3;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * {@link StartupTimer} logs how long each phase of starting the app takes and how long since the process started,
+ * so a slow start is easy to spot and easy to blame.
+ */
+public final class StartupTimer {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimer.class);
+    // when the JVM started, or when this class was loaded if the platform does not say.
+    private static final Instant launched = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+
+    private StartupTimer() {}
+
+    /**
+     * Run one phase of startup and log how long it took.
+     * @param phase the name of the phase.
+     * @param task the phase.
+     */
+    public static void time(String phase, Runnable task) {
+        time(phase,() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run one phase of startup and log how long it took.
+     * @param phase the name of the phase.
+     * @param task the phase.
+     * @return the result of the phase.
+     */
+    public static <T> T time(String phase, Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            log(phase,start);
+        }
+    }
+
+    /**
+     * Log the end of a phase that started at the given time.
+     * @param phase the name of the phase.
+     * @param startNanos the value of {@link System#nanoTime()} when the phase started.
+     */
+    public static void log(String phase, long startNanos) {
+        long took = (System.nanoTime()-startNanos)/1_000_000;
+        long since = Duration.between(launched,Instant.now()).toMillis();
+        logger.info("Startup: {} took {}ms, {}ms since launch.",phase,took,since);
+    }
+}
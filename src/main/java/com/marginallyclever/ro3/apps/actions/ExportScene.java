@@ -4,6 +4,7 @@ import com.marginallyclever.convenience.helpers.FileHelper;
 import com.marginallyclever.ro3.RO3Frame;
 import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.shared.FilenameExtensionChecker;
+import com.marginallyclever.ro3.node.NodeBinaryWriter;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,24 +84,34 @@ public class ExportScene extends AbstractAction {
      * @param absolutePath the path to the file to create.
      */
     public void commitExport(String absolutePath) {
-        logger.info("Exporting to {}", absolutePath);
+        commitExport(absolutePath,false);
+    }
 
-        JSONObject json = Registry.getScene().toJSON();
+    /**
+     * Export the scene and all the assets used to a single file for sharing on another computer.
+     * @param absolutePath the path to the file to create.
+     * @param binary true to store the scene with {@link NodeBinaryWriter} instead of as JSON.
+     */
+    public void commitExport(String absolutePath,boolean binary) {
+        logger.info("Exporting to {}", absolutePath);
 
         List<String> sources = Registry.textureFactory.getAllSourcesForExport();
         sources.addAll(Registry.meshFactory.getAllSourcesForExport());
 
-        createZipAndAddAssets(absolutePath, json.toString(), sources);
+        createZipAndAddAssets(absolutePath, sources, binary);
 
         logger.info("done.");
     }
 
-    private void createZipAndAddAssets(String outputZipFile, String json, List<String> sources) {
+    private void createZipAndAddAssets(String outputZipFile, List<String> sources, boolean binary) {
         // for remembering unique asset names
         Map<String, String> pathMapping = new HashMap<>();
+        // original path to name in the zip, for the binary asset table.
+        Map<String, String> assetNames = new HashMap<>();
 
         String rootFolderName = nameWithoutExtension(new File(outputZipFile));
-        String sceneName = rootFolderName+ "." + RO3Frame.FILE_FILTER.getExtensions()[0];  // "RO"
+        String extension = binary ? NodeBinaryWriter.EXTENSION : RO3Frame.FILE_FILTER.getExtensions()[0];  // "RO"
+        String sceneName = rootFolderName+ "." + extension;
         String newSceneName = rootFolderName+"/"+sceneName;
         pathMapping.put(sceneName,newSceneName);  // reserve this name
 
@@ -109,6 +120,7 @@ public class ExportScene extends AbstractAction {
                 String newName = createUniqueName(originalPath, pathMapping);
                 //logger.debug("Adding {} as {}", originalPath, newName);
                 addFileToZip(originalPath, rootFolderName + "/" + newName, zipOutputStream);
+                assetNames.put(originalPath, newName);
 
                 String safeOriginal = makeSafe(originalPath);
                 String safeReplacement = makeSafe(newName);
@@ -116,12 +128,18 @@ public class ExportScene extends AbstractAction {
                 pathMapping.put(safeOriginal, safeReplacement);
             }
 
-            // Modify JSON string
-            String modifiedJson = replacePathsInJson(json, pathMapping);
-            // Add modified JSON string to zip
             zipOutputStream.putNextEntry(new ZipEntry(newSceneName));
-            byte[] jsonBytes = modifiedJson.getBytes();
-            zipOutputStream.write(jsonBytes, 0, jsonBytes.length);
+            if(binary) {
+                // the binary scene keeps asset paths in one table, so only the table changes.
+                NodeBinaryWriter.write(Registry.getScene(), zipOutputStream, sources,
+                        path -> assetNames.getOrDefault(path, path));
+            } else {
+                // Modify JSON string
+                String modifiedJson = replacePathsInJson(Registry.getScene().toJSON().toString(), pathMapping);
+                // Add modified JSON string to zip
+                byte[] jsonBytes = modifiedJson.getBytes();
+                zipOutputStream.write(jsonBytes, 0, jsonBytes.length);
+            }
             zipOutputStream.closeEntry();
         } catch (FileNotFoundException e) {
             logger.error("Could not open ZIP file.", e);
@@ -1,12 +1,14 @@
 package com.marginallyclever.ro3.apps.actions;
 
+import com.marginallyclever.convenience.helpers.FileHelper;
 import com.marginallyclever.ro3.RO3Frame;
 import com.marginallyclever.ro3.RecentFilesMenu;
 import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.UndoSystem;
 import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.NodeBinaryReader;
+import com.marginallyclever.ro3.node.NodeJSONStream;
 import com.marginallyclever.ro3.node.nodes.pose.poses.Camera;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,10 +17,12 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
 import java.security.InvalidParameterException;
 import java.util.Objects;
 
@@ -109,7 +113,7 @@ public class LoadScene extends AbstractAction {
     public void commitLoad(File selectedFile) {
         if( selectedFile == null ) throw new InvalidParameterException("File cannot be null");
         if( !selectedFile.exists() ) {
-            menu.removePath(selectedFile.getAbsolutePath());
+            if(menu!=null) menu.removePath(selectedFile.getAbsolutePath());
             throw new InvalidParameterException("File does not exist");
         }
 
@@ -120,18 +124,33 @@ public class LoadScene extends AbstractAction {
         String oldCWD = System.getProperty("user.dir");
         System.setProperty("user.dir",newCWD);
 
+        Path path = selectedFile.toPath();
         try {
-            String content = new String(Files.readAllBytes(Paths.get(selectedFile.getAbsolutePath())));
-            // if the json is bad, this will throw an exception before removing the previous scene.
-            JSONObject json = new JSONObject(content);
+            // if the file is bad, this will throw an exception before removing the previous scene.
+            NodeBinaryReader binary = null;
+            if(NodeBinaryReader.isBinary(path)) {
+                // assets are found now, while the working directory is the folder of the scene.
+                binary = NodeBinaryReader.open(path, FileHelper::getAbsolutePathOrFilename);
+            } else {
+                try(InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                    NodeJSONStream.validate(in);
+                }
+            }
 
             // Reset the previous scene.
             NewScene newScene = new NewScene();
             newScene.commitNewScene();
 
-            // JSON has parsed OK.
+            // file has parsed OK.
             Node loaded = new Node("Scene");
-            loaded.fromJSON(json);
+            if(binary!=null) {
+                // the rest of the tree is made when it is needed.
+                binary.readInto(loaded, 1);
+            } else {
+                try(InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                    NodeJSONStream.readInto(loaded, in);
+                }
+            }
 
             Registry.setScene(loaded);
             Registry.getPhysics().deferredAction(loaded);
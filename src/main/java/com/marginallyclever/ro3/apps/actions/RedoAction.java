@@ -1,5 +1,7 @@
 package com.marginallyclever.ro3.apps.actions;
 
+import com.marginallyclever.ro3.Registry;
+
 import javax.swing.*;
 import javax.swing.undo.UndoManager;
 import java.awt.event.ActionEvent;
@@ -26,7 +28,7 @@ public class RedoAction extends AbstractAction {
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        undoManager.redo();
+        Registry.changeScene(() -> undoManager.redo());
         if(undoAction!=null) undoAction.updateUndoState();
         updateRedoState();
     }
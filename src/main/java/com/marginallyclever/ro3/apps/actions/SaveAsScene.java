@@ -4,16 +4,22 @@ import com.marginallyclever.ro3.RO3Frame;
 import com.marginallyclever.ro3.RecentFilesMenu;
 import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.shared.FilenameExtensionChecker;
+import com.marginallyclever.ro3.node.NodeBinaryWriter;
+import com.marginallyclever.ro3.node.NodeJSONStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.InvalidParameterException;
 import java.util.Objects;
 
@@ -101,8 +107,14 @@ public class SaveAsScene extends AbstractAction {
     public static void commitSave(String absolutePath) throws IOException {
         logger.info("Save to {}",absolutePath);
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(absolutePath))) {
-            writer.write(Registry.getScene().toJSON().toString());
+        try (FileChannel channel = FileChannel.open(Path.of(absolutePath),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1<<16)) {
+            if(absolutePath.toLowerCase().endsWith("."+NodeBinaryWriter.EXTENSION)) {
+                NodeBinaryWriter.write(Registry.getScene(), out);
+            } else {
+                NodeJSONStream.write(Registry.getScene(), out);
+            }
         }
 
         logger.info("done.");
@@ -1,5 +1,7 @@
 package com.marginallyclever.ro3.apps.actions;
 
+import com.marginallyclever.ro3.Registry;
+
 import javax.swing.*;
 import javax.swing.undo.UndoManager;
 import java.awt.event.ActionEvent;
@@ -27,7 +29,7 @@ public class UndoAction extends AbstractAction {
 
 	@Override
     public void actionPerformed(ActionEvent e) {
-        undoManager.undo();
+        Registry.changeScene(() -> undoManager.undo());
         if(redoAction!=null) redoAction.updateRedoState();
         updateUndoState();
     }
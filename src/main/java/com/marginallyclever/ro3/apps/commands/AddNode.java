@@ -74,16 +74,18 @@ public class AddNode<T extends Node> extends AbstractUndoableEdit {
     public void addOne(Node parent) {
         Node child = factory.get();
         created.add(child);
-        parent.addChild(child);
+        Registry.changeScene(() -> parent.addChild(child));
     }
 
     @Override
     public void undo() {
         super.undo();
-        for(Node child : created) {
-            Node parent = child.getParent();
-            parent.removeChild(child);
-        }
+        Registry.changeScene(() -> {
+            for(Node child : created) {
+                Node parent = child.getParent();
+                parent.removeChild(child);
+            }
+        });
     }
 
     public Node getFirstCreated() {
@@ -56,7 +56,7 @@ public class ImportMesh extends AbstractUndoableEdit {
      * Load a scene from a file.
      */
     public void execute() {
-        Registry.getScene().addChild(meshInstance);
+        Registry.changeScene(() -> Registry.getScene().addChild(meshInstance));
     }
 
     private String getFilenameWithoutExtensionFromPath() {
@@ -71,6 +71,6 @@ public class ImportMesh extends AbstractUndoableEdit {
     }
 
     public void reverse() {
-        Registry.getScene().removeChild(meshInstance);
+        Registry.changeScene(() -> Registry.getScene().removeChild(meshInstance));
     }
 }
@@ -1,7 +1,10 @@
 package com.marginallyclever.ro3.apps.commands;
 
+import com.marginallyclever.convenience.helpers.FileHelper;
 import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.NodeBinaryReader;
+import com.marginallyclever.ro3.node.NodeLoader;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,13 +57,21 @@ public class ImportScene extends AbstractUndoableEdit {
         System.setProperty("user.dir",newCWD);
 
         try {
-            String content = new String(Files.readAllBytes(Paths.get(selectedFile.getAbsolutePath())));
-            // if the json is bad, this will throw an exception before removing the previous scene.
-            var jsonObject = new JSONObject(content);
-            // Add the loaded scene to the current scene.
-            created = createFromJSON(jsonObject);
-            Registry.getScene().addChild(created);
-            Registry.getPhysics().deferredAction(created);
+            if(NodeBinaryReader.isBinary(selectedFile.toPath())) {
+                // every node gets a new ID, so make the whole tree now.
+                created = NodeBinaryReader.open(selectedFile.toPath(),FileHelper::getAbsolutePathOrFilename).read(Integer.MAX_VALUE);
+                created.witnessProtection();
+            } else {
+                String content = new String(Files.readAllBytes(Paths.get(selectedFile.getAbsolutePath())));
+                // if the json is bad, this will throw an exception before removing the previous scene.
+                var jsonObject = new JSONObject(content);
+                created = createFromJSON(jsonObject);
+            }
+            // Add the loaded scene to the current scene.  only this part has to wait for the simulation.
+            Registry.changeScene(() -> {
+                Registry.getScene().addChild(created);
+                Registry.getPhysics().deferredAction(created);
+            });
         } catch (IOException e) {
             logger.error("Error loading scene from JSON", e);
         }
@@ -77,13 +88,12 @@ public class ImportScene extends AbstractUndoableEdit {
 
     public void reverse() {
         Node parent = created.getParent();
-        parent.removeChild(created);
+        Registry.changeScene(() -> parent.removeChild(created));
         created = null;
     }
 
     public static Node createFromJSON(JSONObject jsonObject) {
-        Node loaded = Registry.nodeFactory.create(jsonObject.get("type").toString());
-        loaded.fromJSON(jsonObject);
+        Node loaded = NodeLoader.fromJSON(jsonObject);
         loaded.witnessProtection();
         return loaded;
     }
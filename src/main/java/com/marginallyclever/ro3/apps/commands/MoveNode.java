@@ -58,6 +58,10 @@ public class MoveNode extends AbstractUndoableEdit {
     }
 
     public void execute() {
+        Registry.changeScene(this::moveToNewParent);
+    }
+
+    private void moveToNewParent() {
         // save the transforms of the children in world space
         Matrix4d m = null;
 
@@ -96,6 +100,10 @@ public class MoveNode extends AbstractUndoableEdit {
     }
 
     public void reverse() {
+        Registry.changeScene(this::moveToOldParent);
+    }
+
+    private void moveToOldParent() {
         Matrix4d m = null;
         for(var data : childParentMap) {
             Node child = data.child;
@@ -61,7 +61,7 @@ public class PasteNode extends AbstractUndoableEdit {
                     // import this json as a child of every selected node.
                     // guarantees the nodes go through witness protection.
                     Node child = ImportScene.createFromJSON(jsonObject);
-                    parent.addChild(child);
+                    Registry.changeScene(() -> parent.addChild(child));
                     children.add(child);
                 }
             }
@@ -75,10 +75,12 @@ public class PasteNode extends AbstractUndoableEdit {
     @Override
     public void undo() throws CannotUndoException {
         super.undo();
-        for(Node child : children) {
-            Node parent = child.getParent();
-            parent.removeChild(child);
-        }
+        Registry.changeScene(() -> {
+            for(Node child : children) {
+                Node parent = child.getParent();
+                parent.removeChild(child);
+            }
+        });
         children.clear();
     }
 }
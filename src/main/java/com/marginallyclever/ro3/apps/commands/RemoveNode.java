@@ -38,11 +38,13 @@ public class RemoveNode extends AbstractUndoableEdit {
     }
 
     public void execute() {
-        for(RemoveNodeEvent entry : childParentMap) {
-            Node parent = entry.parent();
-            Node child = entry.child();
-            parent.removeChild(child);
-        }
+        Registry.changeScene(() -> {
+            for(RemoveNodeEvent entry : childParentMap) {
+                Node parent = entry.parent();
+                Node child = entry.child();
+                parent.removeChild(child);
+            }
+        });
     }
 
     @Override
@@ -52,11 +54,13 @@ public class RemoveNode extends AbstractUndoableEdit {
     }
 
     public void reverse() {
-        for(RemoveNodeEvent entry : childParentMap) {
-            Node parent = entry.parent();
-            Node child = entry.child();
-            int index = entry.index();
-            parent.addChild(index,child);
-        }
+        Registry.changeScene(() -> {
+            for(RemoveNodeEvent entry : childParentMap) {
+                Node parent = entry.parent();
+                Node child = entry.child();
+                int index = entry.index();
+                parent.addChild(index,child);
+            }
+        });
     }
 }
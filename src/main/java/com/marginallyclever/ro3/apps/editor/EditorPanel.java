@@ -8,6 +8,7 @@ import com.marginallyclever.ro3.apps.nodeselector.NodeSelector;
 import com.marginallyclever.ro3.apps.shared.PersistentJFileChooser;
 import com.marginallyclever.ro3.node.Node;
 import com.marginallyclever.ro3.node.NodeDetachListener;
+import com.marginallyclever.ro3.node.nodes.marlinrobot.GCodeJob;
 import com.marginallyclever.ro3.node.nodes.marlinrobot.MarlinListener;
 import com.marginallyclever.ro3.node.nodes.marlinrobot.MarlinRobot;
 import com.marginallyclever.ro3.node.nodes.marlinrobot.marlinrobotarm.MarlinRobotArm;
@@ -37,8 +38,11 @@ import java.util.Objects;
  * While it has one, all <b>MarlinEvent</b>s will be written to the status bar (8).</p>
  * <p>If the <b>get</b> toggle is on, the next event from MarlinRobotArm will be written out at the caret position (7).
  * <p>If the <b>lock</b> toggle is on then <b>get</b> will stay on until further notice.</p>
- * <p>If the <b>send</b> button is pressed, the current line of gcode is transmitted to the robot.  Any response from
- * the robot may be written to file, depending on the state of the <b>get</b> toggle.</p>
+ * <p>If the <b>play</b> toggle is on when the timer is started, the text from the line at the caret to the end is
+ * copied and streamed to the robot as a {@link GCodeJob}.  A few commands are sent ahead and each reply from the robot
+ * sends the next one, so the robot sets the pace.  Editing the text does not change a job that is playing.  While it
+ * plays the caret follows the last line done and the status bar shows the lines per second and the time the robot
+ * takes to reply.</p>
  * <p>There is room for more editing tools here like save, load, copy, cut, paste, undo, redo, etc.</p>
  */
 public class EditorPanel extends App implements MarlinListener, PropertyChangeListener, NodeDetachListener, SceneChangeListener {
@@ -58,13 +62,14 @@ public class EditorPanel extends App implements MarlinListener, PropertyChangeLi
         // constructor
         {
             putValue(Action.NAME, "Play");
-            putValue(Action.SHORT_DESCRIPTION, "Send the current line to the robot.");
+            putValue(Action.SHORT_DESCRIPTION, "Send the program to the robot from the current line.");
             putValue(Action.SMALL_ICON,new ImageIcon(Objects.requireNonNull(getClass().getResource("/com/marginallyclever/ro3/shared/icons8-play-16.png"))));
         }
 
         @Override
         public void actionPerformed(ActionEvent e) {
             recordToggle.setSelected(false);
+            if(!playToggle.isSelected()) stopPlaying();
         }
     });
 
@@ -80,18 +85,26 @@ public class EditorPanel extends App implements MarlinListener, PropertyChangeLi
         @Override
         public void actionPerformed(ActionEvent e) {
             playToggle.setSelected(false);
+            stopPlaying();
         }
     });
     private JFormattedTextField secondsField;
     private final JToggleButton runToggle = new JToggleButton("Start");
     private final JProgressBar progressBar = new JProgressBar();
     private final Timer timer = new Timer(TIMER_INTERVAL_MS, null);
+    // the job started by play, and the robot and line of the document it started from.
+    private volatile GCodeJob playing;
+    private MarlinRobot playingOn;
+    private int playingFrom;
     private final ActionListener timerAction = (e)-> {
+        if(playing!=null) {
+            showPlaying();
+            return;
+        }
         int value = progressBar.getValue() + TIMER_INTERVAL_MS;
         if (value >= progressBar.getMaximum()) {
             value = 0;
-            if(playToggle.isSelected()) playOnce();
-            else if(recordToggle.isSelected()) recordOnce();
+            if(recordToggle.isSelected()) recordOnce();
         }
         progressBar.setValue(value);
     };
@@ -170,14 +183,12 @@ public class EditorPanel extends App implements MarlinListener, PropertyChangeLi
             if (runToggle.isSelected()) {
                 runToggle.setText("Stop");
                 runToggle.setToolTipText("Click to stop reporting.");
+                if(playToggle.isSelected()) startPlaying();
                 timer.addActionListener(timerAction);
                 timer.start();
             } else {
-                runToggle.setText("Start");
-                runToggle.setToolTipText("Click to start reporting.");
-                progressBar.setValue(0); // Reset progress bar when toggle is off
-                timer.stop();
-                timer.removeActionListener(timerAction);
+                stopPlaying();
+                stopTimer();
             }
         });
 
@@ -186,6 +197,7 @@ public class EditorPanel extends App implements MarlinListener, PropertyChangeLi
         runToggle.addHierarchyListener(e -> {
             if ((HierarchyEvent.SHOWING_CHANGED & e.getChangeFlags()) !=0
                     && !runToggle.isShowing()) {
+                stopPlaying();
                 timer.stop();
                 timer.removeActionListener(timerAction);
             }
@@ -199,6 +211,15 @@ public class EditorPanel extends App implements MarlinListener, PropertyChangeLi
         toolBar.add(progressBar);
     }
 
+    private void stopTimer() {
+        runToggle.setSelected(false);
+        runToggle.setText("Start");
+        runToggle.setToolTipText("Click to start reporting.");
+        progressBar.setValue(0); // Reset progress bar when toggle is off
+        timer.stop();
+        timer.removeActionListener(timerAction);
+    }
+
     private void updateLabels() {
         setSecondsField(secondsField);
         var arm = marlinRobot.getSubject();
@@ -236,28 +257,10 @@ public class EditorPanel extends App implements MarlinListener, PropertyChangeLi
         secondsField.setValue(getReportInterval());
     }
 
-    /**
-     * @return the line of text at the current caret position, or an empty string.
-     */
-    private String getLineAtCaret() {
-        // get the current line of the document at the caret position.
-        int caretPosition = text.getCaretPosition();
-        Element root = text.getDocument().getDefaultRootElement();
-        int lineNumber = root.getElementIndex(caretPosition);
-        Element lineElement = root.getElement(lineNumber);
-        int start = lineElement.getStartOffset();
-        int end = lineElement.getEndOffset();
-        try {
-            return text.getDocument().getText(start, end - start);
-        } catch (BadLocationException exception) {
-            logger.error("Failed to get line from document.",exception);
-        }
-        return "";
-    }
-
     @Override
     public void messageFromMarlin(String message) {
-        statusLabel.setText(message);
+        // while playing the status shows the speed of the job instead of every reply.
+        if(playing==null) statusLabel.setText(message);
         if(recordToggle.isSelected()) {
             if (!message.startsWith("Error")) {
                 if (message.startsWith("Ok:")) message = message.substring(3);    // remove
@@ -296,6 +299,7 @@ public class EditorPanel extends App implements MarlinListener, PropertyChangeLi
     private void robotHasChanged(PropertyChangeEvent evt) {
         // make old arm forget me.
         MarlinRobot oldRobot = ((MarlinRobot)evt.getOldValue());
+        stopPlaying();
         if(oldRobot!=null) {
             oldRobot.removeMarlinListener(EditorPanel.this);
             oldRobot.removeDetachListener(this);
@@ -322,53 +326,82 @@ public class EditorPanel extends App implements MarlinListener, PropertyChangeLi
         }
     }
 
-    private void playOnce() {
-        var arm = marlinRobot.getSubject();
-        if(arm==null) return;
+    /**
+     * Copy the document from the line at the caret to the end and start streaming it to the robot.
+     */
+    private void startPlaying() {
+        var robot = marlinRobot.getSubject();
+        if(robot==null) return;
 
-        // get the next line that is not blank.
-        String message="";
-        do {
-            message = getLineAtCaret();
-            if(!moveCaretDownOneLine()) {
-                return;  // end of document or failed to move.
-            }
-        } while(message.trim().isBlank());
+        Element root = text.getDocument().getDefaultRootElement();
+        int line = root.getElementIndex(text.getCaretPosition());
+        int start = root.getElement(line).getStartOffset();
+        String program;
+        try {
+            program = text.getDocument().getText(start, text.getDocument().getLength() - start);
+        } catch (BadLocationException exception) {
+            logger.error("Failed to get text from document.",exception);
+            return;
+        }
+
+        playingOn = robot;
+        playingFrom = line;
+        playing = new GCodeJob(robot,"Editor",program,GCodeJob.DEFAULT_QUEUE_SIZE,GCodeJob.DEFAULT_MAX_IN_FLIGHT);
+        Registry.changeScene(() -> robot.runJob(playing));
+    }
 
-        // not the end and not blank.
-        arm.sendGCode(message);
+    /**
+     * Stop the job started by play, if it is still running.
+     */
+    private void stopPlaying() {
+        var job = playing;
+        if(job==null) return;
+        playing = null;
+        var robot = playingOn;
+        playingOn = null;
+        Registry.changeScene(() -> {
+            if(robot.getJob()==job) robot.cancelJob();
+        });
+    }
+
+    /**
+     * Move the caret to the last line done and show the progress and speed of the job.
+     */
+    private void showPlaying() {
+        var job = playing;
+        long done = job.getLastLineDone();
+        if(done>=0) moveCaretToLine(playingFrom + (int)done);
+        progressBar.setValue((int)(job.getProgress() * progressBar.getMaximum()));
+
+        String speed = String.format("%d lines, %.0f lines/s, reply p50 %.1fms p95 %.1fms p99 %.1fms",
+                job.getLinesDone(),
+                job.getLinesPerSecondReal(),
+                job.getLatencyPercentile(50)*1000,
+                job.getLatencyPercentile(95)*1000,
+                job.getLatencyPercentile(99)*1000);
+        if(job.isFinished()) {
+            stopPlaying();
+            stopTimer();
+            statusLabel.setText("Done. "+speed);
+        } else {
+            statusLabel.setText("Line "+(playingFrom+done+1)+". "+speed);
+        }
     }
 
     private void recordOnce() {
         var arm = marlinRobot.getSubject();
         if(arm==null) return;
-        arm.sendGCode("G0");
+        Registry.changeScene(() -> arm.sendGCode("G0"));
     }
 
     /**
-     * Move the caret down one line.
-     * @return true if the caret was moved, false otherwise.
+     * Move the caret to the start of a line, if the document still has that line.
+     * @param lineNumber the line, counting from zero.
      */
-    private boolean moveCaretDownOneLine() {
-        int caretPosition = text.getCaretPosition();
+    private void moveCaretToLine(int lineNumber) {
         Element root = text.getDocument().getDefaultRootElement();
-        int lineNumber = root.getElementIndex(caretPosition);
-        Element lineElement = root.getElement(lineNumber);
-        int end = lineElement.getEndOffset();
-        if(end >= text.getDocument().getLength()) {
-            statusLabel.setText("End of document.");
-            return false;
-        }
-        // try to move
-        try {
-            text.setCaretPosition(Math.min(end, text.getDocument().getLength()));
-        } catch (Exception exception) {
-            logger.error("Failed to move caret.",exception);
-            return false;
-        }
-
-        statusLabel.setText("Line "+(lineNumber+1));
-        return true;
+        if(lineNumber >= root.getElementCount()) return;
+        text.setCaretPosition(root.getElement(lineNumber).getStartOffset());
     }
 
     @Override
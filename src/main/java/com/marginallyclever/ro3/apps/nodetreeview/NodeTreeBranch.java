@@ -1,5 +1,6 @@
 package com.marginallyclever.ro3.apps.nodetreeview;
 
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.node.Node;
 
 import javax.swing.tree.DefaultMutableTreeNode;
@@ -28,7 +29,15 @@ public class NodeTreeBranch extends DefaultMutableTreeNode {
         }
         Node node = this.getNode();
         if(node==null) throw new NullPointerException("Node is null");
-        node.setName(userObject.toString());
+        Registry.changeScene(() -> node.setName(userObject.toString()));
+    }
+
+    /**
+     * A node with children that have not been made yet can still be expanded.
+     */
+    @Override
+    public boolean isLeaf() {
+        return super.isLeaf() && !getNode().hasPendingChildren();
     }
 
     @Override
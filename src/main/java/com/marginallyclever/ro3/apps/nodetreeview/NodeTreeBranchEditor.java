@@ -1,5 +1,6 @@
 package com.marginallyclever.ro3.apps.nodetreeview;
 
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.node.Node;
 
 import javax.swing.*;
@@ -35,7 +36,7 @@ public class NodeTreeBranchEditor extends DefaultTreeCellEditor {
             return branch; // Return the current node without changing the name
         }
         // If the name is valid, set it
-        subject.setName(newName);
+        Registry.changeScene(() -> subject.setName(newName));
         return branch;
     }
 
@@ -52,7 +53,7 @@ public class NodeTreeBranchEditor extends DefaultTreeCellEditor {
         }
 
         // If the name is valid, set it and stop editing
-        subject.setName(newName);
+        Registry.changeScene(() -> subject.setName(newName));
         return super.stopCellEditing();
     }
 
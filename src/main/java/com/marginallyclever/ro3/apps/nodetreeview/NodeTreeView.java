@@ -15,7 +15,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
+import javax.swing.event.TreeExpansionEvent;
 import javax.swing.event.TreeSelectionEvent;
+import javax.swing.event.TreeWillExpandListener;
 import javax.swing.tree.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -71,6 +73,18 @@ public class NodeTreeView extends App
 
         tree.getSelectionModel().setSelectionMode(TreeSelectionModel.DISCONTIGUOUS_TREE_SELECTION);
         tree.addTreeSelectionListener(this::changeSelection);
+        tree.addTreeWillExpandListener(new TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event) {
+                // make the children of a node that were left in the file.  each one is added by nodeAttached().
+                NodeTreeBranch branch = (NodeTreeBranch) event.getPath().getLastPathComponent();
+                Node node = branch.getNode();
+                if(node.hasPendingChildren()) Registry.changeScene(node::getChildren);
+            }
+
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event) {}
+        });
 
         tree.setToolTipText("");
 
@@ -156,6 +170,7 @@ public class NodeTreeView extends App
         node.removeAttachListener(this);
         node.removeDetachListener(this);
         node.removeRenameListener(this);
+        if(node.hasPendingChildren()) return;
 
         // stop listening to all the children of this node, a reverse of scanTree()
         List<Node> toRemove = new ArrayList<>(node.getChildren());
@@ -177,6 +192,8 @@ public class NodeTreeView extends App
             logger.error("Node has no branch");
             return;
         }
+        // leave children in the file until the branch is expanded.
+        if(toScan.hasPendingChildren()) return;
 
         for (Node child : toScan.getChildren()) {
             //logger.debug("node has child "+child.getAbsolutePath());
@@ -220,15 +237,21 @@ public class NodeTreeView extends App
 
     @Override
     public void nodeAttached(Node child) {
+        // nodes can be attached by the simulation.  the tree is only touched on the event dispatch thread.
+        if(!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> Registry.changeScene(() -> nodeAttached(child)));
+            return;
+        }
         //logger.debug("Attached "+child.getAbsolutePath());
         Node parent = child.getParent();
-        if(parent==null) throw new RuntimeException("source node has no parent");
+        // a late event may find the node moved on or already shown.
+        if(parent==null || findTreeNode(child)!=null) return;
 
         NodeTreeBranch branchParent = findTreeNode(parent);
-        if(branchParent==null) throw new RuntimeException("parent node has no branch");
+        if(branchParent==null) return;
 
         NodeTreeBranch branchChild = new NodeTreeBranch(child);
-        int index = parent.getChildren().indexOf(child);
+        int index = Math.min(parent.getChildren().indexOf(child),branchParent.getChildCount());
 
         var model = (DefaultTreeModel) tree.getModel();
         model.insertNodeInto(branchChild, branchParent, index);
@@ -240,20 +263,17 @@ public class NodeTreeView extends App
 
     @Override
     public void nodeDetached(Node child) {
-        //logger.debug("Detached "+child.getAbsolutePath());
-
-        // remove all children of this node, a reverse of scanTree()
-        List<Node> toRemove = new ArrayList<>(child.getChildren());
-        while(!toRemove.isEmpty()) {
-            Node progeny = toRemove.remove(0);
-            stopListeningTo(progeny);
-            toRemove.addAll(progeny.getChildren());
+        if(!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> Registry.changeScene(() -> nodeDetached(child)));
+            return;
         }
+        //logger.debug("Detached "+child.getAbsolutePath());
 
+        // stop listening to this node and all its children, a reverse of scanTree()
         stopListeningTo(child);
 
         NodeTreeBranch branchChild = findTreeNode(child);
-        if(branchChild==null) throw new RuntimeException("No branch for "+child.getAbsolutePath());
+        if(branchChild==null) return;
 
         var model = (DefaultTreeModel) tree.getModel();
         model.removeNodeFromParent(branchChild);
@@ -261,9 +281,13 @@ public class NodeTreeView extends App
 
     @Override
     public void nodeRenamed(Node source) {
+        if(!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> nodeRenamed(source));
+            return;
+        }
         //logger.debug("Renamed "+source.getAbsolutePath());
         NodeTreeBranch branch = findTreeNode(source);
-        if (branch == null) throw new RuntimeException("No branch for " + source.getAbsolutePath());
+        if (branch == null) return;
 
         ((DefaultTreeModel) tree.getModel()).nodeChanged(branch);
     }
@@ -49,8 +49,7 @@ public class ODE4JPanel extends App {
         stepButton = addButtonByNameAndCallback("", (e)->{
             ODEPhysics physics = Registry.getPhysics();
             physics.setPaused(false);
-            // TODO this time step is a magic number.  It should be a user setting.
-            updateAllNodes(1.0/30.0);
+            Registry.getSimulation().step();
             physics.setPaused(true);
         });
 
@@ -64,6 +63,7 @@ public class ODE4JPanel extends App {
 
         JPanel container = new JPanel(new GridBagLayout());
         add(new JScrollPane(container), BorderLayout.CENTER);
+        add(new PhysicsStatsPanel(physics.getStats()), BorderLayout.SOUTH);
 
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.weightx = 1.0;
@@ -73,7 +73,7 @@ public class ODE4JPanel extends App {
         gbc.fill = GridBagConstraints.BOTH;
         gbc.gridwidth=2;
 
-        container.add(addButtonByNameAndCallback("+Floor", (e)-> Registry.getScene().addChild(new ODEPlane()) ),gbc);
+        container.add(addButtonByNameAndCallback("+Floor", (e)-> add(new ODEPlane()) ),gbc);
         gbc.gridy++;
         container.add(addButtonByNameAndCallback("+Sphere", (e)-> add(new ODESphere()) ),gbc);
         gbc.gridy++;
@@ -111,15 +111,17 @@ public class ODE4JPanel extends App {
         gravity.setValue(physics.getGravity());
         PanelHelper.addLabelAndComponent(container, "Gravity",gravity,gbc);
         gravity.addPropertyChangeListener("value", evt ->setGravity((Double) evt.getNewValue()));
-    }
+        gbc.gridy++;
 
-    /**
-     * Identical to Viewport.updateAllNodes(double dt).  ODE4JPanel has no knowledge of Viewport.
-     * @param dt time step
-     */
-    private void updateAllNodes(double dt) {
-        Registry.getPhysics().update(dt);
-        Registry.getScene().update(dt);
+        // broadphase
+        JComboBox<ODEPhysics.SpaceType> spaceType = new JComboBox<>(ODEPhysics.SpaceType.values());
+        spaceType.setSelectedItem(physics.getSpaceType());
+        spaceType.setToolTipText("How to find pairs of bodies that might touch.");
+        PanelHelper.addLabelAndComponent(container, "Broadphase",spaceType,gbc);
+        spaceType.addActionListener(e -> {
+            physics.setSpaceType((ODEPhysics.SpaceType)spaceType.getSelectedItem());
+            physics.savePrefs();
+        });
     }
 
     private JToolBar createToolBar() {
@@ -151,13 +153,15 @@ public class ODE4JPanel extends App {
     }
 
     private void add(Node node) {
-        if(node instanceof Pose body) {
-            Registry.getScene().addChild(body);
-            placeBodyAbovePlane(body);
-            if(randomColor) giveRandomColor(body);
-        } else {
-            Registry.getScene().addChild(node);
-        }
+        Registry.changeScene(() -> {
+            if(node instanceof Pose body) {
+                Registry.getScene().addChild(body);
+                placeBodyAbovePlane(body);
+                if(randomColor) giveRandomColor(body);
+            } else {
+                Registry.getScene().addChild(node);
+            }
+        });
     }
 
     private void placeBodyAbovePlane(Pose body) {
@@ -0,0 +1,107 @@
+package com.marginallyclever.ro3.apps.ode4j;
+
+import com.marginallyclever.convenience.swing.graph.SingleLineGraph;
+import com.marginallyclever.ro3.physics.PhysicsSample;
+import com.marginallyclever.ro3.physics.PhysicsStats;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Live graph of one measurement from {@link PhysicsStats}, one point per simulation step.
+ */
+public class PhysicsStatsPanel extends JPanel {
+    /**
+     * The measurements that can be graphed.  Times are shown in milliseconds.
+     */
+    public enum Measure {
+        TOTAL("Total ms", s -> s.totalNanos() / 1e6),
+        BROADPHASE("Broadphase ms", s -> s.broadphaseNanos() / 1e6),
+        NARROWPHASE("Narrowphase ms", s -> s.narrowphaseNanos() / 1e6),
+        PAIRS("Pairs", PhysicsSample::pairs),
+        CONTACTS("Contacts", PhysicsSample::contacts),
+        SOLVER("Solver ms", s -> s.solverNanos() / 1e6),
+        POSE_SYNC("Pose sync ms", s -> s.poseSyncNanos() / 1e6),
+        NODE_UPDATE("Node update ms", s -> s.nodeUpdateNanos() / 1e6);
+
+        private final String label;
+        private final ToDoubleFunction<PhysicsSample> value;
+
+        Measure(String label, ToDoubleFunction<PhysicsSample> value) {
+            this.label = label;
+            this.value = value;
+        }
+
+        public double get(PhysicsSample sample) {
+            return value.applyAsDouble(sample);
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final PhysicsStats stats;
+    private final SingleLineGraph graph = new SingleLineGraph();
+    private final JComboBox<Measure> measure = new JComboBox<>(Measure.values());
+    private final JLabel average = new JLabel();
+    private Timer timer;
+
+    public PhysicsStatsPanel(PhysicsStats stats) {
+        super(new BorderLayout());
+        setName("Physics stats");
+        this.stats = stats;
+
+        graph.setPreferredSize(new Dimension(200,120));
+        measure.addActionListener(e -> updateGraph());
+
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(measure, BorderLayout.CENTER);
+        top.add(average, BorderLayout.EAST);
+        add(top, BorderLayout.NORTH);
+        add(graph, BorderLayout.CENTER);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (timer == null) {
+            timer = new Timer(250, e -> updateGraph());
+            timer.start();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+    }
+
+    private void updateGraph() {
+        Measure m = (Measure) measure.getSelectedItem();
+        if(m==null) return;
+        List<PhysicsSample> samples = stats.getSamples();
+
+        graph.clear();
+        double sum = 0;
+        for(PhysicsSample s : samples) {
+            double v = m.get(s);
+            graph.addValue(s.step(), v);
+            sum += v;
+        }
+        graph.setBoundsToData();
+        graph.setGridSpacingX(60);
+        double [] bounds = graph.getDataBounds();
+        graph.setYMin(0);
+        graph.setYMax(Math.max(bounds[3], 1e-6));
+        graph.repaint();
+
+        average.setText(samples.isEmpty() ? "" : String.format(" avg %.3f", sum / samples.size()));
+    }
+}
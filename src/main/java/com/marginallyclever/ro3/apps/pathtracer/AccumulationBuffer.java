@@ -0,0 +1,147 @@
+package com.marginallyclever.ro3.apps.pathtracer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * <p>{@link AccumulationBuffer} stores the running sum of every sample traced for every pixel, and how many samples
+ * each pixel has received.  The average of the samples is the final color of the pixel before tone mapping.</p>
+ * <p>Storage is flat primitive arrays.  Different threads may write to different pixels at the same time.</p>
+ * <p>The buffer can be saved to and loaded from a checkpoint file so that a long render can be resumed.</p>
+ */
+public class AccumulationBuffer {
+    private static final int CHECKPOINT_MAGIC = 0x524f3350;  // "RO3P"
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private final int width;
+    private final int height;
+    // r,g,b per pixel
+    private final double [] sum;
+    private final int [] samples;
+
+    public AccumulationBuffer(int width, int height) {
+        if(width<=0 || height<=0) throw new IllegalArgumentException("size must be greater than zero.");
+        this.width = width;
+        this.height = height;
+        sum = new double[width*height*3];
+        samples = new int[width*height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Add one sample to a pixel.
+     * @param x the pixel column
+     * @param y the pixel row
+     * @param color the sample
+     */
+    public void add(int x, int y, ColorDouble color) {
+        int i = y*width+x;
+        int k = i*3;
+        sum[k  ] += color.r;
+        sum[k+1] += color.g;
+        sum[k+2] += color.b;
+        samples[i]++;
+    }
+
+    /**
+     * Store the average of all samples at a pixel in a color.
+     * @param x the pixel column
+     * @param y the pixel row
+     * @param result the color to fill.  alpha is set to 1.
+     */
+    public void getAverage(int x, int y, ColorDouble result) {
+        int i = y*width+x;
+        int k = i*3;
+        int n = samples[i];
+        if(n==0) {
+            result.set(0,0,0,1);
+            return;
+        }
+        double s = 1.0/n;
+        result.set(sum[k]*s, sum[k+1]*s, sum[k+2]*s, 1);
+    }
+
+    /**
+     * @param x the pixel column
+     * @param y the pixel row
+     * @return the number of samples added to this pixel.
+     */
+    public int getSamples(int x, int y) {
+        return samples[y*width+x];
+    }
+
+    /**
+     * @return the fewest samples any one pixel has received.
+     */
+    public int getMinimumSamples() {
+        int min = Integer.MAX_VALUE;
+        for(int n : samples) min = Math.min(min,n);
+        return min;
+    }
+
+    /**
+     * @return the total number of samples added to all pixels.
+     */
+    public long getTotalSamples() {
+        long total = 0;
+        for(int n : samples) total += n;
+        return total;
+    }
+
+    public void clear() {
+        Arrays.fill(sum,0);
+        Arrays.fill(samples,0);
+    }
+
+    /**
+     * Write the buffer to a checkpoint file.  The file is written beside the destination and then moved into place,
+     * so a job killed during the save leaves the previous checkpoint intact.
+     * @param path the checkpoint file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if(parent!=null) Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent,path.getFileName().toString(),".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            for(int n : samples) out.writeInt(n);
+            for(double d : sum) out.writeDouble(d);
+        } catch(IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp,path,StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a buffer from a checkpoint file.
+     * @param path the checkpoint file
+     * @return the buffer
+     * @throws IOException if the file cannot be read or is not a checkpoint.
+     */
+    public static AccumulationBuffer load(Path path) throws IOException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if(in.readInt()!=CHECKPOINT_MAGIC) throw new IOException("Not a path tracer checkpoint: "+path);
+            int version = in.readInt();
+            if(version!=CHECKPOINT_VERSION) throw new IOException("Unsupported checkpoint version "+version);
+            AccumulationBuffer buffer = new AccumulationBuffer(in.readInt(),in.readInt());
+            for(int i=0;i<buffer.samples.length;++i) buffer.samples[i] = in.readInt();
+            for(int i=0;i<buffer.sum.length;++i) buffer.sum[i] = in.readDouble();
+            return buffer;
+        }
+    }
+}
@@ -67,4 +67,11 @@ public class ColorDouble {
     public void set(ColorDouble other) {
         set(other.r, other.g, other.b, other.a);
     }
+
+    public void set(Color c) {
+        set(c.getRed() / 255.0,
+            c.getGreen() / 255.0,
+            c.getBlue() / 255.0,
+            c.getAlpha() / 255.0);
+    }
 }
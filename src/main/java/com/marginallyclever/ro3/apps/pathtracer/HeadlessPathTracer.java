@@ -0,0 +1,201 @@
+package com.marginallyclever.ro3.apps.pathtracer;
+
+import com.marginallyclever.convenience.CommandLineOptions;
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.apps.actions.LoadScene;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.pose.poses.Camera;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * <p>{@link HeadlessPathTracer} renders a scene file with the {@link PathTracer} without any user interface.  It is
+ * meant for long unattended renders.</p>
+ * <p>The {@link AccumulationBuffer} is saved to a checkpoint file every few minutes and when the render stops.  If
+ * the job is killed it finishes the pass it is on and then saves.  If the checkpoint exists when the job starts,
+ * rendering resumes from it.</p>
+ * <p>Usage:</p>
+ * <pre>java -cp RobotOverlord.jar com.marginallyclever.ro3.apps.pathtracer.HeadlessPathTracer
+ *     --scene cell.ro --camera "/Scene/Camera 1" --output cell.png
+ *     [--width 1920] [--height 1080] [--samples 500] [--depth 3] [--time seconds]
+ *     [--checkpoint cell.png.checkpoint] [--checkpoint-interval seconds]</pre>
+ */
+public class HeadlessPathTracer {
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessPathTracer.class);
+
+    private final PathTracer pathTracer = new PathTracer();
+    private File sceneFile;
+    private String cameraPath;
+    private File outputFile;
+    private Path checkpointFile;
+    private int width = 640;
+    private int height = 480;
+    // seconds.  zero means no limit.
+    private long timeBudget = 0;
+    // seconds between checkpoints.
+    private long checkpointInterval = 300;
+    // set by the shutdown hook to stop after the current pass.
+    private volatile boolean killed = false;
+    // open while the render pool may be writing to the buffer.
+    private final CountDownLatch rendering = new CountDownLatch(1);
+
+    public static void main(String[] args) {
+        CommandLineOptions options = new CommandLineOptions();
+        options.set(args);
+        if(!options.hasOption("--scene") || !options.hasOption("--output")) {
+            System.out.println("Usage: HeadlessPathTracer --scene file --output file.png [--camera path]"
+                    +" [--width n] [--height n] [--samples n] [--depth n] [--time seconds]"
+                    +" [--checkpoint file] [--checkpoint-interval seconds]");
+            System.exit(1);
+        }
+
+        HeadlessPathTracer job = new HeadlessPathTracer();
+        job.setOptions(options);
+        try {
+            Registry.start();
+            job.run();
+        } catch(Exception e) {
+            logger.error("Render failed.",e);
+            System.exit(2);
+        }
+        System.exit(0);
+    }
+
+    public void setOptions(CommandLineOptions options) {
+        sceneFile = new File(options.getOption("--scene",""));
+        outputFile = new File(options.getOption("--output","render.png"));
+        cameraPath = options.getOption("--camera",null);
+        width = Integer.parseInt(options.getOption("--width",Integer.toString(width)));
+        height = Integer.parseInt(options.getOption("--height",Integer.toString(height)));
+        pathTracer.setSamplesPerPixel(Integer.parseInt(options.getOption("--samples",Integer.toString(pathTracer.getSamplesPerPixel()))));
+        pathTracer.setMaxDepth(Integer.parseInt(options.getOption("--depth",Integer.toString(pathTracer.getMaxDepth()))));
+        timeBudget = Long.parseLong(options.getOption("--time",Long.toString(timeBudget)));
+        checkpointInterval = Long.parseLong(options.getOption("--checkpoint-interval",Long.toString(checkpointInterval)));
+        checkpointFile = Path.of(options.getOption("--checkpoint",outputFile.getPath()+".checkpoint"));
+    }
+
+    /**
+     * Load the scene, render it, and save the image.
+     * @throws IOException if the scene, checkpoint, or image cannot be read or written.
+     * @throws InterruptedException if the render is interrupted.
+     */
+    public void run() throws IOException, InterruptedException {
+        // the scene path is resolved before the working directory changes.
+        sceneFile = sceneFile.getAbsoluteFile();
+        outputFile = outputFile.getAbsoluteFile();
+        checkpointFile = checkpointFile.toAbsolutePath();
+
+        new LoadScene(null,sceneFile.getAbsolutePath()).commitLoad(sceneFile);
+        // meshes load in the background.  wait for all of them before rendering.
+        Registry.meshFactory.waitForLoads();
+        pathTracer.setActiveCamera(findCamera(Registry.getScene()));
+        pathTracer.setSize(width,height);
+        resumeFromCheckpoint();
+        pathTracer.prepareRender();
+
+        long deadline = timeBudget>0 ? System.currentTimeMillis()+timeBudget*1000 : Long.MAX_VALUE;
+        long [] nextCheckpoint = { System.currentTimeMillis()+checkpointInterval*1000 };
+
+        // if the job is killed the shutdown hook waits for the pass to finish and then saves what has been done.
+        Thread hook = new Thread(this::stopAndSave);
+        Runtime.getRuntime().addShutdownHook(hook);
+        try {
+            pathTracer.renderPasses(
+                    () -> killed || System.currentTimeMillis() >= deadline,
+                    tile -> {},
+                    samples -> {
+                        logger.info("{} of {} samples per pixel.",samples,pathTracer.getSamplesPerPixel());
+                        if(System.currentTimeMillis() >= nextCheckpoint[0]) {
+                            saveCheckpointQuietly();
+                            nextCheckpoint[0] = System.currentTimeMillis()+checkpointInterval*1000;
+                        }
+                    });
+        } finally {
+            rendering.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch(IllegalStateException e) {
+                // already shutting down.  the hook saves the checkpoint.
+                return;
+            }
+        }
+
+        saveCheckpoint();
+        saveImage();
+    }
+
+    /**
+     * @param scene the root of the scene
+     * @return the camera at {@link #cameraPath}, or the first camera in the scene if no path was given.
+     */
+    private Camera findCamera(Node scene) {
+        if(cameraPath!=null) {
+            Node found = scene.findByPath(cameraPath);
+            if(found instanceof Camera camera) return camera;
+            throw new IllegalArgumentException("No camera at "+cameraPath);
+        }
+        if(Registry.cameras.getList().isEmpty()) throw new IllegalArgumentException("Scene has no cameras.");
+        return Registry.cameras.getList().get(0);
+    }
+
+    private void resumeFromCheckpoint() {
+        if(!Files.exists(checkpointFile)) return;
+        try {
+            AccumulationBuffer buffer = AccumulationBuffer.load(checkpointFile);
+            if(buffer.getWidth()!=width || buffer.getHeight()!=height) {
+                logger.warn("Checkpoint {} is {}x{}, not {}x{}.  Starting over.",checkpointFile,
+                        buffer.getWidth(),buffer.getHeight(),width,height);
+                return;
+            }
+            pathTracer.setAccumulationBuffer(buffer);
+            logger.info("Resuming from {} with {} samples per pixel.",checkpointFile,buffer.getMinimumSamples());
+        } catch(IOException e) {
+            logger.warn("Could not read checkpoint {}.  Starting over.",checkpointFile,e);
+        }
+    }
+
+    private void stopAndSave() {
+        killed = true;
+        try {
+            rendering.await();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        saveCheckpointQuietly();
+    }
+
+    private synchronized void saveCheckpoint() throws IOException {
+        long start = System.currentTimeMillis();
+        pathTracer.getAccumulationBuffer().save(checkpointFile);
+        logger.info("Checkpoint saved to {} in {}ms.",checkpointFile,System.currentTimeMillis()-start);
+    }
+
+    private void saveCheckpointQuietly() {
+        try {
+            saveCheckpoint();
+        } catch(IOException e) {
+            logger.error("Could not save checkpoint {}.",checkpointFile,e);
+        }
+    }
+
+    private void saveImage() throws IOException {
+        pathTracer.drawAll();
+        String extension = outputFile.getName().substring(outputFile.getName().lastIndexOf('.')+1);
+        if(!ImageIO.write(pathTracer.getImage(),extension,outputFile)) {
+            throw new IOException("No image writer for "+extension);
+        }
+        logger.info("Image saved to {}.",outputFile);
+    }
+
+    public PathTracer getPathTracer() {
+        return pathTracer;
+    }
+}
@@ -1,33 +1,50 @@
 package com.marginallyclever.ro3.apps.pathtracer;
 
 import com.marginallyclever.convenience.Ray;
-import com.marginallyclever.convenience.helpers.MathHelper;
 import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.node.nodes.Material;
 import com.marginallyclever.ro3.node.nodes.environment.Environment;
 import com.marginallyclever.ro3.node.nodes.pose.poses.Camera;
 import com.marginallyclever.ro3.raypicking.RayHit;
 import com.marginallyclever.ro3.raypicking.RayPickSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import javax.swing.event.EventListenerList;
+import javax.vecmath.Matrix4d;
 import javax.vecmath.Point3d;
 import javax.vecmath.Vector3d;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>{@link PathTracer} renders the scene from a {@link Camera} using path tracing.</p>
+ * <p>The image is split into square tiles.  Each pass traces one sample for every pixel, with every tile running as
+ * a separate task on a {@link ForkJoinPool}.  Samples are summed in an {@link AccumulationBuffer} and each tile is
+ * tone mapped into the image as soon as it is finished.</p>
+ */
 public class PathTracer {
-    private final List<RayXY> rays = new ArrayList<>();
+    private static final Logger logger = LoggerFactory.getLogger(PathTracer.class);
+    public static final int TILE_SIZE = 32;
+
     private final RayPickSystem rayPickSystem = new RayPickSystem();
     private RayTracingWorker rayTracingWorker;
     private Camera activeCamera;
     private int canvasWidth = 640;
     private int canvasHeight = 480;
     private BufferedImage image;
+    private AccumulationBuffer accumulationBuffer;
 
     private int samplesPerPixel = 500;
     private int maxDepth = 3;
@@ -38,7 +55,14 @@ public class PathTracer {
 
     private final Material defaultMaterial = new Material();
     private long startTime;
-    private static final Random random = new Random();
+    // split once per thread so no two threads share a generator.
+    private final SplittableRandom seedRandom = new SplittableRandom();
+    private final ThreadLocal<TraceContext> traceContext = ThreadLocal.withInitial(this::createTraceContext);
+
+    // camera settings captured when the render starts.
+    private final Matrix4d cameraWorld = new Matrix4d();
+    private boolean cameraOrthographic;
+    private double cameraTanHalfFovY;
 
     private final EventListenerList listeners = new EventListenerList();
 
@@ -46,101 +70,178 @@ public class PathTracer {
         super();
     }
 
+    /**
+     * Start rendering in the background.  If a render is already running, stop it instead.
+     */
     public void render() {
         if(rayTracingWorker!=null) {
             rayTracingWorker.cancel(true);
             rayTracingWorker = null;
         } else {
-            getSunlight();
-            if(activeCamera==null) throw new RuntimeException("No active camera!");
-            if(canvasHeight==0 || canvasWidth==0) throw new RuntimeException("Canvas size is zero!");
-
-            rays.clear();
-            for(int y=0;y<canvasHeight;y++) {
-                for(int x=0;x<canvasWidth;x++) {
-                    rays.add(new RayXY(x,y));
-                }
+            prepareRender();
+            rayTracingWorker = new RayTracingWorker();
+            rayTracingWorker.execute();
+        }
+    }
+
+    /**
+     * Read the lighting from the scene and capture the camera settings.  Must be called before
+     * {@link #renderPasses(BooleanSupplier, Consumer, IntConsumer)}.
+     */
+    public void prepareRender() {
+        Registry.changeScene(this::getSunlight);
+        if(activeCamera==null) throw new RuntimeException("No active camera!");
+        if(canvasHeight==0 || canvasWidth==0) throw new RuntimeException("Canvas size is zero!");
+        if(accumulationBuffer==null) setSize(canvasWidth,canvasHeight);
+        captureCamera();
+    }
+
+    /**
+     * Split the canvas into tiles no larger than {@link #TILE_SIZE}.
+     * @return the list of tiles.
+     */
+    private List<Rectangle> createTiles() {
+        List<Rectangle> tiles = new ArrayList<>();
+        for(int y=0;y<canvasHeight;y+=TILE_SIZE) {
+            for(int x=0;x<canvasWidth;x+=TILE_SIZE) {
+                tiles.add(new Rectangle(x,y,
+                        Math.min(TILE_SIZE,canvasWidth-x),
+                        Math.min(TILE_SIZE,canvasHeight-y)));
             }
+        }
+        return tiles;
+    }
 
-            rayTracingWorker = new RayTracingWorker(rays, image);
-            rayTracingWorker.execute();
+    private void captureCamera() {
+        activeCamera.getWorld(cameraWorld);
+        cameraOrthographic = activeCamera.getDrawOrthographic();
+        cameraTanHalfFovY = Math.tan(Math.toRadians(activeCamera.getFovY()/2));
+    }
+
+    private TraceContext createTraceContext() {
+        synchronized (seedRandom) {
+            return new TraceContext(seedRandom.split());
+        }
+    }
+
+    /**
+     * Trace one sample for every pixel in a tile, then tone map the tile into the image.
+     * @param tile the area to trace
+     */
+    private void traceTile(Rectangle tile) {
+        TraceContext c = traceContext.get();
+        for(int y=tile.y;y<tile.y+tile.height;++y) {
+            for(int x=tile.x;x<tile.x+tile.width;++x) {
+                // jiggle the ray a little bit to get a better anti-aliasing effect
+                var nx =       (2.0*(x+c.random.nextDouble()-0.5)/canvasWidth ) - 1.0;
+                var ny = 1.0 - (2.0*(y+c.random.nextDouble()-0.5)/canvasHeight);
+                setRayThroughPoint(c.ray,nx,ny);
+                trace(c.ray,c);
+                accumulationBuffer.add(x,y,c.incomingLight);
+            }
+        }
+        drawTile(tile,c);
+    }
+
+    /**
+     * Tone map the average of every pixel in the tile and copy it to the image.
+     * @param tile the area to draw
+     * @param c the scratch space for this thread
+     */
+    private void drawTile(Rectangle tile,TraceContext c) {
+        int i=0;
+        for(int y=tile.y;y<tile.y+tile.height;++y) {
+            for(int x=tile.x;x<tile.x+tile.width;++x) {
+                accumulationBuffer.getAverage(x,y,c.average);
+                toneMap(c.average);
+                c.pixels[i++] = toRGB(c.average);
+            }
         }
+        // disjoint tiles can be written from different threads.
+        image.getRaster().setDataElements(tile.x,tile.y,tile.width,tile.height,c.pixels);
+    }
+
+    private static int toRGB(ColorDouble c) {
+        int r = (int)Math.max(0, Math.min(255, c.r * 255.0));
+        int g = (int)Math.max(0, Math.min(255, c.g * 255.0));
+        int b = (int)Math.max(0, Math.min(255, c.b * 255.0));
+        return (r<<16) | (g<<8) | b;
     }
 
     /**
-     * <p>Trace the ray and return the color of the pixel at the end of the ray.</p>
-     * @param ray the ray to trace
-     * @return the color of the pixel at the end of the ray.
+     * <p>Trace the ray and store the color of the pixel at the end of the ray in {@link TraceContext#incomingLight}.</p>
+     * @param ray the ray to trace.  It will be modified.
+     * @param c the scratch space for this thread
      */
-    private ColorDouble trace(Ray ray) {
-        ColorDouble incomingLight = new ColorDouble(0, 0, 0);
-        ColorDouble rayColor = new ColorDouble(1, 1, 1, 1);
+    private void trace(Ray ray,TraceContext c) {
+        ColorDouble incomingLight = c.incomingLight;
+        ColorDouble rayColor = c.rayColor;
+        incomingLight.set(0, 0, 0, 1);
+        rayColor.set(1, 1, 1, 1);
 
         for (int i = 0; i <= maxDepth; ++i) {
             RayHit rayHit = rayPickSystem.getFirstHit(ray);
             if (rayHit == null) {
-                var sky = getSkyColor(ray);
-                sky.scale(rayColor);
-                incomingLight.add(sky);
+                getSkyColor(ray,c.sky);
+                c.sky.scale(rayColor);
+                incomingLight.add(c.sky);
                 break;
             }
 
             var mat = getMaterial(rayHit);
-            var albedo = new ColorDouble(mat.getDiffuseColor());
+            var albedo = c.albedo;
+            albedo.set(mat.getDiffuseColor());
 
-            var emittedLight = new ColorDouble(mat.getEmissionColor());
+            var emittedLight = c.emittedLight;
+            emittedLight.set(mat.getEmissionColor());
             emittedLight.scale(mat.getEmissionStrength());
             emittedLight.scale(rayColor);
 
             incomingLight.add(emittedLight);
 
-            boolean isSpecularBounce = mat.getSpecularStrength() > random.nextDouble();
-            rayColor.scale(isSpecularBounce ? new ColorDouble(mat.getSpecularColor()) : albedo);
+            boolean isSpecularBounce = mat.getSpecularStrength() > c.random.nextDouble();
+            if(isSpecularBounce) {
+                c.specularColor.set(mat.getSpecularColor());
+                rayColor.scale(c.specularColor);
+            } else {
+                rayColor.scale(albedo);
+            }
 
             // monte carlo russian roulette
             double average = (rayColor.r + rayColor.g + rayColor.b ) / 3;
             //double average = 0.2126*rayColor.r + 0.7152*rayColor.g + 0.0722*rayColor.b;
             double p = 1.0/Math.max(1e-6,average);
-            if( random.nextDouble() > average) {
+            if( c.random.nextDouble() > average) {
                 incomingLight.scale(average == 0 ? 0 : p);
                 break;
             }
             rayColor.scale(p);
 
-            // Calculate Fresnel reflectance
-            double cosTheta = rayHit.normal().dot(ray.getDirection());
-            boolean entering = cosTheta < 0;
-            //double ior1 = entering ? 1.0 : mat.getIOR(); // Air IOR = 1.0
-            //double ior2 = entering ? mat.getIOR() : 1.0;
-            //double reflectance = computeFresnel(Math.abs(cosTheta), ior1, ior2);
-
             // Handle refraction or reflection based on Fresnel reflectance
             if(albedo.a<1.0) {
-                // this will return either the reflected or refracted ray
-                Ray r3 = getRefraction(ray,rayHit.point(),rayHit.normal(),mat);
+                // this will return either the reflected or refracted direction
+                getRefraction(ray,rayHit.normal(),mat,c);
                 ray.setOrigin(rayHit.point());
-                ray.setDirection(r3.getDirection());
+                ray.setDirection(c.direction);
                 continue;
             }
 
             // opaque
             ray.setOrigin(rayHit.point());
             // get the cosine weighted random direction
-            var diffuseDirection = getRandomUnitVector();
+            var diffuseDirection = c.diffuseDirection;
+            getRandomUnitVector(c.random,diffuseDirection);
             diffuseDirection.add(rayHit.normal());
-            diffuseDirection.normalize();
             if (diffuseDirection.lengthSquared() < 1e-6) {
                 // edge case where diffuseDirection is zero.
                 diffuseDirection.set(rayHit.normal());
             }
+            diffuseDirection.normalize();
 
-            Vector3d specularDirection = reflect(ray.getDirection(),rayHit.normal());
-            var dir = MathHelper.interpolate(diffuseDirection, specularDirection, (isSpecularBounce ? mat.getReflectivity() : 0));
-            dir.normalize();
-            ray.setDirection(dir);
+            reflect(ray.getDirection(),rayHit.normal(),c.specularDirection);
+            c.direction.interpolate(diffuseDirection, c.specularDirection, (isSpecularBounce ? mat.getReflectivity() : 0));
+            ray.setDirection(c.direction);
         }
-
-        return incomingLight;
     }
 
     private double computeFresnel(double cosTheta, double ior1, double ior2) {
@@ -148,29 +249,6 @@ public class PathTracer {
         return r0 + (1 - r0) * Math.pow(1 - cosTheta, 5);
     }
 
-    /**
-     * <p>Refract the ray and return the refracted vector.</p>
-     * @param incident  the incident vector
-     * @param normal   the normal at the hit point
-     * @param iorRatio the ratio of the refractive indices of the two materials
-     * @return the refracted vector
-     */
-    private Vector3d refract2(Vector3d incident, Vector3d normal, double iorRatio) {
-        double cosI = -normal.dot(incident);
-        double sin2T = iorRatio * iorRatio * (1 - cosI * cosI);
-
-        // Total internal reflection
-        if (sin2T > 1.0) {
-            return null;
-        }
-
-        double cosT = Math.sqrt(1.0 - sin2T);
-        Vector3d refracted = new Vector3d();
-        refracted.scale(iorRatio, incident);
-        refracted.scaleAdd(iorRatio * cosI - cosT, normal, refracted);
-        return refracted;
-    }
-
     private Material getMaterial(RayHit rayHit) {
         var meshInstance = rayHit.target();
         if(meshInstance==null) return defaultMaterial;
@@ -181,33 +259,32 @@ public class PathTracer {
     /**
      * sky or sun color, depending on angle of incidence
      * @param ray the ray to check
-     * @return the color of the sky
+     * @param result the color of the sky
      */
-    private ColorDouble getSkyColor(Ray ray) {
+    private void getSkyColor(Ray ray,ColorDouble result) {
         Vector3d d = ray.getDirection();
         d.normalize();
-        Vector3d sun = new Vector3d(sunlightSource);
-        sun.normalize();
-        var dot = Math.max(0,sun.dot(d));
+        double sunLength = sunlightSource.length();
+        var dot = sunLength==0 ? 0 : Math.max(0,sunlightSource.dot(d)/sunLength);
 
         var sd = Math.pow(dot,5);
         //var a = 0.5 * (-d.z + 1.0);
         var a = 1.0-sd;
-        return new ColorDouble(
+        result.set(
                 a * ambientColor.r + sd * sunlightColor.r * sunlightStrength,
                 a * ambientColor.g + sd * sunlightColor.g * sunlightStrength,
-                a * ambientColor.b + sd * sunlightColor.b * sunlightStrength);
+                a * ambientColor.b + sd * sunlightColor.b * sunlightStrength,
+                1);
     }
 
     /**
-     * Get the refracted ray
+     * Get the direction of the refracted ray.
      * @param ray the ray to refract
-     * @param hitPoint the point where the ray hit
-     * @param normal the normal at the hit point
+     * @param normal the normal at the hit point.  may be flipped if the ray is leaving the object.
      * @param mat the material at the hit point
-     * @return the next ray to trace
+     * @param c the scratch space for this thread.  the next direction is stored in {@link TraceContext#direction}.
      */
-    private Ray getRefraction(Ray ray, Point3d hitPoint, Vector3d normal, Material mat) {
+    private void getRefraction(Ray ray, Vector3d normal, Material mat, TraceContext c) {
         // at least semi-transparent.  use index of refraction.
         var rayDirection = ray.getDirection();
         rayDirection.normalize();
@@ -221,12 +298,11 @@ public class PathTracer {
         var ri = backFace ? 1.0/ior : ior;
         var sinTheta = Math.sqrt(1.0-cosTheta*cosTheta);
         var cannotRefract = ri * sinTheta > 1.0;
-        var nextDir = cannotRefract || reflectance(cosTheta,ri) > random.nextDouble()
-                ? reflect(rayDirection,normal) // total internal reflection
-                : refract(rayDirection,normal,ri); // refraction
-
-        // Recursively compute the color along the next ray
-        return new Ray(hitPoint, nextDir);
+        if(cannotRefract || reflectance(cosTheta,ri) > c.random.nextDouble()) {
+            reflect(rayDirection,normal,c.direction); // total internal reflection
+        } else {
+            refract(rayDirection,normal,ri,c.direction); // refraction
+        }
     }
 
     private void toneMap(ColorDouble d) {
@@ -276,11 +352,11 @@ public class PathTracer {
      * Reflect the vector v off the normal n
      * @param v the vector to reflect
      * @param n the normal
-     * @return the reflected vector
+     * @param result the reflected vector
      */
-    private Vector3d reflect(Vector3d v, Vector3d n) {
+    private void reflect(Vector3d v, Vector3d n, Vector3d result) {
         var dot = 2.0 * v.dot(n);
-        return new Vector3d(
+        result.set(
                 v.x - n.x * dot,
                 v.y - n.y * dot,
                 v.z - n.z * dot);
@@ -291,31 +367,53 @@ public class PathTracer {
      * @param uv the vector to refract
      * @param n the normal
      * @param eta the ratio of the refractive indices of the two materials
-     * @return the refracted vector
+     * @param result the refracted vector
      */
-    private Vector3d refract(Vector3d uv, Vector3d n, double eta) {
+    private void refract(Vector3d uv, Vector3d n, double eta, Vector3d result) {
         var cosTheta = Math.min(-uv.dot(n), 1.0);
         // vec3 r_out_perp =  etai_over_etat * (uv + cos_theta*n);
-        Vector3d outPerpendicular = new Vector3d(n);
-        n.scaleAdd(cosTheta,uv);
-        n.scale(eta);
+        double px = eta * (uv.x + cosTheta * n.x);
+        double py = eta * (uv.y + cosTheta * n.y);
+        double pz = eta * (uv.z + cosTheta * n.z);
         // vec3 r_out_parallel = -sqrt(abs(1.0 - r_out_perp.length_squared())) * n;
-        Vector3d outParallel = new Vector3d(n);
-        outParallel.scale(-Math.sqrt(Math.abs(1.0 - outPerpendicular.lengthSquared())));
-        outPerpendicular.add(outParallel);
-        return outPerpendicular;
+        double s = -Math.sqrt(Math.abs(1.0 - (px*px + py*py + pz*pz)));
+        result.set(px + s * n.x, py + s * n.y, pz + s * n.z);
     }
 
     /**
-     * @return a random vector on the unit sphere
+     * @param random the source of randomness
+     * @param result a random vector on the unit sphere
      */
-    private static Vector3d getRandomUnitVector() {
+    private static void getRandomUnitVector(SplittableRandom random,Vector3d result) {
         double t1 = random.nextDouble() * 2.0 * Math.PI;
         var y = (random.nextDouble() - 0.5) * 2.0;
         double t2 = Math.sqrt(1.0 - y*y);
         var x = t2 * Math.cos(t1);
         var z = t2 * Math.sin(t1);
-        return new Vector3d(x,y,z);
+        result.set(x,y,z);
+    }
+
+    /**
+     * Fill a ray that starts at the active camera and passes through (x,y) in the current projection, using the
+     * camera settings captured when the render started.
+     * @param ray the ray to fill
+     * @param normalizedX the cursor position in screen coordinates [-1,1]
+     * @param normalizedY the cursor position in screen coordinates [-1,1]
+     */
+    private void setRayThroughPoint(Ray ray, double normalizedX, double normalizedY) {
+        Point3d origin = ray.getOrigin();
+        Vector3d direction = ray.getDirection();
+        if(cameraOrthographic) {
+            origin.set(normalizedX*canvasWidth/2.0, normalizedY*canvasHeight/2.0, 0);
+            direction.set(0,0,-1);
+        } else {
+            origin.set(0,0,0);
+            direction.set(normalizedX*cameraTanHalfFovY*getAspectRatio(), normalizedY*cameraTanHalfFovY, -1);
+            direction.normalize();
+        }
+        cameraWorld.transform(origin);
+        cameraWorld.transform(direction);
+        ray.setMaxDistance(Double.MAX_VALUE);
     }
 
     /**
@@ -379,86 +477,148 @@ public class PathTracer {
         canvasWidth = width;
         canvasHeight = height;
         image = new BufferedImage(canvasWidth,canvasHeight,BufferedImage.TYPE_INT_RGB);
+        accumulationBuffer = new AccumulationBuffer(canvasWidth,canvasHeight);
     }
 
     public BufferedImage getImage() {
         return image;
     }
 
+    public AccumulationBuffer getAccumulationBuffer() {
+        return accumulationBuffer;
+    }
+
+    /**
+     * Replace the {@link AccumulationBuffer}, for example with one loaded from a checkpoint.  The canvas is resized
+     * to match.
+     * @param buffer the new buffer
+     */
+    public void setAccumulationBuffer(AccumulationBuffer buffer) {
+        setSize(buffer.getWidth(),buffer.getHeight());
+        accumulationBuffer = buffer;
+    }
+
     public void setActiveCamera(Camera camera) {
         this.activeCamera = camera;
     }
 
-    private class RayTracingWorker extends SwingWorker<Void,Integer> {
-        private final List<RayXY> pixels;
-        private final BufferedImage image;
-
-        public RayTracingWorker(List<RayXY> pixels,BufferedImage image) {
-            this.pixels = pixels;
-            this.image = image;
+    /**
+     * Scratch space for one thread.  Reused for every sample so that tracing does not allocate colors or vectors.
+     */
+    static class TraceContext {
+        final SplittableRandom random;
+        final Ray ray = new Ray();
+        final ColorDouble incomingLight = new ColorDouble(0,0,0);
+        final ColorDouble rayColor = new ColorDouble(1,1,1);
+        final ColorDouble albedo = new ColorDouble(0,0,0);
+        final ColorDouble emittedLight = new ColorDouble(0,0,0);
+        final ColorDouble specularColor = new ColorDouble(0,0,0);
+        final ColorDouble sky = new ColorDouble(0,0,0);
+        final ColorDouble average = new ColorDouble(0,0,0);
+        final Vector3d diffuseDirection = new Vector3d();
+        final Vector3d specularDirection = new Vector3d();
+        final Vector3d direction = new Vector3d();
+        final int [] pixels = new int[TILE_SIZE*TILE_SIZE];
+
+        TraceContext(SplittableRandom random) {
+            this.random = random;
         }
+    }
 
+    private class RayTracingWorker extends SwingWorker<Void,Rectangle> {
         @Override
         protected Void doInBackground() throws Exception {
-            int total = pixels.size() * samplesPerPixel;
-            AtomicInteger completed = new AtomicInteger(0);
-
-            startTime = System.currentTimeMillis();
-
-            System.out.println("samples per pixel: "+samplesPerPixel + ", max depth: "+maxDepth);
-
-            // in parallel, trace each ray and store the result in a buffer
-            while(true) {
-                if(isCancelled()) return null;
-
-                rays.stream().parallel().forEach(pixel -> {
-                    if(isCancelled()) return;
-
-                    // jiggle the ray a little bit to get a better anti-aliasing effect
-                    var nx =       (2.0*(pixel.x+random.nextDouble()-0.5)/canvasWidth ) - 1.0;
-                    var ny = 1.0 - (2.0*(pixel.y+random.nextDouble()-0.5)/canvasHeight);
-                    var ray = getRayThroughPoint(activeCamera,nx,ny);
-                    // sum the total color of all samples
-                    pixel.sum.add(trace(ray));
-                    pixel.samples++;
-                    // then get the average of the samples
-                    pixel.average.set(pixel.sum);
-                    pixel.average.scale(1.0/pixel.samples);
-                    toneMap(pixel.average);
-                    // store the result in the buffer
-                    drawPixel(pixel,pixel.average.getColor());
-
-                    // Update progress
-                    int done = completed.incrementAndGet();
-                    // Optionally only publish occasionally to avoid flooding the EDT
-                    if (done % 100 == 0 || done == total) {
-                        publish((int) ((done * 100.0f) / total));
-
-                        if(done == total) {
-                            cancel(true);
-                        }
-                    }
-                });
-            }
+            long total = (long)canvasWidth * canvasHeight * samplesPerPixel;
+            AtomicLong completed = new AtomicLong(accumulationBuffer.getTotalSamples());
+
+            renderPasses(this::isCancelled, tile -> {
+                long done = completed.addAndGet((long)tile.width*tile.height);
+                publish(tile);
+                setProgress((int)Math.min(100,done*100/total));
+            }, pass -> {});
+            return null;
         }
 
         @Override
-        protected void process(List<Integer> chunks) {
-            // The last value in chunks is the most recent progress value
-            int latestProgress = chunks.get(chunks.size() - 1);
-
-            fireProgressUpdate(latestProgress);
+        protected void process(List<Rectangle> chunks) {
+            fireProgressUpdate(getProgress());
+            for(Rectangle tile : chunks) {
+                fireTileComplete(tile);
+            }
         }
 
         @Override
         protected void done() {
             // Rendering finished
+            fireProgressUpdate(getProgress());
             rayTracingWorker=null;
         }
+    }
+
+    /**
+     * <p>Render on the calling thread until every pixel has {@link #getSamplesPerPixel()} samples or until told to
+     * stop.  Samples already in the {@link AccumulationBuffer} count toward the total, so a render can be resumed.</p>
+     * <p>Call {@link #prepareRender()} first.  Every pass is finished before this returns, so every pixel always has
+     * the same number of samples, give or take the pass a resumed render started in.</p>
+     * @param stop checked before each pass.  Return true to stop early.
+     * @param onTile called from a worker thread each time a tile is finished.
+     * @param onPass called on the calling thread after each pass with the number of samples per pixel so far.
+     * @throws InterruptedException if the calling thread is interrupted.
+     */
+    public void renderPasses(BooleanSupplier stop, Consumer<Rectangle> onTile, IntConsumer onPass) throws InterruptedException {
+        List<Rectangle> tiles = createTiles();
+        startTime = System.currentTimeMillis();
+        int firstPass = accumulationBuffer.getMinimumSamples();
+        long before = accumulationBuffer.getTotalSamples();
+
+        logger.info("samples per pixel: {}, max depth: {}, tiles: {}, starting at pass {}",
+                samplesPerPixel,maxDepth,tiles.size(),firstPass);
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for(Rectangle tile : tiles) {
+            tasks.add(() -> {
+                traceTile(tile);
+                onTile.accept(tile);
+                return null;
+            });
+        }
 
-        private void drawPixel(RayXY pixel, Color c) {
-            // Convert Ray’s coordinate to pixel indices and set the pixel’s color
-            image.setRGB(pixel.x, pixel.y, c.getRGB());
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            // each pass adds one sample to every pixel.
+            for(int pass=firstPass;pass<samplesPerPixel;++pass) {
+                if(stop.getAsBoolean()) break;
+                pool.invokeAll(tasks);
+                if(Thread.interrupted()) throw new InterruptedException();
+                onPass.accept(accumulationBuffer.getMinimumSamples());
+            }
+        } finally {
+            // tiles do not check for interrupts.  wait for them so that nobody else sees a buffer being written.
+            pool.shutdownNow();
+            boolean interrupted = false;
+            while(!pool.isTerminated()) {
+                try {
+                    pool.awaitTermination(1, TimeUnit.SECONDS);
+                } catch(InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if(interrupted) Thread.currentThread().interrupt();
+        }
+
+        long elapsed = System.currentTimeMillis()-startTime;
+        long samples = accumulationBuffer.getTotalSamples()-before;
+        logger.info("{} samples in {}ms ({} samples/sec)",samples,elapsed,
+                elapsed==0 ? 0 : samples*1000/elapsed);
+    }
+
+    /**
+     * Tone map the whole {@link AccumulationBuffer} into the image.  Useful after loading a checkpoint.
+     */
+    public void drawAll() {
+        TraceContext c = traceContext.get();
+        for(Rectangle tile : createTiles()) {
+            drawTile(tile,c);
         }
     }
 
@@ -501,7 +661,17 @@ public class PathTracer {
         }
     }
 
-    public void addProgressListener(PathTracerPanel pathTracerPanel) {
-        listeners.add(ProgressListener.class,pathTracerPanel);
+    private void fireTileComplete(Rectangle tile) {
+        for( var listener : listeners.getListeners(ProgressListener.class)) {
+            listener.onTileComplete(tile);
+        }
+    }
+
+    public void addProgressListener(ProgressListener listener) {
+        listeners.add(ProgressListener.class,listener);
+    }
+
+    public void removeProgressListener(ProgressListener listener) {
+        listeners.remove(ProgressListener.class,listener);
     }
 }
@@ -152,6 +152,12 @@ public class PathTracerPanel extends JPanel implements SceneChangeListener, Prog
         }
     }
 
+    @Override
+    public void onTileComplete(Rectangle tile) {
+        // repaints are coalesced, so redrawing the whole image is cheap.
+        centerLabel.repaint();
+    }
+
     @Override
     public void onProgressUpdate(int latestProgress) {
         // Update progress bar here
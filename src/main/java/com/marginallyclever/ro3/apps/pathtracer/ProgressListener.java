@@ -1,7 +1,14 @@
 package com.marginallyclever.ro3.apps.pathtracer;
 
+import java.awt.*;
 import java.util.EventListener;
 
 public interface ProgressListener extends EventListener {
     void onProgressUpdate(int progress);
+
+    /**
+     * Called on the Event Dispatch Thread when a tile of the image has new pixels.
+     * @param tile the area of the image that changed.
+     */
+    default void onTileComplete(Rectangle tile) {}
 }
@@ -28,6 +28,10 @@ public class LookAtLastSelected extends AbstractAction {
 
     @Override
     public void actionPerformed(ActionEvent e) {
+        Registry.changeScene(this::lookAtLastSelected);
+    }
+
+    private void lookAtLastSelected() {
         Pose lastFound = null;
         for(Node node : Registry.selection.getList()) {
             if(node instanceof Pose pose) {
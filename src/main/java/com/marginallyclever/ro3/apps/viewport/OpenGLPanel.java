@@ -6,6 +6,7 @@ import com.jogamp.opengl.util.FPSAnimator;
 import com.marginallyclever.convenience.helpers.MatrixHelper;
 import com.marginallyclever.convenience.helpers.ResourceHelper;
 import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.StartupTimer;
 import com.marginallyclever.ro3.apps.viewport.renderpass.RenderPass;
 import com.marginallyclever.ro3.apps.viewport.viewporttool.ViewportTool;
 import com.marginallyclever.ro3.node.nodes.pose.poses.Camera;
@@ -18,7 +19,8 @@ import java.util.prefs.Preferences;
 
 /**
  * {@link OpenGLPanel} manages a {@link GLJPanel} and an {@link FPSAnimator}.
- * It is a concrete implementation of {@link Viewport}.
+ * It is a concrete implementation of {@link Viewport}.  The scene is advanced by the
+ * {@link com.marginallyclever.ro3.simulation.SimulationScheduler}, not by the display loop.
  */
 public class OpenGLPanel extends Viewport implements GLEventListener {
     private static final Logger logger = LoggerFactory.getLogger(OpenGLPanel.class);
@@ -47,6 +49,7 @@ public class OpenGLPanel extends Viewport implements GLEventListener {
         add(glCanvas, BorderLayout.CENTER);
         animator.add(glCanvas);
         animator.start();
+        Registry.getSimulation().start();
     }
 
     private void loadPrefs() {
@@ -113,11 +116,13 @@ public class OpenGLPanel extends Viewport implements GLEventListener {
 
     public void stopAnimationSystem() {
         animator.stop();
+        Registry.getSimulation().stop();
     }
 
     @Override
     public void init(GLAutoDrawable glAutoDrawable) {
         logger.info("init");
+        long start = System.nanoTime();
 
         GL3 gl3 = glAutoDrawable.getGL().getGL3();
 
@@ -161,6 +166,7 @@ public class OpenGLPanel extends Viewport implements GLEventListener {
             logger.error("Failed to load shader", e);
         }
         for(ViewportTool tool : viewportTools) tool.init(gl3);
+        StartupTimer.log("GL init",start);
     }
 
     @Override
@@ -181,8 +187,10 @@ public class OpenGLPanel extends Viewport implements GLEventListener {
     @Override
     public void display(GLAutoDrawable glAutoDrawable) {
         double dt = 1.0 / (double)this.getFPS();
-        for(ViewportTool tool : viewportTools) tool.update(dt);
-        updateAllNodes(dt);
+        // tools can move things in the scene.  each render pass holds the lock only while it reads the scene.
+        Registry.changeScene(() -> {
+            for(ViewportTool tool : viewportTools) tool.update(dt);
+        });
         renderAllPasses();
         renderViewportTools();
     }
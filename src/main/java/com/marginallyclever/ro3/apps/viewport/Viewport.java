@@ -186,7 +186,7 @@ public class Viewport extends JPanel implements SceneChangeListener, MouseListen
                 Camera newCamera = new Camera();
                 newCamera.fromJSON(oldCamera.toJSON());
                 newCamera.witnessProtection();
-                Registry.getScene().addChild(newCamera);
+                Registry.changeScene(() -> Registry.getScene().addChild(newCamera));
             }
         });
         toolBar.add(button);
@@ -405,26 +405,31 @@ public class Viewport extends JPanel implements SceneChangeListener, MouseListen
         }
     }
 
-    public void updateAllNodes(double dt) {
-        Registry.getPhysics().update(dt);
-        Registry.getScene().update(dt);
+    /**
+     * Tools can change the scene, so they are told about the mouse while holding the simulation lock.
+     * @param e the mouse event
+     */
+    private void handleMouseEventInTools(MouseEvent e) {
+        Registry.changeScene(() -> {
+            for(ViewportTool tool : viewportTools) tool.handleMouseEvent(e);
+        });
     }
 
     @Override
     public void mouseClicked(MouseEvent e) {
-        for(ViewportTool tool : viewportTools) tool.handleMouseEvent(e);
+        handleMouseEventInTools(e);
     }
 
     @Override
     public void mousePressed(MouseEvent e) {
-        for(ViewportTool tool : viewportTools) tool.handleMouseEvent(e);
+        handleMouseEventInTools(e);
 
         buttonPressed.set(e.getButton(),true);
     }
 
     @Override
     public void mouseReleased(MouseEvent e) {
-        for(ViewportTool tool : viewportTools) tool.handleMouseEvent(e);
+        handleMouseEventInTools(e);
 
         buttonPressed.set(e.getButton(),false);
     }
@@ -437,7 +442,7 @@ public class Viewport extends JPanel implements SceneChangeListener, MouseListen
 
     @Override
     public void mouseDragged(MouseEvent e) {
-        for(ViewportTool tool : viewportTools) tool.handleMouseEvent(e);
+        handleMouseEventInTools(e);
 
         int px = e.getX();
         double dx = px - mouseX;
@@ -454,27 +459,30 @@ public class Viewport extends JPanel implements SceneChangeListener, MouseListen
         double scale = camera.getOrbitRadius() * userMovementScale / 50d;
         boolean shift = (e.getModifiersEx() & MouseEvent.SHIFT_DOWN_MASK) != 0;
 
-        //if(buttonPressed.get(MouseEvent.BUTTON1)) {}
-        if(buttonPressed.get(MouseEvent.BUTTON2)) {  // middle button
-            if(!shift) {
-                camera.panTilt(dx, dy);
-            } else {
-                camera.dolly(dy * scale);
+        // the camera can be in the scene.
+        Registry.changeScene(() -> {
+            //if(buttonPressed.get(MouseEvent.BUTTON1)) {}
+            if(buttonPressed.get(MouseEvent.BUTTON2)) {  // middle button
+                if(!shift) {
+                    camera.panTilt(dx, dy);
+                } else {
+                    camera.dolly(dy * scale);
+                }
             }
-        }
-        if(buttonPressed.get(MouseEvent.BUTTON3)) {  // right button
-            if(!shift) {
-                camera.orbit(dx,dy);
-            } else {
-                camera.truck(-dx * scale);
-                camera.pedestal(dy * scale);
+            if(buttonPressed.get(MouseEvent.BUTTON3)) {  // right button
+                if(!shift) {
+                    camera.orbit(dx,dy);
+                } else {
+                    camera.truck(-dx * scale);
+                    camera.pedestal(dy * scale);
+                }
             }
-        }
+        });
     }
 
     @Override
     public void mouseWheelMoved(MouseWheelEvent e) {
-        for(ViewportTool tool : viewportTools) tool.handleMouseEvent(e);
+        handleMouseEventInTools(e);
 
         int dz = e.getWheelRotation();
         changeOrbitRadius(dz);
@@ -485,7 +493,7 @@ public class Viewport extends JPanel implements SceneChangeListener, MouseListen
         mouseX = e.getX();
         mouseY = e.getY();
         //logger.debug("mouse {},{}",e.getX(),e.getY());
-        for(ViewportTool tool : viewportTools) tool.handleMouseEvent(e);
+        handleMouseEventInTools(e);
     }
 
     /**
@@ -496,7 +504,7 @@ public class Viewport extends JPanel implements SceneChangeListener, MouseListen
     private void changeOrbitRadius(int dz) {
         Camera camera = getActiveCamera();
         assert camera != null;
-        camera.orbitDolly(dz > 0 ? orbitChangeFactor : 1.0 / orbitChangeFactor);
+        Registry.changeScene(() -> camera.orbitDolly(dz > 0 ? orbitChangeFactor : 1.0 / orbitChangeFactor));
     }
 
     public double getOrbitChangeFactor() {
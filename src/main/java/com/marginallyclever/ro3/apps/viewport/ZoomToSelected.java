@@ -29,6 +29,10 @@ public class ZoomToSelected extends AbstractAction {
 
     @Override
     public void actionPerformed(ActionEvent e) {
+        Registry.changeScene(this::zoomToSelected);
+    }
+
+    private void zoomToSelected() {
         Pose lastFound = null;
         for(Node node : Registry.selection.getList()) {
             if(node instanceof Pose pose) {
@@ -1,7 +1,12 @@
 package com.marginallyclever.ro3.apps.viewport.renderpass;
 
 import com.jogamp.opengl.GLAutoDrawable;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.viewport.Viewport;
+import com.marginallyclever.ro3.node.Node;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * {@link AbstractRenderPass} handles common methods for all {@link RenderPass}.
@@ -51,6 +56,27 @@ public abstract class AbstractRenderPass implements RenderPass {
     @Override
     public void draw(Viewport viewport) {}
 
+    /**
+     * Find every node of a type in the scene.  The scene is walked while holding the simulation lock so that it
+     * cannot change part way through, and the lock is let go before anything is drawn.
+     * @param type the type of node to find
+     * @return the nodes found, breadth first.
+     * @param <T> the type of node to find
+     */
+    protected <T> List<T> findAllInScene(Class<T> type) {
+        List<T> found = new ArrayList<>();
+        Registry.changeScene(() -> {
+            List<Node> toScan = new ArrayList<>();
+            toScan.add(Registry.getScene());
+            for(int i=0;i<toScan.size();++i) {
+                Node node = toScan.get(i);
+                if(type.isInstance(node)) found.add(type.cast(node));
+                toScan.addAll(node.getChildren());
+            }
+        });
+        return found;
+    }
+
     @Override
     public void init(GLAutoDrawable glAutoDrawable) {}
 
@@ -11,7 +11,6 @@ import com.marginallyclever.ro3.apps.viewport.ShaderProgram;
 import com.marginallyclever.ro3.apps.viewport.Viewport;
 import com.marginallyclever.ro3.mesh.AABB;
 import com.marginallyclever.ro3.mesh.Mesh;
-import com.marginallyclever.ro3.node.Node;
 import com.marginallyclever.ro3.node.nodes.pose.poses.Camera;
 import com.marginallyclever.ro3.node.nodes.pose.poses.MeshInstance;
 import org.slf4j.Logger;
@@ -21,7 +20,6 @@ import javax.vecmath.Matrix4d;
 import javax.vecmath.Point3d;
 import javax.vecmath.Vector3d;
 import java.awt.*;
-import java.util.ArrayList;
 
 /**
  * Draw the bounding box of each {@link MeshInstance} in the scene.
@@ -108,12 +106,7 @@ public class DrawBoundingBoxes extends AbstractRenderPass {
         gl3.glDisable(GL3.GL_DEPTH_TEST);
 
         var list = Registry.selection.getList();
-        var toScan = new ArrayList<>(Registry.getScene().getChildren());
-        while(!toScan.isEmpty()) {
-            Node node = toScan.remove(0);
-            toScan.addAll(node.getChildren());
-
-            if(!(node instanceof MeshInstance meshInstance)) continue;
+        for(MeshInstance meshInstance : findAllInScene(MeshInstance.class)) {
             if(getActiveStatus()==SOMETIMES && !list.contains(meshInstance)) continue;
 
             // if they have a mesh, draw it.
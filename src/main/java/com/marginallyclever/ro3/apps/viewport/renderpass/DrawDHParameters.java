@@ -10,7 +10,6 @@ import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.viewport.ShaderProgram;
 import com.marginallyclever.ro3.apps.viewport.Viewport;
 import com.marginallyclever.ro3.mesh.Mesh;
-import com.marginallyclever.ro3.node.Node;
 import com.marginallyclever.ro3.node.nodes.DHParameter;
 import com.marginallyclever.ro3.node.nodes.pose.Pose;
 import com.marginallyclever.ro3.node.nodes.pose.poses.Camera;
@@ -21,8 +20,6 @@ import javax.vecmath.Matrix4d;
 import javax.vecmath.Vector3d;
 import java.awt.*;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Draws each {@link DHParameter} as two lines from the previous joint to the current joint.
@@ -94,13 +91,7 @@ public class DrawDHParameters extends AbstractRenderPass {
 
         var list = Registry.selection.getList();
 
-        List<Node> toScan = new ArrayList<>();
-        toScan.add(Registry.getScene());
-        while(!toScan.isEmpty()) {
-            Node node = toScan.remove(0);
-            toScan.addAll(node.getChildren());
-
-            if(!(node instanceof DHParameter parameter)) continue;
+        for(DHParameter parameter : findAllInScene(DHParameter.class)) {
             if(getActiveStatus()==SOMETIMES && !list.contains(parameter)) continue;
 
             shader.setColor(gl3,"diffuseColor",list.contains(parameter) ? Color.WHITE : Color.GRAY);
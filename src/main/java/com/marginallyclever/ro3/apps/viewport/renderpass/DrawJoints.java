@@ -21,7 +21,6 @@ import org.slf4j.LoggerFactory;
 import javax.vecmath.Matrix4d;
 import javax.vecmath.Vector3d;
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -95,11 +94,7 @@ public class DrawJoints extends AbstractRenderPass {
 
         var list = Registry.selection.getList();
 
-        var toScan = new ArrayList<>(Registry.getScene().getChildren());
-        while(!toScan.isEmpty()) {
-            Node node = toScan.remove(0);
-            toScan.addAll(node.getChildren());
-
+        for(Node node : findAllInScene(Node.class)) {
             if(getActiveStatus()==SOMETIMES && !list.contains(node)) continue;
 
             if(node instanceof HingeJoint joint) renderHinge(gl3,joint,list,originShift,cameraWorldPos);
@@ -184,17 +184,9 @@ public class DrawMeshes extends AbstractRenderPass {
     }
 
     private void unloadAllMeshes(GL3 gl3) {
-        List<Node> toScan = new ArrayList<>(Registry.getScene().getChildren());
-        while(!toScan.isEmpty()) {
-            Node node = toScan.remove(0);
-
-            if(node instanceof MeshInstance meshInstance) {
-                Mesh mesh = meshInstance.getMesh();
-                if(mesh==null) continue;
-                mesh.unload(gl3);
-            }
-
-            toScan.addAll(node.getChildren());
+        for(MeshInstance meshInstance : findAllInScene(MeshInstance.class)) {
+            Mesh mesh = meshInstance.getMesh();
+            if(mesh!=null) mesh.unload(gl3);
         }
     }
 
@@ -203,12 +195,16 @@ public class DrawMeshes extends AbstractRenderPass {
         Camera camera = viewport.getActiveCamera();
         if (camera == null) return;
 
-        getSunlight();
+        // hold the simulation still only while the scene is read.
+        List<MeshMaterialMatrix> meshMaterial = new ArrayList<>();
+        Registry.changeScene(() -> {
+            getSunlight();
+            meshMaterial.addAll(collectAllMeshes());
+        });
 
         boolean originShift = viewport.isOriginShift();
         GL3 gl3 = GLContext.getCurrentGL().getGL3();
 
-        var meshMaterial = collectAllMeshes();
         sortMeshMaterialList(meshMaterial);
         updateLightMatrix(camera,originShift);
         updateShadowMap(gl3,meshMaterial,camera,originShift);
@@ -331,7 +327,10 @@ public class DrawMeshes extends AbstractRenderPass {
             // if they have a mesh, collect it.
             Mesh mesh = meshInstance.getMesh();
             if (mesh != null) {
-                meshMaterialMatrices.add(new MeshMaterialMatrix(meshInstance,lastMaterialSeen,meshInstance.getWorld()));
+                // blend between simulation steps so motion is smooth at any frame rate.
+                Matrix4d world = new Matrix4d();
+                Registry.getSimulation().getInterpolatedWorld(meshInstance,world);
+                meshMaterialMatrices.add(new MeshMaterialMatrix(meshInstance,lastMaterialSeen,world));
             }
         }
 
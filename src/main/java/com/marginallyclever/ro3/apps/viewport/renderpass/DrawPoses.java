@@ -9,7 +9,6 @@ import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.viewport.ShaderProgram;
 import com.marginallyclever.ro3.apps.viewport.Viewport;
 import com.marginallyclever.ro3.mesh.Mesh;
-import com.marginallyclever.ro3.node.Node;
 import com.marginallyclever.ro3.node.nodes.pose.Pose;
 import com.marginallyclever.ro3.node.nodes.pose.poses.Camera;
 import org.slf4j.Logger;
@@ -18,7 +17,6 @@ import org.slf4j.LoggerFactory;
 import javax.vecmath.Matrix4d;
 import javax.vecmath.Vector3d;
 import java.awt.*;
-import java.util.ArrayList;
 
 /**
  * Draw each {@link Pose} as RGB lines from the origin to the X,Y,Z axes.
@@ -78,13 +76,7 @@ public class DrawPoses extends AbstractRenderPass {
         // collect all poses, separating out the selected ones
         var list = Registry.selection.getList();
 
-        var toScan = new ArrayList<Node>();
-        toScan.add(Registry.getScene());
-        while(!toScan.isEmpty()) {
-            Node node = toScan.remove(0);
-            toScan.addAll(node.getChildren());
-
-            if (!(node instanceof Pose pose)) continue;
+        for(Pose pose : findAllInScene(Pose.class)) {
             boolean selected = list.contains(pose);
             if (getActiveStatus() == SOMETIMES && !selected) continue;
 
@@ -1,5 +1,6 @@
 package com.marginallyclever.ro3.apps.viewport.viewporttool.move;
 
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.node.nodes.pose.Pose;
 
 import javax.swing.undo.AbstractUndoableEdit;
@@ -50,13 +51,15 @@ public class RotatePoseCommand extends AbstractUndoableEdit {
     }
 
     private void moveAllSubjects(Vector3d v,double scale) {
-        for(Pose pose : subjects) {
-            Matrix4d m = pose.getWorld();
-            m.m03 += v.x * scale;
-            m.m13 += v.y * scale;
-            m.m23 += v.z * scale;
-            pose.setWorld(m);
-        }
+        Registry.changeScene(() -> {
+            for(Pose pose : subjects) {
+                Matrix4d m = pose.getWorld();
+                m.m03 += v.x * scale;
+                m.m13 += v.y * scale;
+                m.m23 += v.z * scale;
+                pose.setWorld(m);
+            }
+        });
     }
 
     /**
@@ -0,0 +1,98 @@
+package com.marginallyclever.ro3.kinematics;
+
+import javax.vecmath.Matrix4d;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * <p>{@link BatchKinematics} runs forward and inverse kinematics for many poses at once, spread across all cores.
+ * It is meant for reachability maps and workspace analysis, where thousands of candidate targets are tested against
+ * one {@link KinematicChain}.  The scene is never touched.</p>
+ * <p>Each worker thread gets its own {@link ChainSolver} with the settings of this batch.  Results are returned in the
+ * same order as the inputs.</p>
+ */
+public class BatchKinematics {
+    private final KinematicChain chain;
+    private int maxIterations = ChainSolver.DEFAULT_MAX_ITERATIONS;
+    private double tolerance = ChainSolver.DEFAULT_TOLERANCE;
+    private double damping = ChainSolver.DEFAULT_DAMPING;
+
+    public BatchKinematics(KinematicChain chain) {
+        this.chain = chain;
+    }
+
+    /**
+     * Find the end effector pose for every set of joint angles.
+     * @param angles one array of joint angles per pose, in degrees.
+     * @return one world pose per set of angles.
+     */
+    public Matrix4d[] forward(double[][] angles) {
+        Matrix4d[] results = new Matrix4d[angles.length];
+        IntStream.range(0,angles.length).parallel().forEach(i -> {
+            Matrix4d m = new Matrix4d();
+            chain.forward(angles[i],m,null);
+            results[i] = m;
+        });
+        return results;
+    }
+
+    /**
+     * Solve for every target, each starting from the same seed.
+     * @param targets the world poses the end effector should reach.
+     * @param seed the joint angles to start from, in degrees.
+     * @return one result per target.
+     */
+    public IKResult[] inverse(List<Matrix4d> targets, double[] seed) {
+        IKResult[] results = new IKResult[targets.size()];
+        ThreadLocal<ChainSolver> solvers = ThreadLocal.withInitial(this::createSolver);
+        IntStream.range(0,results.length).parallel().forEach(i -> {
+            results[i] = solvers.get().solve(targets.get(i),seed);
+        });
+        return results;
+    }
+
+    private ChainSolver createSolver() {
+        ChainSolver solver = new ChainSolver(chain);
+        solver.setMaxIterations(maxIterations);
+        solver.setTolerance(tolerance);
+        solver.setDamping(damping);
+        return solver;
+    }
+
+    public KinematicChain getChain() {
+        return chain;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @param maxIterations the most iterations for each target.  Must be at least one.
+     */
+    public void setMaxIterations(int maxIterations) {
+        if(maxIterations<1) throw new IllegalArgumentException("maxIterations must be at least one.");
+        this.maxIterations = maxIterations;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * @param tolerance see {@link ChainSolver#setTolerance(double)}.  Must be &gt;= 0.
+     */
+    public void setTolerance(double tolerance) {
+        if(tolerance<0) throw new IllegalArgumentException("tolerance must be >= 0");
+        this.tolerance = tolerance;
+    }
+
+    public double getDamping() {
+        return damping;
+    }
+
+    public void setDamping(double damping) {
+        if(damping<0) throw new IllegalArgumentException("damping must be >= 0");
+        this.damping = damping;
+    }
+}
@@ -0,0 +1,160 @@
+package com.marginallyclever.ro3.kinematics;
+
+import com.marginallyclever.convenience.approximatejacobian.ApproximateJacobian;
+import com.marginallyclever.convenience.helpers.MatrixHelper;
+
+import javax.vecmath.Matrix4d;
+
+/**
+ * <p>{@link ChainSolver} finds joint angles that put the end effector of a {@link KinematicChain} at a target pose.
+ * Each iteration does one forward kinematics pass, builds the jacobian from the joint frames with screw theory, and
+ * takes a damped least squares step.  The joint limits of the chain are respected.</p>
+ * <p>A solver keeps its own buffers, so one solver must not be used by two threads at once.  Make one per thread.</p>
+ */
+public class ChainSolver {
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+    public static final double DEFAULT_TOLERANCE = 0.01;
+    public static final double DEFAULT_DAMPING = 0.1;
+    private static final int MAX_STEP_HALVINGS = 6;
+
+    private final KinematicChain chain;
+    private final ChainJacobian jacobian;
+    private final Matrix4d endEffector = new Matrix4d();
+    private final Matrix4d[] jointFrames;
+    private final double[] error = new double[6];
+    private final double[] step;
+    private final double[] previous;
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    private double tolerance = DEFAULT_TOLERANCE;
+
+    public ChainSolver(KinematicChain chain) {
+        this.chain = chain;
+        int n = chain.getNumJoints();
+        jacobian = new ChainJacobian(n);
+        jacobian.setDamping(DEFAULT_DAMPING);
+        jointFrames = new Matrix4d[n];
+        for(int i=0;i<n;++i) jointFrames[i] = new Matrix4d();
+        step = new double[n];
+        previous = new double[n];
+    }
+
+    /**
+     * Solve for one target.
+     * @param target the world pose the end effector should reach.
+     * @param seed the joint angles to start from, in degrees.  Not modified.
+     * @return the result.  {@link IKResult#angles()} is a new array.
+     */
+    public IKResult solve(Matrix4d target, double[] seed) {
+        int n = chain.getNumJoints();
+        if(seed.length!=n) throw new IllegalArgumentException("One seed angle for every joint.");
+        double[] angles = new double[n];
+        for(int i=0;i<n;++i) angles[i] = chain.clampAngle(i,seed[i]);
+
+        double residual = measure(angles,target);
+        int iterations = 0;
+        while(residual > tolerance && iterations < maxIterations) {
+            iterations++;
+            fillJacobian();
+            try {
+                jacobian.getJointFromCartesian(error,step);
+            } catch(Exception e) {
+                break;
+            }
+            System.arraycopy(angles,0,previous,0,n);
+            // take the whole step.  if that makes things worse, try shorter steps.
+            double next = Double.MAX_VALUE;
+            double scale = 1;
+            for(int tries=0;tries<MAX_STEP_HALVINGS && !(next < residual);++tries) {
+                for(int i=0;i<n;++i) angles[i] = chain.clampAngle(i,previous[i]+step[i]*scale);
+                next = measure(angles,target);
+                scale *= 0.5;
+            }
+            if(!(next < residual)) {
+                // no progress.  stuck at a limit, a singularity, or the target is out of reach.
+                System.arraycopy(previous,0,angles,0,n);
+                break;
+            }
+            residual = next;
+        }
+        return new IKResult(residual <= tolerance, iterations, residual, angles);
+    }
+
+    /**
+     * Run forward kinematics and store the distance to the target in {@link #error}.
+     * @return the sum of the absolute components of the distance, the same measure used by
+     * {@link com.marginallyclever.ro3.node.nodes.limbsolver.LimbSolver}.
+     */
+    private double measure(double[] angles, Matrix4d target) {
+        chain.forward(angles,endEffector,jointFrames);
+        MatrixHelper.getCartesianBetweenTwoMatrices(endEffector,target,error);
+        double sum = 0;
+        for(double v : error) sum += Math.abs(v);
+        return sum;
+    }
+
+    /**
+     * Screw theory jacobian from the joint frames of the last forward kinematics pass.  Same layout and signs as
+     * {@link com.marginallyclever.convenience.approximatejacobian.ApproximateJacobianScrewTheory}.
+     */
+    private void fillJacobian() {
+        double [][] j = jacobian.getJacobian();
+        double px = endEffector.m03, py = endEffector.m13, pz = endEffector.m23;
+        for(int i=0;i<jointFrames.length;++i) {
+            Matrix4d f = jointFrames[i];
+            double sx = f.m02, sy = f.m12, sz = f.m22;
+            double rx = px - f.m03, ry = py - f.m13, rz = pz - f.m23;
+            j[0][i] = sy*rz - sz*ry;
+            j[1][i] = sz*rx - sx*rz;
+            j[2][i] = sx*ry - sy*rx;
+            j[3][i] = -sx;
+            j[4][i] = -sy;
+            j[5][i] = -sz;
+        }
+    }
+
+    public KinematicChain getChain() {
+        return chain;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @param maxIterations must be at least one.
+     */
+    public void setMaxIterations(int maxIterations) {
+        if(maxIterations<1) throw new IllegalArgumentException("maxIterations must be at least one.");
+        this.maxIterations = maxIterations;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * @param tolerance the distance to the target that counts as a success.  A combination of linear and angular
+     *                  distances.  Must be &gt;= 0.
+     */
+    public void setTolerance(double tolerance) {
+        if(tolerance<0) throw new IllegalArgumentException("tolerance must be >= 0");
+        this.tolerance = tolerance;
+    }
+
+    public double getDamping() {
+        return jacobian.getDamping();
+    }
+
+    public void setDamping(double damping) {
+        jacobian.setDamping(damping);
+    }
+
+    /**
+     * Gives the solver the damped least squares solve of {@link ApproximateJacobian}.
+     */
+    private static class ChainJacobian extends ApproximateJacobian {
+        ChainJacobian(int dof) {
+            super(dof);
+        }
+    }
+}
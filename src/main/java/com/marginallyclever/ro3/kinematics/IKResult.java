@@ -0,0 +1,10 @@
+package com.marginallyclever.ro3.kinematics;
+
+/**
+ * The outcome of one inverse kinematics solve by a {@link ChainSolver}.
+ * @param success true if the end effector reached the target within the tolerance.
+ * @param iterations the number of iterations used.
+ * @param residual the remaining distance to the target, a combination of linear and angular distances.
+ * @param angles the joint angles of the best solution found, in degrees.
+ */
+public record IKResult(boolean success, int iterations, double residual, double[] angles) {}
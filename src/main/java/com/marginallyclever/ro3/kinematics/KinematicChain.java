@@ -0,0 +1,182 @@
+package com.marginallyclever.ro3.kinematics;
+
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.NodePath;
+import com.marginallyclever.ro3.node.nodes.HingeJoint;
+import com.marginallyclever.ro3.node.nodes.Motor;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import com.marginallyclever.ro3.node.nodes.pose.poses.Limb;
+
+import javax.vecmath.Matrix4d;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>{@link KinematicChain} is a copy of the joints of a {@link Limb} that is detached from the scene.  It can do
+ * <a href="https://en.wikipedia.org/wiki/Forward_kinematics">Forward Kinematics</a> for any set of joint angles
+ * without moving the limb, and it is safe to use from many threads at once.</p>
+ * <p>Each {@link HingeJoint} turns its axle about the axle's Z axis.  Everything between one axle and the parent of
+ * the next axle, such as {@link com.marginallyclever.ro3.node.nodes.DHParameter}s and plain {@link Pose}s, is
+ * captured as one fixed transform.  The transforms are read from the world matrices of the limb when the chain is
+ * made, so the limb should be up to date at that time.  Later changes to the limb are not seen.</p>
+ * <p>All matrices are in world space.  All angles are in degrees.</p>
+ */
+public class KinematicChain {
+    // world pose of the parent of the first axle.
+    private final Matrix4d base = new Matrix4d();
+    // offsets[i] goes from the frame of axle i-1 to the parent of axle i.  offsets[0] is identity.
+    private final Matrix4d[] offsets;
+    // from the frame of the last axle to the end effector.
+    private final Matrix4d tool = new Matrix4d();
+    private final double[] minAngle;
+    private final double[] maxAngle;
+    private final double[] initialAngles;
+
+    private KinematicChain(int numJoints) {
+        offsets = new Matrix4d[numJoints];
+        minAngle = new double[numJoints];
+        maxAngle = new double[numJoints];
+        initialAngles = new double[numJoints];
+    }
+
+    /**
+     * Copy the joints of a limb.
+     * @param limb the limb to copy.
+     * @return a new chain with the same joints, limits, and current angles as the limb.
+     * @throws IllegalArgumentException if the limb has no end effector, a joint has no hinge or axle, or the joints
+     * are not in a single chain.
+     */
+    public static KinematicChain fromLimb(Limb limb) {
+        Pose endEffector = limb.getEndEffector().getSubject();
+        if(endEffector==null) throw new IllegalArgumentException("Limb has no end effector.");
+
+        List<HingeJoint> hinges = new ArrayList<>();
+        for(NodePath<Motor> path : limb.getMotors()) {
+            Motor motor = path.getSubject();
+            if(motor==null) continue;
+            HingeJoint hinge = motor.getHinge();
+            if(hinge==null) throw new IllegalArgumentException("Motor "+motor.getName()+" has no hinge.");
+            if(hinge.getAxle()==null) throw new IllegalArgumentException("Hinge "+hinge.getName()+" has no axle.");
+            hinges.add(hinge);
+        }
+
+        KinematicChain chain = new KinematicChain(hinges.size());
+        Matrix4d previousInverse = null;
+        Pose previousAxle = null;
+        for(int i=0;i<hinges.size();++i) {
+            HingeJoint hinge = hinges.get(i);
+            Pose axle = hinge.getAxle();
+            if(previousAxle!=null && !isDescendant(axle,previousAxle)) {
+                throw new IllegalArgumentException("Axle "+axle.getName()+" does not move with "+previousAxle.getName()+".");
+            }
+            Matrix4d parentWorld = getParentWorld(axle);
+            if(previousInverse==null) {
+                chain.base.set(parentWorld);
+                chain.offsets[i] = new Matrix4d();
+                chain.offsets[i].setIdentity();
+            } else {
+                chain.offsets[i] = new Matrix4d();
+                chain.offsets[i].mul(previousInverse,parentWorld);
+            }
+            chain.minAngle[i] = hinge.getMinAngle();
+            chain.maxAngle[i] = hinge.getMaxAngle();
+            chain.initialAngles[i] = hinge.getAngle();
+            previousInverse = axle.getWorldInverse();
+            previousAxle = axle;
+        }
+
+        if(previousAxle==null) {
+            // no joints.  the end effector never moves.
+            chain.base.setIdentity();
+            chain.tool.set(endEffector.getWorld());
+        } else {
+            if(!isDescendant(endEffector,previousAxle)) {
+                throw new IllegalArgumentException("End effector does not move with "+previousAxle.getName()+".");
+            }
+            chain.tool.mul(previousInverse,endEffector.getWorld());
+        }
+        return chain;
+    }
+
+    private static boolean isDescendant(Node node, Node ancestor) {
+        for(Node n = node; n!=null; n = n.getParent()) {
+            if(n==ancestor) return true;
+        }
+        return false;
+    }
+
+    private static Matrix4d getParentWorld(Pose axle) {
+        Pose parent = axle.findParent(Pose.class);
+        if(parent!=null) return parent.getWorld();
+        Matrix4d m = new Matrix4d();
+        m.setIdentity();
+        return m;
+    }
+
+    public int getNumJoints() {
+        return offsets.length;
+    }
+
+    /**
+     * @return the joint angles of the limb when this chain was made.
+     */
+    public double[] getInitialAngles() {
+        return initialAngles.clone();
+    }
+
+    /**
+     * Limit an angle the same way {@link HingeJoint#setAngle(double)} does.
+     * @param index the joint
+     * @param degrees the angle
+     * @return the angle inside the limits of the joint.
+     */
+    public double clampAngle(int index, double degrees) {
+        if(maxAngle[index]!=360 && minAngle[index]!=0) {
+            if(degrees > maxAngle[index]) return maxAngle[index];
+            if(degrees < minAngle[index]) return minAngle[index];
+        }
+        return degrees;
+    }
+
+    /**
+     * Find the pose of the end effector for a set of joint angles.  Does not allocate.
+     * @param angles one angle for every joint, in degrees.
+     * @param endEffector filled with the world pose of the end effector.
+     * @param jointFrames if not null, filled with the world pose of each axle.  Must have one matrix for every joint.
+     */
+    public void forward(double[] angles, Matrix4d endEffector, Matrix4d[] jointFrames) {
+        if(angles.length!=offsets.length) throw new IllegalArgumentException("One angle for every joint.");
+        endEffector.set(base);
+        for(int i=0;i<offsets.length;++i) {
+            endEffector.mul(offsets[i]);
+            mulRotZ(endEffector,Math.toRadians(angles[i]));
+            if(jointFrames!=null) jointFrames[i].set(endEffector);
+        }
+        endEffector.mul(tool);
+    }
+
+    /**
+     * Find the pose of the end effector for a set of joint angles.
+     * @param angles one angle for every joint, in degrees.
+     * @return the world pose of the end effector.
+     */
+    public Matrix4d forward(double[] angles) {
+        Matrix4d result = new Matrix4d();
+        forward(angles,result,null);
+        return result;
+    }
+
+    /**
+     * m = m * rotZ(radians), without making a second matrix.  Only the X and Y columns change.
+     */
+    private static void mulRotZ(Matrix4d m, double radians) {
+        double c = Math.cos(radians);
+        double s = Math.sin(radians);
+        double x0 = m.m00, x1 = m.m10, x2 = m.m20, x3 = m.m30;
+        double y0 = m.m01, y1 = m.m11, y2 = m.m21, y3 = m.m31;
+        m.m00 = x0*c + y0*s;   m.m01 = y0*c - x0*s;
+        m.m10 = x1*c + y1*s;   m.m11 = y1*c - x1*s;
+        m.m20 = x2*c + y2*s;   m.m21 = y2*c - x2*s;
+        m.m30 = x3*c + y3*s;   m.m31 = y3*c - x3*s;
+    }
+}
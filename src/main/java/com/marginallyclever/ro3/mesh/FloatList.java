@@ -0,0 +1,135 @@
+package com.marginallyclever.ro3.mesh;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>{@link FloatList} is a growable list of primitive floats.  It uses 4 bytes per element where a
+ * <code>List&lt;Float&gt;</code> uses about 20.</p>
+ * <p>{@link #asBuffer()} wraps the backing array without copying it, so it can be handed straight to OpenGL.</p>
+ */
+public class FloatList {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private float [] data;
+    private int size;
+
+    public FloatList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FloatList(int initialCapacity) {
+        data = new float[Math.max(initialCapacity,1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size==0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public float get(int index) {
+        if(index>=size) throw new IndexOutOfBoundsException("Index "+index+" out of bounds for size "+size);
+        return data[index];
+    }
+
+    public void set(int index,float value) {
+        if(index>=size) throw new IndexOutOfBoundsException("Index "+index+" out of bounds for size "+size);
+        data[index] = value;
+    }
+
+    public void add(float value) {
+        ensureCapacity(size+1);
+        data[size++] = value;
+    }
+
+    public void add(float a,float b) {
+        ensureCapacity(size+2);
+        data[size++] = a;
+        data[size++] = b;
+    }
+
+    public void add(float a,float b,float c) {
+        ensureCapacity(size+3);
+        data[size++] = a;
+        data[size++] = b;
+        data[size++] = c;
+    }
+
+    public void add(float a,float b,float c,float d) {
+        ensureCapacity(size+4);
+        data[size++] = a;
+        data[size++] = b;
+        data[size++] = c;
+        data[size++] = d;
+    }
+
+    /**
+     * Append many values at once.
+     * @param values the values to append
+     */
+    public void addAll(float [] values) {
+        addAll(values,0,values.length);
+    }
+
+    /**
+     * Append part of an array.
+     * @param values the source array
+     * @param offset the first value to copy
+     * @param length the number of values to copy
+     */
+    public void addAll(float [] values,int offset,int length) {
+        ensureCapacity(size+length);
+        System.arraycopy(values,offset,data,size,length);
+        size+=length;
+    }
+
+    /**
+     * Append the remaining values in a buffer.  The position of the buffer is moved to its limit.
+     * @param values the source buffer
+     */
+    public void addAll(FloatBuffer values) {
+        int length = values.remaining();
+        ensureCapacity(size+length);
+        values.get(data,size,length);
+        size+=length;
+    }
+
+    /**
+     * Make sure the list can hold at least <code>capacity</code> values without growing again.
+     * @param capacity the number of values
+     */
+    public void ensureCapacity(int capacity) {
+        if(capacity<=data.length) return;
+        int newCapacity = Math.max(capacity,data.length + (data.length>>1));
+        data = Arrays.copyOf(data,newCapacity);
+    }
+
+    /**
+     * Release any unused capacity.
+     */
+    public void trimToSize() {
+        if(data.length>size) data = Arrays.copyOf(data,Math.max(size,1));
+    }
+
+    /**
+     * @return a copy of the values in this list.
+     */
+    public float [] toArray() {
+        return Arrays.copyOf(data,size);
+    }
+
+    /**
+     * @return a buffer over the values in this list.  It shares the backing array, so it is only valid until the
+     * list is changed.
+     */
+    public FloatBuffer asBuffer() {
+        return FloatBuffer.wrap(data,0,size);
+    }
+}
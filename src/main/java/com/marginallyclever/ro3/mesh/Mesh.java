@@ -17,9 +17,6 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 
 /**
  * <p>{@link Mesh} contains the vertex data for a 3D model.  It may also contain normal, color, and texture data.</p>
@@ -28,15 +25,17 @@ import java.util.List;
  */
 public class Mesh {
 	private static final Logger logger = LoggerFactory.getLogger(Mesh.class);
+	// the distance out of MeshBVH.intersect(), reused by each thread.
+	private static final ThreadLocal<double[]> DISTANCE = ThreadLocal.withInitial(() -> new double[1]);
 	public static final int NUM_BUFFERS=5;  // verts, normals, colors, textureCoordinates, index
 	public static final int BYTES_PER_INT = Integer.SIZE/8;
 	public static final int BYTES_PER_FLOAT = Float.SIZE/8;
 
-	public final transient List<Float> vertexArray = new ArrayList<>();
-	public final transient List<Float> normalArray = new ArrayList<>();
-	public final transient List<Float> colorArray = new ArrayList<>();
-	public final transient List<Float> textureArray = new ArrayList<>();
-	public final transient List<Integer> indexArray = new ArrayList<>();
+	public final transient FloatList vertexArray = new FloatList();
+	public final transient FloatList normalArray = new FloatList();
+	public final transient FloatList colorArray = new FloatList();
+	public final transient FloatList textureArray = new FloatList();
+	public final transient IntList indexArray = new IntList();
 
 	private transient boolean hasNormals = false;
 	private transient boolean hasColors = false;
@@ -58,6 +57,8 @@ public class Mesh {
 	private final EventListenerList listeners = new EventListenerList();
 
 	private VertexProvider vertexProvider;
+	// built on the first call to intersect(), discarded when the mesh changes.
+	private transient MeshBVH bvh;
 
 	public Mesh() {
 		super();
@@ -81,6 +82,7 @@ public class Mesh {
 		textureArray.clear();
 		indexArray.clear();
 		isDirty=true;
+		invalidateBVH();
 	}
 
 	public void setSourceName(String filename) {
@@ -155,10 +157,7 @@ public class Mesh {
 		if(hasTextures) setupArray(gl,3,2,numVertexes,textureArray);
 
 		if(hasIndexes) {
-			IntBuffer data = IntBuffer.allocate(indexArray.size());
-			for (Integer integer : indexArray) data.put(integer);
-			data.rewind();
-
+			IntBuffer data = indexArray.asBuffer();
 			gl.glBindBuffer(GL3.GL_ELEMENT_ARRAY_BUFFER, VBO[4]);
 			gl.glBufferData(GL3.GL_ELEMENT_ARRAY_BUFFER, (long) indexArray.size() *BYTES_PER_INT, data, GL3.GL_STATIC_DRAW);
 		}
@@ -166,6 +165,7 @@ public class Mesh {
 		gl.glBindVertexArray(0);
 
 		createNewVertexProvider();
+		invalidateBVH();
 	}
 
 	private void createNewVertexProvider() {
@@ -225,10 +225,9 @@ public class Mesh {
 		OpenGLHelper.checkGLError(gl,logger);
 	}
 
-	private void setupArray(GL3 gl, int attribIndex, int size, long numVertexes,List<Float> list) {
-		FloatBuffer data = FloatBuffer.allocate(list.size());
-		for( Float f : list ) data.put(f);
-		data.rewind();
+	private void setupArray(GL3 gl, int attribIndex, int size, long numVertexes,FloatList list) {
+		// no copy.  the buffer wraps the list's own array.
+		FloatBuffer data = list.asBuffer();
 		bindArray(gl,attribIndex,size);
 		gl.glBufferData(GL3.GL_ARRAY_BUFFER, numVertexes*size*BYTES_PER_FLOAT, data, GL3.GL_STATIC_DRAW);
 		OpenGLHelper.checkGLError(gl,logger);
@@ -277,16 +276,29 @@ public class Mesh {
 	}
 	
 	public void addNormal(float x,float y,float z) {
-		normalArray.add(x);
-		normalArray.add(y);
-		normalArray.add(z);
+		normalArray.add(x,y,z);
+		hasNormals=true;
+	}
+
+	/**
+	 * Add many normals at once.
+	 * @param xyz x,y,z for each normal.
+	 */
+	public void addNormals(float [] xyz) {
+		normalArray.addAll(xyz);
 		hasNormals=true;
 	}
 	
 	public void addVertex(float x,float y,float z) {
-		vertexArray.add(x);
-		vertexArray.add(y);
-		vertexArray.add(z);
+		vertexArray.add(x,y,z);
+	}
+
+	/**
+	 * Add many vertexes at once.
+	 * @param xyz x,y,z for each vertex.
+	 */
+	public void addVertices(float [] xyz) {
+		vertexArray.addAll(xyz);
 	}
 
 	/**
@@ -297,29 +309,71 @@ public class Mesh {
 	 * @param a alpha, 0-1
 	 */
 	public void addColor(float r,float g,float b,float a) {
-		colorArray.add(r);
-		colorArray.add(g);
-		colorArray.add(b);
-		colorArray.add(a);
+		colorArray.add(r,g,b,a);
 		if(a!=1) isTransparent=true;
 		hasColors=true;
 	}
 
+	/**
+	 * Add many colors at once.
+	 * @param rgba r,g,b,a for each color, each 0-1.
+	 */
+	public void addColors(float [] rgba) {
+		colorArray.addAll(rgba);
+		for(int i=3;i<rgba.length && !isTransparent;i+=4) {
+			if(rgba[i]!=1) isTransparent=true;
+		}
+		hasColors=true;
+	}
+
 	/**
 	 * Add a texture coordinate to the mesh.
 	 * @param u 0-1
 	 * @param v 0-1
 	 */
 	public void addTexCoord(float u,float v) {
-		textureArray.add(u);
-		textureArray.add(v);
+		textureArray.add(u,v);
+		hasTextures =true;
+	}
+
+	/**
+	 * Add many texture coordinates at once.
+	 * @param uv u,v for each coordinate, each 0-1.
+	 */
+	public void addTexCoords(float [] uv) {
+		textureArray.addAll(uv);
 		hasTextures =true;
 	}
 	
+	/**
+	 * Set hasNormals, hasColors, hasTextures, hasIndexes, and isTransparent from the contents of the arrays.  Call
+	 * after filling the arrays directly.
+	 */
+	void updateFlagsFromArrays() {
+		hasNormals = !normalArray.isEmpty();
+		hasColors = !colorArray.isEmpty();
+		hasTextures = !textureArray.isEmpty();
+		hasIndexes = !indexArray.isEmpty();
+		isTransparent = false;
+		for(int i=3;i<colorArray.size() && !isTransparent;i+=4) {
+			if(colorArray.get(i)!=1) isTransparent=true;
+		}
+		isDirty = true;
+	}
+
 	public void addIndex(int n) {
 		indexArray.add(n);
 		hasIndexes=true;
 	}
+
+	/**
+	 * Add many indexes at once.
+	 * @param indexes the indexes to add.
+	 */
+	public void addIndexes(int [] indexes) {
+		indexArray.addAll(indexes);
+		hasIndexes=true;
+	}
 	
 	/**
 	 * Force recalculation of the minimum bounding box to contain this STL file.
@@ -331,12 +385,11 @@ public class Mesh {
 		Point3d boundTop = new Point3d(-Double.MAX_VALUE,-Double.MAX_VALUE,-Double.MAX_VALUE);
 		
 		// transform and calculate
-		Iterator<Float> fi = vertexArray.iterator();
 		double x,y,z;
-		while(fi.hasNext()) {
-			x = fi.next();
-			y = fi.next();
-			z = fi.next();
+		for(int i=0;i+2<vertexArray.size();i+=3) {
+			x = vertexArray.get(i);
+			y = vertexArray.get(i+1);
+			z = vertexArray.get(i+2);
 			boundTop.x = Math.max(x, boundTop.x);
 			boundTop.y = Math.max(y, boundTop.y);
 			boundTop.z = Math.max(z, boundTop.z);
@@ -418,25 +471,64 @@ public class Mesh {
 	}
 
 	/**
-	 * Intersect a ray with this mesh.
+	 * Intersect a ray with this mesh.  The first call builds a {@link MeshBVH} for this mesh.
 	 * @param ray The ray to intersect with, in local space.
 	 * @return The RayHit object containing the intersection point and normal, or null if no intersection.
 	 */
 	public RayHit intersect(Ray ray) {
+		if(!canIntersect(ray)) return null;
+
+		var provider = getVertexProvider();
+		var tree = getBVH();
+		double [] distance = DISTANCE.get();
+		int a = tree.intersect(ray,distance);
+		if(a<0) return null;
+		return createRayHit(ray,provider,a,distance[0]);
+	}
+
+	/**
+	 * Intersect a ray with this mesh by testing every triangle.  Kept for comparison with {@link #intersect(Ray)}.
+	 * @param ray The ray to intersect with, in local space.
+	 * @return The RayHit object containing the intersection point and normal, or null if no intersection.
+	 */
+	RayHit intersectBruteForce(Ray ray) {
+		if(!canIntersect(ray)) return null;
+		return intersect(ray, getVertexProvider());
+	}
+
+	private boolean canIntersect(Ray ray) {
 		if( renderStyle != GL3.GL_TRIANGLES &&
 			renderStyle != GL3.GL_TRIANGLE_FAN &&
-			renderStyle != GL3.GL_TRIANGLE_STRIP) return null;
+			renderStyle != GL3.GL_TRIANGLE_STRIP) return false;
 
-		if(!boundingBox.intersect(ray)) {
-			return null;  // no hit
-		}
+		return boundingBox.intersect(ray);
+	}
 
-		if(vertexProvider==null) {
+	private VertexProvider getVertexProvider() {
+		var provider = vertexProvider;
+		if(provider==null) {
 			createNewVertexProvider();
+			provider = vertexProvider;
 		}
-		return intersect(ray, vertexProvider);
+		return provider;
 	}
 
+	/**
+	 * @return the bounding volume hierarchy for this mesh, building it if needed.
+	 */
+	public synchronized MeshBVH getBVH() {
+		if(bvh==null) {
+			bvh = new MeshBVH(getVertexProvider());
+		}
+		return bvh;
+	}
+
+	/**
+	 * Discard the bounding volume hierarchy.  It will be rebuilt on the next call to {@link #intersect(Ray)}.
+	 */
+	private synchronized void invalidateBVH() {
+		bvh = null;
+	}
 
 	/**
 	 *
@@ -460,28 +552,39 @@ public class Mesh {
 		}
 
 		if(nearest<ray.getMaxDistance()) {
-			Vector3d normal;
-			if(hasNormals) {
-				normal =   provider.provideNormal(a);
-				normal.add(provider.provideNormal(a+1));
-				normal.add(provider.provideNormal(a+2));
-				// average of normals
-				normal.normalize();
-			} else {
-				Vector3d v0 = provider.provideVertex(a);
-				Vector3d v1 = provider.provideVertex(a+1);
-				Vector3d v2 = provider.provideVertex(a+2);
-				// normal from face
-				normal = IntersectionHelper.buildNormalFrom3Points(v0, v1, v2);
-			}
-			Point3d p = new Point3d(ray.getDirection());
-			p.scale(nearest);
-			p.add(ray.getOrigin());
-			return new RayHit(null,nearest,normal,p);
+			return createRayHit(ray,provider,a,nearest);
 		}
 		return null;
 	}
 
+	/**
+	 * @param ray the ray that hit
+	 * @param provider the source of the triangle
+	 * @param a the index of the first vertex of the triangle that was hit
+	 * @param nearest the distance along the ray
+	 * @return a RayHit object with the intersection point and normal.
+	 */
+	private RayHit createRayHit(Ray ray,VertexProvider provider,int a,double nearest) {
+		Vector3d normal;
+		if(hasNormals) {
+			normal =   provider.provideNormal(a);
+			normal.add(provider.provideNormal(a+1));
+			normal.add(provider.provideNormal(a+2));
+			// average of normals
+			normal.normalize();
+		} else {
+			Vector3d v0 = provider.provideVertex(a);
+			Vector3d v1 = provider.provideVertex(a+1);
+			Vector3d v2 = provider.provideVertex(a+2);
+			// normal from face
+			normal = IntersectionHelper.buildNormalFrom3Points(v0, v1, v2);
+		}
+		Point3d p = new Point3d(ray.getDirection());
+		p.scale(nearest);
+		p.add(ray.getOrigin());
+		return new RayHit(null,nearest,normal,p);
+	}
+
 	public void setVertex(int i, double x, double y, double z) {
 		i*=3;
 		vertexArray.set(i++, (float)x);
@@ -509,6 +612,9 @@ public class Mesh {
 	}
 
 	public void fireMeshChanged() {
+		vertexProvider = null;
+		invalidateBVH();
+
 		PropertyChangeEvent p = null;
 		for( var v : listeners.getListeners(PropertyChangeListener.class)) {
 			if(p==null) p = new PropertyChangeEvent(this,"mesh",null,this);
@@ -0,0 +1,301 @@
+package com.marginallyclever.ro3.mesh;
+
+import com.marginallyclever.convenience.Ray;
+
+import javax.vecmath.Point3d;
+import javax.vecmath.Vector3d;
+
+/**
+ * <p>{@link MeshBVH} is a bounding volume hierarchy over the triangles of a {@link Mesh}.  It turns ray intersection
+ * from a linear scan of every triangle into a walk down a tree of axially-aligned boxes.</p>
+ * <p>The tree is stored in flat primitive arrays.  Traversal reuses one stack per thread, so it does not allocate
+ * after the first ray on each thread.  Triangles are copied out of the {@link VertexProvider} once at build time.  If
+ * the mesh changes the tree must be rebuilt.</p>
+ */
+public class MeshBVH {
+    /**
+     * The most triangles in a leaf node.
+     */
+    public static final int MAX_TRIANGLES_PER_LEAF = 4;
+    private static final double EPSILON = 1e-8;
+
+    private final int numTriangles;
+    // 9 floats per triangle, in the order of the triangle index array.
+    private final float [] triangleVertexes;
+    // for each sorted triangle, the index of its first vertex in the VertexProvider.
+    private final int [] triangleSource;
+
+    // per node: min xyz, max xyz
+    private final float [] nodeBounds;
+    // per node: first triangle if leaf, otherwise index of left child.  right child is always left+1.
+    private final int [] nodeStart;
+    // per node: number of triangles if leaf, otherwise 0.
+    private final int [] nodeCount;
+    private int nodesUsed;
+    private int maxDepth;
+    // the traversal stack of each thread.  never deeper than the tree.
+    private final ThreadLocal<int[]> stacks = ThreadLocal.withInitial(() -> new int[maxDepth+1]);
+
+    /**
+     * Build a hierarchy from every triangle in the provider.
+     * @param provider a {@link VertexProvider} where every three vertexes are one triangle.
+     */
+    public MeshBVH(VertexProvider provider) {
+        numTriangles = provider.provideCount()/3;
+        triangleVertexes = new float[numTriangles*9];
+        triangleSource = new int[numTriangles];
+        float [] centroids = new float[numTriangles*3];
+
+        for(int i=0;i<numTriangles;++i) {
+            int k=i*9;
+            for(int j=0;j<3;++j) {
+                Vector3d v = provider.provideVertex(i*3+j);
+                triangleVertexes[k++] = (float)v.x;
+                triangleVertexes[k++] = (float)v.y;
+                triangleVertexes[k++] = (float)v.z;
+            }
+            k=i*9;
+            centroids[i*3  ] = (triangleVertexes[k  ]+triangleVertexes[k+3]+triangleVertexes[k+6])/3f;
+            centroids[i*3+1] = (triangleVertexes[k+1]+triangleVertexes[k+4]+triangleVertexes[k+7])/3f;
+            centroids[i*3+2] = (triangleVertexes[k+2]+triangleVertexes[k+5]+triangleVertexes[k+8])/3f;
+            triangleSource[i] = i*3;
+        }
+
+        int maxNodes = Math.max(1,numTriangles*2);
+        nodeBounds = new float[maxNodes*6];
+        nodeStart = new int[maxNodes];
+        nodeCount = new int[maxNodes];
+
+        nodesUsed=1;
+        nodeStart[0]=0;
+        nodeCount[0]=numTriangles;
+        updateNodeBounds(0);
+        subdivide(0,centroids,1);
+    }
+
+    public int getNumTriangles() {
+        return numTriangles;
+    }
+
+    public int getNumNodes() {
+        return nodesUsed;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    private void updateNodeBounds(int node) {
+        float minX=Float.MAX_VALUE, minY=Float.MAX_VALUE, minZ=Float.MAX_VALUE;
+        float maxX=-Float.MAX_VALUE, maxY=-Float.MAX_VALUE, maxZ=-Float.MAX_VALUE;
+        int first = nodeStart[node];
+        int last = first + nodeCount[node];
+        for(int i=first*9;i<last*9;i+=3) {
+            float x = triangleVertexes[i  ];
+            float y = triangleVertexes[i+1];
+            float z = triangleVertexes[i+2];
+            if(minX>x) minX=x;
+            if(minY>y) minY=y;
+            if(minZ>z) minZ=z;
+            if(maxX<x) maxX=x;
+            if(maxY<y) maxY=y;
+            if(maxZ<z) maxZ=z;
+        }
+        int b = node*6;
+        nodeBounds[b  ]=minX;
+        nodeBounds[b+1]=minY;
+        nodeBounds[b+2]=minZ;
+        nodeBounds[b+3]=maxX;
+        nodeBounds[b+4]=maxY;
+        nodeBounds[b+5]=maxZ;
+    }
+
+    /**
+     * Split a node at the middle of the longest axis of its triangle centroids.
+     */
+    private void subdivide(int node, float [] centroids, int depth) {
+        maxDepth = Math.max(maxDepth,depth);
+        int first = nodeStart[node];
+        int count = nodeCount[node];
+        if(count<=MAX_TRIANGLES_PER_LEAF) return;
+
+        // bounds of the centroids, not the triangles.
+        float [] cMin = {Float.MAX_VALUE,Float.MAX_VALUE,Float.MAX_VALUE};
+        float [] cMax = {-Float.MAX_VALUE,-Float.MAX_VALUE,-Float.MAX_VALUE};
+        for(int i=first;i<first+count;++i) {
+            for(int a=0;a<3;++a) {
+                float c = centroids[i*3+a];
+                if(cMin[a]>c) cMin[a]=c;
+                if(cMax[a]<c) cMax[a]=c;
+            }
+        }
+        int axis=0;
+        if(cMax[1]-cMin[1] > cMax[axis]-cMin[axis]) axis=1;
+        if(cMax[2]-cMin[2] > cMax[axis]-cMin[axis]) axis=2;
+        float split = (cMin[axis]+cMax[axis])*0.5f;
+
+        // partition in place
+        int i = first;
+        int j = first+count-1;
+        while(i<=j) {
+            if(centroids[i*3+axis] < split) {
+                i++;
+            } else {
+                swapTriangles(i,j--,centroids);
+            }
+        }
+
+        int leftCount = i-first;
+        if(leftCount==0 || leftCount==count) {
+            // every centroid is in the same place.  split the list in half.
+            leftCount = count/2;
+        }
+
+        int left = nodesUsed;
+        nodesUsed+=2;
+        nodeStart[left]=first;
+        nodeCount[left]=leftCount;
+        nodeStart[left+1]=first+leftCount;
+        nodeCount[left+1]=count-leftCount;
+        nodeStart[node]=left;
+        nodeCount[node]=0;
+
+        updateNodeBounds(left);
+        updateNodeBounds(left+1);
+        subdivide(left,centroids,depth+1);
+        subdivide(left+1,centroids,depth+1);
+    }
+
+    private void swapTriangles(int a,int b,float [] centroids) {
+        if(a==b) return;
+        for(int k=0;k<9;++k) {
+            float t = triangleVertexes[a*9+k];
+            triangleVertexes[a*9+k] = triangleVertexes[b*9+k];
+            triangleVertexes[b*9+k] = t;
+        }
+        for(int k=0;k<3;++k) {
+            float t = centroids[a*3+k];
+            centroids[a*3+k] = centroids[b*3+k];
+            centroids[b*3+k] = t;
+        }
+        int t = triangleSource[a];
+        triangleSource[a] = triangleSource[b];
+        triangleSource[b] = t;
+    }
+
+    /**
+     * Find the nearest triangle hit by a ray.
+     * @param ray the ray in the same space as the mesh.
+     * @param result if there is a hit, result[0] is set to the distance along the ray.  If result has a second
+     *               element then result[1] is set to the number of triangles tested, hit or not.
+     * @return the index of the first vertex of the nearest triangle in the {@link VertexProvider}, or -1 if no hit.
+     */
+    public int intersect(Ray ray,double [] result) {
+        if(numTriangles==0) return -1;
+
+        Point3d origin = ray.getOrigin();
+        Vector3d direction = ray.getDirection();
+        double ox = origin.x, oy = origin.y, oz = origin.z;
+        double dx = direction.x, dy = direction.y, dz = direction.z;
+        double ix = 1.0/dx, iy = 1.0/dy, iz = 1.0/dz;
+
+        double nearest = ray.getMaxDistance();
+        int best = -1;
+
+        int [] stack = stacks.get();
+        int top = 0;
+        int tested = 0;
+        stack[top++] = 0;
+        while(top>0) {
+            int node = stack[--top];
+            if(rayBoxDistance(node,ox,oy,oz,ix,iy,iz) >= nearest) continue;
+
+            int count = nodeCount[node];
+            if(count>0) {
+                int first = nodeStart[node];
+                tested += count;
+                for(int i=first;i<first+count;++i) {
+                    double t = rayTriangle(i,ox,oy,oz,dx,dy,dz);
+                    if(nearest > t) {
+                        nearest = t;
+                        best = i;
+                    }
+                }
+            } else {
+                // visit the nearer child first so that the far child can be culled.
+                int left = nodeStart[node];
+                double dl = rayBoxDistance(left  ,ox,oy,oz,ix,iy,iz);
+                double dr = rayBoxDistance(left+1,ox,oy,oz,ix,iy,iz);
+                if(dl<dr) {
+                    if(dr<nearest) stack[top++]=left+1;
+                    if(dl<nearest) stack[top++]=left;
+                } else {
+                    if(dl<nearest) stack[top++]=left;
+                    if(dr<nearest) stack[top++]=left+1;
+                }
+            }
+        }
+
+        if(result.length>1) result[1] = tested;
+        if(best==-1) return -1;
+        result[0] = nearest;
+        return triangleSource[best];
+    }
+
+    /**
+     * @return the distance to the entry point of the node bounds, or Double.MAX_VALUE if the ray misses.
+     */
+    private double rayBoxDistance(int node,double ox,double oy,double oz,double ix,double iy,double iz) {
+        int b = node*6;
+        double t1 = (nodeBounds[b  ]-ox)*ix;
+        double t2 = (nodeBounds[b+3]-ox)*ix;
+        double tmin = Math.min(t1,t2);
+        double tmax = Math.max(t1,t2);
+        t1 = (nodeBounds[b+1]-oy)*iy;
+        t2 = (nodeBounds[b+4]-oy)*iy;
+        tmin = Math.max(tmin,Math.min(t1,t2));
+        tmax = Math.min(tmax,Math.max(t1,t2));
+        t1 = (nodeBounds[b+2]-oz)*iz;
+        t2 = (nodeBounds[b+5]-oz)*iz;
+        tmin = Math.max(tmin,Math.min(t1,t2));
+        tmax = Math.min(tmax,Math.max(t1,t2));
+        // NaN appears when the ray lies in the plane of a flat box.  treat it as a hit.
+        if(Double.isNaN(tmin) || Double.isNaN(tmax)) return 0;
+        if(tmax<tmin || tmax<0) return Double.MAX_VALUE;
+        return Math.max(tmin,0);
+    }
+
+    /**
+     * Möller–Trumbore, identical to {@link com.marginallyclever.convenience.helpers.IntersectionHelper#rayTriangle}
+     * but without allocating.
+     */
+    private double rayTriangle(int tri,double ox,double oy,double oz,double dx,double dy,double dz) {
+        int k = tri*9;
+        double v0x = triangleVertexes[k  ], v0y = triangleVertexes[k+1], v0z = triangleVertexes[k+2];
+        double e1x = triangleVertexes[k+3]-v0x, e1y = triangleVertexes[k+4]-v0y, e1z = triangleVertexes[k+5]-v0z;
+        double e2x = triangleVertexes[k+6]-v0x, e2y = triangleVertexes[k+7]-v0y, e2z = triangleVertexes[k+8]-v0z;
+
+        // pvec = direction x edge2
+        double px = dy*e2z - dz*e2y;
+        double py = dz*e2x - dx*e2z;
+        double pz = dx*e2y - dy*e2x;
+        double det = e1x*px + e1y*py + e1z*pz;
+        if (det > -EPSILON && det < EPSILON) return Double.MAX_VALUE;
+
+        double invDet = 1.0/det;
+        double tx = ox-v0x, ty = oy-v0y, tz = oz-v0z;
+        double u = (tx*px + ty*py + tz*pz) * invDet;
+        if (u < 0.0 || u > 1.0) return Double.MAX_VALUE;
+
+        // qvec = tvec x edge1
+        double qx = ty*e1z - tz*e1y;
+        double qy = tz*e1x - tx*e1z;
+        double qz = tx*e1y - ty*e1x;
+        double v = (dx*qx + dy*qy + dz*qz) * invDet;
+        if (v < 0.0 || u + v > 1.0) return Double.MAX_VALUE;
+
+        double t = (e2x*qx + e2y*qy + e2z*qz) * invDet;
+        if (t < EPSILON) return Double.MAX_VALUE;
+        return t;
+    }
+}
@@ -0,0 +1,296 @@
+package com.marginallyclever.ro3.mesh;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.vecmath.Point3d;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * <p>{@link MeshCache} keeps a binary snapshot of each loaded {@link Mesh} on disk so that the next load can skip
+ * parsing the source file.  Each snapshot holds the vertex, normal, color, texture and index arrays plus the bounding
+ * box.  Snapshots are read with a memory map.</p>
+ * <p>A snapshot is only used if the source file has the same path, modified time, and size as when the snapshot was
+ * written.  When the cache grows past its size limit the least recently used snapshots are deleted.</p>
+ */
+public class MeshCache {
+    private static final Logger logger = LoggerFactory.getLogger(MeshCache.class);
+    private static final int MAGIC = 0x524f334d;  // "RO3M"
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".mesh";
+    private static final int WRITE_BUFFER_SIZE = 1<<16;
+    public static final long DEFAULT_MAX_BYTES = 512L*1024*1024;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public MeshCache(Path directory) {
+        this(directory,DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param directory where to keep the snapshots.  It is created if it does not exist.
+     * @param maxBytes the total size of all snapshots before the oldest are evicted.
+     */
+    public MeshCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Fill a mesh from the snapshot of a source file.
+     * @param source the original mesh file
+     * @param mesh the mesh to fill.  It should be empty.
+     * @return true if a snapshot matching the current state of the source was found and read.
+     */
+    public boolean load(Path source, Mesh mesh) {
+        Path entry = getEntry(source);
+        if(!Files.isRegularFile(entry)) return false;
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(source,BasicFileAttributes.class);
+            try(FileChannel channel = FileChannel.open(entry,StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+                if(!readHeader(buffer,source,attributes)) {
+                    // the source has changed since the snapshot was made.
+                    Files.deleteIfExists(entry);
+                    return false;
+                }
+                readBody(buffer,mesh);
+            }
+            // the modified time of the snapshot doubles as the last time it was used.
+            Files.setLastModifiedTime(entry,FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch(IOException | RuntimeException e) {
+            logger.warn("Could not read mesh cache {} for {}.",entry,source,e);
+            mesh.clear();
+            try {
+                Files.deleteIfExists(entry);
+            } catch(IOException ignored) {}
+            return false;
+        }
+    }
+
+    private boolean readHeader(ByteBuffer buffer, Path source, BasicFileAttributes attributes) {
+        if(buffer.getInt()!=MAGIC || buffer.getInt()!=VERSION) return false;
+        byte [] name = new byte[buffer.getInt()];
+        buffer.get(name);
+        if(!new String(name,StandardCharsets.UTF_8).equals(getKey(source))) return false;
+        if(buffer.getLong()!=attributes.lastModifiedTime().toMillis()) return false;
+        return buffer.getLong()==attributes.size();
+    }
+
+    private void readBody(ByteBuffer buffer, Mesh mesh) throws IOException {
+        mesh.setRenderStyle(buffer.getInt());
+        Point3d top = new Point3d(buffer.getDouble(),buffer.getDouble(),buffer.getDouble());
+        Point3d bottom = new Point3d(buffer.getDouble(),buffer.getDouble(),buffer.getDouble());
+
+        readFloats(buffer,mesh.vertexArray);
+        readFloats(buffer,mesh.normalArray);
+        readFloats(buffer,mesh.colorArray);
+        readFloats(buffer,mesh.textureArray);
+        int count = buffer.getInt();
+        checkRemaining(buffer,count);
+        mesh.indexArray.ensureCapacity(count);
+        mesh.indexArray.addAll(buffer.slice(buffer.position(),count*4).asIntBuffer());
+        buffer.position(buffer.position()+count*4);
+
+        mesh.updateFlagsFromArrays();
+        mesh.getBoundingBox().setBounds(top,bottom);
+    }
+
+    private void readFloats(ByteBuffer buffer, FloatList list) throws IOException {
+        int count = buffer.getInt();
+        checkRemaining(buffer,count);
+        list.ensureCapacity(count);
+        list.addAll(buffer.slice(buffer.position(),count*4).asFloatBuffer());
+        buffer.position(buffer.position()+count*4);
+    }
+
+    private void checkRemaining(ByteBuffer buffer, int count) throws IOException {
+        if(count<0 || (long)count*4 > buffer.remaining()) throw new IOException("Mesh cache is truncated.");
+    }
+
+    /**
+     * Write a snapshot of a mesh.  Failures are logged and otherwise ignored.
+     * @param source the original mesh file
+     * @param mesh the mesh loaded from source
+     */
+    public void save(Path source, Mesh mesh) {
+        Path entry = getEntry(source);
+        Path temp = null;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(source,BasicFileAttributes.class);
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory,entry.getFileName().toString(),".tmp");
+            try(FileChannel channel = FileChannel.open(temp,StandardOpenOption.WRITE,StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+                byte [] name = getKey(source).getBytes(StandardCharsets.UTF_8);
+                makeRoom(channel,out,4*3+name.length+8*2);
+                out.putInt(MAGIC);
+                out.putInt(VERSION);
+                out.putInt(name.length);
+                out.put(name);
+                out.putLong(attributes.lastModifiedTime().toMillis());
+                out.putLong(attributes.size());
+
+                makeRoom(channel,out,4+8*6);
+                out.putInt(mesh.getRenderStyle());
+                Point3d top = mesh.getBoundingBox().getBoundsTop();
+                Point3d bottom = mesh.getBoundingBox().getBoundsBottom();
+                out.putDouble(top.x);
+                out.putDouble(top.y);
+                out.putDouble(top.z);
+                out.putDouble(bottom.x);
+                out.putDouble(bottom.y);
+                out.putDouble(bottom.z);
+
+                writeFloats(channel,out,mesh.vertexArray.asBuffer());
+                writeFloats(channel,out,mesh.normalArray.asBuffer());
+                writeFloats(channel,out,mesh.colorArray.asBuffer());
+                writeFloats(channel,out,mesh.textureArray.asBuffer());
+                writeInts(channel,out,mesh.indexArray.asBuffer());
+                flush(channel,out);
+            }
+            Files.move(temp,entry,StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+            evict();
+        } catch(IOException e) {
+            logger.warn("Could not write mesh cache {} for {}.",entry,source,e);
+        } finally {
+            if(temp!=null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch(IOException ignored) {}
+            }
+        }
+    }
+
+    /**
+     * Write a count and then the values, copying as many at a time as fit in the buffer.
+     */
+    private void writeFloats(FileChannel channel, ByteBuffer out, FloatBuffer values) throws IOException {
+        makeRoom(channel,out,4);
+        out.putInt(values.remaining());
+        while(values.hasRemaining()) {
+            makeRoom(channel,out,4);
+            int n = Math.min(out.remaining()/4,values.remaining());
+            out.asFloatBuffer().put(values.slice(values.position(),n));
+            values.position(values.position()+n);
+            out.position(out.position()+n*4);
+        }
+    }
+
+    /**
+     * Write a count and then the values, copying as many at a time as fit in the buffer.
+     */
+    private void writeInts(FileChannel channel, ByteBuffer out, IntBuffer values) throws IOException {
+        makeRoom(channel,out,4);
+        out.putInt(values.remaining());
+        while(values.hasRemaining()) {
+            makeRoom(channel,out,4);
+            int n = Math.min(out.remaining()/4,values.remaining());
+            out.asIntBuffer().put(values.slice(values.position(),n));
+            values.position(values.position()+n);
+            out.position(out.position()+n*4);
+        }
+    }
+
+    /**
+     * Flush the buffer if it has less than <code>bytes</code> free.
+     */
+    private void makeRoom(FileChannel channel, ByteBuffer out, int bytes) throws IOException {
+        if(out.remaining()<bytes) flush(channel,out);
+        if(out.remaining()<bytes) throw new IOException("Mesh cache entry header is too long.");
+    }
+
+    private void flush(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while(out.hasRemaining()) channel.write(out);
+        out.clear();
+    }
+
+    /**
+     * Delete the least recently used snapshots until the cache fits in {@link #maxBytes}.
+     */
+    private synchronized void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        long total = 0;
+        try(Stream<Path> list = Files.list(directory)) {
+            for(Path p : (Iterable<Path>)list::iterator) {
+                if(!p.getFileName().toString().endsWith(EXTENSION)) continue;
+                entries.add(p);
+                total += Files.size(p);
+            }
+        }
+        if(total<=maxBytes) return;
+
+        entries.sort(Comparator.comparing(MeshCache::getLastUsed));
+        for(Path p : entries) {
+            if(total<=maxBytes) break;
+            long size = Files.size(p);
+            if(Files.deleteIfExists(p)) total -= size;
+        }
+    }
+
+    private static FileTime getLastUsed(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch(IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Remove every snapshot.
+     */
+    public synchronized void clear() throws IOException {
+        if(!Files.isDirectory(directory)) return;
+        try(Stream<Path> list = Files.list(directory)) {
+            for(Path p : (Iterable<Path>)list::iterator) {
+                if(p.getFileName().toString().endsWith(EXTENSION)) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private String getKey(Path source) {
+        return source.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * @param source the original mesh file
+     * @return the snapshot file for source.  The name is a hash of the absolute path.
+     */
+    Path getEntry(Path source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte [] hash = digest.digest(getKey(source).getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash)+EXTENSION);
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package com.marginallyclever.ro3.mesh;
 
 import com.marginallyclever.convenience.helpers.FileHelper;
+import com.marginallyclever.convenience.helpers.PathHelper;
 import com.marginallyclever.ro3.listwithevents.ListWithEvents;
 import com.marginallyclever.ro3.mesh.load.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.io.BufferedInputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * {@link MeshFactory} loads a mesh from a file using one of many {@link MeshLoader} classes.  It also keeps a pool of
- * all mesh loaded so that only one instance of each shape is loaded.
- *
+ * <p>{@link MeshFactory} loads a mesh from a file using one of many {@link MeshLoader} classes.  It also keeps a pool of
+ * all mesh loaded so that only one instance of each shape is loaded.</p>
+ * <p>{@link #loadAsync(String)} loads on a small pool of background threads so that many meshes can load at once
+ * without blocking the user interface.</p>
+ * <p>Meshes loaded from local files are also kept in a {@link MeshCache} under {@link PathHelper#APP_CACHE} so that
+ * the next load does not have to parse the file again.</p>
  */
 public class MeshFactory {
 	private static final Logger logger = LoggerFactory.getLogger(MeshFactory.class);
@@ -28,8 +41,26 @@ public class MeshFactory {
 			new LoadSTL(),
 	};
 
-	// the pool of all mesh loaded
+	// the pool of all mesh loaded.  only changed on the event dispatch thread, because its listeners are Swing.
 	private final ListWithEvents<Mesh> meshPool = new ListWithEvents<>();
+	// the same meshes by absolute path.  each future completes when its mesh has finished loading.
+	private final Map<String,CompletableFuture<Mesh>> meshesByPath = new ConcurrentHashMap<>();
+	// futures handed out by loadAsync() that have not completed yet.
+	private final Set<CompletableFuture<Mesh>> pending = ConcurrentHashMap.newKeySet();
+	// created on first use so that nothing is written to the user's home directory until a mesh is loaded.
+	private volatile MeshCache meshCache;
+	private boolean meshCacheEnabled = true;
+	private final ExecutorService loaderPool = Executors.newFixedThreadPool(
+			Math.max(1,Math.min(4,Runtime.getRuntime().availableProcessors())),
+			new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r,"MeshLoader-"+count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
 	
 	/**
 	 * Makes sure to only load one instance of each source file.  Loads all the data immediately.
@@ -38,32 +69,71 @@ public class MeshFactory {
 	 */
 	public Mesh load(String filename) {
 		if(filename == null || filename.trim().isEmpty()) return null;
+		return getOrStartLoad(filename).join();
+	}
 
-		String absolutePath = FileHelper.getAbsolutePathOrFilename(filename);
-		Mesh mesh = getMeshFromPool(absolutePath);
-		if(mesh!=null) return mesh;
-
-		mesh = new Mesh();
-		attemptLoad(absolutePath,mesh);
-		meshPool.add(mesh);
-		return mesh;
+	/**
+	 * Makes sure to only load one instance of each source file.  Loads the data on a background thread.
+	 * @param filename file from which to load.  May be "filename.ext" or "zipfile.zip:filename.ext".  Relative paths
+	 *                 are resolved against the working directory at the time of the call.
+	 * @return a future that completes on the Swing event dispatch thread once the mesh has loaded, so that the
+	 * mesh can be added to the scene from there.  null if the filename is empty.
+	 */
+	public CompletableFuture<Mesh> loadAsync(String filename) {
+		if(filename == null || filename.trim().isEmpty()) return null;
+		CompletableFuture<Mesh> result = getOrStartLoad(filename).thenApplyAsync(m->m,SwingUtilities::invokeLater);
+		pending.add(result);
+		result.whenComplete((m,e)->pending.remove(result));
+		return result;
 	}
 
 	/**
-	 * find the existing shape in the pool
-	 * @param filename file from which to load.  May be "filename.ext" or "zipfile.zip:filename.ext"
-	 * @return a non-null instance of Mesh.  It may contain nothing.
+	 * Block until every future returned by {@link #loadAsync(String)} has completed and its callbacks on the event
+	 * dispatch thread have run.  Useful when there is no user interface to wait for.  Must not be called from the
+	 * event dispatch thread.
+	 * @throws InterruptedException if interrupted while waiting
 	 */
-	private Mesh getMeshFromPool(String filename) {
-		for( Mesh m : meshPool.getList() ) {
-			String sourceName = m.getSourceName();
-			if(sourceName==null) continue;
-			if(filename.equals(sourceName)) {
-				return m;
+	public void waitForLoads() throws InterruptedException {
+		if(SwingUtilities.isEventDispatchThread()) {
+			throw new IllegalStateException("waitForLoads() would block the event dispatch thread.");
+		}
+		while(!pending.isEmpty()) {
+			CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).exceptionally(e->null).join();
+			// let the callbacks of the last futures finish.
+			try {
+				SwingUtilities.invokeAndWait(()->{});
+			} catch(InvocationTargetException e) {
+				throw new IllegalStateException(e);
 			}
 		}
+	}
 
-		return null;
+	/**
+	 * Find the mesh in the pool or start loading it.  The pool is updated on the event dispatch thread.
+	 * @param filename file from which to load.  May be "filename.ext" or "zipfile.zip:filename.ext"
+	 * @return a future that completes on a loader thread.
+	 */
+	private CompletableFuture<Mesh> getOrStartLoad(String filename) {
+		String absolutePath = FileHelper.getAbsolutePathOrFilename(filename);
+		CompletableFuture<Mesh> future = meshesByPath.get(absolutePath);
+		if(future!=null) return future;
+
+		Mesh mesh = new Mesh();
+		mesh.setSourceName(absolutePath);
+		CompletableFuture<Mesh> created = new CompletableFuture<>();
+		future = meshesByPath.putIfAbsent(absolutePath,created);
+		if(future!=null) return future;
+
+		onSwing(()->meshPool.add(mesh));
+		loaderPool.execute(()->{
+			try {
+				attemptLoad(absolutePath,mesh);
+				created.complete(mesh);
+			} catch(Throwable t) {
+				created.completeExceptionally(t);
+			}
+		});
+		return created;
 	}
 
 	/**
@@ -101,8 +171,15 @@ public class MeshFactory {
 		mesh.setSourceName(filename);
 		mesh.setDirty(true);
 
-		try(BufferedInputStream stream = FileHelper.open(filename)) {
-			loader.load(stream,mesh);
+		try {
+			Path path = getLocalFile(filename);
+			if(path!=null) {
+				loadLocalFile(path,mesh,loader);
+				return;
+			}
+			try(BufferedInputStream stream = FileHelper.open(filename)) {
+				loader.load(stream,mesh);
+			}
 		}
 		catch(Exception e) {
 			logger.error("Failed to load mesh: "+e.getMessage());
@@ -111,6 +188,61 @@ public class MeshFactory {
 		mesh.updateCuboid();
 	}
 
+	/**
+	 * Load a file on disk, using the {@link MeshCache} when the file has not changed since it was last loaded.
+	 */
+	private void loadLocalFile(Path path, Mesh mesh, MeshLoader loader) throws Exception {
+		MeshCache cache = getMeshCache();
+		// a snapshot restores the bounding box, too.
+		if(cache!=null && cache.load(path,mesh)) return;
+
+		try {
+			loader.load(path,mesh);
+		} finally {
+			mesh.updateCuboid();
+		}
+		if(cache!=null) cache.save(path,mesh);
+	}
+
+	/**
+	 * @return the cache of mesh snapshots, or null if caching is disabled.
+	 */
+	public MeshCache getMeshCache() {
+		if(!meshCacheEnabled) return null;
+		if(meshCache==null) {
+			synchronized (this) {
+				if(meshCache==null) meshCache = new MeshCache(Path.of(PathHelper.APP_CACHE,"meshes"));
+			}
+		}
+		return meshCache;
+	}
+
+	/**
+	 * @param cache the cache of mesh snapshots to use.  null disables caching.
+	 */
+	public void setMeshCache(MeshCache cache) {
+		meshCache = cache;
+		meshCacheEnabled = cache!=null;
+	}
+
+	/**
+	 * {@link FileHelper#open(String)} prefers zip files and jar resources over files on disk.  Match that order.
+	 * @param filename The file to open.  May be "filename.ext" or "zipfile.zip:filename.ext"
+	 * @return the file on disk, or null if the file is in a zip, a jar, or does not exist.
+	 */
+	private Path getLocalFile(String filename) {
+		int index = filename.lastIndexOf(":");
+		int index2 = filename.lastIndexOf(":\\");  // hack for windows file system
+		if(index!=-1 && index!=index2) return null;
+		if(FileHelper.class.getResource(filename)!=null) return null;
+		try {
+			Path path = Path.of(filename);
+			return Files.isRegularFile(path) ? path : null;
+		} catch(InvalidPathException e) {
+			return null;
+		}
+	}
+
 	public void reload(Mesh myMesh) {
 		myMesh.clear();
 		attemptLoad(myMesh.getSourceName(),myMesh);
@@ -147,12 +279,11 @@ public class MeshFactory {
 		return null;
 	}
 
+	/**
+	 * @return the source of every mesh loaded.  Safe to call from any thread, including before the pool has caught up.
+	 */
     public List<String> getAllSourcesForExport() {
-		List<String> result = new ArrayList<>();
-		for( Mesh m : meshPool.getList() ) {
-			result.add(m.getSourceName());
-		}
-		return result;
+		return new ArrayList<>(meshesByPath.keySet());
     }
 
 	public ListWithEvents<Mesh> getPool() {
@@ -165,6 +296,16 @@ public class MeshFactory {
     public void reset() {
 		// FIXME Not calling unload() on each item is probably a video card memory leak.
 		// FIXME but unload can only be called from the GL thread.
-		meshPool.removeAll();
+		onSwing(meshPool::removeAll);
+		meshesByPath.clear();
     }
+
+	/**
+	 * Run now if this is the event dispatch thread, otherwise run there later.
+	 * @param r the change to make
+	 */
+	private void onSwing(Runnable r) {
+		if(SwingUtilities.isEventDispatchThread()) r.run();
+		else SwingUtilities.invokeLater(r);
+	}
 }
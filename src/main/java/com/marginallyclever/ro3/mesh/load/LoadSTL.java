@@ -2,21 +2,38 @@ package com.marginallyclever.ro3.mesh.load;
 
 import com.marginallyclever.ro3.mesh.Mesh;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 
 /**
  * <p>{@link LoadSTL} is a {@link MeshLoader} that loads a
  * <a href="https://en.wikipedia.org/wiki/STL_(file_format)">STL files</a> into a {@link Mesh}.</p>
+ * <p>Binary files on disk are memory mapped.  Load time and throughput are logged at info level.</p>
  */
 public class LoadSTL implements MeshLoader {
+	private static final Logger logger = LoggerFactory.getLogger(LoadSTL.class);
+	// 80 bytes of header and a 4 byte triangle count.
+	private static final int HEADER_SIZE = 84;
+	// normal, three vertexes, and two attribute bytes.
+	private static final int BYTES_PER_TRIANGLE = 50;
+	// x,y,z of three vertexes.
+	private static final int FLOATS_PER_TRIANGLE = 9;
+	// the largest array most virtual machines will make.
+	private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE-8;
+
 	@Override
 	public String getEnglishName() {
 		return "3D printing file (STL)";
@@ -33,65 +50,151 @@ public class LoadSTL implements MeshLoader {
 		if(!inputStream.markSupported()) {
 			throw new IOException("BufferedInputStream mark unsupported");
 		}
-		inputStream.mark(2000);
-		InputStreamReader br = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
-		CharBuffer binaryCheck = CharBuffer.allocate(80);
-		br.read(binaryCheck);
-		binaryCheck.rewind();
-		String test = binaryCheck.toString();
-		boolean isASCII = test.toLowerCase().contains("facet");
+		inputStream.mark(HEADER_SIZE);
+		// readNBytes, not a Reader, so that nothing past the mark is consumed.
+		byte [] header = inputStream.readNBytes(80);
+		boolean isASCII = isASCII(header,header.length);
 		inputStream.reset();
 		
 		if(isASCII) loadASCII(inputStream,model);
 		else 		loadBinary(inputStream,model);
 	}
 
+	/**
+	 * Load a file from disk.  Binary files are memory mapped and parsed straight into the mesh arrays.
+	 * @param path the file to load
+	 * @param model mesh into which data will be loaded
+	 * @throws Exception if something goes wrong
+	 */
+	@Override
+	public void load(Path path, Mesh model) throws Exception {
+		long start = System.nanoTime();
+		long size;
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			size = channel.size();
+			if(size>=HEADER_SIZE && !isASCII(channel)) {
+				loadBinary(channel,model);
+				logLoadTime(path.toString(),size,start);
+				return;
+			}
+		}
+		MeshLoader.super.load(path,model);
+		logLoadTime(path.toString(),size,start);
+	}
+
+	private void logLoadTime(String name,long bytes,long startNanos) {
+		double seconds = (System.nanoTime()-startNanos)/1e9;
+		logger.info("Loaded {} bytes from {} in {}ms ({} MB/s).",bytes,name,
+				String.format("%.1f",seconds*1000),
+				String.format("%.1f",seconds>0 ? bytes/seconds/1e6 : 0));
+	}
+
+	/**
+	 * @param channel the file.  The position is not changed.
+	 * @return true if the first 80 bytes mention a facet, which only happens in ASCII files.
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean isASCII(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(80);
+		while(header.hasRemaining()) {
+			if(channel.read(header,header.position())<0) break;
+		}
+		return isASCII(header.array(),header.position());
+	}
+
+	/**
+	 * @param header the start of the file
+	 * @param length the number of bytes in the header
+	 * @return true if the header mentions a facet, which only happens in ASCII files.
+	 */
+	private boolean isASCII(byte [] header,int length) {
+		String test = new String(header,0,length,StandardCharsets.UTF_8);
+		return test.toLowerCase().contains("facet");
+	}
+
+	/**
+	 * Map the facets of a binary file into memory and read them straight into the mesh.  Large files are mapped in
+	 * pieces.
+	 * @param channel the file
+	 * @param model mesh into which data will be loaded
+	 * @throws IOException if the file is shorter than the header says
+	 */
+	private void loadBinary(FileChannel channel, Mesh model) throws IOException {
+		ByteBuffer count = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		while(count.hasRemaining()) {
+			if(channel.read(count,80+count.position())<0) throw new IOException("STL header is truncated.");
+		}
+		// the count is unsigned.  check it against the file before trusting it with any memory.
+		long numTriangles = Integer.toUnsignedLong(count.getInt(0));
+		long expected = HEADER_SIZE + numTriangles*BYTES_PER_TRIANGLE;
+		if(channel.size()<expected) {
+			throw new IOException("STL file has "+channel.size()+" bytes, header says "+expected+".");
+		}
+		reserve(model,numTriangles);
+
+		final long trianglesPerMap = Integer.MAX_VALUE / BYTES_PER_TRIANGLE;
+		for(long first=0;first<numTriangles;first+=trianglesPerMap) {
+			int n = (int)Math.min(trianglesPerMap,numTriangles-first);
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+					HEADER_SIZE+first*BYTES_PER_TRIANGLE, (long)n*BYTES_PER_TRIANGLE);
+			map.order(ByteOrder.LITTLE_ENDIAN);
+			readFacets(map,n,model);
+		}
+	}
+
+	/**
+	 * Grow the mesh once to fit every facet, so that reading them does not copy the arrays again and again.
+	 * @param model the mesh
+	 * @param numTriangles the number of facets about to be read
+	 * @throws IOException if the mesh cannot hold that many
+	 */
+	private void reserve(Mesh model,long numTriangles) throws IOException {
+		long vertexes = model.vertexArray.size() + numTriangles*FLOATS_PER_TRIANGLE;
+		long normals = model.normalArray.size() + numTriangles*FLOATS_PER_TRIANGLE;
+		if(Math.max(vertexes,normals) > MAX_ARRAY_SIZE) {
+			throw new IOException("STL file has "+numTriangles+" triangles, more than one mesh can hold.");
+		}
+		model.vertexArray.ensureCapacity((int)vertexes);
+		model.normalArray.ensureCapacity((int)normals);
+	}
+
 	// see https://github.com/cpedrinaci/STL-Loader/blob/master/StlFile.java#L345
 	private void loadBinary(BufferedInputStream inputStream, Mesh model) throws IOException {
-		int j;
-
-	    byte[] headerInfo=new byte[80];             // Header data
-	    inputStream.read(headerInfo);
-
-	    byte[] arrayNumber= new byte[4];     // Holds the number of faces
-	    inputStream.read(arrayNumber);
-	    ByteBuffer dataBuffer = ByteBuffer.wrap(arrayNumber);
-	    dataBuffer.order(ByteOrder.LITTLE_ENDIAN);
-	    int numTriangles = dataBuffer.getInt();
-	    int byteCount = 50;
-	    byte[] tempInfo = new byte[byteCount*numTriangles];     // Each face has 50 bytes of data
-        inputStream.read(tempInfo);                         // We get the rest of the file
-        dataBuffer = ByteBuffer.wrap(tempInfo);    // Now we have all the data in this ByteBuffer
-        dataBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        		
-		float x,y,z;
-		for(j=0;j<numTriangles;++j) {
-			x=dataBuffer.getFloat();
-			y=dataBuffer.getFloat();
-			z=dataBuffer.getFloat();
-
-			model.addNormal(x, y, z);
-			model.addNormal(x, y, z);
-			model.addNormal(x, y, z);
-
-			x=dataBuffer.getFloat();
-			y=dataBuffer.getFloat();
-			z=dataBuffer.getFloat();
-			model.addVertex(x, y, z);
-
-			x=dataBuffer.getFloat();
-			y=dataBuffer.getFloat();
-			z=dataBuffer.getFloat();
-			model.addVertex(x, y, z);
-
-			x=dataBuffer.getFloat();
-			y=dataBuffer.getFloat();
-			z=dataBuffer.getFloat();
-			model.addVertex(x, y, z);
-			
-			// attribute bytes
-			dataBuffer.get();
-			dataBuffer.get();
+		byte[] header = inputStream.readNBytes(HEADER_SIZE);
+		if(header.length<HEADER_SIZE) throw new IOException("STL header is truncated.");
+		long numTriangles = Integer.toUnsignedLong(ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).getInt(80));
+		long byteCount = numTriangles*BYTES_PER_TRIANGLE;
+		if(byteCount > MAX_ARRAY_SIZE) {
+			throw new IOException("STL stream is too large.  Load it from a file instead.");
+		}
+		// readNBytes keeps reading until it has everything or the stream ends, and only grows as data arrives.
+		byte[] facets = inputStream.readNBytes((int)byteCount);
+		if(facets.length<byteCount) {
+			throw new IOException("STL file has "+facets.length+" bytes of facets, header says "+byteCount+".");
+		}
+		reserve(model,numTriangles);
+		readFacets(ByteBuffer.wrap(facets).order(ByteOrder.LITTLE_ENDIAN),(int)numTriangles,model);
+	}
+
+	/**
+	 * Read binary facets into the mesh.  Each facet is a normal, three vertexes, and two attribute bytes.  The facet
+	 * normal is repeated for each vertex.
+	 * @param data little-endian facets, starting at position 0
+	 * @param count the number of facets to read
+	 * @param model mesh into which data will be loaded
+	 */
+	private void readFacets(ByteBuffer data, int count, Mesh model) {
+		for(int j=0;j<count;++j) {
+			int i = j*BYTES_PER_TRIANGLE;
+			float x = data.getFloat(i  );
+			float y = data.getFloat(i+4);
+			float z = data.getFloat(i+8);
+			for(int v=0;v<3;++v) {
+				model.addNormal(x,y,z);
+				int p = i+12+v*12;
+				model.addVertex(data.getFloat(p),data.getFloat(p+4),data.getFloat(p+8));
+			}
+			// attribute bytes are ignored.
 		}
 	}
 	
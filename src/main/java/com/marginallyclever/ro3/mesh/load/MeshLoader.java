@@ -4,6 +4,8 @@ import com.marginallyclever.ro3.mesh.Mesh;
 import com.marginallyclever.ro3.mesh.MeshFactory;
 
 import java.io.BufferedInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * <p>{@link MeshLoader} interface for all classes that load a {@link Mesh} from an {@link java.io.InputStream}.</p>
@@ -21,6 +23,18 @@ public interface MeshLoader {
 	 */
 	void load(BufferedInputStream inputStream, Mesh model) throws Exception;
 
+	/**
+	 * Load data from a file on disk.  Loaders that can read a file faster than a stream should override this.
+	 * @param path the file to load
+	 * @param model mesh into which data will be loaded
+	 * @throws Exception if something goes wrong
+	 */
+	default void load(Path path, Mesh model) throws Exception {
+		try(BufferedInputStream stream = new BufferedInputStream(Files.newInputStream(path))) {
+			load(stream,model);
+		}
+	}
+
 	/**
 	 * Does this loader find a material file near the mesh file?
 	 * @param absolutePath path to mesh file
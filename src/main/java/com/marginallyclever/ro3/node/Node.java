@@ -9,7 +9,9 @@ import org.slf4j.LoggerFactory;
 import javax.swing.*;
 import javax.swing.event.EventListenerList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -35,7 +37,13 @@ import java.util.UUID;
  *     <li>{@link NodeReadyListener}: called when a node is attached and all children are ready.</li>
  *     <li>{@link NodeRenameListener}: called when a node is renamed.</li>
  * </ul>
- * <p>Nodes can be serialized to and from JSON.</p>
+ * <p>Nodes can be serialized to and from JSON.  {@link NodeJSONStream} does the same one node at a time, for scenes
+ * too big to hold as one {@link JSONObject}.  {@link NodeBinaryWriter} and {@link NodeBinaryReader} use a compact binary
+ * format, and the reader can leave the children of a node in the file until {@link #getChildren()} is called.
+ * {@link NodeLoader} builds a whole tree at once and runs the attach and ready hooks when it is done.</p>
+ * <p>The root of each tree keeps an index of every node in the tree by unique ID.  It is built the first time
+ * {@link #findNodeByID(String, Class)} is called and kept up to date as nodes are added and removed.  The index can
+ * be searched from any thread.</p>
  */
 public class Node {
     private static final Logger logger = LoggerFactory.getLogger(Node.class);
@@ -43,6 +51,84 @@ public class Node {
     private final List<Node> children = new ArrayList<>();
     private Node parent;
     private UUID nodeID;
+    // only the root of a tree has an index, and only after the first search.
+    private volatile IdIndex idIndex;
+    // while true on this thread, toJSON() leaves out the children.  See NodeJSONStream.
+    private static final ThreadLocal<Boolean> withoutChildren = ThreadLocal.withInitial(() -> false);
+    // children that are still in a file.  See NodeBinaryReader.
+    private volatile PendingChildren pendingChildren;
+    // true while this node makes its pending children.  guarded by the simulation lock.
+    private boolean loadingChildren;
+    // true from when a NodeLoader links this node to its parent until the attach hooks run.
+    private boolean attachPending;
+
+    /**
+     * Children that have not been made yet.
+     */
+    interface PendingChildren {
+        /**
+         * @return the children, in order.
+         */
+        List<Node> load();
+
+        /**
+         * @param id a unique ID.
+         * @return true if a node below this one has the given ID.
+         */
+        boolean contains(UUID id);
+    }
+
+    /**
+     * Every node in one tree by unique ID.  IDs are not always unique - nodes copied by hand in a scene file can
+     * share one - so each ID maps to a list.  The version changes every time a node leaves the tree.  A new index
+     * is made when a unique ID changes.  See {@link NodePath}.
+     */
+    static final class IdIndex {
+        private final Map<UUID,List<Node>> map = new HashMap<>();
+        private int version;
+
+        private synchronized void add(Node subtree) {
+            // breadth-first, so duplicates are found in the same order as a breadth-first search.
+            List<Node> toScan = new ArrayList<>();
+            toScan.add(subtree);
+            for(int i=0;i<toScan.size();++i) {
+                Node n = toScan.get(i);
+                map.computeIfAbsent(n.nodeID,k->new ArrayList<>(1)).add(n);
+                toScan.addAll(n.children);
+            }
+        }
+
+        private synchronized void remove(Node subtree) {
+            version++;
+            List<Node> toScan = new ArrayList<>();
+            toScan.add(subtree);
+            while(!toScan.isEmpty()) {
+                Node n = toScan.remove(toScan.size()-1);
+                var list = map.get(n.nodeID);
+                if(list!=null) {
+                    list.remove(n);
+                    if(list.isEmpty()) map.remove(n.nodeID);
+                }
+                toScan.addAll(n.children);
+            }
+        }
+
+        /**
+         * @return a copy of the nodes with the given ID, or null if there are none.
+         */
+        private synchronized List<Node> get(UUID id) {
+            var list = map.get(id);
+            return list==null ? null : new ArrayList<>(list);
+        }
+
+        /**
+         * @return a number that changes every time a node leaves this tree.  If it and the index have not changed
+         * then a node found by {@link #findNodeByID(String, Class)} is still in the same tree with the same ID.
+         */
+        synchronized int getVersion() {
+            return version;
+        }
+    }
 
     protected final EventListenerList listeners = new EventListenerList();
 
@@ -70,12 +156,19 @@ public class Node {
      * @param child the child to add.
      */
     public void addChild(int index,Node child) {
+        loadPendingChildren();
         if(index<0|| index>children.size()) {
             throw new IndexOutOfBoundsException("Index "+index+" is out of bounds.");
         }
 
         children.add(index,child);
         child.setParent(this);
+        addToIndex(child);
+        if(NodeLoader.isBuilding()) {
+            // the loader runs the hooks when the whole tree is built.
+            child.attachPending = true;
+            return;
+        }
         child.onAttach();
         fireAttachEvent(child);
         child.onReady();
@@ -83,12 +176,75 @@ public class Node {
     }
 
     public void removeChild(Node child) {
+        loadPendingChildren();
         children.remove(child);
+        removeFromIndex(child);
         child.setParent(null);
+        if(child.attachPending) {
+            // never attached, so nothing to undo.
+            child.attachPending = false;
+            return;
+        }
         child.onDetach();
         fireDetachEvent(child);
     }
 
+    /**
+     * Run the hooks and events that {@link #addChild(int, Node)} skipped while a {@link NodeLoader} was building
+     * this tree.  Children go first, the same order they would have run in without the loader.
+     */
+    void attachLoaded() {
+        for(Node child : new ArrayList<>(children)) {
+            if(!child.attachPending) continue;
+            child.attachPending = false;
+            child.attachLoaded();
+            child.onAttach();
+            fireAttachEvent(child);
+            child.onReady();
+            fireReadyEvent(child);
+        }
+    }
+
+    /**
+     * Add a subtree that was just attached to the index of this tree, if there is one.
+     * @param subtree the root of the subtree.
+     */
+    private void addToIndex(Node subtree) {
+        subtree.idIndex = null;
+        var index = getRootNode().idIndex;
+        if(index!=null) index.add(subtree);
+    }
+
+    /**
+     * Remove a subtree that is about to be detached from the index of this tree, if there is one.
+     * @param subtree the root of the subtree.
+     */
+    private void removeFromIndex(Node subtree) {
+        var index = getRootNode().idIndex;
+        if(index!=null) index.remove(subtree);
+    }
+
+    /**
+     * Call when the unique ID of any node in this tree changes.  The index will be rebuilt on the next search.
+     */
+    private void invalidateIndex() {
+        getRootNode().idIndex = null;
+    }
+
+    /**
+     * @return the index of the tree that this node is in, building it first if needed.
+     */
+    IdIndex getIndex() {
+        Node root = getRootNode();
+        var index = root.idIndex;
+        if(index==null) {
+            index = new IdIndex();
+            index.add(root);
+            root.idIndex = index;
+        }
+        return index;
+    }
+
     private void fireReadyEvent(Node child) {
         for(NodeReadyListener listener : listeners.getListeners(NodeReadyListener.class)) {
             listener.nodeReady(child);
@@ -163,9 +319,64 @@ public class Node {
      * @return the original list.  This is not a copy.  This is dangerous!
      */
     public List<Node> getChildren() {
+        loadPendingChildren();
         return children;
     }
 
+    /**
+     * @return true if this node has children that have not been made yet.  They will be made the first time
+     * {@link #getChildren()} is called.
+     */
+    public boolean hasPendingChildren() {
+        return pendingChildren!=null;
+    }
+
+    void setPendingChildren(PendingChildren pending) {
+        pendingChildren = pending;
+    }
+
+    /**
+     * Make the pending children, if any.  The new children are attached to the scene, so they are made while holding
+     * the simulation lock.  Another thread that asks at the same time waits until every child is in place.
+     */
+    private void loadPendingChildren() {
+        if(pendingChildren==null) return;
+        synchronized (Registry.getSimulation().getLock()) {
+            var pending = pendingChildren;
+            // addChild() below comes back here on the same thread.
+            if(pending==null || loadingChildren) return;
+            loadingChildren = true;
+            try {
+                for(Node n : pending.load()) addChild(n);
+            } finally {
+                pendingChildren = null;
+                loadingChildren = false;
+            }
+        }
+    }
+
+    /**
+     * Make the pending children of every node in this tree that hold the given ID.
+     * @return true if any were made.
+     */
+    private boolean loadPendingWith(UUID id) {
+        synchronized (Registry.getSimulation().getLock()) {
+            boolean found = false;
+            List<Node> toScan = new ArrayList<>();
+            toScan.add(this);
+            while(!toScan.isEmpty()) {
+                Node n = toScan.remove(toScan.size()-1);
+                var pending = n.pendingChildren;
+                if(pending!=null && pending.contains(id)) {
+                    n.loadPendingChildren();
+                    found = true;
+                }
+                toScan.addAll(n.children);
+            }
+            return found;
+        }
+    }
+
     /**
      * Find the first parent with the given name.
      * @param name the name to match.
@@ -216,7 +427,7 @@ public class Node {
     public Node findChild(String name, int maxDepth) {
         if(maxDepth==0) return null;
 
-        for(Node child : children) {
+        for(Node child : getChildren()) {
             if(child.getName().equals(name)) {
                 return child;
             }
@@ -281,7 +492,7 @@ public class Node {
     }
 
     /**
-     * Called every frame.
+     * Called every frame.  Children that have not been made yet are not updated.
      * @param dt the time since the last frame.
      */
     public void update(double dt) {
@@ -322,7 +533,7 @@ public class Node {
      * @param <T> the type of node to find
      */
     public <T extends Node> T findFirstChild(Class<T> type) {
-        for(Node child : children) {
+        for(Node child : getChildren()) {
             if(type.isInstance(child)) {
                 return type.cast(child);
             }
@@ -351,14 +562,29 @@ public class Node {
         json.put("type",getClass().getSimpleName());
         json.put("name",name);
         json.put("nodeID",nodeID.toString());
-        JSONArray childrenArray = new JSONArray();
-        for (Node child : this.children) {
-            childrenArray.put(child.toJSON());
+        if(!withoutChildren.get()) {
+            JSONArray childrenArray = new JSONArray();
+            for (Node child : getChildren()) {
+                childrenArray.put(child.toJSON());
+            }
+            json.put("children", childrenArray);
         }
-        json.put("children",childrenArray);
         return json;
     }
 
+    /**
+     * @return the same as {@link #toJSON()} without the "children" key.
+     */
+    JSONObject toJSONWithoutChildren() {
+        boolean was = withoutChildren.get();
+        withoutChildren.set(true);
+        try {
+            return toJSON();
+        } finally {
+            withoutChildren.set(was);
+        }
+    }
+
     /**
      * Deserialize this node and its children from a JSON object and its children.
      * Classes that override this method should call super.fromJSON().  When they do it will trigger the creation of
@@ -369,7 +595,21 @@ public class Node {
         name = from.getString("name");
         nodeID = UUID.fromString(from.getString("nodeID"));
         children.clear();
-        for (Object o : from.getJSONArray("children")) {
+        pendingChildren = null;
+        invalidateIndex();
+        if(from.opt("children") instanceof NodeJSONStream.LoadedChildren loaded) {
+            // already made by NodeJSONStream.
+            for(Node n : loaded.nodes()) addChild(n);
+            return;
+        }
+        JSONArray array = from.getJSONArray("children");
+        NodeLoader loader = NodeLoader.current();
+        if(loader!=null) {
+            // the children do not depend on each other.
+            for(Node n : loader.makeAll(array.length(),i -> NodeLoader.make(array.getJSONObject(i)))) addChild(n);
+            return;
+        }
+        for (Object o : array) {
             JSONObject child = (JSONObject) o;
             Node n = Registry.nodeFactory.create(child.getString("type"));
             if(n==null) {
@@ -408,26 +648,33 @@ public class Node {
             n.nodeID = UUID.randomUUID();
             toScan.addAll(n.getChildren());
         }
+        invalidateIndex();
     }
 
     /**
-     * Depth-first search for a node with a matching ID and type.  Type match can be any subclass.
+     * Find a node in this subtree with a matching ID and type.  Type match can be any subclass.  Uses the index kept
+     * by the root of the tree.
      * @param nodeID the ID to search for
      * @param type the type of node to search for
-     * @return the first node found with a matching ID and type, or null if none found.
+     * @return the node with a matching ID and type, or null if none found.
      * @param <T> the type of node to search for
      */
     public <T extends Node> T findNodeByID(String nodeID, Class<T> type) {
-        List<Node> toScan = new ArrayList<>();
-        toScan.add(this);
-        while(!toScan.isEmpty()) {
-            Node node = toScan.remove(0);
-            if(type.isInstance(node)) {
-                if(node.getUniqueID().toString().equals(nodeID)) {
-                    return type.cast(node);
-                }
-            }
-            toScan.addAll(node.getChildren());
+        if(nodeID==null || nodeID.isEmpty()) return null;
+        UUID id;
+        try {
+            id = UUID.fromString(nodeID);
+        } catch(IllegalArgumentException e) {
+            return null;
+        }
+        Node root = getRootNode();
+        var list = getIndex().get(id);
+        if(list==null && root.loadPendingWith(id)) list = getIndex().get(id);
+        if(list==null) return null;
+        for(Node node : list) {
+            if(!type.isInstance(node)) continue;
+            if(root!=this && node!=this && !node.hasParent(this)) continue;
+            return type.cast(node);
         }
         return null;
     }
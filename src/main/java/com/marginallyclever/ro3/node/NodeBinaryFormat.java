@@ -0,0 +1,45 @@
+package com.marginallyclever.ro3.node;
+
+/**
+ * <p>The layout shared by {@link NodeBinaryWriter} and {@link NodeBinaryReader}.  All numbers are big-endian.</p>
+ * <pre>
+ * header      "RO3B", int version, int flags
+ * properties  one block per node.  Each block is the fields of {@link Node#toJSON()} without "type", "nodeID" and
+ *             "children", written as a {@link #OBJECT} value.
+ * strings     int count, then for each string an int length and the UTF-8 bytes.
+ * assets      int count, then the string index of each asset path.
+ * nodes       int count, then one entry of {@link #NODE_ENTRY_SIZE} bytes per node in depth-first order:
+ *             int type (string index), long and long unique ID, int child count, int subtree size,
+ *             int property offset, int property length.
+ * footer      int strings offset, int assets offset, int nodes offset, int node count, "RO3B"
+ * </pre>
+ * <p>The first child of node i is node i+1.  The next sibling of node i is node i+(subtree size of i), so any part of
+ * the tree can be read without reading the rest.</p>
+ */
+final class NodeBinaryFormat {
+    static final byte [] MAGIC = {'R','O','3','B'};
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int FOOTER_SIZE = 20;
+    static final int NODE_ENTRY_SIZE = 36;
+
+    // value tags
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte INT = 3;
+    static final byte LONG = 4;
+    static final byte DOUBLE = 5;
+    static final byte FLOAT = 6;
+    static final byte STRING = 7;      // int string index
+    static final byte ASSET = 8;       // int asset index
+    static final byte UUID = 9;        // long, long
+    static final byte OBJECT = 10;     // int count, then int key string index and value for each
+    static final byte ARRAY = 11;      // int count, then each value
+    static final byte DOUBLES = 12;    // int count, then each double
+    static final byte BIG_DECIMAL = 13;// int string index
+    static final byte BIG_INTEGER = 14;// int string index
+    static final byte RAW = 15;        // int string index of a JSON value
+
+    private NodeBinaryFormat() {}
+}
@@ -0,0 +1,276 @@
+package com.marginallyclever.ro3.node;
+
+import com.marginallyclever.ro3.Registry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+import static com.marginallyclever.ro3.node.NodeBinaryFormat.*;
+
+/**
+ * <p>{@link NodeBinaryReader} reads a tree of {@link Node}s written by {@link NodeBinaryWriter}.</p>
+ * <p>Only the top of the tree is made right away.  Below a given depth each node keeps the rest of its subtree in
+ * the file until something asks for its children with {@link Node#getChildren()} - a branch opened in the tree view,
+ * a search, the viewport drawing the scene - or looks for the unique ID of a node inside it.  A node that has not
+ * been made does not {@link Node#update(double)}.</p>
+ * <p>The reader keeps the whole file in memory while any subtree has not been made.</p>
+ */
+public class NodeBinaryReader {
+    private static final Logger logger = LoggerFactory.getLogger(NodeBinaryReader.class);
+    private final ByteBuffer buffer;
+    private final String [] strings;
+    private final String [] assets;
+    private final int nodesOffset;
+    private final int nodeCount;
+    // unique ID to position in the node table, made the first time a pending subtree is searched.
+    private Map<UUID,List<Integer>> ids;
+
+    /**
+     * @param buffer the whole file.
+     * @throws IOException if the buffer does not hold a binary scene.
+     */
+    public NodeBinaryReader(ByteBuffer buffer) throws IOException {
+        this(buffer,UnaryOperator.identity());
+    }
+
+    /**
+     * @param buffer the whole file.
+     * @param resolveAsset changes the path of each asset as it is read, for example to make it absolute.
+     * @throws IOException if the buffer does not hold a binary scene.
+     */
+    public NodeBinaryReader(ByteBuffer buffer, UnaryOperator<String> resolveAsset) throws IOException {
+        this.buffer = buffer.duplicate();
+        int size = this.buffer.limit();
+        if(size<HEADER_SIZE+FOOTER_SIZE || !hasMagic(0) || !hasMagic(size-4)) {
+            throw new IOException("Not a binary scene.");
+        }
+        int version = this.buffer.getInt(4);
+        if(version!=VERSION) throw new IOException("Unknown binary scene version "+version+".");
+
+        int footer = size-FOOTER_SIZE;
+        int stringsOffset = this.buffer.getInt(footer);
+        int assetsOffset = this.buffer.getInt(footer+4);
+        nodesOffset = this.buffer.getInt(footer+8);
+        nodeCount = this.buffer.getInt(footer+12);
+        if(stringsOffset<HEADER_SIZE || assetsOffset<stringsOffset || nodesOffset<assetsOffset || nodeCount<1
+                || nodesOffset+4L+(long)nodeCount*NODE_ENTRY_SIZE>footer
+                || this.buffer.getInt(nodesOffset)!=nodeCount) {
+            throw new IOException("Binary scene is damaged.");
+        }
+
+        try {
+            ByteBuffer b = this.buffer.duplicate().position(stringsOffset);
+            strings = new String[b.getInt()];
+            for(int i=0;i<strings.length;++i) {
+                byte [] bytes = new byte[b.getInt()];
+                b.get(bytes);
+                strings[i] = new String(bytes,StandardCharsets.UTF_8);
+            }
+            b.position(assetsOffset);
+            assets = new String[b.getInt()];
+            for(int i=0;i<assets.length;++i) {
+                assets[i] = resolveAsset.apply(strings[b.getInt()]);
+            }
+        } catch(RuntimeException e) {
+            throw new IOException("Binary scene is damaged.",e);
+        }
+    }
+
+    /**
+     * Read a whole file into memory.
+     * @param path the file.
+     * @param resolveAsset changes the path of each asset as it is read.
+     * @return a reader for the file.
+     * @throws IOException if the file cannot be read or is not a binary scene.
+     */
+    public static NodeBinaryReader open(Path path, UnaryOperator<String> resolveAsset) throws IOException {
+        return new NodeBinaryReader(ByteBuffer.wrap(Files.readAllBytes(path)),resolveAsset);
+    }
+
+    /**
+     * @param path a file.
+     * @return true if the file starts like a binary scene.
+     * @throws IOException if the file cannot be read.
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try(InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length),MAGIC);
+        }
+    }
+
+    private boolean hasMagic(int at) {
+        for(int i=0;i<MAGIC.length;++i) {
+            if(buffer.get(at+i)!=MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of nodes in the file.
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Read the tree.
+     * @param depth how many levels below the root to make now.  0 makes only the root.
+     * @return the root of the tree.
+     */
+    public Node read(int depth) {
+        return NodeLoader.load(() -> makeNode(0,depth));
+    }
+
+    /**
+     * Read the tree into an existing node.  The type of the root in the file is not checked.
+     * @param into the node that becomes the root of the tree.  Its children are replaced.
+     * @param depth how many levels below the root to make now.  0 makes only the root.
+     */
+    public void readInto(Node into, int depth) {
+        NodeLoader.load(into,() -> fill(into,0,depth));
+    }
+
+    private int entry(int index) {
+        return nodesOffset+4+index*NODE_ENTRY_SIZE;
+    }
+
+    private int childCount(int index) {
+        return buffer.getInt(entry(index)+20);
+    }
+
+    private int subtreeSize(int index) {
+        return buffer.getInt(entry(index)+24);
+    }
+
+    private Node makeNode(int index, int depth) {
+        String type = strings[buffer.getInt(entry(index))];
+        Node n = Registry.nodeFactory.create(type);
+        if(n==null) {
+            logger.error("Could not create type {}.",type);
+            n = new Node();
+        }
+        fill(n,index,depth);
+        return n;
+    }
+
+    private void fill(Node n, int index, int depth) {
+        int e = entry(index);
+        JSONObject fields = (JSONObject)readValue(buffer.duplicate().position(buffer.getInt(e+28)));
+        fields.put("type",strings[buffer.getInt(e)]);
+        fields.put("nodeID",new UUID(buffer.getLong(e+4),buffer.getLong(e+12)).toString());
+
+        boolean later = depth<=0 && childCount(index)>0;
+        fields.put("children",new NodeJSONStream.LoadedChildren(later ? List.of() : makeChildren(index,depth-1)));
+        n.fromJSON(fields);
+        if(later) n.setPendingChildren(new Pending(index));
+    }
+
+    private List<Node> makeChildren(int index, int depth) {
+        int count = childCount(index);
+        int [] first = new int[count];
+        int child = index+1;
+        for(int i=0;i<count;++i) {
+            first[i] = child;
+            child += subtreeSize(child);
+        }
+        NodeLoader loader = NodeLoader.current();
+        if(loader!=null) return loader.makeAll(count,i -> makeNode(first[i],depth));
+
+        List<Node> list = new ArrayList<>(count);
+        for(int i : first) list.add(makeNode(i,depth));
+        return list;
+    }
+
+    private Object readValue(ByteBuffer b) {
+        byte tag = b.get();
+        return switch(tag) {
+            case NULL -> JSONObject.NULL;
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case INT -> b.getInt();
+            case LONG -> b.getLong();
+            case DOUBLE -> b.getDouble();
+            case FLOAT -> b.getFloat();
+            case STRING -> strings[b.getInt()];
+            case ASSET -> assets[b.getInt()];
+            case NodeBinaryFormat.UUID -> new UUID(b.getLong(),b.getLong()).toString();
+            case OBJECT -> {
+                int count = b.getInt();
+                JSONObject object = new JSONObject();
+                for(int i=0;i<count;++i) {
+                    String key = strings[b.getInt()];
+                    object.put(key,readValue(b));
+                }
+                yield object;
+            }
+            case ARRAY -> {
+                int count = b.getInt();
+                JSONArray array = new JSONArray(count);
+                for(int i=0;i<count;++i) array.put(readValue(b));
+                yield array;
+            }
+            case DOUBLES -> {
+                int count = b.getInt();
+                JSONArray array = new JSONArray(count);
+                for(int i=0;i<count;++i) array.put(b.getDouble());
+                yield array;
+            }
+            case BIG_DECIMAL -> new BigDecimal(strings[b.getInt()]);
+            case BIG_INTEGER -> new BigInteger(strings[b.getInt()]);
+            case RAW -> new JSONTokener(strings[b.getInt()]).nextValue();
+            default -> throw new IllegalStateException("Unknown tag "+tag+" at "+(b.position()-1)+".");
+        };
+    }
+
+    /**
+     * @return the positions in the node table of every node with the given unique ID.
+     */
+    private synchronized List<Integer> find(UUID id) {
+        if(ids==null) {
+            ids = new HashMap<>();
+            for(int i=0;i<nodeCount;++i) {
+                int e = entry(i);
+                ids.computeIfAbsent(new UUID(buffer.getLong(e+4),buffer.getLong(e+12)),k->new ArrayList<>(1)).add(i);
+            }
+        }
+        return ids.getOrDefault(id,List.of());
+    }
+
+    /**
+     * The children of one node that are still in the file.
+     */
+    private class Pending implements Node.PendingChildren {
+        private final int index;
+
+        Pending(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public List<Node> load() {
+            return makeChildren(index,0);
+        }
+
+        @Override
+        public boolean contains(UUID id) {
+            int last = index+subtreeSize(index);
+            for(int i : find(id)) {
+                if(i>index && i<last) return true;
+            }
+            return false;
+        }
+    }
+}
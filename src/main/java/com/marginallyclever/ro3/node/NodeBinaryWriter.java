@@ -0,0 +1,259 @@
+package com.marginallyclever.ro3.node;
+
+import com.marginallyclever.ro3.Registry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+import static com.marginallyclever.ro3.node.NodeBinaryFormat.*;
+
+/**
+ * <p>{@link NodeBinaryWriter} writes a tree of {@link Node}s in the compact binary format described in
+ * {@link NodeBinaryFormat}.  Read it back with {@link NodeBinaryReader}.</p>
+ * <p>Each node writes its own fields with {@link Node#toJSON()}, so anything that can be saved as JSON can be saved
+ * this way.  Names, keys and types are stored once in a table of strings.  Strings that are the path of an asset
+ * (a mesh or texture) are stored once in a table of assets, so they can be renamed without touching the nodes.</p>
+ */
+public class NodeBinaryWriter {
+    /**
+     * The file extension of a binary scene.
+     */
+    public static final String EXTENSION = "ro3b";
+
+    private final Set<String> assets;
+    private final UnaryOperator<String> renameAsset;
+    private final Map<String,Integer> stringIndex = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String,Integer> assetIndex = new HashMap<>();
+    private final List<String> assetList = new ArrayList<>();
+    // one row per node: type, id most, id least, child count, subtree size, property offset, property length.
+    private final List<long[]> nodes = new ArrayList<>();
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+    private final DataOutputStream blockOut = new DataOutputStream(block);
+    private DataOutputStream out;
+    private long written;
+
+    private NodeBinaryWriter(Collection<String> assets, UnaryOperator<String> renameAsset) {
+        this.assets = new HashSet<>(assets);
+        this.renameAsset = renameAsset;
+    }
+
+    /**
+     * Write a node and all its children.  Every mesh and texture loaded in the {@link Registry} is an asset.  The
+     * stream is flushed but not closed.
+     * @param node the root of the tree to write.
+     * @param out where to write.
+     * @throws IOException if writing fails.
+     */
+    public static void write(Node node, OutputStream out) throws IOException {
+        List<String> assets = Registry.textureFactory.getAllSourcesForExport();
+        assets.addAll(Registry.meshFactory.getAllSourcesForExport());
+        write(node,out,assets,UnaryOperator.identity());
+    }
+
+    /**
+     * Write a node and all its children.  The stream is flushed but not closed.
+     * @param node the root of the tree to write.
+     * @param out where to write.
+     * @param assets string values that are the path of an asset.
+     * @param renameAsset the path to store for each asset.
+     * @throws IOException if writing fails.
+     */
+    public static void write(Node node, OutputStream out, Collection<String> assets, UnaryOperator<String> renameAsset) throws IOException {
+        new NodeBinaryWriter(assets,renameAsset).writeAll(node,out);
+    }
+
+    private void writeAll(Node node, OutputStream stream) throws IOException {
+        out = new DataOutputStream(stream);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(0);
+        written = HEADER_SIZE;
+
+        writeNode(node);
+
+        int stringsOffset = offset();
+        // the asset table adds strings, so make it first.
+        int [] assetStrings = new int[assetList.size()];
+        for(int i=0;i<assetStrings.length;++i) {
+            assetStrings[i] = indexOf(renameAsset.apply(assetList.get(i)));
+        }
+        out.writeInt(strings.size());
+        written += 4;
+        for(String s : strings) {
+            byte [] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            written += 4 + bytes.length;
+        }
+
+        int assetsOffset = offset();
+        out.writeInt(assetStrings.length);
+        for(int s : assetStrings) out.writeInt(s);
+        written += 4 + 4L*assetStrings.length;
+
+        int nodesOffset = offset();
+        out.writeInt(nodes.size());
+        for(long [] row : nodes) {
+            out.writeInt((int)row[0]);
+            out.writeLong(row[1]);
+            out.writeLong(row[2]);
+            out.writeInt((int)row[3]);
+            out.writeInt((int)row[4]);
+            out.writeInt((int)row[5]);
+            out.writeInt((int)row[6]);
+        }
+        written += 4 + (long)NODE_ENTRY_SIZE*nodes.size();
+        offset();
+
+        out.writeInt(stringsOffset);
+        out.writeInt(assetsOffset);
+        out.writeInt(nodesOffset);
+        out.writeInt(nodes.size());
+        out.write(MAGIC);
+        out.flush();
+    }
+
+    private int offset() throws IOException {
+        if(written>Integer.MAX_VALUE) throw new IOException("Scene is too big for the binary format.");
+        return (int)written;
+    }
+
+    /**
+     * Write the properties of a node, then its children.  The row of the node is finished after the children so
+     * that the size of the subtree is known.
+     */
+    private void writeNode(Node node) throws IOException {
+        JSONObject fields = node.toJSONWithoutChildren();
+        String type = fields.optString("type",node.getClass().getSimpleName());
+        UUID id = java.util.UUID.fromString(node.getUniqueID());
+        fields.remove("type");
+        fields.remove("nodeID");
+
+        block.reset();
+        writeObject(blockOut,fields);
+        long [] row = new long[7];
+        row[0] = indexOf(type);
+        row[1] = id.getMostSignificantBits();
+        row[2] = id.getLeastSignificantBits();
+        row[5] = offset();
+        row[6] = block.size();
+        block.writeTo(out);
+        written += block.size();
+
+        int first = nodes.size();
+        nodes.add(row);
+        List<Node> children = node.getChildren();
+        row[3] = children.size();
+        for(Node child : children) {
+            writeNode(child);
+        }
+        row[4] = nodes.size()-first;
+    }
+
+    private void writeObject(DataOutputStream data, JSONObject object) throws IOException {
+        data.writeByte(OBJECT);
+        data.writeInt(object.length());
+        for(String key : object.keySet()) {
+            data.writeInt(indexOf(key));
+            writeValue(data,object.opt(key));
+        }
+    }
+
+    private void writeValue(DataOutputStream data, Object value) throws IOException {
+        if(value==null || value==JSONObject.NULL) data.writeByte(NULL);
+        else if(value instanceof JSONObject object) writeObject(data,object);
+        else if(value instanceof JSONArray array) writeArray(data,array);
+        else if(value instanceof String s) writeString(data,s);
+        else if(value instanceof Boolean b) data.writeByte(b ? TRUE : FALSE);
+        else if(value instanceof Integer n) {
+            data.writeByte(INT);
+            data.writeInt(n);
+        } else if(value instanceof Long n) {
+            data.writeByte(LONG);
+            data.writeLong(n);
+        } else if(value instanceof Double n) {
+            data.writeByte(DOUBLE);
+            data.writeDouble(n);
+        } else if(value instanceof Float n) {
+            data.writeByte(FLOAT);
+            data.writeFloat(n);
+        } else if(value instanceof BigDecimal n) {
+            data.writeByte(BIG_DECIMAL);
+            data.writeInt(indexOf(n.toString()));
+        } else if(value instanceof BigInteger n) {
+            data.writeByte(BIG_INTEGER);
+            data.writeInt(indexOf(n.toString()));
+        } else {
+            // the same thing JSONObject.toString() would write.
+            data.writeByte(RAW);
+            data.writeInt(indexOf(JSONObject.valueToString(value)));
+        }
+    }
+
+    private void writeArray(DataOutputStream data, JSONArray array) throws IOException {
+        int length = array.length();
+        boolean allDoubles = length>0;
+        for(int i=0;i<length && allDoubles;++i) {
+            allDoubles = array.opt(i) instanceof Double;
+        }
+        if(allDoubles) {
+            // poses, colors and other lists of numbers.
+            data.writeByte(DOUBLES);
+            data.writeInt(length);
+            for(int i=0;i<length;++i) data.writeDouble((Double)array.opt(i));
+            return;
+        }
+        data.writeByte(ARRAY);
+        data.writeInt(length);
+        for(int i=0;i<length;++i) {
+            writeValue(data,array.opt(i));
+        }
+    }
+
+    private void writeString(DataOutputStream data, String s) throws IOException {
+        if(assets.contains(s)) {
+            data.writeByte(ASSET);
+            data.writeInt(assetIndex.computeIfAbsent(s,k->{
+                assetList.add(k);
+                return assetList.size()-1;
+            }));
+            return;
+        }
+        UUID id = asUUID(s);
+        if(id!=null) {
+            data.writeByte(NodeBinaryFormat.UUID);
+            data.writeLong(id.getMostSignificantBits());
+            data.writeLong(id.getLeastSignificantBits());
+            return;
+        }
+        data.writeByte(STRING);
+        data.writeInt(indexOf(s));
+    }
+
+    /**
+     * @return the unique ID written as s, or null if s is anything else.
+     */
+    private static UUID asUUID(String s) {
+        if(s.length()!=36 || s.charAt(8)!='-' || s.charAt(13)!='-') return null;
+        try {
+            UUID id = java.util.UUID.fromString(s);
+            return id.toString().equals(s) ? id : null;
+        } catch(IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private int indexOf(String s) {
+        return stringIndex.computeIfAbsent(s,k->{
+            strings.add(k);
+            return strings.size()-1;
+        });
+    }
+}
@@ -0,0 +1,268 @@
+package com.marginallyclever.ro3.node;
+
+import com.fasterxml.jackson.core.*;
+import com.marginallyclever.ro3.Registry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * <p>{@link NodeJSONStream} writes and reads a tree of {@link Node}s as a stream of JSON tokens, one node at a time.
+ * The whole tree is never held as one {@link JSONObject}, so saving and loading a big scene needs little more memory
+ * than the scene itself.</p>
+ * <p>The format is the same as {@link Node#toJSON()} and {@link Node#fromJSON(JSONObject)}, and each node still
+ * writes and reads its own fields with those methods.  When writing, the "children" of each node are left out of
+ * {@link Node#toJSON()} and streamed after the other fields.  When reading, the children of a node are made before
+ * the node and handed to {@link Node#fromJSON(JSONObject)} ready to add.  The keys of a node may be in any order, so
+ * files written by {@link JSONObject#toString()} can be read.</p>
+ * <p>Trees are read with a {@link NodeLoader}.  Each child of the root is read whole and made on another thread while
+ * the rest of the file is read.</p>
+ */
+public class NodeJSONStream {
+    private static final Logger logger = LoggerFactory.getLogger(NodeJSONStream.class);
+    private static final JsonFactory factory = JsonFactory.builder()
+            .disable(JsonFactory.Feature.INTERN_FIELD_NAMES)
+            .build();
+    // written first so that a person reading the file knows what they are looking at.
+    private static final String [] FIRST_KEYS = {"type","name","nodeID"};
+
+    /**
+     * The children of a node that were read before the node.  See {@link Node#fromJSON(JSONObject)}.
+     * @param nodes the children, in order.
+     */
+    record LoadedChildren(List<Node> nodes) {}
+
+    private NodeJSONStream() {}
+
+    /**
+     * Write a node and all its children.  The stream is flushed but not closed.
+     * @param node the root of the tree to write.
+     * @param out where to write.
+     * @throws IOException if writing fails.
+     */
+    public static void write(Node node, OutputStream out) throws IOException {
+        try(JsonGenerator generator = factory.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writeNode(generator,node);
+        }
+    }
+
+    private static void writeNode(JsonGenerator generator, Node node) throws IOException {
+        JSONObject fields = node.toJSONWithoutChildren();
+        generator.writeStartObject();
+        for(String key : FIRST_KEYS) {
+            if(fields.has(key)) {
+                generator.writeFieldName(key);
+                writeValue(generator,fields.get(key));
+            }
+        }
+        for(String key : fields.keySet()) {
+            if(isFirstKey(key)) continue;
+            generator.writeFieldName(key);
+            writeValue(generator,fields.get(key));
+        }
+        generator.writeArrayFieldStart("children");
+        for(Node child : node.getChildren()) {
+            writeNode(generator,child);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static boolean isFirstKey(String key) {
+        for(String k : FIRST_KEYS) {
+            if(k.equals(key)) return true;
+        }
+        return false;
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if(value==null || value==JSONObject.NULL) generator.writeNull();
+        else if(value instanceof JSONObject object) {
+            generator.writeStartObject();
+            for(String key : object.keySet()) {
+                generator.writeFieldName(key);
+                writeValue(generator,object.get(key));
+            }
+            generator.writeEndObject();
+        } else if(value instanceof JSONArray array) {
+            generator.writeStartArray();
+            for(int i=0;i<array.length();++i) {
+                writeValue(generator,array.opt(i));
+            }
+            generator.writeEndArray();
+        } else if(value instanceof String s) generator.writeString(s);
+        else if(value instanceof Boolean b) generator.writeBoolean(b);
+        else if(value instanceof Integer n) generator.writeNumber(n);
+        else if(value instanceof Long n) generator.writeNumber(n);
+        else if(value instanceof Double n) generator.writeNumber(n);
+        else if(value instanceof Float n) generator.writeNumber(n);
+        else if(value instanceof BigDecimal n) generator.writeNumber(n);
+        else if(value instanceof BigInteger n) generator.writeNumber(n);
+        else if(value instanceof Number n) generator.writeNumber(n.doubleValue());
+        else {
+            // the same thing JSONObject.toString() would write.
+            generator.writeRawValue(JSONObject.valueToString(value));
+        }
+    }
+
+    /**
+     * Read a tree written by {@link #write(Node, OutputStream)} or by {@link JSONObject#toString()} into an existing
+     * node.  The type of the root in the file is not checked.
+     * @param into the node that becomes the root of the tree.  Its children are replaced.
+     * @param in where to read.  Not closed.
+     * @throws IOException if reading fails or the JSON is bad.
+     */
+    public static void readInto(Node into, InputStream in) throws IOException {
+        NodeLoader.load(into,() -> {
+            try(JsonParser parser = factory.createParser(in)) {
+                parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+                expect(parser.nextToken(),JsonToken.START_OBJECT,parser);
+                into.fromJSON(readFields(parser,true));
+            }
+        });
+    }
+
+    /**
+     * Read a tree written by {@link #write(Node, OutputStream)} or by {@link JSONObject#toString()}.
+     * @param in where to read.  Not closed.
+     * @return the root of the tree.
+     * @throws IOException if reading fails or the JSON is bad.
+     */
+    public static Node read(InputStream in) throws IOException {
+        return NodeLoader.load(() -> {
+            try(JsonParser parser = factory.createParser(in)) {
+                parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+                expect(parser.nextToken(),JsonToken.START_OBJECT,parser);
+                return readNode(parser,true);
+            }
+        });
+    }
+
+    /**
+     * Check the JSON is well formed without making anything.
+     * @param in where to read.  Not closed.
+     * @throws IOException if reading fails or the JSON is bad.
+     */
+    public static void validate(InputStream in) throws IOException {
+        try(JsonParser parser = factory.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            expect(parser.nextToken(),JsonToken.START_OBJECT,parser);
+            parser.skipChildren();
+            if(parser.nextToken()!=null) {
+                throw new JsonParseException(parser,"Unexpected content after the scene.");
+            }
+        }
+    }
+
+    private static void expect(JsonToken found, JsonToken expected, JsonParser parser) throws IOException {
+        if(found!=expected) throw new JsonParseException(parser,"Expected "+expected+" but found "+found);
+    }
+
+    /**
+     * The parser is at the start of a node.  Read it and all its children.
+     */
+    private static Node readNode(JsonParser parser, boolean isRoot) throws IOException {
+        JSONObject fields = readFields(parser,isRoot);
+        String type = fields.optString("type",null);
+        Node n = (type==null) ? null : Registry.nodeFactory.create(type);
+        if(n==null) {
+            logger.error("Could not create type {}.",type);
+            n = new Node();
+        }
+        n.fromJSON(fields);
+        return n;
+    }
+
+    /**
+     * The parser is at the start of a node.  Read the fields of the node into a {@link JSONObject}.  The children are
+     * made right away and stored as {@link LoadedChildren}.  The children of the root are read whole and made on
+     * other threads while the rest of the file is read.  See {@link NodeLoader}.
+     */
+    private static JSONObject readFields(JsonParser parser, boolean isRoot) throws IOException {
+        JSONObject fields = new JSONObject();
+        JsonToken token;
+        while((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String key = parser.currentName();
+            token = parser.nextToken();
+            if(key.equals("children") && token==JsonToken.START_ARRAY) {
+                NodeLoader loader = NodeLoader.current();
+                if(isRoot && loader!=null) {
+                    List<Future<Node>> children = new ArrayList<>();
+                    while((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        expect(token,JsonToken.START_OBJECT,parser);
+                        JSONObject child = (JSONObject)readValue(parser,token);
+                        children.add(loader.submit(() -> NodeLoader.make(child)));
+                    }
+                    fields.put(key,new LoadedChildren(NodeLoader.join(children)));
+                    continue;
+                }
+                List<Node> children = new ArrayList<>();
+                while((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    expect(token,JsonToken.START_OBJECT,parser);
+                    children.add(readNode(parser,false));
+                }
+                fields.put(key,new LoadedChildren(children));
+            } else {
+                fields.put(key,readValue(parser,token));
+            }
+        }
+        expect(token,JsonToken.END_OBJECT,parser);
+        if(!fields.has("children")) fields.put("children",new LoadedChildren(List.of()));
+        return fields;
+    }
+
+    /**
+     * Read one value the way {@link JSONObject} would parse it.
+     */
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        if(token==null) throw new JsonParseException(parser,"Unexpected end of input.");
+        return switch(token) {
+            case START_OBJECT -> {
+                JSONObject object = new JSONObject();
+                while((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                    String key = parser.currentName();
+                    object.put(key,readValue(parser,parser.nextToken()));
+                }
+                expect(token,JsonToken.END_OBJECT,parser);
+                yield object;
+            }
+            case START_ARRAY -> {
+                JSONArray array = new JSONArray();
+                while((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    array.put(readValue(parser,token));
+                }
+                yield array;
+            }
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT -> {
+                // JSONObject reads "-0" as -0.0.
+                if(parser.getText().equals("-0")) yield -0.0;
+                yield switch(parser.getNumberType()) {
+                    case INT -> parser.getIntValue();
+                    case LONG -> parser.getLongValue();
+                    default -> parser.getBigIntegerValue();
+                };
+            }
+            case VALUE_NUMBER_FLOAT -> {
+                BigDecimal d = parser.getDecimalValue();
+                // BigDecimal has no -0.0.
+                yield (d.signum()==0 && parser.getText().startsWith("-")) ? (Object)(-0.0) : d;
+            }
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_NULL -> JSONObject.NULL;
+            default -> throw new JsonParseException(parser,"Unexpected "+token);
+        };
+    }
+}
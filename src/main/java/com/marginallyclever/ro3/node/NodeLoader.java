@@ -0,0 +1,239 @@
+package com.marginallyclever.ro3.node;
+
+import com.marginallyclever.ro3.Registry;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * <p>{@link NodeLoader} makes a whole tree of {@link Node}s at once, the way a scene file is loaded.</p>
+ * <p>While the tree is built {@link Node#addChild(Node)} only links each child to its parent.  Independent subtrees
+ * are built in parallel, so {@link Node#fromJSON(JSONObject)} should only read the fields of its own node.  Anything
+ * that touches the rest of the scene belongs in {@link Node#onAttach()} or {@link Node#onReady()}.</p>
+ * <p>When the tree is built every {@link NodePath} read in the tree is resolved in one pass, using one index of the
+ * tree.  Then the attach and ready hooks and events that were skipped are run on this thread, children first, in
+ * the same order {@link Node#addChild(Node)} would have run them.  A {@link com.marginallyclever.ro3.node.nodes.pose.Pose}
+ * does not tell its listeners it moved while this happens; every node in the tree is new.</p>
+ */
+public final class NodeLoader {
+    private static final Logger logger = LoggerFactory.getLogger(NodeLoader.class);
+    private static final ThreadLocal<NodeLoader> current = new ThreadLocal<>();
+    // the most subtrees waiting to be built at once, so a stream does not read far ahead of the builders.
+    private static final int MAX_WAITING = Math.max(2,ForkJoinPool.getCommonPoolParallelism()*2);
+
+    private final Queue<NodePath<?>> paths = new ConcurrentLinkedQueue<>();
+    private final Semaphore waiting = new Semaphore(MAX_WAITING);
+    private volatile boolean building = true;
+
+    private NodeLoader() {}
+
+    /**
+     * Something that fills an existing tree.
+     * @param <E> the exception it may throw.
+     */
+    @FunctionalInterface
+    public interface Fill<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Something that makes a new tree.
+     * @param <E> the exception it may throw.
+     */
+    @FunctionalInterface
+    public interface Build<E extends Exception> {
+        Node run() throws E;
+    }
+
+    /**
+     * Fill a tree in bulk, then link and attach it.  If a load is already running on this thread then the tree
+     * becomes part of that load.
+     * @param root the root of the tree.  The hooks of the root itself are not run.
+     * @param fill makes the tree below root.
+     * @throws E if fill throws.
+     */
+    public static <E extends Exception> void load(Node root, Fill<E> fill) throws E {
+        load(() -> {
+            fill.run();
+            return root;
+        });
+    }
+
+    /**
+     * Make a tree in bulk, then link and attach it.  If a load is already running on this thread then the tree
+     * becomes part of that load.
+     * @param build makes the tree.  The hooks of the root itself are not run.
+     * @return the root of the tree.
+     * @throws E if build throws.
+     */
+    public static <E extends Exception> Node load(Build<E> build) throws E {
+        if(current.get()!=null) return build.run();
+        NodeLoader loader = new NodeLoader();
+        current.set(loader);
+        try {
+            Node root = build.run();
+            loader.finish(root);
+            return root;
+        } finally {
+            current.remove();
+        }
+    }
+
+    /**
+     * Make a tree from JSON in bulk.
+     * @param json the output of {@link Node#toJSON()}.
+     * @return the root of the tree.
+     */
+    public static Node fromJSON(JSONObject json) {
+        return load(() -> make(json));
+    }
+
+    /**
+     * Fill an existing node from JSON in bulk.
+     * @param into the node to fill.
+     * @param json the output of {@link Node#toJSON()}.
+     */
+    public static void fromJSON(Node into, JSONObject json) {
+        load(into,() -> into.fromJSON(json));
+    }
+
+    /**
+     * @return true while a tree is being loaded on this thread.
+     */
+    public static boolean isLoading() {
+        return current.get()!=null;
+    }
+
+    /**
+     * @return the load running on this thread, or null.
+     */
+    static NodeLoader current() {
+        return current.get();
+    }
+
+    /**
+     * @return true if the tree is still being built and {@link Node#addChild(Node)} should only link.
+     */
+    static boolean isBuilding() {
+        NodeLoader loader = current.get();
+        return loader!=null && loader.building;
+    }
+
+    /**
+     * Remember a path read during the load so it can be resolved when the tree is built.
+     */
+    static void remember(NodePath<?> path) {
+        NodeLoader loader = current.get();
+        if(loader!=null && loader.building) loader.paths.add(path);
+    }
+
+    /**
+     * Make a node of the type named in the JSON and fill it.
+     * @param json the output of {@link Node#toJSON()}.
+     * @return the new node.
+     */
+    static Node make(JSONObject json) {
+        String type = json.optString("type",null);
+        Node n = (type==null) ? null : Registry.nodeFactory.create(type);
+        if(n==null) {
+            logger.error("Could not create type {}.",type);
+            n = new Node();
+        }
+        n.fromJSON(json);
+        return n;
+    }
+
+    /**
+     * Make some independent subtrees, in parallel if there is more than one and the tree is still being built.
+     * @param count the number of subtrees.
+     * @param make makes subtree i.
+     * @return the subtrees in order.
+     */
+    List<Node> makeAll(int count, IntFunction<Node> make) {
+        if(count<2 || !building) {
+            List<Node> list = new ArrayList<>(count);
+            for(int i=0;i<count;++i) list.add(make.apply(i));
+            return list;
+        }
+        return IntStream.range(0,count).parallel()
+                .mapToObj(i -> within(() -> make.apply(i)))
+                .toList();
+    }
+
+    /**
+     * Start making one subtree on another thread.  Blocks while too many are waiting.
+     * @param make makes the subtree.
+     * @return the subtree, when it is made.
+     */
+    Future<Node> submit(Supplier<Node> make) {
+        try {
+            waiting.acquire();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while loading.");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return within(make);
+            } finally {
+                waiting.release();
+            }
+        });
+    }
+
+    /**
+     * Wait for subtrees started with {@link #submit(Supplier)}.
+     * @param futures the subtrees.
+     * @return the subtrees in order.
+     */
+    static List<Node> join(List<Future<Node>> futures) {
+        List<Node> list = new ArrayList<>(futures.size());
+        for(Future<Node> f : futures) {
+            try {
+                list.add(f.get());
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while loading.");
+            } catch(ExecutionException e) {
+                if(e.getCause() instanceof RuntimeException r) throw r;
+                throw new CompletionException(e.getCause());
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Run something as part of this load on the current thread.
+     */
+    private <T> T within(Supplier<T> task) {
+        NodeLoader previous = current.get();
+        current.set(this);
+        try {
+            return task.get();
+        } finally {
+            if(previous==null) current.remove();
+            else current.set(previous);
+        }
+    }
+
+    private void finish(Node root) {
+        // one index for the whole tree, then every path is a lookup.  still building, in case a path makes more
+        // of the tree.  See NodeBinaryReader.
+        int linked = 0;
+        for(NodePath<?> path : paths) {
+            if(path.getSubject()!=null) linked++;
+        }
+        logger.debug("Linked {} of {} paths.",linked,paths.size());
+        paths.clear();
+        building = false;
+        root.attachLoaded();
+    }
+}
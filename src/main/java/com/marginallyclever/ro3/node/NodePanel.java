@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -24,7 +25,7 @@ public class NodePanel extends JPanel {
         JTextField nameField = new JTextField(node.getName());
         nameField.addActionListener(e -> {
             // should not be allowed to match siblings?
-            node.setName(nameField.getText());
+            Registry.changeScene(() -> node.setName(nameField.getText()));
         });
         nameField.setEditable(false);
         nameField.setColumns(10);
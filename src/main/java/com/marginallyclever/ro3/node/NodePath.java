@@ -1,7 +1,12 @@
 package com.marginallyclever.ro3.node;
 
+import java.lang.ref.WeakReference;
+
 /**
  * <p>{@link NodePath} stores the uniqueID to a node.  It can be used to find a node in the scene graph.</p>
+ * <p>The last node found is remembered.  It is reused until a node leaves the owner's tree, the owner moves to
+ * another tree, or a unique ID in the tree changes, so that {@link #getSubject()} is cheap enough to call every
+ * frame.</p>
  * <p>This is made visible to the user as {@link com.marginallyclever.ro3.apps.nodeselector.NodeSelector} and
  * {@link com.marginallyclever.ro3.apps.nodeselector.NodeSelectionDialog}.</p>
  * @param <T> the type of node to allow
@@ -10,6 +15,12 @@ public class NodePath<T extends Node> {
     private String uniqueID;
     private final Node owner;
     private final Class<T> type;
+    private volatile Found<T> cache;
+
+    /**
+     * The last node found and the index it was found in.
+     */
+    private record Found<T>(WeakReference<T> subject, Node.IdIndex index, int version) {}
 
     public NodePath(Node owner,Class<T> type) {
         this(owner,type,"");
@@ -27,14 +38,26 @@ public class NodePath<T extends Node> {
 
     public void setUniqueID(String uniqueID) {
         this.uniqueID = uniqueID;
+        cache = null;
+        NodeLoader.remember(this);
     }
 
     public void setUniqueIDByNode(Node node) {
-        this.uniqueID = (node == null) ? "" : node.getUniqueID();
+        setUniqueID((node == null) ? "" : node.getUniqueID());
     }
 
     public T getSubject() {
-        return owner.getRootNode().findNodeByID(uniqueID,type);
+        Node.IdIndex index = owner.getIndex();
+        int version = index.getVersion();
+        Found<T> last = cache;
+        if(last!=null && last.index()==index && last.version()==version) {
+            T found = last.subject().get();
+            if(found!=null) return found;
+        }
+        T found = owner.getRootNode().findNodeByID(uniqueID,type);
+        // a miss is not remembered because the node might be attached later.
+        cache = (found==null) ? null : new Found<>(new WeakReference<>(found),index,version);
+        return found;
     }
 
     public Class<T> getType() {
@@ -2,12 +2,14 @@ package com.marginallyclever.ro3.node.nodefactory;
 
 import com.marginallyclever.ro3.node.Node;
 import org.reflections.Reflections;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.lang.reflect.Modifier;
+import java.util.*;
 import java.util.function.Supplier;
 
 /**
@@ -15,6 +17,10 @@ import java.util.function.Supplier;
  */
 public class NodeFactory {
     private static final Logger logger = LoggerFactory.getLogger(NodeFactory.class);
+    /**
+     * Set this system property to true to {@link #scan()} for missing node types at startup.
+     */
+    public static final String SCAN_PROPERTY = "ro3.scanNodeTypes";
 
     /**
      * Categories of Node types.  These categories can be nested in a tree.
@@ -24,6 +30,8 @@ public class NodeFactory {
         private final Supplier<Node> supplier;
         private final List<Category> children = new ArrayList<>();
         private Category parent=null;
+        // the factory this category is part of, or null if it is not part of one yet.
+        private NodeFactory factory=null;
 
         public Category(String name,Supplier<Node> supplier) {
             this.name = name;
@@ -31,8 +39,25 @@ public class NodeFactory {
         }
 
         public void add(Category c) {
+            if(factory==null) {
+                link(c);
+                return;
+            }
+            synchronized (factory) {
+                link(c);
+                factory.byName = null;
+            }
+        }
+
+        private void link(Category c) {
             children.add(c);
             c.parent = this;
+            List<Category> toSet = new ArrayList<>(List.of(c));
+            while(!toSet.isEmpty()) {
+                Category current = toSet.remove(toSet.size()-1);
+                current.factory = factory;
+                toSet.addAll(current.children);
+            }
         }
 
         public Category add(String name, Supplier<Node> supplier) {
@@ -59,9 +84,13 @@ public class NodeFactory {
     }
 
     private final Category root = new Category("Node",Node::new);
+    // name to supplier, the first found by getSupplierFor's breadth-first order.  null when it must be rebuilt.
+    // names that are not in it are not in the tree either.
+    private volatile Map<String,Supplier<Node>> byName;
 
     public NodeFactory() {
         super();
+        root.factory = this;
         //scan();
     }
 
@@ -75,18 +104,24 @@ public class NodeFactory {
      * @return the sub-factory that matches the given identifier, or null if not found.
      */
     public Supplier<Node> getSupplierFor(String identifier) {
+        Map<String,Supplier<Node>> map = byName;
+        // adding a category anywhere in the tree clears the map.
+        if(map==null) map = buildMap();
+        return map.get(identifier);
+    }
+
+    private synchronized Map<String,Supplier<Node>> buildMap() {
+        if(byName!=null) return byName;
+        Map<String,Supplier<Node>> map = new HashMap<>();
         List<Category> toCheck = new ArrayList<>();
         toCheck.add(root);
-        while(!toCheck.isEmpty()) {
-            Category current = toCheck.remove(0);
+        for(int i=0;i<toCheck.size();++i) {
+            Category current = toCheck.get(i);
             toCheck.addAll(current.children);
-
-            if(current.name.equals(identifier)) {
-                return current.supplier;
-            }
+            map.putIfAbsent(current.name,current.supplier);
         }
-
-        return null;
+        byName = map;
+        return map;
     }
 
     /**
@@ -101,20 +136,61 @@ public class NodeFactory {
     }
 
     /**
-     * Scan all classes in the package com.marginallyclever.ro3.node for classes that extend {@link Node}.
+     * <p>Scan the classes of the app for types of {@link Node} that are not made by any category in this factory.
+     * Each one is logged as a warning.</p>
+     * <p>Only types that can be made with a public constructor with no arguments count.  A type that another of
+     * those types extends is a base, like {@link com.marginallyclever.ro3.node.nodes.marlinrobot.MarlinRobot}, and
+     * does not count either.</p>
+     * <p>This is slow and is not part of {@link com.marginallyclever.ro3.Registry#start()} unless the system property
+     * {@link #SCAN_PROPERTY} is true.  Every supplier is called once to learn the type it makes.</p>
+     * @return the types that are not in this factory.
      */
-    public void scan() {
-        // Create a new instance of Reflections
-        Reflections reflections = new Reflections("com.marginallyclever.ro3");
-        // Get all classes that extend T
-        Set<Class<? extends Node>> found = reflections.getSubTypesOf(Node.class);
-        // log it
-        found.stream().sorted((a,b)->a.getName().compareTo(b.getName())).forEach((clazz)->{
-            logger.info("Found " + clazz.getName());
-        });
+    public Set<Class<? extends Node>> scan() {
+        Set<Class<?>> made = new HashSet<>();
+        for(Supplier<Node> supplier : buildMap().values()) {
+            if(supplier!=null) made.add(supplier.get().getClass());
+        }
+
+        // only where Node was loaded from.  a test or plugin that extends a node is not part of the app.
+        Reflections reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(ClasspathHelper.forClass(Node.class))
+                .filterInputsBy(new FilterBuilder().includePackage("com.marginallyclever.ro3")));
+        Set<Class<? extends Node>> found = new HashSet<>();
+        for(Class<? extends Node> clazz : reflections.getSubTypesOf(Node.class)) {
+            if(canMake(clazz) && Objects.equals(codeSource(clazz),codeSource(Node.class))) found.add(clazz);
+        }
+        Set<Class<?>> bases = new HashSet<>();
+        for(Class<?> clazz : found) {
+            for(Class<?> up = clazz.getSuperclass(); up!=null && up!=Node.class; up = up.getSuperclass()) bases.add(up);
+        }
+
+        Set<Class<? extends Node>> missing = new TreeSet<>(Comparator.comparing(Class::getName));
+        for(Class<? extends Node> clazz : found) {
+            if(!made.contains(clazz) && !bases.contains(clazz)) missing.add(clazz);
+        }
+        for(Class<? extends Node> clazz : missing) {
+            logger.warn("{} is not in the node factory.",clazz.getName());
+        }
+        return missing;
+    }
+
+    private static Object codeSource(Class<?> clazz) {
+        var source = clazz.getProtectionDomain().getCodeSource();
+        return source==null ? null : source.getLocation();
+    }
+
+    private static boolean canMake(Class<?> clazz) {
+        if(Modifier.isAbstract(clazz.getModifiers()) || !Modifier.isPublic(clazz.getModifiers())) return false;
+        if(clazz.getEnclosingClass()!=null && !Modifier.isStatic(clazz.getModifiers())) return false;
+        try {
+            return Modifier.isPublic(clazz.getConstructor().getModifiers());
+        } catch(NoSuchMethodException e) {
+            return false;
+        }
     }
 
-    public void clear() {
+    public synchronized void clear() {
         root.children.clear();
+        byName = null;
     }
 }
@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes;
 
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,7 +23,7 @@ public class DHParameterPanel extends JPanel {
         JButton fromPose = new JButton("From Pose");
         fromPose.addActionListener(e -> {
             try {
-                dhParameter.fromPose();
+                Registry.changeScene(() -> dhParameter.fromPose());
             } catch (IllegalArgumentException ex) {
                 JOptionPane.showMessageDialog(null, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 logger.error("Error converting pose to DH parameters.", ex);
@@ -30,7 +31,7 @@ public class DHParameterPanel extends JPanel {
         });
 
         JButton toPose = new JButton("To Pose");
-        toPose.addActionListener(e -> dhParameter.toPoseAndAdjustMeshes());
+        toPose.addActionListener(e -> Registry.changeScene(() -> dhParameter.toPoseAndAdjustMeshes()));
 
         var formatter = NumberFormatHelper.getNumberFormatterDouble();
 
@@ -39,10 +40,10 @@ public class DHParameterPanel extends JPanel {
         JFormattedTextField dh_alpha = new JFormattedTextField(formatter);        dh_alpha.setValue(dhParameter.getAlpha());
         JFormattedTextField dh_theta = new JFormattedTextField(formatter);        dh_theta.setValue(dhParameter.getTheta());
 
-        dh_d.addPropertyChangeListener("value", e -> dhParameter.setD( ((Number)dh_d.getValue()).doubleValue() ));
-        dh_r.addPropertyChangeListener("value", e -> dhParameter.setR( ((Number)dh_r.getValue()).doubleValue() ));
-        dh_alpha.addPropertyChangeListener("value", e -> dhParameter.setAlpha( ((Number)dh_alpha.getValue()).doubleValue() ));
-        dh_theta.addPropertyChangeListener("value", e -> dhParameter.setTheta( ((Number)dh_theta.getValue()).doubleValue() ));
+        dh_d.addPropertyChangeListener("value", e -> Registry.changeScene(() -> dhParameter.setD( ((Number)dh_d.getValue()).doubleValue() )));
+        dh_r.addPropertyChangeListener("value", e -> Registry.changeScene(() -> dhParameter.setR( ((Number)dh_r.getValue()).doubleValue() )));
+        dh_alpha.addPropertyChangeListener("value", e -> Registry.changeScene(() -> dhParameter.setAlpha( ((Number)dh_alpha.getValue()).doubleValue() )));
+        dh_theta.addPropertyChangeListener("value", e -> Registry.changeScene(() -> dhParameter.setTheta( ((Number)dh_theta.getValue()).doubleValue() )));
 
         PanelHelper.addLabelAndComponent(this,"d",dh_d);
         PanelHelper.addLabelAndComponent(this,"theta",dh_theta);
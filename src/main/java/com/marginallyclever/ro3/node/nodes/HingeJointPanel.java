@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes;
 
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.nodeselector.NodeSelector;
 import com.marginallyclever.ro3.node.nodes.pose.Pose;
 
@@ -24,36 +25,36 @@ public class HingeJointPanel extends JPanel {
         JFormattedTextField angleField = new JFormattedTextField(formatter);
         angleField.setValue(angle);
         angleField.addPropertyChangeListener("value", (evt) ->{
-            hingeJoint.setAngle( ((Number) angleField.getValue()).doubleValue() );
+            Registry.changeScene(() -> hingeJoint.setAngle( ((Number) angleField.getValue()).doubleValue() ));
         });
 
         JFormattedTextField maxAngleField = new JFormattedTextField(formatter);
         maxAngleField.setValue(hingeJoint.getMaxAngle());
         maxAngleField.addPropertyChangeListener("value", (evt) ->{
-            hingeJoint.setMaxAngle( ((Number) maxAngleField.getValue()).doubleValue() );
+            Registry.changeScene(() -> hingeJoint.setMaxAngle( ((Number) maxAngleField.getValue()).doubleValue() ));
         });
 
         JFormattedTextField minAngleField = new JFormattedTextField(formatter);
         minAngleField.setValue(hingeJoint.getMinAngle());
         minAngleField.addPropertyChangeListener("value", (evt) ->{
-            hingeJoint.setMinAngle( ((Number)minAngleField.getValue()).doubleValue() );
+            Registry.changeScene(() -> hingeJoint.setMinAngle( ((Number)minAngleField.getValue()).doubleValue() ));
         });
 
         JFormattedTextField velocityField = new JFormattedTextField(formatter);
         velocityField.setValue(hingeJoint.getVelocity());
         velocityField.addPropertyChangeListener("value", (evt) ->{
-            hingeJoint.setVelocity( ((Number)velocityField.getValue()).doubleValue() );
+            Registry.changeScene(() -> hingeJoint.setVelocity( ((Number)velocityField.getValue()).doubleValue() ));
         });
 
         JFormattedTextField accelerationField = new JFormattedTextField(formatter);
         accelerationField.setValue(hingeJoint.getAngle());
         accelerationField.addPropertyChangeListener("value", (evt) ->{
-            hingeJoint.setAcceleration( ((Number)accelerationField.getValue()).doubleValue() );
+            Registry.changeScene(() -> hingeJoint.setAcceleration( ((Number)accelerationField.getValue()).doubleValue() ));
         });
 
         NodeSelector<Pose> selector = new NodeSelector<>(Pose.class,hingeJoint.getAxle());
         selector.addPropertyChangeListener("subject", (evt) ->{
-            hingeJoint.setAxle(selector.getSubject());
+            Registry.changeScene(() -> hingeJoint.setAxle(selector.getSubject()));
         });
 
         PanelHelper.addLabelAndComponent(this, "Axle",selector);
@@ -22,6 +22,7 @@ import java.util.Objects;
  * <li>It can set and get the emission color.</li>
  * <li>It can set and get the shininess.</li>
  * <li>It can set and get the lit status.</li>
+ * <li>It can set and get the surface properties used by physics contacts.</li>
  * <li>It can serialize and deserialize itself to and from JSON format.</li>
  * </ul>
  */
@@ -38,6 +39,14 @@ public class Material extends Node {
     private double specularStrength = 0.5;
     private double ior = 1.0;  // index of refraction
     private double reflectivity = 0.0;  // 0...1
+    // physics surface properties.  see ODEPhysics.
+    private double friction = 0.5;
+    private double slip = 0.0;
+    private double softERP = 0.8;
+    private double softCFM = 0.001;
+    private double bounce = 0.0;  // 0...1
+    private double bounceVelocity = 0.5;
+    private int maxContacts = 4;
 
     public Material() {
         this("Material");
@@ -92,6 +101,13 @@ public class Material extends Node {
         json.put("isLit", isLit);
         json.put("ior", ior);
         json.put("reflectivity", reflectivity);
+        json.put("friction", friction);
+        json.put("slip", slip);
+        json.put("softERP", softERP);
+        json.put("softCFM", softCFM);
+        json.put("bounce", bounce);
+        json.put("bounceVelocity", bounceVelocity);
+        json.put("maxContacts", maxContacts);
         return json;
     }
 
@@ -110,6 +126,13 @@ public class Material extends Node {
         if(from.has("isLit")) isLit = from.getBoolean("isLit");
         if(from.has("ior")) ior = from.getDouble("ior");
         if(from.has("reflectivity")) reflectivity = from.getDouble("reflectivity");
+        if(from.has("friction")) friction = from.getDouble("friction");
+        if(from.has("slip")) slip = from.getDouble("slip");
+        if(from.has("softERP")) softERP = from.getDouble("softERP");
+        if(from.has("softCFM")) softCFM = from.getDouble("softCFM");
+        if(from.has("bounce")) bounce = from.getDouble("bounce");
+        if(from.has("bounceVelocity")) bounceVelocity = from.getDouble("bounceVelocity");
+        if(from.has("maxContacts")) maxContacts = from.getInt("maxContacts");
     }
 
     public Color getDiffuseColor() {
@@ -211,4 +234,81 @@ public class Material extends Node {
     public double getReflectivity() {
         return reflectivity;
     }
+
+    /**
+     * @return the friction coefficient of the surface.
+     */
+    public double getFriction() {
+        return friction;
+    }
+
+    public void setFriction(double friction) {
+        this.friction = friction;
+    }
+
+    /**
+     * @return how much the surface slides sideways in proportion to the force on it.
+     */
+    public double getSlip() {
+        return slip;
+    }
+
+    public void setSlip(double slip) {
+        this.slip = slip;
+    }
+
+    /**
+     * @return the error reduction of contacts with this surface.  Lower is spongier.
+     */
+    public double getSoftERP() {
+        return softERP;
+    }
+
+    public void setSoftERP(double softERP) {
+        this.softERP = softERP;
+    }
+
+    /**
+     * @return the constraint force mixing of contacts with this surface.  Higher is softer.
+     */
+    public double getSoftCFM() {
+        return softCFM;
+    }
+
+    public void setSoftCFM(double softCFM) {
+        this.softCFM = softCFM;
+    }
+
+    /**
+     * @return the restitution of the surface, 0...1.  Zero does not bounce.
+     */
+    public double getBounce() {
+        return bounce;
+    }
+
+    public void setBounce(double bounce) {
+        this.bounce = bounce;
+    }
+
+    /**
+     * @return the slowest speed at which a contact with this surface will bounce.
+     */
+    public double getBounceVelocity() {
+        return bounceVelocity;
+    }
+
+    public void setBounceVelocity(double bounceVelocity) {
+        this.bounceVelocity = bounceVelocity;
+    }
+
+    /**
+     * @return the most contact points made between this surface and another.
+     */
+    public int getMaxContacts() {
+        return maxContacts;
+    }
+
+    public void setMaxContacts(int maxContacts) {
+        this.maxContacts = Math.max(1,maxContacts);
+    }
 }
@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes;
 
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.texture.TextureChooserDialog;
 
 import javax.swing.*;
@@ -39,7 +40,7 @@ public class MaterialPanel extends JPanel {
             textureChooserDialog.setSelectedItem(texture);
             int result = textureChooserDialog.run(this);
             if(result == JFileChooser.APPROVE_OPTION) {
-                material.setDiffuseTexture(textureChooserDialog.getSelectedItem());
+                Registry.changeScene(() -> material.setDiffuseTexture(textureChooserDialog.getSelectedItem()));
                 setTextureButtonLabel(button);
                 updatePreview();
             }
@@ -64,13 +65,13 @@ public class MaterialPanel extends JPanel {
         var nfPos = NumberFormatHelper.getNumberFormatterDouble();
         nfPos.setMinimum(0);
         var esField = PanelHelper.addNumberField("Emission strength",material.getEmissionStrength(), nfPos);
-        esField.addPropertyChangeListener("value",e->material.setEmissionStrength(((Number)e.getNewValue()).doubleValue()));
+        esField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setEmissionStrength(((Number)e.getNewValue()).doubleValue())));
         PanelHelper.addLabelAndComponent(this,"Emission strength",esField,gbc);
         gbc.gridy++;
 
         // lit
         JToggleButton isLitButton = new JToggleButton("Lit",material.isLit());
-        isLitButton.addActionListener(e -> material.setLit(isLitButton.isSelected()));
+        isLitButton.addActionListener(e -> Registry.changeScene(() -> material.setLit(isLitButton.isSelected())));
         PanelHelper.addLabelAndComponent(this,"Lit",isLitButton,gbc);
         gbc.gridy++;
 
@@ -82,14 +83,53 @@ public class MaterialPanel extends JPanel {
         gbc.gridy++;
 
         var iorField = PanelHelper.addNumberFieldDouble("IOR",material.getIOR());
-        iorField.addPropertyChangeListener("value",e->material.setIOR(((Number)e.getNewValue()).doubleValue()));
+        iorField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setIOR(((Number)e.getNewValue()).doubleValue())));
         PanelHelper.addLabelAndComponent(this,"IOR",iorField,gbc);
         gbc.gridy++;
 
         var reflectivityField = PanelHelper.addNumberFieldDouble("reflectivity",material.getReflectivity());
-        reflectivityField.addPropertyChangeListener("value",e->material.setReflectivity(((Number)e.getNewValue()).doubleValue()));
+        reflectivityField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setReflectivity(((Number)e.getNewValue()).doubleValue())));
         PanelHelper.addLabelAndComponent(this,"Reflectivity",reflectivityField,gbc);
         gbc.gridy++;
+
+        addPhysicsFields(gbc);
+    }
+
+    private void addPhysicsFields(GridBagConstraints gbc) {
+        var frictionField = PanelHelper.addNumberFieldDouble("friction",material.getFriction());
+        frictionField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setFriction(((Number)e.getNewValue()).doubleValue())));
+        PanelHelper.addLabelAndComponent(this,"Friction",frictionField,gbc);
+        gbc.gridy++;
+
+        var slipField = PanelHelper.addNumberFieldDouble("slip",material.getSlip());
+        slipField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setSlip(((Number)e.getNewValue()).doubleValue())));
+        PanelHelper.addLabelAndComponent(this,"Slip",slipField,gbc);
+        gbc.gridy++;
+
+        var bounceField = PanelHelper.addNumberFieldDouble("bounce",material.getBounce());
+        bounceField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setBounce(((Number)e.getNewValue()).doubleValue())));
+        PanelHelper.addLabelAndComponent(this,"Bounce",bounceField,gbc);
+        gbc.gridy++;
+
+        var bounceVelocityField = PanelHelper.addNumberFieldDouble("bounce velocity",material.getBounceVelocity());
+        bounceVelocityField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setBounceVelocity(((Number)e.getNewValue()).doubleValue())));
+        PanelHelper.addLabelAndComponent(this,"Bounce velocity",bounceVelocityField,gbc);
+        gbc.gridy++;
+
+        var erpField = PanelHelper.addNumberFieldDouble("soft ERP",material.getSoftERP());
+        erpField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setSoftERP(((Number)e.getNewValue()).doubleValue())));
+        PanelHelper.addLabelAndComponent(this,"Soft ERP",erpField,gbc);
+        gbc.gridy++;
+
+        var cfmField = PanelHelper.addNumberFieldDouble("soft CFM",material.getSoftCFM());
+        cfmField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setSoftCFM(((Number)e.getNewValue()).doubleValue())));
+        PanelHelper.addLabelAndComponent(this,"Soft CFM",cfmField,gbc);
+        gbc.gridy++;
+
+        var contactsField = PanelHelper.addNumberFieldInt("max contacts",material.getMaxContacts());
+        contactsField.addPropertyChangeListener("value",e->Registry.changeScene(() -> material.setMaxContacts(((Number)e.getNewValue()).intValue())));
+        PanelHelper.addLabelAndComponent(this,"Max contacts",contactsField,gbc);
+        gbc.gridy++;
     }
 
     private void updatePreview() {
@@ -108,7 +148,7 @@ public class MaterialPanel extends JPanel {
         JPanel container = new JPanel(new BorderLayout());
 
         JSlider slider = new JSlider(0,128,material.getShininess());
-        slider.addChangeListener(e -> material.setShininess(slider.getValue()));
+        slider.addChangeListener(e -> Registry.changeScene(() -> material.setShininess(slider.getValue())));
 
         // Make the slider fill the available horizontal space
         slider.setMaximumSize(new Dimension(Integer.MAX_VALUE, slider.getPreferredSize().height));
@@ -125,7 +165,7 @@ public class MaterialPanel extends JPanel {
 
         var specularStrength = material.getSpecularStrength();
         JSlider slider = new JSlider(0,100,(int)(specularStrength*100));
-        slider.addChangeListener(e -> material.setSpecularStrength(slider.getValue()/100.0));
+        slider.addChangeListener(e -> Registry.changeScene(() -> material.setSpecularStrength(slider.getValue()/100.0)));
 
         // Make the slider fill the available horizontal space
         slider.setMaximumSize(new Dimension(Integer.MAX_VALUE, slider.getPreferredSize().height));
@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.nodeselector.NodeSelector;
 
 import javax.swing.*;
@@ -17,7 +18,7 @@ public class MotorPanel extends JPanel {
 
         NodeSelector<HingeJoint> selector = new NodeSelector<>(HingeJoint.class,motor.getHinge());
         selector.addPropertyChangeListener("subject", (evt) ->{
-            motor.setHinge(selector.getSubject());
+            Registry.changeScene(() -> motor.setHinge(selector.getSubject()));
         });
         PanelHelper.addLabelAndComponent(this, "Hinge", selector);
     }
@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.behavior;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -20,7 +21,7 @@ public class BehaviorTreeRunnerPanel extends JPanel {
             JToggleButton checkBox = new JToggleButton();
             checkBox.setSelected(behaviorTreeRunner.isRunning());
             checkBox.addActionListener((evt)->{
-                behaviorTreeRunner.setRunning(checkBox.isSelected());
+                Registry.changeScene(() -> behaviorTreeRunner.setRunning(checkBox.isSelected()));
                 setRunningText(checkBox);
             });
             behaviorTreeRunner.addActionListener(e-> {
@@ -35,8 +36,10 @@ public class BehaviorTreeRunnerPanel extends JPanel {
         {
             JButton button = new JButton("Reset");
             button.addActionListener((evt)->{
-                behaviorTreeRunner.setRunning(false);
-                behaviorTreeRunner.resetAll();
+                Registry.changeScene(() -> {
+                    behaviorTreeRunner.setRunning(false);
+                    behaviorTreeRunner.resetAll();
+                });
             });
             PanelHelper.addLabelAndComponent(this, "Reset", button);
         }
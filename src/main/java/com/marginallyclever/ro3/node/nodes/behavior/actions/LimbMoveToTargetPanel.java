@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.behavior.actions;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.nodeselector.NodeSelector;
 import com.marginallyclever.ro3.node.nodes.limbsolver.LimbSolver;
 import com.marginallyclever.ro3.node.nodes.pose.Pose;
@@ -21,7 +22,7 @@ public class LimbMoveToTargetPanel extends JPanel {
         {
             NodeSelector<Pose> selector = new NodeSelector<>(Pose.class, limbMoveToTarget.getTarget());
             selector.addPropertyChangeListener("subject", (evt) -> {
-                limbMoveToTarget.setTarget(selector.getSubject());
+                Registry.changeScene(() -> limbMoveToTarget.setTarget(selector.getSubject()));
             });
             PanelHelper.addLabelAndComponent(this, "Target", selector);
         }
@@ -30,7 +31,7 @@ public class LimbMoveToTargetPanel extends JPanel {
         {
             NodeSelector<LimbSolver> selector = new NodeSelector<>(LimbSolver.class, limbMoveToTarget.getSolver());
             selector.addPropertyChangeListener("subject", (evt) -> {
-                limbMoveToTarget.setSolver(selector.getSubject());
+                Registry.changeScene(() -> limbMoveToTarget.setSolver(selector.getSubject()));
             });
             PanelHelper.addLabelAndComponent(this, "LimbSolver", selector);
         }
@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.behavior.decorators;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -15,7 +16,7 @@ public class RepeatPanel extends JPanel {
 
         // count
         JSpinner count = new JSpinner(new SpinnerNumberModel(repeat.getCount(),0,1000,1));
-        count.addChangeListener(e -> repeat.setCount((Integer) count.getValue()));
+        count.addChangeListener(e -> Registry.changeScene(() -> repeat.setCount((Integer) count.getValue())));
         PanelHelper.addLabelAndComponent(this,"Count",count);
 
         // current
@@ -3,6 +3,7 @@ package com.marginallyclever.ro3.node.nodes.environment;
 import com.marginallyclever.convenience.swing.Dial;
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -55,7 +56,7 @@ public class EnvironmentPanel extends JPanel {
         var nfPos = NumberFormatHelper.getNumberFormatterDouble();
         nfPos.setMinimum(0);
         var esField = PanelHelper.addNumberField("sunlight strength",environment.getSunlightStrength(), nfPos);
-        esField.addPropertyChangeListener("value",e->environment.setSunlightStrength(((Number)e.getNewValue()).doubleValue()));
+        esField.addPropertyChangeListener("value",e->Registry.changeScene(() -> environment.setSunlightStrength(((Number)e.getNewValue()).doubleValue())));
         PanelHelper.addLabelAndComponent(container,"Sunlight strength",esField,gbc);
         gbc.gridy++;
 
@@ -89,7 +90,11 @@ public class EnvironmentPanel extends JPanel {
     }
 
     private void updateSunPosition() {
-        environment.setDeclination(declination.getValue());
-        environment.setTimeOfDay(timeOfDay.getValue()+90);
+        double d = declination.getValue();
+        double t = timeOfDay.getValue()+90;
+        Registry.changeScene(() -> {
+            environment.setDeclination(d);
+            environment.setTimeOfDay(t);
+        });
     }
 }
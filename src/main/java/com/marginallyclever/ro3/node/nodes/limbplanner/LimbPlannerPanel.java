@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes.limbplanner;
 
 import com.marginallyclever.convenience.helpers.StringHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,11 +55,11 @@ public class LimbPlannerPanel extends JPanel implements ActionListener {
         runButton.addActionListener(e -> {
             boolean isRunning = limbPlanner.isRunning();
             if (!isRunning) {
-                limbPlanner.startRun();
+                Registry.changeScene(() -> limbPlanner.startRun());
                 previousExecutionTimeLabel.setText(StringHelper.formatTime(limbPlanner.getPreviousExecutionTime()));
                 setRunButtonText();
             } else {
-                limbPlanner.stopRun();
+                Registry.changeScene(() -> limbPlanner.stopRun());
                 setRunButtonText();
             }
         });
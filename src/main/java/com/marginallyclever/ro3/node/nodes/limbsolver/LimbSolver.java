@@ -1,7 +1,6 @@
 package com.marginallyclever.ro3.node.nodes.limbsolver;
 
-import com.marginallyclever.convenience.approximatejacobian.ApproximateJacobian;
-import com.marginallyclever.convenience.approximatejacobian.ApproximateJacobianFiniteDifferences;
+import com.marginallyclever.convenience.approximatejacobian.ApproximateJacobianScrewTheory;
 import com.marginallyclever.convenience.helpers.MatrixHelper;
 import com.marginallyclever.ro3.node.Node;
 import com.marginallyclever.ro3.node.NodePath;
@@ -12,8 +11,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
+import javax.vecmath.Matrix4d;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -25,6 +26,8 @@ import java.util.Objects;
  */
 public class LimbSolver extends Node {
     private static final Logger logger = LoggerFactory.getLogger(LimbSolver.class);
+    // damped least squares lambda.  keeps joint velocities sane near a singularity.
+    private static final double DAMPING = 0.1;
 
     private final NodePath<Limb> limb = new NodePath<>(this,Limb.class);
     private final NodePath<Pose> target = new NodePath<>(this,Pose.class);
@@ -34,6 +37,11 @@ public class LimbSolver extends Node {
     private final double[] cartesianDistance = new double[6];  // 3 linear, 3 angular
     private final double[] cartesianVelocity = new double[cartesianDistance.length];
     private boolean isAtGoal = false;
+    // reused every update so that solving does not allocate.  replaced when the number of joints changes.
+    private ApproximateJacobianScrewTheory jacobian;
+    private double[] jointVelocity = new double[0];
+    private final Matrix4d endEffectorWorld = new Matrix4d();
+    private final Matrix4d targetWorld = new Matrix4d();
 
     public LimbSolver() {
         this("LimbSolver");
@@ -113,14 +121,13 @@ public class LimbSolver extends Node {
 
         if(Math.abs(linearVelocity) < 0.0001) {
             // no velocity.  Make sure the arm doesn't drift.
-            limb.setAllJointVelocities(new double[limb.getNumJoints()]);
+            limb.setAllJointVelocities(getJointVelocityBuffer(limb.getNumJoints()));
             return;
         }
         // find direction to move
-        MatrixHelper.getCartesianBetweenTwoMatrices(
-                Objects.requireNonNull(getEndEffector()).getWorld(),
-                getTarget().getSubject().getWorld(),
-                cartesianDistance);
+        Objects.requireNonNull(getEndEffector()).getWorld(endEffectorWorld);
+        getTarget().getSubject().getWorld(targetWorld);
+        MatrixHelper.getCartesianBetweenTwoMatrices(endEffectorWorld, targetWorld, cartesianDistance);
         // limit the velocity
         System.arraycopy(cartesianDistance,0,cartesianVelocity,0,cartesianDistance.length);
         scaleVectorToMagnitude(cartesianVelocity,linearVelocity);
@@ -138,24 +145,41 @@ public class LimbSolver extends Node {
         var myLimb = getLimb().getSubject();
         if(myLimb==null || myLimb.getNumJoints()==0) return;
 
-        ApproximateJacobian aj = getJacobian();
-        double[] jointVelocity = null;
+        ApproximateJacobianScrewTheory aj = getJacobian(myLimb);
+        double[] jointVelocity = getJointVelocityBuffer(myLimb.getNumJoints());
         try {
-            jointVelocity = aj.getJointFromCartesian(cartesianVelocity);  // uses inverse jacobian
+            aj.getJointFromCartesian(cartesianVelocity,jointVelocity);  // damped least squares
         } catch (Exception e) {
             logger.warn(e.getMessage());
             // set velocity to zero
-            jointVelocity = new double[myLimb.getNumJoints()];
+            Arrays.fill(jointVelocity,0);
         }
         if(impossibleVelocity(jointVelocity)) return;  // TODO throw exception instead?
         myLimb.setAllJointVelocities(jointVelocity);
     }
 
-    private ApproximateJacobian getJacobian() {
-        // option 1, use finite differences
-        return new ApproximateJacobianFiniteDifferences(limb.getSubject());
-        // option 2, use screw theory
-        //ApproximateJacobian aj = new ApproximateJacobianScrewTheory(getLimb());
+    /**
+     * The jacobian is found analytically from the world pose of each joint, so the limb is not moved to measure it.
+     * @param myLimb the limb to analyze
+     * @return the jacobian for the current pose of the limb.
+     */
+    private ApproximateJacobianScrewTheory getJacobian(Limb myLimb) {
+        if(jacobian==null || jacobian.getJacobian()[0].length!=myLimb.getNumJoints()) {
+            jacobian = new ApproximateJacobianScrewTheory(myLimb);
+            jacobian.setDamping(DAMPING);
+        } else {
+            jacobian.update(myLimb);
+        }
+        return jacobian;
+    }
+
+    /**
+     * @return a zeroed array with one value for every joint.
+     */
+    private double[] getJointVelocityBuffer(int numJoints) {
+        if(jointVelocity.length!=numJoints) jointVelocity = new double[numJoints];
+        else Arrays.fill(jointVelocity,0);
+        return jointVelocity;
     }
 
     /**
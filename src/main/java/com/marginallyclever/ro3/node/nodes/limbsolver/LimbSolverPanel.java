@@ -44,7 +44,7 @@ public class LimbSolverPanel extends JPanel {
         JFormattedTextField marginField = new JFormattedTextField(formatter);
         marginField.setValue(limbSolver.getGoalMarginOfError());
         marginField.addPropertyChangeListener("value", evt -> {
-            limbSolver.setGoalMarginOfError( ((Number) marginField.getValue()).doubleValue() );
+            Registry.changeScene(() -> limbSolver.setGoalMarginOfError( ((Number) marginField.getValue()).doubleValue() ));
         });
         marginField.setToolTipText("The distance between the target and the end effector that is considered 'close enough'.");
         PanelHelper.addLabelAndComponent(this, "Goal Margin", marginField, gbc);
@@ -64,12 +64,14 @@ public class LimbSolverPanel extends JPanel {
             }
             @Override
             public void actionPerformed(ActionEvent e) {
-                for(Node node : Registry.selection.getList()) {
-                    if(node instanceof Pose pose) {
-                        limbSolver.getTarget().getSubject().setWorld(pose.getWorld());
-                        break;
+                Registry.changeScene(() -> {
+                    for(Node node : Registry.selection.getList()) {
+                        if(node instanceof Pose pose) {
+                            limbSolver.getTarget().getSubject().setWorld(pose.getWorld());
+                            break;
+                        }
                     }
-                }
+                });
             }
         });
         PanelHelper.addLabelAndComponent(limbSolverPanel, "Target to First Selected", targetToFirstSelected,gbc);
@@ -85,7 +87,7 @@ public class LimbSolverPanel extends JPanel {
             }
             @Override
             public void actionPerformed(ActionEvent e) {
-                limbSolver.moveTargetToEndEffector();
+                Registry.changeScene(() -> limbSolver.moveTargetToEndEffector());
             }
         });
         PanelHelper.addLabelAndComponent(pane, "Target to EE", targetToEE,gbc);
@@ -95,7 +97,7 @@ public class LimbSolverPanel extends JPanel {
         JPanel container = new JPanel(new BorderLayout());
         // add a slider to control linear velocity
         JSlider slider = new JSlider(-20,20,(int)limbSolver.getLinearVelocity());
-        slider.addChangeListener(e-> limbSolver.setLinearVelocity( slider.getValue() ));
+        slider.addChangeListener(e-> Registry.changeScene(() -> limbSolver.setLinearVelocity( slider.getValue() )));
 
         // Make the slider fill the available horizontal space
         slider.setMaximumSize(new Dimension(Integer.MAX_VALUE, slider.getPreferredSize().height));
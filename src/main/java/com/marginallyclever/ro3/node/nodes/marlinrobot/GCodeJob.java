@@ -0,0 +1,348 @@
+package com.marginallyclever.ro3.node.nodes.marlinrobot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <p>{@link GCodeJob} streams a gcode file from disk, or a copy of some text, to a {@link MarlinRobot} with Marlin
+ * style "ok" flow control.  A reader thread fills a bounded queue of commands so the whole file is never in memory.
+ * The job sends a command only while fewer than {@link #getMaxInFlight()} commands are waiting for a reply, and every
+ * "Ok" or "Error" reply sends the next command right away.  A robot that holds back its reply until there is room in
+ * its planner, like {@link com.marginallyclever.ro3.node.nodes.marlinrobot.marlinrobotarm.MarlinRobotArm}, sets the
+ * pace of the job.</p>
+ * <p>The real time from sending each command to its reply is kept for the last {@link #LATENCY_WINDOW} replies.</p>
+ * <p>Comments and blank lines are not sent.  The robot should not be sent other commands while a job is running,
+ * or their replies will be counted against the job.</p>
+ * <p>Start a job with {@link MarlinRobot#runJob(GCodeJob)}.  Time is measured with the dt of
+ * {@link MarlinRobot#update(double)}, so a job can be simulated faster than real time.</p>
+ */
+public class GCodeJob implements MarlinListener {
+    private static final Logger logger = LoggerFactory.getLogger(GCodeJob.class);
+    public static final int DEFAULT_QUEUE_SIZE = 256;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    public static final int LATENCY_WINDOW = 1024;
+
+    /**
+     * One command, the number of bytes of the file up to the end of it, and the line of the file it came from,
+     * counting from zero.
+     */
+    private record Line(String gcode, long bytesThrough, long lineNumber) {}
+    private static final Line END = new Line(null,0,-1);
+
+    /**
+     * A command waiting for a reply and the {@link System#nanoTime()} it was sent.
+     */
+    private record Sent(Line line, long nanos) {}
+
+    /**
+     * Opens the gcode for the reader thread.
+     */
+    @FunctionalInterface
+    private interface Source {
+        BufferedReader open() throws IOException;
+    }
+
+    private final MarlinRobot robot;
+    private final Path path;
+    private final String name;
+    private final Source source;
+    private final long totalBytes;
+    private final BlockingQueue<Line> commands;
+    private final ArrayDeque<Sent> inFlight = new ArrayDeque<>();
+    private final int maxInFlight;
+    private Thread reader;
+    private volatile IOException readError;
+    // the newest replies, oldest overwritten first.
+    private final long [] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount = 0;
+
+    private boolean started = false;
+    private boolean endOfFile = false;
+    private boolean finished = false;
+    private boolean pumping = false;
+    private long lastLineDone = -1;
+    private long linesSent = 0;
+    private long linesDone = 0;
+    private long errors = 0;
+    private long bytesDone = 0;
+    private double elapsedSeconds = 0;
+    private long startNanos;
+    private long endNanos;
+
+    public GCodeJob(MarlinRobot robot, Path path) throws IOException {
+        this(robot,path,DEFAULT_QUEUE_SIZE,DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param robot the robot to run the job.
+     * @param path the gcode file.
+     * @param queueSize the most commands read ahead of the robot.
+     * @param maxInFlight the most commands sent without a reply.
+     * @throws IOException if the size of the file cannot be read.
+     */
+    public GCodeJob(MarlinRobot robot, Path path, int queueSize, int maxInFlight) throws IOException {
+        this(robot,path,path.getFileName().toString(),() -> Files.newBufferedReader(path,StandardCharsets.UTF_8),
+                Files.size(path),queueSize,maxInFlight);
+    }
+
+    /**
+     * Stream some gcode that is already in memory, such as a copy of the text in an editor.  Progress is measured in
+     * characters instead of bytes.
+     * @param robot the robot to run the job.
+     * @param name the name of the job, for the log.
+     * @param program the gcode, one command per line.
+     * @param queueSize the most commands read ahead of the robot.
+     * @param maxInFlight the most commands sent without a reply.
+     */
+    public GCodeJob(MarlinRobot robot, String name, String program, int queueSize, int maxInFlight) {
+        this(robot,null,name,() -> new BufferedReader(new StringReader(program)),program.length(),queueSize,maxInFlight);
+    }
+
+    private GCodeJob(MarlinRobot robot, Path path, String name, Source source, long totalBytes, int queueSize, int maxInFlight) {
+        if(queueSize<1) throw new IllegalArgumentException("queueSize must be at least one.");
+        if(maxInFlight<1) throw new IllegalArgumentException("maxInFlight must be at least one.");
+        this.robot = robot;
+        this.path = path;
+        this.name = name;
+        this.source = source;
+        this.totalBytes = totalBytes;
+        this.commands = new ArrayBlockingQueue<>(queueSize);
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Start reading the file and listening to the robot.  Called by {@link MarlinRobot#runJob(GCodeJob)}.
+     */
+    synchronized void start() {
+        if(started) throw new IllegalStateException("job already started.");
+        started = true;
+        startNanos = System.nanoTime();
+        robot.addMarlinListener(this);
+        reader = new Thread(this::readFile,"GCodeJob "+name);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void readFile() {
+        long bytes = 0;
+        long lineNumber = -1;
+        try(BufferedReader in = source.open()) {
+            String line;
+            while((line = in.readLine())!=null) {
+                bytes += line.length()+1;
+                lineNumber++;
+                int comment = line.indexOf(';');
+                if(comment>=0) line = line.substring(0,comment);
+                line = line.trim();
+                if(line.isEmpty()) continue;
+                commands.put(new Line(line,bytes,lineNumber));
+            }
+        } catch(IOException e) {
+            logger.error("Failed to read {}",name,e);
+            readError = e;
+        } catch(InterruptedException e) {
+            return;
+        }
+        try {
+            commands.put(END);
+        } catch(InterruptedException ignored) {}
+    }
+
+    /**
+     * Called by {@link MarlinRobot#update(double)}.
+     * @param dt the time since the last update.
+     */
+    synchronized void update(double dt) {
+        if(finished) return;
+        elapsedSeconds += dt;
+        pump();
+    }
+
+    /**
+     * Send commands until enough are waiting for a reply or there are none ready.
+     */
+    synchronized void pump() {
+        // a robot may reply from inside sendGCode.  this loop sends the next command, so don't start another.
+        if(pumping) return;
+        pumping = true;
+        try {
+            while(!finished && !endOfFile && inFlight.size()<maxInFlight) {
+                Line line = commands.poll();
+                if(line==null) return;
+                if(line==END) {
+                    endOfFile = true;
+                    checkFinished();
+                    return;
+                }
+                inFlight.add(new Sent(line,System.nanoTime()));
+                linesSent++;
+                robot.sendGCode(line.gcode());
+            }
+        } finally {
+            pumping = false;
+        }
+    }
+
+    @Override
+    public synchronized void messageFromMarlin(String message) {
+        boolean ok = message.regionMatches(true,0,"ok",0,2);
+        boolean error = message.regionMatches(true,0,"error",0,5);
+        if(!ok && !error) return;
+        Sent sent = inFlight.poll();
+        if(sent==null) return;
+        Line line = sent.line();
+        latencies[(int)(linesDone % LATENCY_WINDOW)] = System.nanoTime()-sent.nanos();
+        latencyCount = (int)Math.min(LATENCY_WINDOW,linesDone+1);
+        linesDone++;
+        bytesDone = line.bytesThrough();
+        lastLineDone = line.lineNumber();
+        if(error) {
+            errors++;
+            logger.warn("{} line {}: {}",name,line.gcode(),message);
+        }
+        checkFinished();
+        pump();
+    }
+
+    private void checkFinished() {
+        if(!endOfFile || !inFlight.isEmpty() || finished) return;
+        finished = true;
+        bytesDone = totalBytes;
+        endNanos = System.nanoTime();
+        robot.removeMarlinListener(this);
+        double wallSeconds = (endNanos-startNanos)*1e-9;
+        logger.info("{} done.  {} lines, {} errors, {}s simulated, {}s real, {} lines/s real, latency p50 {}ms p99 {}ms.",
+                name,linesDone,errors,elapsedSeconds,wallSeconds,linesDone/Math.max(wallSeconds,1e-9),
+                getLatencyPercentile(50)*1000,getLatencyPercentile(99)*1000);
+    }
+
+    /**
+     * Stop reading and sending.  Called by {@link MarlinRobot#cancelJob()}.
+     */
+    synchronized void cancel() {
+        if(reader!=null) reader.interrupt();
+        if(!finished) {
+            finished = true;
+            endNanos = System.nanoTime();
+            robot.removeMarlinListener(this);
+        }
+    }
+
+    /**
+     * @return the gcode file, or null if the job was made from text.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return the error that stopped the file from being read, or null.
+     */
+    public IOException getReadError() {
+        return readError;
+    }
+
+    public synchronized long getLinesSent() {
+        return linesSent;
+    }
+
+    /**
+     * @return the number of commands that got a reply.
+     */
+    public synchronized long getLinesDone() {
+        return linesDone;
+    }
+
+    /**
+     * @return the line of the source of the newest command that got a reply, counting from zero, or -1 if none.
+     */
+    public synchronized long getLastLineDone() {
+        return lastLineDone;
+    }
+
+    /**
+     * @return the number of commands whose reply was an error.
+     */
+    public synchronized long getErrorCount() {
+        return errors;
+    }
+
+    /**
+     * @return the part of the file that got a reply, from 0 to 1.
+     */
+    public synchronized double getProgress() {
+        return totalBytes==0 ? (finished?1:0) : Math.min(1.0,(double)bytesDone/totalBytes);
+    }
+
+    /**
+     * @return the time the job has run, in the time of the robot.
+     */
+    public synchronized double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    /**
+     * @return the commands done per second of robot time.
+     */
+    public synchronized double getLinesPerSecond() {
+        return elapsedSeconds>0 ? linesDone/elapsedSeconds : 0;
+    }
+
+    /**
+     * @return the commands done per second of real time.
+     */
+    public synchronized double getLinesPerSecondReal() {
+        if(!started) return 0;
+        long end = finished ? endNanos : System.nanoTime();
+        double seconds = (end-startNanos)*1e-9;
+        return seconds>0 ? linesDone/seconds : 0;
+    }
+
+    /**
+     * @param percentile from 0 to 100.
+     * @return the real time from sending a command to its reply, in seconds, that this percent of the last
+     * {@link #LATENCY_WINDOW} replies were faster than or equal to.  {@link Double#NaN} if there are no replies.
+     */
+    public synchronized double getLatencyPercentile(double percentile) {
+        if(percentile<0 || percentile>100) throw new IllegalArgumentException("percentile must be from 0 to 100.");
+        if(latencyCount==0) return Double.NaN;
+        long [] sorted = Arrays.copyOf(latencies,latencyCount);
+        Arrays.sort(sorted);
+        int index = (int)Math.ceil(percentile/100.0*latencyCount)-1;
+        return sorted[Math.max(0,index)]*1e-9;
+    }
+
+    /**
+     * Estimate the time left from the part of the file done so far.
+     * @return the robot time until the job is done, or {@link Double#NaN} if nothing is done yet.
+     */
+    public synchronized double getEstimatedTimeRemaining() {
+        if(finished) return 0;
+        double progress = getProgress();
+        if(progress<=0) return Double.NaN;
+        return elapsedSeconds * (1-progress) / progress;
+    }
+}
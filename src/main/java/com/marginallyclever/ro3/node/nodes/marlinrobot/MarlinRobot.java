@@ -18,6 +18,7 @@ public class MarlinRobot extends Node implements SessionLayerListener {
     private final Logger logger = LoggerFactory.getLogger(MarlinRobot.class);
     private NetworkSession networkSession = null;
     private boolean isConnected=false;
+    private GCodeJob job = null;
 
     public MarlinRobot() {
         this("Marlin Robot");
@@ -46,6 +47,7 @@ public class MarlinRobot extends Node implements SessionLayerListener {
     @Override
     protected void onDetach() {
         super.onDetach();
+        cancelJob();
         if(networkSession!=null) {
             networkSession.closeConnection();
         }
@@ -111,6 +113,46 @@ public class MarlinRobot extends Node implements SessionLayerListener {
         }
     }
 
+    @Override
+    public void update(double dt) {
+        super.update(dt);
+        if(job!=null) job.update(dt);
+    }
+
+    /**
+     * Start streaming a job to this robot.  Any job already running is cancelled.
+     * @param job the job to run.
+     */
+    public void runJob(GCodeJob job) {
+        cancelJob();
+        this.job = job;
+        job.start();
+    }
+
+    /**
+     * Stop the current job, if any.  Commands already sent are not recalled.
+     */
+    public void cancelJob() {
+        if(job==null) return;
+        job.cancel();
+        job = null;
+    }
+
+    /**
+     * @return the current job, which may be finished, or null.
+     */
+    public GCodeJob getJob() {
+        return job;
+    }
+
+    /**
+     * Give the current job a chance to send more commands.  Subclasses that finish work between calls to
+     * {@link #update(double)} should call this to keep their command buffer full.
+     */
+    protected void pumpJob() {
+        if(job!=null) job.pump();
+    }
+
     @Override
     public Icon getIcon() {
         return new ImageIcon(Objects.requireNonNull(getClass().getResource("/com/marginallyclever/ro3/node/nodes/marlinrobot/marlin.png")));
@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.marlinrobot;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -31,13 +32,13 @@ public class MarlinRobotPanel extends JPanel {
 
         gbc.gridy++;
         JButton M114 = new JButton("M114");
-        M114.addActionListener(e-> marlinRobot.sendGCode("M114"));
+        M114.addActionListener(e-> send("M114"));
         PanelHelper.addLabelAndComponent(this, "Get state", M114,gbc);
         M114.setToolTipText("Get the current position of the robot arm.");
 
         gbc.gridy++;
         JButton G28 = new JButton("G28");
-        G28.addActionListener(e-> marlinRobot.sendGCode("G28"));
+        G28.addActionListener(e-> send("G28"));
         PanelHelper.addLabelAndComponent(this, "Home", G28, gbc);
         G28.setToolTipText("Move all motors to their home position.");
 
@@ -52,18 +53,23 @@ public class MarlinRobotPanel extends JPanel {
     private JPanel getSender() {
         JPanel inputPanel = new JPanel(new BorderLayout());
         JTextField input = new JTextField();
-        input.addActionListener(e-> marlinRobot.sendGCode(input.getText()) );
+        input.addActionListener(e-> send(input.getText()) );
         inputPanel.add(input,BorderLayout.CENTER);
         // Add a button to send the text field to the robot arm.
         JButton sendButton = new JButton("Send");
         sendButton.addActionListener(e-> {
-            marlinRobot.sendGCode(input.getText());
+            send(input.getText());
         } );
 
         inputPanel.add(sendButton,BorderLayout.LINE_END);
         return inputPanel;
     }
 
+    // the robot moves when it hears a command, so wait for the simulation.
+    private void send(String gcode) {
+        Registry.changeScene(() -> marlinRobot.sendGCode(gcode));
+    }
+
     // Add a text field to receive messages from the arm.
     private JPanel getReceiver() {
         JPanel outputPanel = new JPanel(new BorderLayout());
@@ -22,8 +22,10 @@ import org.slf4j.LoggerFactory;
 import javax.swing.*;
 import javax.vecmath.Matrix4d;
 import javax.vecmath.Vector3d;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * <p>{@link MarlinRobotArm} converts the state of a robot arm into GCode and back.</p>
@@ -33,15 +35,27 @@ import java.util.List;
  *     <li>a {@link LimbSolver} to calculate the inverse kinematics;</li>
  *     <li>an optional {@link Motor} for the tool on arm.</li>
  * </ul>
+ * <p>Like Marlin, a G0 move that does not fit in the planner waits in a short command buffer, and so does every
+ * command after it.  The reply to a command is only sent when the command has been run, so a sender that waits for
+ * each "Ok" never gets too far ahead of the robot.  See {@link com.marginallyclever.ro3.node.nodes.marlinrobot.GCodeJob}.</p>
  */
 public class MarlinRobotArm extends MarlinRobot {
     private static final Logger logger = LoggerFactory.getLogger(MarlinRobotArm.class);
+    /**
+     * The number of commands that can wait for room in the planner.  Same as Marlin's BUFSIZE.
+     */
+    public static final int COMMAND_BUFFER_SIZE = 4;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
     public final NodePath<Limb> limb = new NodePath<>(this,Limb.class);
     public final NodePath<LimbSolver> solver = new NodePath<>(this,LimbSolver.class);
     private final NodePath<Motor> gripperMotor = new NodePath<>(this,Motor.class);
     private final MarlinSettings settings = new MarlinSettings();
     private MarlinSimulation simulation;
     private MarlinSimulationBlock currentBlock = null;
+    private final MarlinCoordinate motorPosition = new MarlinCoordinate();
+    private final ArrayDeque<String> waitingCommands = new ArrayDeque<>();
+    // the reply to the last G0, sent when all of the move is in the planner.
+    private String pendingReply = null;
     private double feedrate;
     private double acceleration;
 
@@ -159,7 +173,7 @@ public class MarlinRobotArm extends MarlinRobot {
               .append(StringHelper.formatDouble(gripperMotor.getHinge().getAngle()));
         }
 
-        if(getSolver()!=null) {
+        if(getSolver().getSubject()!=null) {
             // feedrate
             sb.append(" F")
               .append(StringHelper.formatDouble(getSolver().getSubject().getLinearVelocity()));
@@ -177,20 +191,61 @@ public class MarlinRobotArm extends MarlinRobot {
     public void sendGCode(String gcode) {
         logger.debug("heard "+gcode);
 
+        if(pendingReply!=null || !waitingCommands.isEmpty() || !execute(gcode)) {
+            if(waitingCommands.size()>=COMMAND_BUFFER_SIZE) {
+                fireMarlinMessage("Error: busy");
+                return;
+            }
+            waitingCommands.add(gcode);
+        }
+    }
+
+    /**
+     * Run one command.
+     * @param gcode GCode command
+     * @return false if the command has to wait for room in the planner.
+     */
+    private boolean execute(String gcode) {
         if(gcode.startsWith("G0")) {  // fast non-linear move (FK)
-            fireMarlinMessage( parseG0(gcode) );
-            return;
+            if(!simulation.canBufferLine()) return false;
+            String reply = parseG0(gcode);
+            if(simulation.canBufferLine()) fireMarlinMessage(reply);
+            else pendingReply = reply;
         } else if(gcode.startsWith("G1")) {
             fireMarlinMessage( parseG1(gcode) );
-            return;
         } else if(gcode.equals("G28")) {
             fireMarlinMessage( parseG28(gcode) );
         } else if(gcode.equals("M114")) {
             String response = getM114();
             fireMarlinMessage( "Ok: "+response );
-            return;
+        } else {
+            super.sendGCode(gcode);
         }
-        super.sendGCode(gcode);
+        return true;
+    }
+
+    /**
+     * Run the commands that were waiting for room in the planner, in order.
+     */
+    private void runWaitingCommands() {
+        if(pendingReply!=null) {
+            if(!simulation.canBufferLine()) return;
+            String reply = pendingReply;
+            pendingReply = null;
+            fireMarlinMessage(reply);
+        }
+        while(pendingReply==null && !waitingCommands.isEmpty()) {
+            // peek so that commands sent by listeners during execute() go in line behind this one.
+            if(!execute(waitingCommands.peek())) return;
+            waitingCommands.poll();
+        }
+    }
+
+    /**
+     * @return the number of commands waiting for room in the planner.
+     */
+    public int getWaitingCommandCount() {
+        return waitingCommands.size() + (pendingReply!=null ? 1 : 0);
     }
 
     /**
@@ -204,7 +259,7 @@ public class MarlinRobotArm extends MarlinRobot {
             logger.warn("no limb");
             return "Error: no limb";
         }
-        String [] parts = gcode.split("\\s+");
+        String [] parts = WHITESPACE.split(gcode);
         try {
             var destination = new MarlinCoordinate();
 
@@ -239,9 +294,15 @@ public class MarlinRobotArm extends MarlinRobot {
                 if(i>=MarlinCoordinate.SIZE) throw new RuntimeException("too many motors for MarlinSimulation!");
             }
             // else ignore unused parts
+            if(simulation.isEmpty() && currentBlock==null) {
+                // the robot is still.  start planning from where the motors are now.
+                simulation.setPosition(getMotorPosition());
+            }
             var mySolver = getSolver().getSubject();
             var myFeedrate = mySolver==null ? this.feedrate : mySolver.getLinearVelocity();
-            simulation.bufferLine(destination,myFeedrate,acceleration);
+            if(!simulation.bufferLine(destination,myFeedrate,acceleration)) {
+                return "Error: busy";
+            }
         } catch( NumberFormatException e ) {
             logger.error("Number format exception: "+e.getMessage());
             return "Error: "+e.getMessage();
@@ -254,57 +315,88 @@ public class MarlinRobotArm extends MarlinRobot {
     public void update(double dt) {
         super.update(dt);
 
-        // Simulate Marlin behavior.
-        if(currentBlock==null) {
-            currentBlock = findBlock();
-            if(currentBlock!=null) {
+        // Simulate Marlin behavior.  Use all of dt, even if that finishes more than one block.
+        boolean moved = false;
+        while(dt>0) {
+            if(currentBlock==null) {
+                currentBlock = findBlock();
+                if(currentBlock==null) break;
                 logger.debug("starting block " + currentBlock.id);
                 currentBlock.busy = true;
             }
-        }
-        if(currentBlock==null) return;
-
-        // advance time in the block
-        currentBlock.now_s += dt;
-        double extra = currentBlock.now_s - currentBlock.end_s;
-        if (currentBlock.now_s >= currentBlock.end_s) {
-            // no overflow!
-            currentBlock.now_s = currentBlock.end_s;
+
+            // a block with no end time would never finish.  treat it as done.
+            boolean hasEnd = Double.isFinite(currentBlock.end_s);
+            if(!hasEnd) logger.warn("block {} has no end time.  skipping it.",currentBlock.id);
+
+            // advance time in the block
+            double used = hasEnd ? Math.min(dt, currentBlock.end_s - currentBlock.now_s) : 0;
+            if(used>0) {
+                currentBlock.now_s += used;
+                dt -= used;
+            }
+
+            // Drive motors using trapezoidal velocity profiles.
+            double fraction = hasEnd && currentBlock.end_s > 0 ? currentBlock.now_s / currentBlock.end_s : 1;
+            for(int i=0;i<MarlinCoordinate.SIZE;++i) {
+                motorPosition.p[i] = currentBlock.start.p[i] + currentBlock.delta.p[i] * fraction;
+            }
+            moved = true;
+
+            // is block done?
+            if (!hasEnd || currentBlock.now_s >= currentBlock.end_s) {
+                logger.debug("ending block " + currentBlock.id);
+                currentBlock.busy = false;
+                currentBlock = null;
+                simulation.popHead();
+                // room in the planner for more commands.
+                runWaitingCommands();
+                pumpJob();
+            } else if(!(used>0)) {
+                // no time passed and the block is not done.  trying again would never end.
+                break;
+            }
         }
 
-        // Drive motors using trapezoidal velocity profiles.
-        // update motors according to currentBlock
-        logger.debug("working block " + currentBlock.id);
-        int i=0;
-        for(NodePath<Motor> paths : getLimb().getSubject().getMotors()) {
-            Motor motor = paths.getSubject();
-            double fraction = currentBlock.now_s / currentBlock.end_s;
-            if(motor!=null && motor.hasHinge()) {
-                HingeJoint hinge = motor.getHinge();
-                hinge.setAngle(currentBlock.start.p[i] + currentBlock.delta.p[i] * fraction);
+        Limb myLimb = getLimb().getSubject();
+        if(moved && myLimb!=null) {
+            // update motors according to the last block
+            int i=0;
+            for(NodePath<Motor> paths : myLimb.getMotors()) {
+                Motor motor = paths.getSubject();
+                if(motor!=null && motor.hasHinge()) {
+                    motor.getHinge().setAngle(motorPosition.p[i]);
+                }
+                ++i;
             }
-            ++i;
         }
 
-        // is block done?
-        if (currentBlock.now_s >= currentBlock.end_s) {
-            logger.debug("ending block " + currentBlock.id);
-            currentBlock.busy = false;
-            simulation.getQueue().remove(currentBlock);
+        runWaitingCommands();
+    }
 
-            currentBlock = findBlock();
-            if(currentBlock!=null) {
-                logger.debug("starting block " + currentBlock.id);
-                currentBlock.busy = true;
-                currentBlock.now_s = extra;
+    /**
+     * @return the angle of every motor in the same order as a G0 command.
+     */
+    private MarlinCoordinate getMotorPosition() {
+        var position = new MarlinCoordinate();
+        int i=0;
+        for (NodePath<Motor> paths : getLimb().getSubject().getMotors()) {
+            Motor motor = paths.getSubject();
+            if (motor != null && motor.hasHinge()) {
+                position.p[i] = motor.getHinge().getAngle();
             }
+            i++;
+            if(i>=MarlinCoordinate.SIZE) break;
         }
-
-        // Queue up gcode commands and send "Ok" at the appropriate time.
+        Motor gripperMotor = this.gripperMotor.getSubject();
+        if (gripperMotor != null && gripperMotor.hasHinge() && i<MarlinCoordinate.SIZE) {
+            position.p[i] = gripperMotor.getHinge().getAngle();
+        }
+        return position;
     }
 
     private MarlinSimulationBlock findBlock() {
-        return (simulation.getQueue().isEmpty()) ? null : simulation.getQueue().peek();
+        return simulation.peek();
     }
 
     /**
@@ -337,7 +429,7 @@ public class MarlinRobotArm extends MarlinRobot {
             return "Error: no target";
         }
 
-        String [] parts = gcode.split("\\s+");
+        String [] parts = WHITESPACE.split(gcode);
         double [] jointAnglesOriginal = myLimb.getAllJointAngles();
         double [] jointAngles = jointAnglesOriginal.clone();
 
@@ -448,6 +540,8 @@ public class MarlinRobotArm extends MarlinRobot {
     public void reset() {
         simulation = new MarlinSimulation(settings);
         currentBlock = null;
+        waitingCommands.clear();
+        pendingReply = null;
         feedrate = settings.getDouble(MarlinSettings.MAX_FEEDRATE);
         acceleration = settings.getDouble(MarlinSettings.MAX_ACCELERATION);
     }
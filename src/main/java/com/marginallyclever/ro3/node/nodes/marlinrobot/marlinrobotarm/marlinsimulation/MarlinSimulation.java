@@ -3,15 +3,16 @@ package com.marginallyclever.ro3.node.nodes.marlinrobot.marlinrobotarm.marlinsim
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-
 /**
  * <p>{@link MarlinSimulation} is meant to be a 1:1 Java replica of Marlin's 'Planner' and 'Motor' classes.
  * It is used to estimate the time to draw a set of gcode commands by a robot running Marlin 3D printer firmware.</p>
- * <p>Users should call {@link #bufferLine(MarlinCoordinate, double, double)}, which will add to the {@link #queue}.  The queue
- * must not exceed <code>MarlinSettings#getInteger(MarlinSettings.BLOCK_BUFFER_SIZE)</code> items in length.  Consuming
- * items from the head of the queue</p>
+ * <p>Users should call {@link #bufferLine(MarlinCoordinate, double, double)}, which splits the line into segments and
+ * adds them to the queue.  Like Marlin the queue is a ring of
+ * <code>MarlinSettings#getInteger(MarlinSettings.BLOCK_BUFFER_SIZE)</code> blocks that are made once and reused, so
+ * planning does not make garbage.  When the queue is full the rest of the line waits until {@link #popHead()} makes
+ * room.  Until then {@link #canBufferLine()} is false.</p>
+ * <p>Junction speeds are planned incrementally the same way as Marlin.  Blocks before the last optimally planned block
+ * can no longer change, so the reverse and forward passes only visit the blocks after it.</p>
  */
 public class MarlinSimulation {
 	enum JerkType {
@@ -23,7 +24,12 @@ public class MarlinSimulation {
 
 	private static final Logger logger = LoggerFactory.getLogger(MarlinSimulation.class);
 	private final MarlinCoordinate poseNow = new MarlinCoordinate();
-	private final LinkedList<MarlinSimulationBlock> queue = new LinkedList<>();
+	// the ring of blocks.  the oldest block is at head.
+	private final MarlinSimulationBlock [] queue;
+	private int head = 0;
+	private int count = 0;
+	// the number of blocks from the head that are optimally planned and will not change.
+	private int planned = 0;
 	private final MarlinCoordinate previousSpeed = new MarlinCoordinate();
 	private double previousSafeSpeed = 0;
 	private final MarlinSettings settings;
@@ -31,45 +37,142 @@ public class MarlinSimulation {
 	private final MarlinCoordinate previousNormal = new MarlinCoordinate();	// Unit vector of previous path line segment
 	private double previousNominalSpeed = 0;
 	private final MarlinCoordinate maxJerk = new MarlinCoordinate();
+
+	// the line being split into segments.
+	private final MarlinCoordinate lineEnd = new MarlinCoordinate();
+	private final MarlinCoordinate segmentEnd = new MarlinCoordinate();
+	private final MarlinCoordinate segmentDelta = new MarlinCoordinate();
+	private int segmentsLeft = 0;
+	private double lineFeedrate;
+	private double lineAcceleration;
+
+	// scratch space for planning.
+	private final MarlinCoordinate currentSpeed = new MarlinCoordinate();
+	private final MarlinCoordinate junctionUnitVec = new MarlinCoordinate();
 	
 	public MarlinSimulation(MarlinSettings settings) {
 		this.settings = settings;
+		queue = new MarlinSimulationBlock[Math.max(2,settings.getInteger(MarlinSettings.BLOCK_BUFFER_SIZE))];
+		for(int i=0;i<queue.length;++i) {
+			queue[i] = new MarlinSimulationBlock();
+		}
 	}
 	
 	/**
-	 * Add this destination to the queue and attempt to optimize travel between destinations. 
+	 * Add this destination to the queue and attempt to optimize travel between destinations.  Segments that do not
+	 * fit in the queue are added as {@link #popHead()} makes room.
 	 * @param destination destination (mm)
 	 * @param feedrate (mm/s)
 	 * @param acceleration (mm/s/s)
+	 * @return false if the previous line is still waiting for room in the queue.  Nothing is added.
 	 */
-	public void bufferLine(final MarlinCoordinate destination, double feedrate, double acceleration) {
-		var delta = new MarlinCoordinate();
-		delta.sub(destination,poseNow);
+	public boolean bufferLine(final MarlinCoordinate destination, double feedrate, double acceleration) {
+		if(!canBufferLine()) return false;
+
+		lineEnd.set(destination);
+		segmentEnd.set(poseNow);
+		segmentDelta.sub(destination,poseNow);
 
-		acceleration = Math.min(settings.getDouble(MarlinSettings.MAX_ACCELERATION), acceleration);
+		lineAcceleration = Math.min(settings.getDouble(MarlinSettings.MAX_ACCELERATION), acceleration);
+		lineFeedrate = feedrate;
 		
-		double len = delta.length();		
+		double len = segmentDelta.length();
 		double seconds = len / feedrate;
 		int segments = (int)Math.ceil(seconds * settings.getInteger(MarlinSettings.SEGMENTS_PER_SECOND));
 		int maxSeg = (int)Math.ceil(len / settings.getDouble(MarlinSettings.MIN_SEGMENT_LENGTH));
 		segments = Math.max(1,Math.min(maxSeg,segments));
-		var deltaSegment = new MarlinCoordinate(delta);
-		deltaSegment.scale(1.0/segments);
-		
-		var temp = new MarlinCoordinate(poseNow);
-		while(--segments>0) {
-			temp.add(deltaSegment);
-			bufferSegment(temp,feedrate,acceleration,deltaSegment);
+		segmentDelta.scale(1.0/segments);
+		segmentsLeft = segments;
+
+		fillQueue();
+		return true;
+	}
+
+	/**
+	 * Tell the planner where the motors are, like Marlin's <code>planner.set_position</code>.  The next line will
+	 * start here.
+	 * @param position the position of every motor.
+	 * @throws IllegalStateException if the last line is still being added to the queue.
+	 */
+	public void setPosition(final MarlinCoordinate position) {
+		if(!canBufferLine()) throw new IllegalStateException("Can't set position while a line is being planned.");
+		poseNow.set(position);
+		segmentEnd.set(position);
+		previousSpeed.scale(0);
+		previousNominalSpeed = 0;
+		previousSafeSpeed = 0;
+	}
+
+	/**
+	 * @return true if the last line has been completely added to the queue.
+	 */
+	public boolean canBufferLine() {
+		return segmentsLeft==0;
+	}
+
+	/**
+	 * Add segments of the current line until the line is done or the queue is full.
+	 */
+	private void fillQueue() {
+		while(segmentsLeft>0 && !isFull()) {
+			if(--segmentsLeft>0) {
+				segmentEnd.add(segmentDelta);
+				bufferSegment(segmentEnd,lineFeedrate,lineAcceleration,segmentDelta);
+			} else {
+				segmentEnd.set(lineEnd);
+				bufferSegment(lineEnd,lineFeedrate,lineAcceleration,segmentDelta);
+			}
 		}
-		bufferSegment(destination,feedrate,acceleration,deltaSegment);
 	}
 
 	/**
-	 * return the queue of blocks.
-	 * @return the queue of blocks.
+	 * @return the oldest block in the queue, or null if the queue is empty.  The block belongs to the queue and will
+	 * be reused after {@link #popHead()}.
 	 */
-	public LinkedList<MarlinSimulationBlock> getQueue() {
-		return queue;
+	public MarlinSimulationBlock peek() {
+		return count==0 ? null : queue[head];
+	}
+
+	/**
+	 * Remove the oldest block from the queue, as if the robot had finished it.  If a line is waiting for room then
+	 * more of it is added.
+	 */
+	public void popHead() {
+		if(count==0) return;
+		queue[head].busy = false;
+		head = (head+1) % queue.length;
+		count--;
+		if(planned>0) planned--;
+		fillQueue();
+	}
+
+	/**
+	 * @param index 0 for the oldest block.
+	 * @return the block at index in the queue.
+	 */
+	public MarlinSimulationBlock getBlock(int index) {
+		if(index<0 || index>=count) throw new IndexOutOfBoundsException(index);
+		return block(index);
+	}
+
+	private MarlinSimulationBlock block(int index) {
+		return queue[(head+index) % queue.length];
+	}
+
+	public int getQueueSize() {
+		return count;
+	}
+
+	public int getCapacity() {
+		return queue.length;
+	}
+
+	public boolean isEmpty() {
+		return count==0;
+	}
+
+	public boolean isFull() {
+		return count==queue.length;
 	}
 
 	/**
@@ -80,7 +183,9 @@ public class MarlinSimulation {
 	 * @param cartesianDelta move (mm)
 	 */
 	private void bufferSegment(final MarlinCoordinate to, final double feedrate, final double acceleration,final MarlinCoordinate cartesianDelta) {
-		MarlinSimulationBlock block = new MarlinSimulationBlock(to,cartesianDelta);
+		// the next free block.  it only joins the queue at the end of this method.
+		MarlinSimulationBlock block = block(count);
+		block.set(to,cartesianDelta);
 		block.feedrate = feedrate;
 
 		// zero distance?  do nothing.
@@ -89,11 +194,11 @@ public class MarlinSimulation {
 		double inverse_secs = feedrate / block.distance;
 		
 		// slow down if the buffer is nearly empty.
-		if( queue.size() >= 2 && queue.size() <= (settings.getInteger(MarlinSettings.BLOCK_BUFFER_SIZE)/2)-1 ) {
+		if( count >= 2 && count <= (queue.length/2)-1 ) {
 			long segment_time_us = Math.round(1000000.0f / inverse_secs);
 			long timeDiff = settings.getInteger(MarlinSettings.MIN_SEG_TIME) - segment_time_us;
 			if( timeDiff>0 ) {
-				double nst = segment_time_us + Math.round(2.0 * timeDiff / queue.size());
+				double nst = segment_time_us + Math.round(2.0 * timeDiff / count);
 				inverse_secs = 1000000.0 / nst;
 			}
 		}
@@ -101,7 +206,7 @@ public class MarlinSimulation {
 		block.nominalSpeed = block.distance * inverse_secs;
 		
 		// find if speed exceeds any joint max speed.
-		MarlinCoordinate currentSpeed = new MarlinCoordinate(block.delta);
+		currentSpeed.set(block.delta);
 		currentSpeed.scale(inverse_secs);
 		double speedFactor=1.0;
 		double cs;
@@ -135,9 +240,9 @@ public class MarlinSimulation {
 		block.recalculate = true;
 		
 		previousNominalSpeed = block.nominalSpeed;
-		currentSpeed.set(previousSpeed);
+		previousSpeed.set(currentSpeed);
 		
-		queue.add(block);
+		count++;
 		poseNow.set(to);
 		
 		recalculateAcceleration();
@@ -155,7 +260,7 @@ public class MarlinSimulation {
 	private double junctionDeviationJerk(MarlinSimulationBlock next,double nominalSpeed) {
 		double vmax_junction = nominalSpeed;
 		// Skip first block or when previousNominalSpeed is used as a flag for homing and offset cycles.
-		if (!queue.isEmpty() && previousNominalSpeed > 1e-6) {
+		if (count>0 && previousNominalSpeed > 1e-6) {
 			// Compute cosine of angle between previous and current path. (prev_unit_vec is negative)
 			// NOTE: Max junction velocity is computed without sin() or acos() by trig half angle identity.
 			double junction_cos_theta = -previousNormal.dot(next.normal);
@@ -169,7 +274,7 @@ public class MarlinSimulation {
 				junction_cos_theta = Math.max(junction_cos_theta, -0.999999f); 
 
 				// Convert delta vector to unit vector
-				var junction_unit_vec = new MarlinCoordinate();
+				var junction_unit_vec = junctionUnitVec;
 				junction_unit_vec.sub(next.normal, previousNormal);
 				junction_unit_vec.normalize();
 				if (junction_unit_vec.length() > 0) {
@@ -239,9 +344,9 @@ public class MarlinSimulation {
 		
 		double vmax_junction;
 		
-		if(!queue.isEmpty()) {
+		if(count>0) {
 			// look at difference between this move and previous move
-			MarlinSimulationBlock prev = queue.getLast();
+			MarlinSimulationBlock prev = block(count-1);
 			if(prev.nominalSpeed > 1e-6) {				
 				vmax_junction = Math.min(next.nominalSpeed,prev.nominalSpeed);
 				limited=false;
@@ -287,12 +392,15 @@ public class MarlinSimulation {
 		recalculateTrapezoids();
 	}
 	
+	/**
+	 * Walk from the newest block back to the last optimally planned block, lowering entry speeds so that every block
+	 * can slow down in time for the next.  The block being run by the robot is never changed.
+	 */
 	private void recalculateBackwards() {
-		MarlinSimulationBlock current;
+		int first = Math.max(planned, (count>0 && block(0).busy) ? 1 : 0);
 		MarlinSimulationBlock next = null;
-		Iterator<MarlinSimulationBlock> ri = queue.descendingIterator();
-		while(ri.hasNext()) {
-			current = ri.next();
+		for(int i=count-1;i>=first;--i) {
+			MarlinSimulationBlock current = block(i);
 			recalculateBackwardsBetween(current,next);
 			next = current;
 		}
@@ -308,32 +416,43 @@ public class MarlinSimulation {
 		}
 	}
 	
+	/**
+	 * Walk from the last optimally planned block to the newest block, lowering entry speeds that can't be reached from
+	 * the block before.  A block that can't go any faster is optimally planned and so is every block before it.
+	 */
 	private void recalculateForwards() {
-		MarlinSimulationBlock current;
 		MarlinSimulationBlock prev = null;
-        for (MarlinSimulationBlock marlinSimulationBlock : queue) {
-            current = marlinSimulationBlock;
-            recalculateForwardsBetween(prev, current);
-            prev = current;
-        }
+		for(int i=planned;i<count;++i) {
+			MarlinSimulationBlock current = block(i);
+			if(recalculateForwardsBetween(prev, current) || current.entrySpeed == current.entrySpeedMax) {
+				planned = i;
+			}
+			prev = current;
+		}
 	}
 	
-	private void recalculateForwardsBetween(MarlinSimulationBlock prev,MarlinSimulationBlock current) {
-		if(prev==null) return;
+	/**
+	 * @return true if the entry speed of current was limited by the acceleration of prev.
+	 */
+	private boolean recalculateForwardsBetween(MarlinSimulationBlock prev,MarlinSimulationBlock current) {
+		if(prev==null) return false;
 		if(!prev.nominalLength && prev.entrySpeed < current.entrySpeed) {
 			double newEntrySpeed = maxSpeedAllowed(-prev.acceleration, prev.entrySpeed, prev.distance);
 			if(newEntrySpeed < current.entrySpeed) {
 				current.recalculate=true;
 				current.entrySpeed = newEntrySpeed;
+				return true;
 			}
 		}
+		return false;
 	}
 	
 	private void recalculateTrapezoids() {
 		MarlinSimulationBlock current=null;
 		
 		double currentEntrySpeed=0, nextEntrySpeed=0;		
-		for( MarlinSimulationBlock next : queue ) {
+		for(int i=0;i<count;++i) {
+			MarlinSimulationBlock next = block(i);
 			nextEntrySpeed = next.entrySpeed;
 			if(current!=null) {
 				if(current.recalculate || next.recalculate) {
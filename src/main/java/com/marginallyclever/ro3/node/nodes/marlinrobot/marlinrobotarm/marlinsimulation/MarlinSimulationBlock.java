@@ -51,8 +51,19 @@ public class MarlinSimulationBlock {
 	public boolean busy;
 	
 	
+	public MarlinSimulationBlock() {}
+
 	// delta is calculated here in the constructor.
 	public MarlinSimulationBlock(final MarlinCoordinate endPose,final MarlinCoordinate deltaPose) {
+		set(endPose,deltaPose);
+	}
+
+	/**
+	 * Start this block over as a move to endPose.  Used by {@link MarlinSimulation} to reuse blocks in the queue.
+	 * @param endPose the end of the move
+	 * @param deltaPose the size of the move
+	 */
+	public void set(final MarlinCoordinate endPose,final MarlinCoordinate deltaPose) {
 		end.set(endPose);
 		delta.set(deltaPose);
 		normal.set(deltaPose);
@@ -61,6 +72,8 @@ public class MarlinSimulationBlock {
 		
 		id=counter++;
 		distance = delta.length();
+		end_s=0;
+		now_s=0;
 		busy=false;
 		recalculate=true;
 	}
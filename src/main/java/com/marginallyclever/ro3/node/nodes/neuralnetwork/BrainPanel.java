@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.neuralnetwork;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.brainview.BrainView;
 import com.marginallyclever.ro3.apps.nodedetailview.CollapsiblePanel;
 import com.marginallyclever.ro3.apps.nodeselector.NodeSelector;
@@ -39,7 +40,7 @@ public class BrainPanel extends JPanel {
 
         hebbianLearningActive.setSelected(brain.isHebbianLearningActive());
         hebbianLearningActive.addActionListener((e)->{
-            brain.setHebbianLearningActive(hebbianLearningActive.isSelected());
+            Registry.changeScene(() -> brain.setHebbianLearningActive(hebbianLearningActive.isSelected()));
             setLearningLabel();
         });
         PanelHelper.addLabelAndComponent(this,"Hebbian Learning",hebbianLearningActive,c);
@@ -67,7 +68,7 @@ public class BrainPanel extends JPanel {
         // run brain scan and display the new count of neurons and synapses.
         var scanButton = new JButton("Scan Brain");
         scanButton.addActionListener((e)->{
-            brain.scan();
+            Registry.changeScene(() -> brain.scan());
             var s = brain.getSynapses().size();
             var n = brain.getNeurons().size();
             JOptionPane.showMessageDialog(this,"Brain has "+n+" neurons and "+s+" synapses.");
@@ -129,7 +130,7 @@ public class BrainPanel extends JPanel {
             var motorSelector = new NodeSelector<>(Neuron.class, neuron.getSubject());
             int jFinal = i;
             motorSelector.addPropertyChangeListener("subject",(e)-> {
-                list.getList().get(jFinal).setUniqueIDByNode((Neuron)e.getNewValue());
+                Registry.changeScene(() -> list.getList().get(jFinal).setUniqueIDByNode((Neuron)e.getNewValue()));
             });
             PanelHelper.addLabelAndComponent(outerPanel, ""+i, motorSelector,c);
             c.gridy++;
@@ -144,7 +145,7 @@ public class BrainPanel extends JPanel {
      * @param newCount the new size
      */
     private void changeListSize(JPanel listPanel,ListWithEvents<NodePath<Neuron>> list, int newCount) {
-        brain.setListSize(list,newCount);
+        Registry.changeScene(() -> brain.setListSize(list,newCount));
         listPanel.removeAll();
         addNeuronsToPanel(listPanel,list);
     }
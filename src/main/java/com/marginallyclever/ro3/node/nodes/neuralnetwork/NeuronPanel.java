@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.neuralnetwork;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -42,29 +43,33 @@ public class NeuronPanel extends JPanel {
         gbc.gridy++;
 
         var bias = PanelHelper.addNumberFieldDouble("Bias",neuron.getBias());
-        bias.addPropertyChangeListener("value",(e)->neuron.setBias(((Number)e.getNewValue()).doubleValue()));
+        bias.addPropertyChangeListener("value",(e)->Registry.changeScene(() -> neuron.setBias(((Number)e.getNewValue()).doubleValue())));
         PanelHelper.addLabelAndComponent(this,"Bias",bias,gbc);
         gbc.gridy++;
 
         var sum = PanelHelper.addNumberFieldDouble("Sum",neuron.getSum());
-        sum.addPropertyChangeListener("value",(e)->neuron.setSum(((Number)e.getNewValue()).doubleValue()));
+        sum.addPropertyChangeListener("value",(e)->Registry.changeScene(() -> neuron.setSum(((Number)e.getNewValue()).doubleValue())));
         PanelHelper.addLabelAndComponent(this,"Sum",sum,gbc);
         gbc.gridy++;
 
         var typeChoice = new JComboBox<>(Neuron.Type.values());
         typeChoice.setSelectedItem(neuron.getNeuronType());
-        typeChoice.addActionListener((e)->neuron.setNeuronType((Neuron.Type)typeChoice.getSelectedItem()));
+        typeChoice.addActionListener((e)->Registry.changeScene(() -> neuron.setNeuronType((Neuron.Type)typeChoice.getSelectedItem())));
         PanelHelper.addLabelAndComponent(this,"Type",typeChoice,gbc);
         gbc.gridy++;
 
         var modulation = PanelHelper.addNumberFieldDouble("Modulation",neuron.getModulation());
-        modulation.addPropertyChangeListener("value",(e)->neuron.setModulation(((Number)e.getNewValue()).doubleValue()));
+        modulation.addPropertyChangeListener("value",(e)->Registry.changeScene(() -> neuron.setModulation(((Number)e.getNewValue()).doubleValue())));
         PanelHelper.addLabelAndComponent(this,"Modulation",modulation,gbc);
         gbc.gridy++;
     }
 
     private void updatePosition() {
-        neuron.position.x = ((Number)tx.getValue()).intValue();
-        neuron.position.y = ((Number)ty.getValue()).intValue();
+        int x = ((Number)tx.getValue()).intValue();
+        int y = ((Number)ty.getValue()).intValue();
+        Registry.changeScene(() -> {
+            neuron.position.x = x;
+            neuron.position.y = y;
+        });
     }
 }
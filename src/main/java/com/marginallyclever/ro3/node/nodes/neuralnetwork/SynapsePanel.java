@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.neuralnetwork;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.nodeselector.NodeSelector;
 
 import javax.swing.*;
@@ -33,13 +34,16 @@ public class SynapsePanel extends JPanel {
 
     private void addNeuronSelector(GridBagConstraints c, String label, Neuron startValue, Consumer<Neuron> p) {
         NodeSelector<Neuron> selector = new NodeSelector<>(Neuron.class,startValue);
-        selector.addPropertyChangeListener("subject", (evt) -> p.accept(selector.getSubject()));
+        selector.addPropertyChangeListener("subject", (evt) -> Registry.changeScene(() -> p.accept(selector.getSubject())));
         PanelHelper.addLabelAndComponent(this, label,selector,c);
     }
 
     private void addWeightField(GridBagConstraints gbc, Synapse synapse) {
         JFormattedTextField f = PanelHelper.addNumberFieldDouble("Weight", synapse.weight);
-        f.addPropertyChangeListener("value", (evt) -> synapse.weight = ((Number) f.getValue()).floatValue());
+        f.addPropertyChangeListener("value", (evt) -> {
+            float weight = ((Number) f.getValue()).floatValue();
+            Registry.changeScene(() -> synapse.weight = weight);
+        });
         PanelHelper.addLabelAndComponent(this, "Weight", f, gbc);
     }
 }
@@ -19,10 +19,11 @@ import java.util.Set;
 
 /**
  * <p>A controller for a creature made of ODE4J hinges and bodies.</p>
- * <p>This controller registers itself to receive collision events from the physics world.</p>
+ * <p>This controller owns the collision events of its bodies in the physics world from the moment each body is
+ * attached.</p>
  *
  */
-public class CreatureController extends ODENode implements CollisionListener {
+public class CreatureController extends ODENode implements CollisionListener, ODELinkAttachListener {
     private final List<ODEHinge> hinges = new ArrayList<>();
     private final List<ODEBody> bodies = new ArrayList<>();
     private final BrainManager brainManager = new BrainManager();
@@ -64,15 +65,47 @@ public class CreatureController extends ODENode implements CollisionListener {
     }
 
     @Override
-    protected void onAttach() {
-        super.onAttach();
-        Registry.getPhysics().addCollisionListener(this);
+    protected void onReady() {
+        super.onReady();
+        findParts();
     }
 
     @Override
     protected void onDetach() {
         super.onDetach();
-        Registry.getPhysics().removeCollisionListener(this);
+        releaseBodies();
+    }
+
+    /**
+     * Find the hinges and bodies of this creature and claim the contacts of the bodies.  A body that is attached
+     * again later is claimed again by {@link #linkAttached(ODENode)}.
+     */
+    private void findParts() {
+        releaseBodies();
+        hinges.clear();
+        hinges.addAll(findHinges());
+        bodies.clear();
+        bodies.addAll(findBodies());
+        var physics = Registry.getPhysics();
+        for(ODEBody b : bodies) {
+            if(b==null) continue;
+            b.addODEAttachListener(this);
+            physics.setCollisionOwner(b,this);
+        }
+    }
+
+    private void releaseBodies() {
+        var physics = Registry.getPhysics();
+        for(ODEBody b : bodies) {
+            if(b==null) continue;
+            b.removeODEAttachListener(this);
+            if(physics.getCollisionOwner(b)==this) physics.setCollisionOwner(b,null);
+        }
+    }
+
+    @Override
+    public void linkAttached(ODENode node) {
+        if(node instanceof ODEBody b) Registry.getPhysics().setCollisionOwner(b,this);
     }
 
     /**
@@ -88,15 +121,20 @@ public class CreatureController extends ODENode implements CollisionListener {
         return bodies;
     }
 
+    /**
+     * Called by {@link com.marginallyclever.ro3.physics.ODEPhysics} only for contacts with the bodies of this creature.
+     */
     @Override
     public void onCollision(DGeom g1, DGeom g2, DContact contact) {
-        var bodies = findBodies();
-        for(ODEBody b : bodies) {
-            if(b.getGeom() == g1 || b.getGeom() == g2) {
-                // b is touching something
-                // store the hinge/is-touching relationship in c
-                b.setTouchingSomething(true);
-            }
+        var physics = Registry.getPhysics();
+        setTouching(physics.getBody(g1));
+        setTouching(physics.getBody(g2));
+    }
+
+    private void setTouching(ODEBody b) {
+        if(b!=null && Registry.getPhysics().getCollisionOwner(b)==this) {
+            // b is touching something
+            b.setTouchingSomething(true);
         }
     }
 
@@ -104,10 +142,7 @@ public class CreatureController extends ODENode implements CollisionListener {
     protected void onFirstUpdate() {
         super.onFirstUpdate();
         // store a list of the hinges once and keep it until the end of time or someone forces a refresh.
-        hinges.clear();
-        hinges.addAll(findHinges());
-        bodies.clear();
-        bodies.addAll(findBodies());
+        findParts();
         brainManager.setNumInputs(bodies.size()+hinges.size()+1);
         brainManager.setNumOutputs(hinges.size());
         brainManager.createInitialConnections();
@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes.odenode;
 
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -123,12 +124,12 @@ public class CreatureControllerPanel extends JPanel {
 
         // add torque
         JButton selector = new JButton("+");
-        selector.addActionListener((e)-> hinge.addTorque(myFirstTorque));
+        selector.addActionListener((e)-> Registry.changeScene(() -> hinge.addTorque(myFirstTorque)));
         panel.add(selector);
 
         // add reverse torque
         JButton selector2 = new JButton("-");
-        selector2.addActionListener((e)-> hinge.addTorque(-myFirstTorque));
+        selector2.addActionListener((e)-> Registry.changeScene(() -> hinge.addTorque(-myFirstTorque)));
         panel.add(selector2);
         PanelHelper.addLabelAndComponent(this, label, panel, gbc);
     }
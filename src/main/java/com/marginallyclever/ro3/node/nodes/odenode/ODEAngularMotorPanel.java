@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.odenode;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -36,7 +37,7 @@ public class ODEAngularMotorPanel extends JPanel {
         panel.add(selector2);
         */
         JSlider slider = new JSlider(-100,100,0);
-        slider.addChangeListener((e)-> motor.addTorque(slider.getValue()/50.0));
+        slider.addChangeListener((e)-> Registry.changeScene(() -> motor.addTorque(slider.getValue()/50.0)));
         slider.setMajorTickSpacing(50);
         slider.setMinorTickSpacing(10);
         slider.setPaintTicks(true);
@@ -3,6 +3,7 @@ package com.marginallyclever.ro3.node.nodes.odenode;
 import com.marginallyclever.convenience.helpers.StringHelper;
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -40,11 +41,11 @@ public class ODEHingePanel extends JPanel {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEADING,0,0));
 
         JButton selector = new JButton("+");
-        selector.addActionListener((e)-> hinge.addTorque(250000));
+        selector.addActionListener((e)-> Registry.changeScene(() -> hinge.addTorque(250000)));
         panel.add(selector);
 
         JButton selector2 = new JButton("-");
-        selector2.addActionListener((e)-> hinge.addTorque(-250000));
+        selector2.addActionListener((e)-> Registry.changeScene(() -> hinge.addTorque(-250000)));
         panel.add(selector2);
 
         PanelHelper.addLabelAndComponent(this, label, panel,gbc);
@@ -50,6 +50,7 @@ public class ODEPlane extends ODENode {
         super.onFirstUpdate();
 
         plane = OdeHelper.createPlane(Registry.getPhysics().getODESpace(), 0, 0, 1, 0);
+        plane.setData(this);
 
         MeshInstance mesh = findFirstChild(MeshInstance.class);
         if(mesh==null) {
@@ -63,6 +63,9 @@ public abstract class ODEBody extends ODENode {
         if(findFirstChild(Material.class)==null) addChild(new Material());
         createBody();
         createGeom();
+        // lets ODEPhysics find the node that owns a geom during collisions.
+        if(geom!=null) geom.setData(this);
+        Registry.getPhysics().addBody(this);
         updateMass();
         updatePhysicsFromPose();
         fireODEAttach();
@@ -80,6 +83,7 @@ public abstract class ODEBody extends ODENode {
     protected void onDetach() {
         super.onDetach();
         logger.debug("{} ODEBody.onDetach",getAbsolutePath());
+        Registry.getPhysics().removeBody(this);
         destroyBody();
         destroyGeom();
         fireODEDetach();
@@ -122,8 +126,11 @@ public abstract class ODEBody extends ODENode {
     @Override
     public void update(double dt) {
         super.update(dt);
-        if(!Registry.getPhysics().isPaused()) {
+        var physics = Registry.getPhysics();
+        if(!physics.isPaused()) {
+            long start = System.nanoTime();
             updatePoseFromPhysics();
+            physics.getStats().addPoseSync(System.nanoTime()-start);
         }
     }
 
@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes.odenode.odebody;
 
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies.ODESphere;
 
 import javax.swing.*;
@@ -29,7 +30,7 @@ public class ODEBodyPanel extends JPanel {
 
         JFormattedTextField massQty = new JFormattedTextField(formatter);
         massQty.setValue(body.getMassQty());
-        massQty.addPropertyChangeListener("value", e -> body.setMassQty( ((Number)massQty.getValue()).doubleValue() ));
+        massQty.addPropertyChangeListener("value", e -> Registry.changeScene(() -> body.setMassQty( ((Number)massQty.getValue()).doubleValue() )));
         PanelHelper.addLabelAndComponent(this,"Mass",massQty,gbc);
     }
 }
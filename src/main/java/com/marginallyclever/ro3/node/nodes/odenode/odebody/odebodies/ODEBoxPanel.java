@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.physics.ODE4JHelper;
 
 import javax.swing.*;
@@ -36,14 +37,14 @@ public class ODEBoxPanel extends JPanel {
         panel.add(sz,c);
         PanelHelper.addLabelAndComponent(this,"Size",panel,gbc);
         gbc.gridy++;
-        sx.addPropertyChangeListener("value", e -> body.setSizeX(((Number)sx.getValue()).doubleValue()));
-        sy.addPropertyChangeListener("value", e -> body.setSizeY(((Number)sy.getValue()).doubleValue()));
-        sz.addPropertyChangeListener("value", e -> body.setSizeZ(((Number)sz.getValue()).doubleValue()));
+        sx.addPropertyChangeListener("value", e -> Registry.changeScene(() -> body.setSizeX(((Number)sx.getValue()).doubleValue())));
+        sy.addPropertyChangeListener("value", e -> Registry.changeScene(() -> body.setSizeY(((Number)sy.getValue()).doubleValue())));
+        sz.addPropertyChangeListener("value", e -> Registry.changeScene(() -> body.setSizeZ(((Number)sz.getValue()).doubleValue())));
 
         // mass
         JButton setMassByVolume = new JButton("Set");
         setMassByVolume.addActionListener(e -> {
-            body.setMassQty(ODE4JHelper.volumeBox(body.getSizeX(),body.getSizeY(),body.getSizeZ()));
+            Registry.changeScene(() -> body.setMassQty(ODE4JHelper.volumeBox(body.getSizeX(),body.getSizeY(),body.getSizeZ())));
         });
         PanelHelper.addLabelAndComponent(this,"Mass by Volume",setMassByVolume,gbc);
     }
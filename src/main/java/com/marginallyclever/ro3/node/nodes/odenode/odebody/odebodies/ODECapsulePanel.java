@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies;
 
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.physics.ODE4JHelper;
 
 import javax.swing.*;
@@ -30,7 +31,7 @@ public class ODECapsulePanel extends JPanel {
 
         JButton setMassByVolume = new JButton("Set");
         setMassByVolume.addActionListener(e -> {
-            body.setMassQty(ODE4JHelper.volumeCapsule(body.getRadius(),body.getLength()));
+            Registry.changeScene(() -> body.setMassQty(ODE4JHelper.volumeCapsule(body.getRadius(),body.getLength())));
         });
         PanelHelper.addLabelAndComponent(this,"Mass by Volume",setMassByVolume);
     }
@@ -41,7 +42,7 @@ public class ODECapsulePanel extends JPanel {
 
         JFormattedTextField field = new JFormattedTextField(formatter);
         field.setValue(originalValue);
-        field.addPropertyChangeListener("value", e -> setSize.accept( ((Number)field.getValue()).doubleValue() ));
+        field.addPropertyChangeListener("value", e -> Registry.changeScene(() -> setSize.accept( ((Number)field.getValue()).doubleValue() )));
         PanelHelper.addLabelAndComponent(this,label,field);
     }
 }
@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies;
 
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.physics.ODE4JHelper;
 
 import javax.swing.*;
@@ -25,7 +26,7 @@ public class ODECylinderPanel extends JPanel {
 
         JButton setMassByVolume = new JButton("Set");
         setMassByVolume.addActionListener(e -> {
-            body.setMassQty(ODE4JHelper.volumeCylinder(body.getRadius(),body.getLength()));
+            Registry.changeScene(() -> body.setMassQty(ODE4JHelper.volumeCylinder(body.getRadius(),body.getLength())));
         });
         PanelHelper.addLabelAndComponent(this,"Mass by Volume",setMassByVolume);
     }
@@ -36,7 +37,7 @@ public class ODECylinderPanel extends JPanel {
 
         JFormattedTextField field = new JFormattedTextField(formatter);
         field.setValue(originalValue);
-        field.addPropertyChangeListener("value", e -> setSize.accept( ((Number)field.getValue()).doubleValue() ));
+        field.addPropertyChangeListener("value", e -> Registry.changeScene(() -> setSize.accept( ((Number)field.getValue()).doubleValue() )));
         PanelHelper.addLabelAndComponent(this,label,field);
     }
 }
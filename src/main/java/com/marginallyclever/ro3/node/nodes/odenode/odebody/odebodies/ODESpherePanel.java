@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies;
 
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.physics.ODE4JHelper;
 
 import javax.swing.*;
@@ -24,12 +25,12 @@ public class ODESpherePanel extends JPanel {
 
         JFormattedTextField radiusValue = new JFormattedTextField(formatter);
         radiusValue.setValue(body.getRadius());
-        radiusValue.addPropertyChangeListener("value", e -> body.setRadius( ((Number)radiusValue.getValue()).doubleValue() ));
+        radiusValue.addPropertyChangeListener("value", e -> Registry.changeScene(() -> body.setRadius( ((Number)radiusValue.getValue()).doubleValue() )));
         PanelHelper.addLabelAndComponent(this,"Radius",radiusValue);
 
         JButton setMassByVolume = new JButton("Set");
         setMassByVolume.addActionListener(e -> {
-            body.setMassQty(ODE4JHelper.volumeSphere(body.getRadius()));
+            Registry.changeScene(() -> body.setMassQty(ODE4JHelper.volumeSphere(body.getRadius())));
         });
         PanelHelper.addLabelAndComponent(this,"Mass by Volume",setMassByVolume);
     }
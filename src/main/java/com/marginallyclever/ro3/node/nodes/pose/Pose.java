@@ -3,6 +3,7 @@ package com.marginallyclever.ro3.node.nodes.pose;
 import com.marginallyclever.convenience.helpers.BigMatrixHelper;
 import com.marginallyclever.convenience.helpers.MatrixHelper;
 import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.NodeLoader;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -11,8 +12,10 @@ import org.slf4j.LoggerFactory;
 import javax.swing.*;
 import javax.vecmath.Matrix4d;
 import javax.vecmath.Vector3d;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>A {@link Pose} is a {@link Node} that has a position and rotation in space.</p>
@@ -22,6 +25,25 @@ public class Pose extends Node implements PoseChangeListener {
     private final Matrix4d local = MatrixHelper.createIdentityMatrix4();
     private MatrixHelper.EulerSequence rotationIndex = MatrixHelper.EulerSequence.YXZ;
     private Pose parentPose;
+    // bumped every time the local transform of this pose or of any pose above it changes.
+    private final AtomicLong version = new AtomicLong();
+    // the last world transform computed.  checked against version on every read.
+    private volatile WorldCache worldCache;
+
+    /**
+     * A world transform and the version it was made from.  Never modified once published, except to fill in the
+     * inverse the first time it is asked for.
+     */
+    private static final class WorldCache {
+        final Matrix4d world;
+        final long version;
+        volatile Matrix4d inverse;
+
+        WorldCache(Matrix4d world, long version) {
+            this.world = world;
+            this.version = version;
+        }
+    }
 
     public Pose() {
         this("Pose");
@@ -45,7 +67,9 @@ public class Pose extends Node implements PoseChangeListener {
     protected void onAttach() {
         super.onAttach();
         attachToParentPose();
-        firePoseChange();
+        // a tree being loaded is all new.  telling each pose in turn would tell every pose below it again.
+        if(NodeLoader.isLoading()) invalidateSubtree();
+        else firePoseChange();
     }
 
     @Override
@@ -70,6 +94,7 @@ public class Pose extends Node implements PoseChangeListener {
         if(parentPose!=null) {
             parentPose.removePoseChangeListener(this);
             parentPose = null;
+            invalidateSubtree();
         }
     }
 
@@ -98,24 +123,94 @@ public class Pose extends Node implements PoseChangeListener {
     }
 
     private void firePoseChange() {
+        invalidateWorld();
         for(var listener : listeners.getListeners(PoseChangeListener.class)) {
             listener.onPoseChange(this);
         }
     }
 
+    /**
+     * Mark the cached world transform of this pose as stale.  Child poses are told by {@link #onPoseChange(Pose)},
+     * which comes back here, so a read only has to check the version of this pose.
+     */
+    private void invalidateWorld() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Mark the cached world transform of this pose and every pose below it as stale without telling any listeners.
+     * Used when the parent pose changes, which is not a move.
+     */
+    private void invalidateSubtree() {
+        List<Pose> toScan = new ArrayList<>();
+        toScan.add(this);
+        while(!toScan.isEmpty()) {
+            Pose p = toScan.remove(toScan.size()-1);
+            p.invalidateWorld();
+            for(var listener : p.listeners.getListeners(PoseChangeListener.class)) {
+                if(listener instanceof Pose child && child.parentPose==p) toScan.add(child);
+            }
+        }
+    }
+
+    /**
+     * @return the cached world transform, computing it first if needed.  Do not modify the result.
+     */
+    private WorldCache getWorldCache() {
+        // read the version before the transforms.  a change made after this point makes the result stale.
+        // a change to a parent bumps the version of this pose after the parent's, so a fresh version here
+        // also means the parent read below is fresh.
+        long v = version.get();
+        WorldCache cache = worldCache;
+        if(cache!=null && cache.version==v) return cache;
+
+        Pose parent = parentPose;
+        Matrix4d world = new Matrix4d(local);
+        if(parent!=null) world.mul(parent.getWorldCache().world,world);
+        cache = new WorldCache(world,v);
+        worldCache = cache;
+        return cache;
+    }
+
     /**
      * @return the world transform of this pose.
      */
     public Matrix4d getWorld() {
-        // search up the tree to find the world transform.
-        if(parentPose==null) {
-            return getLocal();
-        }
-        Matrix4d result = parentPose.getWorld();
-        result.mul(getLocal());
+        return new Matrix4d(getWorldCache().world);
+    }
+
+    /**
+     * Store the world transform of this pose in <code>out</code> without allocating.
+     * @param out the matrix to fill.
+     */
+    public void getWorld(Matrix4d out) {
+        out.set(getWorldCache().world);
+    }
+
+    /**
+     * @return the inverse of the world transform of this pose.
+     */
+    public Matrix4d getWorldInverse() {
+        Matrix4d result = new Matrix4d();
+        getWorldInverse(result);
         return result;
     }
 
+    /**
+     * Store the inverse of the world transform of this pose in <code>out</code> without allocating.
+     * @param out the matrix to fill.
+     */
+    public void getWorldInverse(Matrix4d out) {
+        WorldCache cache = getWorldCache();
+        Matrix4d inverse = cache.inverse;
+        if(inverse==null) {
+            inverse = new Matrix4d(cache.world);
+            inverse.invert();
+            cache.inverse = inverse;
+        }
+        out.set(inverse);
+    }
+
     /**
      * Set the world transform of this pose.  All cases call {@link #setLocal(Matrix4d)}.
      * @param m the new world transform.
@@ -127,8 +222,7 @@ public class Pose extends Node implements PoseChangeListener {
             return;
         }
         // Changing m could have unintended side effects, so use a temp variable.
-        Matrix4d temp = parentPose.getWorld();
-        temp.invert();
+        Matrix4d temp = parentPose.getWorldInverse();
         temp.mul(m);
         setLocal(temp);
     }
@@ -197,6 +291,7 @@ public class Pose extends Node implements PoseChangeListener {
                 localData[i] = localArray.getDouble(i);
             }
             local.set(localData);
+            invalidateSubtree();
         }
     }
 
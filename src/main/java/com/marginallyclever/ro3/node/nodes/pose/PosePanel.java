@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes.pose;
 
 import com.marginallyclever.convenience.helpers.MatrixHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.UndoSystem;
 import com.marginallyclever.ro3.apps.viewport.viewporttool.move.TranslatePoseCommand;
 
@@ -65,7 +66,7 @@ public class PosePanel extends JPanel {
         JComboBox<String> rotationType = new JComboBox<>(names);
         rotationType.setSelectedIndex(rotationIndex.ordinal());
         rotationType.addActionListener( e -> {
-            pose.setRotationIndex( MatrixHelper.EulerSequence.values()[rotationType.getSelectedIndex()] );
+            Registry.changeScene(() -> pose.setRotationIndex( MatrixHelper.EulerSequence.values()[rotationType.getSelectedIndex()] ));
         });
 
         JFormattedTextField rx = PanelHelper.addNumberFieldDouble("rotate x",r.x);
@@ -98,7 +99,7 @@ public class PosePanel extends JPanel {
             ((Number)tz.getValue()).doubleValue() - p.z);
         var list = new ArrayList<Pose>();
         list.add(pose);
-        UndoSystem.addEvent(new TranslatePoseCommand(list,delta));
+        Registry.changeScene(() -> UndoSystem.addEvent(new TranslatePoseCommand(list,delta)));
     }
 
     private void updateRotation(JFormattedTextField rx, JFormattedTextField ry, JFormattedTextField rz) {
@@ -106,6 +107,6 @@ public class PosePanel extends JPanel {
         r.x = ((Number)rx.getValue()).doubleValue();
         r.y = ((Number)ry.getValue()).doubleValue();
         r.z = ((Number)rz.getValue()).doubleValue();
-        pose.setRotationEuler(r, pose.getRotationIndex());
+        Registry.changeScene(() -> pose.setRotationEuler(r, pose.getRotationIndex()));
     }
 }
@@ -122,8 +122,7 @@ public class AttachmentPoint extends Pose {
             // version 2, bounding box to radius test.
             var boundingBox = mesh.getBoundingBox();
             // convert the center to meshInstance space
-            var im = meshInstance.getWorld();
-            im.invert();
+            var im = meshInstance.getWorldInverse();
             Point3d center2 = new Point3d(center);
             im.transform(center2);
 
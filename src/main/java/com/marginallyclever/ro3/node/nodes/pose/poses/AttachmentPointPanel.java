@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes.pose.poses;
 
 import com.marginallyclever.convenience.swing.NumberFormatHelper;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -26,7 +27,7 @@ public class AttachmentPointPanel extends JPanel {
         radiusField.setToolTipText("Radius of the attachment point");
         radiusField.setValue(attachmentPoint.getRadius());
         radiusField.addPropertyChangeListener("value", e -> {
-            attachmentPoint.setRadius( ((Number)radiusField.getValue()).doubleValue() );
+            Registry.changeScene(() -> attachmentPoint.setRadius( ((Number)radiusField.getValue()).doubleValue() ));
         });
         PanelHelper.addLabelAndComponent(this,"Radius",radiusField);
 
@@ -48,10 +49,12 @@ public class AttachmentPointPanel extends JPanel {
         setAttachedText(attached);
 
         attached.addActionListener(e -> {
-            attachmentPoint.setIsAttached( attached.isSelected() );
-            var isAttached = attachmentPoint.getIsAttached();
-            if(isAttached) attachmentPoint.attemptAttach();
-            else attachmentPoint.release();
+            Registry.changeScene(() -> {
+                attachmentPoint.setIsAttached( attached.isSelected() );
+                var isAttached = attachmentPoint.getIsAttached();
+                if(isAttached) attachmentPoint.attemptAttach();
+                else attachmentPoint.release();
+            });
             setAttachedText(attached);
         });
         return attached;
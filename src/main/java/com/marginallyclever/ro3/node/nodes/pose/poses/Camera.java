@@ -222,10 +222,9 @@ public class Camera extends Pose {
     }
 
     public Matrix4d getViewMatrix(boolean originShift) {
+        if(!originShift) return getWorldInverse();
         Matrix4d inverseCamera = this.getWorld();
-        if(originShift) {
-            inverseCamera.setTranslation(new Vector3d());
-        }
+        inverseCamera.setTranslation(new Vector3d());
         inverseCamera.invert();
         return inverseCamera;
     }
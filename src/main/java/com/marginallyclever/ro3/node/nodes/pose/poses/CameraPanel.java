@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.pose.poses;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import javax.vecmath.Vector3d;
@@ -40,7 +41,7 @@ public class CameraPanel extends JPanel {
         // orthographic?
         JCheckBox ortho = new JCheckBox();
         ortho.addActionListener(e -> {
-            camera.setDrawOrthographic(ortho.isSelected());
+            Registry.changeScene(() -> camera.setDrawOrthographic(ortho.isSelected()));
             var drawOrthographic = camera.getDrawOrthographic();
             farZSpinner.setEnabled(!drawOrthographic);
             nearZSpinner.setEnabled(!drawOrthographic);
@@ -53,7 +54,7 @@ public class CameraPanel extends JPanel {
         // fov
         fovSpinner.setValue(camera.getFovY());
         fovSpinner.addChangeListener(e -> {
-            camera.setFovY( (double) fovSpinner.getValue() );
+            Registry.changeScene(() -> camera.setFovY( (double) fovSpinner.getValue() ));
         });
         fovSpinner.setToolTipText("degrees");
         PanelHelper.addLabelAndComponent(this,"FOV",fovSpinner,gbc);
@@ -61,7 +62,7 @@ public class CameraPanel extends JPanel {
 
         // near z
         nearZSpinner.addChangeListener(e -> {
-            camera.setNearZ( (double)nearZSpinner.getValue() );
+            Registry.changeScene(() -> camera.setNearZ( (double)nearZSpinner.getValue() ));
             var nearZ = camera.getNearZ();
             farZModel.setMinimum(nearZ + 1);
             if (camera.getFarZ() <= nearZ) {
@@ -76,7 +77,7 @@ public class CameraPanel extends JPanel {
         // far z
         farZSpinner.setValue(camera.getFarZ());
         farZSpinner.addChangeListener(e -> {
-            camera.setFarZ( (double) farZSpinner.getValue() );
+            Registry.changeScene(() -> camera.setFarZ( (double) farZSpinner.getValue() ));
             var farZ = camera.getFarZ();
             nearZModel.setMaximum(farZ - 1);
             if(camera.getNearZ() >= farZ) {
@@ -90,7 +91,7 @@ public class CameraPanel extends JPanel {
         // can rotate
         JToggleButton canRotate = new JToggleButton("Yes");
         canRotate.addActionListener(e -> {
-            camera.setCanRotate(canRotate.isSelected());
+            Registry.changeScene(() -> camera.setCanRotate(canRotate.isSelected()));
             updateRotateButton(canRotate);
         });
         canRotate.setSelected(camera.getCanRotate());
@@ -101,7 +102,7 @@ public class CameraPanel extends JPanel {
         // can translate
         JToggleButton canTranslate = new JToggleButton("Yes");
         canTranslate.addActionListener(e -> {
-            camera.setCanTranslate(canTranslate.isSelected());
+            Registry.changeScene(() -> camera.setCanTranslate(canTranslate.isSelected()));
             updateTranslateButton(canTranslate);
         });
         canTranslate.setSelected(camera.getCanTranslate());
@@ -145,7 +146,7 @@ public class CameraPanel extends JPanel {
                     ((Number)lookAtx.getValue()).doubleValue(),
                     ((Number)lookAty.getValue()).doubleValue(),
                     ((Number)lookAtz.getValue()).doubleValue());
-            camera.lookAt(lookAt);
+            Registry.changeScene(() -> camera.lookAt(lookAt));
         } catch (InvalidParameterException ex) {
             JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -2,6 +2,7 @@ package com.marginallyclever.ro3.node.nodes.pose.poses;
 
 import com.marginallyclever.convenience.swing.Dial;
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.nodedetailview.CollapsiblePanel;
 import com.marginallyclever.ro3.apps.nodeselector.NodeSelector;
 import com.marginallyclever.ro3.node.nodes.Motor;
@@ -67,7 +68,7 @@ public class LimbPanel extends JPanel {
         Dial dial = new Dial();
         dial.addActionListener(e -> {
             if(motor.hasHinge()) {
-                motor.getHinge().setAngle(dial.getValue());
+                Registry.changeScene(() -> motor.getHinge().setAngle(dial.getValue()));
                 dial.setValue(motor.getHinge().getAngle());
             }
         });
@@ -105,7 +106,7 @@ public class LimbPanel extends JPanel {
             motorSelector[i] = new NodeSelector<>(Motor.class, limb.getJoint(i));
             int j = i;
             motorSelector[i].addPropertyChangeListener("subject",(e)-> {
-                limb.setJoint(j,(Motor)e.getNewValue());
+                Registry.changeScene(() -> limb.setJoint(j,(Motor)e.getNewValue()));
             });
             PanelHelper.addLabelAndComponent(outerPanel, "Motor "+i, motorSelector[i],gbc);
         }
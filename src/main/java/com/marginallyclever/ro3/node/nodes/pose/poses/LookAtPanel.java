@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.pose.poses;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.apps.nodeselector.NodeSelector;
 import com.marginallyclever.ro3.node.nodes.pose.Pose;
 
@@ -18,7 +19,7 @@ public class LookAtPanel extends JPanel {
 
         NodeSelector<Pose> selector = new NodeSelector<>(Pose.class,lookAt.getTarget());
         selector.addPropertyChangeListener("subject", (evt) -> {
-            lookAt.setTarget(selector.getSubject());
+            Registry.changeScene(() -> lookAt.setTarget(selector.getSubject()));
         } );
         PanelHelper.addLabelAndComponent(this,"Target",selector);
     }
@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.pose.poses;
 
 import com.marginallyclever.convenience.Ray;
+import com.marginallyclever.convenience.helpers.FileHelper;
 import com.marginallyclever.convenience.helpers.MatrixHelper;
 import com.marginallyclever.ro3.Registry;
 import com.marginallyclever.ro3.mesh.Mesh;
@@ -18,15 +19,22 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>A {@link MeshInstance} is a {@link Pose} containing a {@link Mesh}.</p>
  * <p>The local {@link Pose} information can be used to adjust the center of rotation.</p>
  * <p>MeshInstance fires a {@link PropertyChangeEvent} to all {@link PropertyChangeListener}s when the {@link Mesh} is
  * changed.</p>
+ * <p>Meshes named in a scene file are loaded in the background.  Until the mesh arrives a box is shown in its
+ * place.</p>
  */
 public class MeshInstance extends Pose {
     private Mesh mesh;
+    // the source of a mesh that is still loading, or null.
+    private volatile String pendingMesh;
+    // the mesh named by pendingMesh.  may be done but not yet swapped in.
+    private volatile CompletableFuture<Mesh> pendingLoad;
 
     public MeshInstance() {
         super("MeshInstance");
@@ -51,6 +59,12 @@ public class MeshInstance extends Pose {
      * @param mesh the mesh to set.
      */
     public void setMesh(Mesh mesh) {
+        pendingMesh = null;
+        pendingLoad = null;
+        replaceMesh(mesh);
+    }
+
+    private void replaceMesh(Mesh mesh) {
         if (this.mesh == mesh) return;
         if(mesh!=null) {
             mesh.removePropertyChangeListener((e)->fireMeshChanged());
@@ -64,10 +78,16 @@ public class MeshInstance extends Pose {
         return mesh;
     }
 
+    /**
+     * @return true if the mesh named in the scene file is still loading and a placeholder is shown instead.
+     */
+    public boolean isMeshLoading() {
+        return pendingMesh!=null;
+    }
+
     public void adjustLocal() {
         Pose pose = findParent(Pose.class);
-        Matrix4d m = (pose==null) ? MatrixHelper.createIdentityMatrix4() : pose.getWorld();
-        m.invert();
+        Matrix4d m = (pose==null) ? MatrixHelper.createIdentityMatrix4() : pose.getWorldInverse();
         setLocal(m);
     }
 
@@ -98,11 +118,10 @@ public class MeshInstance extends Pose {
      * @return the ray in local space
      */
     private Ray transformRayToLocalSpace(Ray ray) {
-        Matrix4d m = getWorld();
+        Matrix4d m = getWorldInverse();
         Point3d o = new Point3d(ray.getOrigin());
         Vector3d d = new Vector3d(ray.getDirection());
 
-        m.invert();
         m.transform(o);
         m.transform(d);
 
@@ -144,7 +163,9 @@ public class MeshInstance extends Pose {
     @Override
     public JSONObject toJSON() {
         JSONObject json = super.toJSON();
-        if(mesh!=null) {
+        if(pendingMesh!=null) {
+            json.put("mesh", pendingMesh);
+        } else if(mesh!=null) {
             if(mesh instanceof ProceduralMesh p) {
                 JSONObject pJSON = p.toJSON();
                 json.put("proceduralMesh", pJSON);
@@ -159,7 +180,7 @@ public class MeshInstance extends Pose {
     public void fromJSON(JSONObject from) {
         super.fromJSON(from);
         if(from.has("mesh")) {
-            mesh = Registry.meshFactory.load(from.getString("mesh"));
+            loadMesh(from.getString("mesh"));
         } else if(from.has("proceduralMesh")) {
             var procMesh = from.getJSONObject("proceduralMesh");
             var pmesh = ProceduralMeshFactory.createMesh(procMesh.getString("type"));
@@ -170,9 +191,42 @@ public class MeshInstance extends Pose {
         }
     }
 
+    /**
+     * Request a mesh from the {@link com.marginallyclever.ro3.mesh.MeshFactory} and show a placeholder until it
+     * arrives.  The mesh is swapped in while holding the simulation lock.  If this node is detached before then it
+     * waits for {@link #onAttach()}.
+     * @param filename the mesh to load
+     */
+    private void loadMesh(String filename) {
+        var future = Registry.meshFactory.loadAsync(filename);
+        if(future==null) return;
+        pendingMesh = FileHelper.getAbsolutePathOrFilename(filename);
+        pendingLoad = future;
+        replaceMesh(ProceduralMeshFactory.createMesh("Box"));
+        boolean wasAttached = getParent()!=null;
+        future.thenAccept(loaded -> Registry.changeScene(() -> {
+            if(wasAttached && getParent()==null) return;
+            finishLoadingMesh(future);
+        }));
+    }
+
+    /**
+     * Swap in a mesh that has finished loading, unless it has been replaced since.
+     * @param future the load that has finished.
+     */
+    private synchronized void finishLoadingMesh(CompletableFuture<Mesh> future) {
+        if(future==null || future!=pendingLoad || !future.isDone() || future.isCompletedExceptionally()) return;
+        pendingLoad = null;
+        // swap the mesh first so toJSON() never sees the placeholder without the pending name.
+        replaceMesh(future.join());
+        pendingMesh = null;
+    }
+
     @Override
     protected void onAttach() {
         super.onAttach();
+        // the mesh may have arrived while this node was detached.
+        finishLoadingMesh(pendingLoad);
         // if there is no mesh, set it to a procedurally generated box
         if(mesh==null) {
             setMesh(ProceduralMeshFactory.createMesh("Box"));
@@ -93,7 +93,7 @@ public class MeshInstancePanel extends JPanel {
         PanelHelper.addLabelAndComponent(detailsContainer,"Normals",smooth);
 
         JButton adjust = new JButton("Adjust");
-        adjust.addActionListener(e -> meshInstance.adjustLocal());
+        adjust.addActionListener(e -> Registry.changeScene(() -> meshInstance.adjustLocal()));
         PanelHelper.addLabelAndComponent(detailsContainer,"Local origin",adjust);
 
         detailsContainer.revalidate();
@@ -145,7 +145,7 @@ public class MeshInstancePanel extends JPanel {
             meshChooserDialog.setSelectedItem(meshInstance.getMesh());
             int result = meshChooserDialog.run(this);
             if(result == JFileChooser.APPROVE_OPTION) {
-                meshInstance.setMesh( meshChooserDialog.getSelectedItem() );
+                Registry.changeScene(() -> meshInstance.setMesh( meshChooserDialog.getSelectedItem() ));
                 changeMeshDetails();
                 setMeshButtonLabel(chooseMesh);
             }
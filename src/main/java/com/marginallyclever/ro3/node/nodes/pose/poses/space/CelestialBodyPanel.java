@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.pose.poses.space;
 
 import com.marginallyclever.ro3.PanelHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import java.awt.*;
@@ -44,8 +45,12 @@ public class CelestialBodyPanel extends JPanel {
     }
 
     private void updateSize(JFormattedTextField mass, JFormattedTextField radius) {
-        body.mass = ((Number)mass.getValue()).doubleValue();
-        body.radius = ((Number)radius.getValue()).doubleValue();
-        body.updateSize();
+        double m = ((Number)mass.getValue()).doubleValue();
+        double r = ((Number)radius.getValue()).doubleValue();
+        Registry.changeScene(() -> {
+            body.mass = m;
+            body.radius = r;
+            body.updateSize();
+        });
     }
 }
@@ -1,6 +1,7 @@
 package com.marginallyclever.ro3.node.nodes.pose.poses.space;
 
 import com.marginallyclever.convenience.helpers.MatrixHelper;
+import com.marginallyclever.ro3.Registry;
 
 import javax.swing.*;
 import javax.vecmath.Matrix4d;
@@ -69,7 +70,7 @@ public class SpaceShipPanel extends JPanel {
 
     private JButton createButton(String label, ActionListener action) {
         JButton bXpos = new JButton(label);
-        bXpos.addActionListener(action);
+        bXpos.addActionListener(e -> Registry.changeScene(() -> action.actionPerformed(e)));
         return bXpos;
     }
 
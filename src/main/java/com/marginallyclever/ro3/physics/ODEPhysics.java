@@ -1,7 +1,10 @@
 package com.marginallyclever.ro3.physics;
 
 import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.Material;
 import com.marginallyclever.ro3.node.nodes.odenode.ODEJoint;
+import com.marginallyclever.ro3.node.nodes.odenode.odebody.ODEBody;
+import org.ode4j.math.DVector3;
 import org.ode4j.ode.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,8 +12,8 @@ import org.slf4j.LoggerFactory;
 import javax.swing.event.EventListenerList;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.*;
+import java.util.prefs.Preferences;
 
 import static org.ode4j.ode.OdeConstants.*;
 import static org.ode4j.ode.OdeHelper.createWorld;
@@ -19,7 +22,13 @@ import static org.ode4j.ode.OdeHelper.createWorld;
  * <p>Manages the ODE4J physics world, space, and contact handling.  There must be exactly one of these in the scene
  * for physics to work.</p>
  * <p>{@link ActionListener}s can subscribe to get "Physics started" (1) and "Physics stopped" (0) events.</p>
- * <p>{@link CollisionListener}s can subscribe to get collision events.</p>
+ * <p>{@link CollisionListener}s can subscribe to get every collision event.  A listener can also own some
+ * {@link ODEBody}s with {@link #setCollisionOwner(ODEBody, CollisionListener)} to hear only about the contacts of
+ * those bodies.  The bodies and their owners are guarded by {@link #getLock()}, the same lock held while the world
+ * steps.</p>
+ * <p>The broadphase collision space is chosen with {@link #setSpaceType(SpaceType)} and changed at the start of the
+ * next {@link #update(double)}.  Contacts use the surface properties of the {@link Material} found as a child of each
+ * colliding node.</p>
  */
 public class ODEPhysics {
     private static final Logger logger = LoggerFactory.getLogger(ODEPhysics.class);
@@ -28,15 +37,39 @@ public class ODEPhysics {
     private double WORLD_ERP = 0.8;
     private double WORLD_GRAVITY = -9.81;
     private final int ITERS = 20;
-    private final int CONTACT_BUFFER_SIZE = 4;
+    // the most contacts any pair of geoms can make.  see Material#getMaxContacts().
+    private final int CONTACT_BUFFER_SIZE = 64;
+    // used when a colliding node has no Material.
+    private static final Material DEFAULT_SURFACE = new Material();
 
-    private int spaceType = 0;
+    /**
+     * The broadphase collision spaces.  {@link #AUTOMATIC} uses {@link #SIMPLE} for small scenes and {@link #HASH}
+     * once there are {@link #AUTOMATIC_THRESHOLD} or more geoms.
+     */
+    public enum SpaceType {
+        AUTOMATIC,
+        SIMPLE,
+        HASH,
+        SWEEP_AND_PRUNE,
+        QUADTREE,
+    }
+    public static final int AUTOMATIC_THRESHOLD = 64;
+
+    private volatile SpaceType spaceType = SpaceType.AUTOMATIC;
+    // the type of the space that exists now.  Never AUTOMATIC.
+    private SpaceType activeSpaceType = SpaceType.SIMPLE;
 
     private DWorld world;
     private DSpace space;
     private DContactBuffer contacts;
     private DJointGroup contactGroup;
     private boolean isPaused;
+    private final Object lock = new Object();
+    // every geom made by an attached body, to find the body during collisions.  guarded by lock.
+    private final Map<DGeom, ODEBody> bodies = new HashMap<>();
+    // the one listener that hears about the contacts of each body.  guarded by lock.
+    private final Map<ODEBody, CollisionListener> owners = new HashMap<>();
+    private final PhysicsStats stats = new PhysicsStats();
 
     protected final EventListenerList listeners = new EventListenerList();
 
@@ -44,11 +77,25 @@ public class ODEPhysics {
         super();
     }
 
+    /**
+     * @return the lock held by {@link #update(double)} and by every change to the bodies and their owners.
+     */
+    public Object getLock() {
+        return lock;
+    }
+
     public void reset() {
         stopPhysics();
         startPhysics();
     }
 
+    /**
+     * Destroy the world, the space, and the contacts.  Call {@link #reset()} to use this physics again.
+     */
+    public void dispose() {
+        stopPhysics();
+    }
+
     private void startPhysics() {
         logger.info("Starting Physics");
 
@@ -65,12 +112,8 @@ public class ODEPhysics {
 
         // create a space in the world
         if(space == null) {
-            space = switch(spaceType) {
-                case 1 -> OdeHelper.createHashSpace(null);
-                case 2 -> OdeHelper.createSapSpace(null, DSapSpace.AXES.XYZ);
-                //case 3 -> OdeHelper.createQuadTreeSpace(null, new DVector3(0, 0, 0), new DVector3(100, 100, 100), 0);
-                default -> OdeHelper.createSimpleSpace();
-            };
+            activeSpaceType = (spaceType==SpaceType.AUTOMATIC) ? SpaceType.SIMPLE : spaceType;
+            space = createSpace(activeSpaceType);
         }
 
         if(contacts == null) {
@@ -98,6 +141,11 @@ public class ODEPhysics {
             space.destroy();
             space = null;
         }
+        // the geoms went with the space.
+        synchronized (lock) {
+            bodies.clear();
+            owners.clear();
+        }
 
         if (world != null) {
             world.destroy();
@@ -107,6 +155,96 @@ public class ODEPhysics {
         fireStopped();
     }
 
+    private DSpace createSpace(SpaceType type) {
+        return switch(type) {
+            case HASH -> OdeHelper.createHashSpace(null);
+            case SWEEP_AND_PRUNE -> OdeHelper.createSapSpace(null, DSapSpace.AXES.XYZ);
+            case QUADTREE -> OdeHelper.createQuadTreeSpace(null, new DVector3(0, 0, 0), new DVector3(1000, 1000, 1000), 6);
+            default -> OdeHelper.createSimpleSpace();
+        };
+    }
+
+    /**
+     * Move every geom into a new space of the given type.
+     * @param type the new type.  Not AUTOMATIC.
+     */
+    private void replaceSpace(SpaceType type) {
+        if(space==null || type==activeSpaceType) return;
+        logger.info("Changing collision space from {} to {} with {} geoms.",activeSpaceType,type,space.getNumGeoms());
+        DSpace next = createSpace(type);
+        List<DGeom> geoms = new ArrayList<>();
+        for(DGeom g : space.getGeoms()) geoms.add(g);
+        for(DGeom g : geoms) space.remove(g);
+        // add() puts each geom at the front.  ODE keeps moved geoms at the front of the list, so keep the old order.
+        for(int i=geoms.size()-1;i>=0;--i) next.add(geoms.get(i));
+        space.destroy();
+        space = next;
+        activeSpaceType = type;
+    }
+
+    /**
+     * Pick a space for the number of geoms.  The thresholds are apart so that the space does not flip back and forth.
+     */
+    private void chooseSpaceAutomatically() {
+        int count = space.getNumGeoms();
+        if(activeSpaceType==SpaceType.SIMPLE && count >= AUTOMATIC_THRESHOLD) {
+            replaceSpace(SpaceType.HASH);
+        } else if(activeSpaceType!=SpaceType.SIMPLE && count < AUTOMATIC_THRESHOLD/2) {
+            replaceSpace(SpaceType.SIMPLE);
+        }
+    }
+
+    public SpaceType getSpaceType() {
+        return spaceType;
+    }
+
+    /**
+     * @return the type of the space in use now.  Never AUTOMATIC.
+     */
+    public SpaceType getActiveSpaceType() {
+        return activeSpaceType;
+    }
+
+    /**
+     * Change the broadphase collision space.  Existing geoms are moved to the new space at the start of the next
+     * {@link #update(double)}, on the thread that runs the simulation.
+     * @param type the type of space
+     */
+    public void setSpaceType(SpaceType type) {
+        spaceType = type;
+    }
+
+    /**
+     * Make the space in use match {@link #getSpaceType()}.
+     */
+    private void applySpaceType() {
+        if(space==null) return;
+        SpaceType type = spaceType;
+        if(type==SpaceType.AUTOMATIC) chooseSpaceAutomatically();
+        else replaceSpace(type);
+    }
+
+    public void loadPrefs() {
+        Preferences pref = Preferences.userNodeForPackage(this.getClass());
+        try {
+            setSpaceType(SpaceType.valueOf(pref.get("spaceType", SpaceType.AUTOMATIC.name())));
+        } catch(IllegalArgumentException e) {
+            setSpaceType(SpaceType.AUTOMATIC);
+        }
+    }
+
+    public void savePrefs() {
+        Preferences pref = Preferences.userNodeForPackage(this.getClass());
+        pref.put("spaceType", spaceType.name());
+    }
+
+    /**
+     * @return the timing of the most recent steps.
+     */
+    public PhysicsStats getStats() {
+        return stats;
+    }
+
     public DWorld getODEWorld() {
         return world;
     }
@@ -116,14 +254,22 @@ public class ODEPhysics {
     }
 
     public void update(double dt) {
-        if(isPaused) return;
-
-        try {
-            OdeHelper.spaceCollide(getODESpace(), null, this::nearCallback);
-            if(dt>0) world.quickStep(dt);  // advance the simulation.  reportedly better than using step().
-            contactGroup.empty();
-        } catch(Exception e) {
-            logger.error("update failed.", e);
+        synchronized (lock) {
+            applySpaceType();
+            if(isPaused) return;
+
+            try {
+                long t0 = System.nanoTime();
+                OdeHelper.spaceCollide(getODESpace(), null, this::nearCallback);
+                long t1 = System.nanoTime();
+                if(dt>0) world.quickStep(dt);  // advance the simulation.  reportedly better than using step().
+                long t2 = System.nanoTime();
+                stats.addCollide(t1-t0);
+                stats.addSolver(t2-t1);
+                contactGroup.empty();
+            } catch(Exception e) {
+                logger.error("update failed.", e);
+            }
         }
     }
 
@@ -134,19 +280,28 @@ public class ODEPhysics {
      * @param o2 the second object
      */
     private void nearCallback(Object data, DGeom o1, DGeom o2) {
+        long start = System.nanoTime();
+        int n = 0;
         try {
-            int n = OdeHelper.collide(o1, o2, CONTACT_BUFFER_SIZE, contacts.getGeomBuffer());
+            Material m1 = getSurface(o1);
+            Material m2 = getSurface(o2);
+            int maxContacts = Math.min(CONTACT_BUFFER_SIZE, Math.min(m1.getMaxContacts(), m2.getMaxContacts()));
+            int mode = dContactSlip1 | dContactSlip2 | dContactSoftERP | dContactSoftCFM | dContactApprox1;
+            double bounce = Math.max(m1.getBounce(), m2.getBounce());
+            if(bounce>0) mode |= dContactBounce;
+
+            n = OdeHelper.collide(o1, o2, maxContacts, contacts.getGeomBuffer());
             for (int i = 0; i < n; ++i) {
                 DContact contact = contacts.get(i);
-                contact.surface.mode = dContactSlip1 | dContactSlip2 | dContactSoftERP | dContactSoftCFM | dContactApprox1;
+                contact.surface.mode = mode;
 
-                contact.surface.mu = 0.5;  // friction
-                contact.surface.slip1 = 0.0;  // how much the contact surfaces can slide
-                contact.surface.slip2 = 0.0;  // how much the contact surfaces can slide
-                contact.surface.soft_erp = 0.8;  // how spongy the contact is
-                contact.surface.soft_cfm = 0.001;  // how soft to make the contact
-                contact.surface.bounce = 0.9;  // how much the contact surfaces can bounce
-                contact.surface.bounce_vel = 0.5;  // how fast the contact surfaces can bounce
+                contact.surface.mu = Math.sqrt(m1.getFriction() * m2.getFriction());  // friction
+                contact.surface.slip1 = Math.max(m1.getSlip(), m2.getSlip());  // how much the contact surfaces can slide
+                contact.surface.slip2 = contact.surface.slip1;
+                contact.surface.soft_erp = Math.min(m1.getSoftERP(), m2.getSoftERP());  // how spongy the contact is
+                contact.surface.soft_cfm = Math.max(m1.getSoftCFM(), m2.getSoftCFM());  // how soft to make the contact
+                contact.surface.bounce = bounce;  // how much the contact surfaces can bounce
+                contact.surface.bounce_vel = Math.min(m1.getBounceVelocity(), m2.getBounceVelocity());  // the slowest speed that can bounce
 
                 DJoint contactJoint = OdeHelper.createContactJoint(world, contactGroup, contact);
                 contactJoint.attach(o1.getBody(), o2.getBody());
@@ -158,6 +313,19 @@ public class ODEPhysics {
         } catch (Exception e) {
             logger.error("collision failed.", e);
         }
+        stats.addPair(System.nanoTime()-start, n);
+    }
+
+    /**
+     * @param geom a geom in the space
+     * @return the first {@link Material} child of the node that made the geom, or {@link #DEFAULT_SURFACE}.
+     */
+    private Material getSurface(DGeom geom) {
+        if(geom.getData() instanceof Node node) {
+            Material found = node.findFirstChild(Material.class);
+            if(found!=null) return found;
+        }
+        return DEFAULT_SURFACE;
     }
 
     /**
@@ -170,6 +338,66 @@ public class ODEPhysics {
         for(CollisionListener listener : listeners.getListeners(CollisionListener.class)) {
             listener.onCollision(g1,g2,contact);
         }
+
+        CollisionListener owner1 = getCollisionOwner(bodies.get(g1));
+        CollisionListener owner2 = getCollisionOwner(bodies.get(g2));
+        if(owner1!=null) owner1.onCollision(g1,g2,contact);
+        if(owner2!=null && owner2!=owner1) owner2.onCollision(g1,g2,contact);
+    }
+
+    /**
+     * Remember the geom of a body so that collisions can find it.  Called by {@link ODEBody} when it is attached.
+     * @param body the body
+     */
+    public void addBody(ODEBody body) {
+        synchronized (lock) {
+            if(body.getGeom()!=null) bodies.put(body.getGeom(), body);
+        }
+    }
+
+    /**
+     * Forget the geom and the owner of a body.  Called by {@link ODEBody} when it is detached.
+     * @param body the body
+     */
+    public void removeBody(ODEBody body) {
+        synchronized (lock) {
+            if(body.getGeom()!=null) bodies.remove(body.getGeom());
+            owners.remove(body);
+        }
+    }
+
+    /**
+     * @param geom a geom in the space
+     * @return the attached {@link ODEBody} that made the geom, or null.
+     */
+    public ODEBody getBody(DGeom geom) {
+        synchronized (lock) {
+            return bodies.get(geom);
+        }
+    }
+
+    /**
+     * Send the contacts of one body to one listener.  The listener does not have to be added with
+     * {@link #addCollisionListener(CollisionListener)}.
+     * @param body the body
+     * @param owner the listener, or null to stop.
+     */
+    public void setCollisionOwner(ODEBody body, CollisionListener owner) {
+        synchronized (lock) {
+            if(owner==null) owners.remove(body);
+            else owners.put(body, owner);
+        }
+    }
+
+    /**
+     * @param body the body, or null
+     * @return the listener that owns the contacts of the body, or null.
+     */
+    public CollisionListener getCollisionOwner(ODEBody body) {
+        if(body==null) return null;
+        synchronized (lock) {
+            return owners.get(body);
+        }
     }
 
     /**
@@ -233,7 +461,8 @@ public class ODEPhysics {
         toScan.add(created);
         while(!toScan.isEmpty()) {
             Node n = toScan.remove();
-            toScan.addAll(n.getChildren());
+            // joints in children that are still in a file connect when they are made.
+            if(!n.hasPendingChildren()) toScan.addAll(n.getChildren());
             if(n instanceof ODEJoint j) {
                 j.setPartA(j.getPartA().getSubject());
                 j.setPartB(j.getPartB().getSubject());
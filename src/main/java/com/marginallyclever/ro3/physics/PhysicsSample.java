@@ -0,0 +1,28 @@
+package com.marginallyclever.ro3.physics;
+
+/**
+ * The cost of one simulation step, as measured by {@link PhysicsStats}.  Times are in nanoseconds.
+ * @param step the number of the step, counting from zero.
+ * @param broadphaseNanos time spent finding pairs of geoms that might touch, not counting the narrowphase.
+ * @param narrowphaseNanos time spent making contacts for each pair.
+ * @param pairs the number of pairs tested by the narrowphase.
+ * @param contacts the number of contact joints created.
+ * @param solverNanos time spent in the world solver.
+ * @param poseSyncNanos time spent copying body positions back to their nodes.
+ * @param nodeUpdateNanos time spent updating the scene, not counting the pose sync.
+ */
+public record PhysicsSample(long step,
+                            long broadphaseNanos,
+                            long narrowphaseNanos,
+                            int pairs,
+                            int contacts,
+                            long solverNanos,
+                            long poseSyncNanos,
+                            long nodeUpdateNanos) {
+    /**
+     * @return the total measured time of the step, in nanoseconds.
+     */
+    public long totalNanos() {
+        return broadphaseNanos + narrowphaseNanos + solverNanos + poseSyncNanos + nodeUpdateNanos;
+    }
+}
@@ -0,0 +1,149 @@
+package com.marginallyclever.ro3.physics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>{@link PhysicsStats} measures where the time goes in each simulation step.  {@link ODEPhysics} and the nodes it
+ * moves add to the counters of the step in progress.  {@link #endStep(long)} closes the step and keeps it as a
+ * {@link PhysicsSample} in a ring buffer of the most recent steps.</p>
+ * <p>The counters are written by the simulation thread only.  The samples can be read from any thread.</p>
+ */
+public class PhysicsStats {
+    public static final int DEFAULT_CAPACITY = 600;
+
+    private final PhysicsSample [] ring;
+    // the index of the next sample to write.
+    private int head = 0;
+    private int size = 0;
+    private long stepCount = 0;
+    private volatile boolean enabled = true;
+
+    // the step in progress.
+    private long collideNanos;
+    private long narrowphaseNanos;
+    private int pairs;
+    private int contacts;
+    private long solverNanos;
+    private long poseSyncNanos;
+
+    public PhysicsStats() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of steps to keep.  Must be at least one.
+     */
+    public PhysicsStats(int capacity) {
+        if(capacity<1) throw new IllegalArgumentException("Capacity must be at least one.");
+        ring = new PhysicsSample[capacity];
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled when false no samples are kept.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param nanos time spent in the whole space collide, including the narrowphase.
+     */
+    void addCollide(long nanos) {
+        collideNanos += nanos;
+    }
+
+    /**
+     * @param nanos time spent testing one pair.
+     * @param contactsMade the number of contacts made by the pair.
+     */
+    void addPair(long nanos,int contactsMade) {
+        narrowphaseNanos += nanos;
+        pairs++;
+        contacts += contactsMade;
+    }
+
+    void addSolver(long nanos) {
+        solverNanos += nanos;
+    }
+
+    /**
+     * @param nanos time spent copying one body back to its node.
+     */
+    public void addPoseSync(long nanos) {
+        poseSyncNanos += nanos;
+    }
+
+    /**
+     * Close the step in progress and keep it.
+     * @param sceneNanos time spent updating the scene, including the pose sync.
+     */
+    public void endStep(long sceneNanos) {
+        if(enabled) {
+            PhysicsSample sample = new PhysicsSample(stepCount,
+                    Math.max(0, collideNanos - narrowphaseNanos),
+                    narrowphaseNanos,
+                    pairs,
+                    contacts,
+                    solverNanos,
+                    poseSyncNanos,
+                    Math.max(0, sceneNanos - poseSyncNanos));
+            synchronized (ring) {
+                ring[head] = sample;
+                head = (head + 1) % ring.length;
+                size = Math.min(size + 1, ring.length);
+            }
+        }
+        stepCount++;
+        resetCounters();
+    }
+
+    /**
+     * @return the kept samples, oldest first.
+     */
+    public List<PhysicsSample> getSamples() {
+        synchronized (ring) {
+            List<PhysicsSample> list = new ArrayList<>(size);
+            int start = (head - size + ring.length) % ring.length;
+            for(int i=0;i<size;++i) list.add(ring[(start + i) % ring.length]);
+            return list;
+        }
+    }
+
+    /**
+     * @return the most recent sample, or null if there are none.
+     */
+    public PhysicsSample getLatest() {
+        synchronized (ring) {
+            return size==0 ? null : ring[(head - 1 + ring.length) % ring.length];
+        }
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Forget all samples and the step in progress.
+     */
+    public void clear() {
+        synchronized (ring) {
+            head = 0;
+            size = 0;
+        }
+        resetCounters();
+    }
+
+    private void resetCounters() {
+        collideNanos = 0;
+        narrowphaseNanos = 0;
+        pairs = 0;
+        contacts = 0;
+        solverNanos = 0;
+        poseSyncNanos = 0;
+    }
+}
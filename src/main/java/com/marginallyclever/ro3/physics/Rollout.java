@@ -0,0 +1,92 @@
+package com.marginallyclever.ro3.physics;
+
+import com.marginallyclever.ro3.node.Node;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * <p>{@link Rollout} describes one kind of episode for a {@link RolloutPool}: which nodes to copy into each physics
+ * world, how long to run, and how to score the result.</p>
+ * <p>The templates are copied when the {@link Rollout} is made, so the originals can keep changing while episodes
+ * run.</p>
+ */
+public class Rollout {
+    private final List<JSONObject> templates = new ArrayList<>();
+    private double timeStep = 1.0/60.0;
+    private int steps = 600;
+    private BiConsumer<Integer,Node> setup = (episode,root) -> {};
+    private Predicate<Node> stopCondition = root -> false;
+    private ToDoubleFunction<Node> fitness = root -> 0;
+
+    /**
+     * @param templates the nodes to copy into each world, such as a floor and a creature.
+     */
+    public Rollout(List<? extends Node> templates) {
+        for(Node n : templates) this.templates.add(n.toJSON());
+    }
+
+    List<JSONObject> getTemplates() {
+        return templates;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    public void setTimeStep(double timeStep) {
+        if(timeStep<=0) throw new IllegalArgumentException("Time step must be greater than zero.");
+        this.timeStep = timeStep;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @param steps the most steps in one episode.
+     */
+    public void setSteps(int steps) {
+        if(steps<1) throw new IllegalArgumentException("Steps must be at least one.");
+        this.steps = steps;
+    }
+
+    BiConsumer<Integer,Node> getSetup() {
+        return setup;
+    }
+
+    /**
+     * @param setup called on the worker thread after the copies are made and before the first step, with the
+     *              episode number and the root of the episode.  Use it to give each episode its own brain.
+     */
+    public void setSetup(BiConsumer<Integer,Node> setup) {
+        this.setup = setup;
+    }
+
+    Predicate<Node> getStopCondition() {
+        return stopCondition;
+    }
+
+    /**
+     * @param stopCondition checked after every step with the root of the episode.  The episode ends early when it
+     *                      returns true.
+     */
+    public void setStopCondition(Predicate<Node> stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    ToDoubleFunction<Node> getFitness() {
+        return fitness;
+    }
+
+    /**
+     * @param fitness called on the worker thread at the end of each episode with the root of the episode.
+     */
+    public void setFitness(ToDoubleFunction<Node> fitness) {
+        this.fitness = fitness;
+    }
+}
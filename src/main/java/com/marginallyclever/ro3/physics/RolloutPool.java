@@ -0,0 +1,153 @@
+package com.marginallyclever.ro3.physics;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.Node;
+import org.json.JSONObject;
+import org.ode4j.ode.DContact;
+import org.ode4j.ode.DGeom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>{@link RolloutPool} runs many physics episodes at once, one per core.  Each episode gets its own
+ * {@link ODEPhysics} with its own world, space, and contact buffer, and its own copy of the nodes in a
+ * {@link Rollout}.  This is meant for evolving {@link com.marginallyclever.ro3.node.nodes.odenode.CreatureController}
+ * brains, which needs thousands of episodes.</p>
+ * <p>While an episode runs, {@link Registry#getPhysics()} returns the episode's physics on the worker thread.  The
+ * physics of the scene is not touched.</p>
+ */
+public class RolloutPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RolloutPool.class);
+    // ODE4J global setup is not safe to run on many threads at once.
+    private static final Object ODE_INIT_LOCK = new Object();
+
+    private final ExecutorService executor;
+
+    public RolloutPool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads the number of episodes to run at once.
+     */
+    public RolloutPool(int threads) {
+        executor = Executors.newFixedThreadPool(Math.max(1,threads), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r,"Rollout-"+count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Start one episode in the background.
+     * @param rollout what to simulate
+     * @param episode the episode number, passed to the setup and returned in the result.
+     * @return the result of the episode when it finishes.
+     */
+    public CompletableFuture<RolloutResult> submit(Rollout rollout, int episode) {
+        return CompletableFuture.supplyAsync(() -> runEpisode(rollout,episode),executor);
+    }
+
+    /**
+     * Run many episodes and wait for all of them.
+     * @param rollout what to simulate
+     * @param episodes the number of episodes
+     * @return one result per episode, in episode order.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws ExecutionException if any episode fails.
+     */
+    public List<RolloutResult> run(Rollout rollout, int episodes) throws InterruptedException, ExecutionException {
+        List<CompletableFuture<RolloutResult>> futures = new ArrayList<>();
+        for(int i=0;i<episodes;++i) futures.add(submit(rollout,i));
+        List<RolloutResult> results = new ArrayList<>();
+        for(var f : futures) results.add(f.get());
+        return results;
+    }
+
+    private RolloutResult runEpisode(Rollout rollout, int episode) {
+        long start = System.nanoTime();
+        ODEPhysics physics = new ODEPhysics();
+        ContactCounter counter = new ContactCounter();
+        Registry.setThreadPhysics(physics);
+        Node root = new Node("Rollout "+episode);
+        try {
+            // ode4j keeps no data per thread, so there is nothing to allocate here or free when the episode ends.
+            synchronized (ODE_INIT_LOCK) {
+                // starts paused.
+                physics.reset();
+            }
+            physics.addCollisionListener(counter);
+
+            for(JSONObject json : rollout.getTemplates()) {
+                Node copy = Registry.nodeFactory.create(json.getString("type"));
+                copy.fromJSON(json);
+                root.addChild(copy);
+            }
+            physics.deferredAction(root);
+            rollout.getSetup().accept(episode,root);
+            // let every ODE node set itself up before physics starts.
+            root.update(0);
+            physics.setPaused(false);
+
+            double dt = rollout.getTimeStep();
+            int steps = 0;
+            while(steps < rollout.getSteps()) {
+                physics.update(dt);
+                root.update(dt);
+                counter.endStep();
+                steps++;
+                if(rollout.getStopCondition().test(root)) break;
+            }
+            double fitness = rollout.getFitness().applyAsDouble(root);
+            return new RolloutResult(episode,fitness,steps,steps*dt,
+                    counter.contacts,counter.stepsWithContact,counter.maxContactsPerStep,
+                    (System.nanoTime()-start)/1e9);
+        } finally {
+            // detaching destroys the ODE bodies, geoms, and joints.
+            for(Node child : new ArrayList<>(root.getChildren())) root.removeChild(child);
+            physics.removeCollisionListener(counter);
+            physics.dispose();
+            Registry.setThreadPhysics(null);
+        }
+    }
+
+    /**
+     * Stop accepting episodes.  Episodes already started will finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Counts the contacts reported by one {@link ODEPhysics}.
+     */
+    private static class ContactCounter implements CollisionListener {
+        private long contacts;
+        private int stepsWithContact;
+        private int maxContactsPerStep;
+        private int thisStep;
+
+        @Override
+        public void onCollision(DGeom g1, DGeom g2, DContact contact) {
+            thisStep++;
+        }
+
+        void endStep() {
+            contacts += thisStep;
+            if(thisStep>0) stepsWithContact++;
+            maxContactsPerStep = Math.max(maxContactsPerStep,thisStep);
+            thisStep = 0;
+        }
+    }
+}
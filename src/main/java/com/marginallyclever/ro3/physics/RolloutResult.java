@@ -0,0 +1,21 @@
+package com.marginallyclever.ro3.physics;
+
+/**
+ * The outcome of one episode run by a {@link RolloutPool}.
+ * @param episode the episode number
+ * @param fitness the score from {@link Rollout#setFitness(java.util.function.ToDoubleFunction)}
+ * @param steps the number of steps taken
+ * @param simulatedTime the simulated time in seconds
+ * @param contacts the total number of contacts over all steps
+ * @param stepsWithContact the number of steps with at least one contact
+ * @param maxContactsPerStep the most contacts in a single step
+ * @param wallTime the time to run the episode, in seconds
+ */
+public record RolloutResult(int episode,
+                            double fitness,
+                            int steps,
+                            double simulatedTime,
+                            long contacts,
+                            int stepsWithContact,
+                            int maxContactsPerStep,
+                            double wallTime) {}
@@ -0,0 +1,435 @@
+package com.marginallyclever.ro3.raypicking;
+
+import com.marginallyclever.convenience.Ray;
+import com.marginallyclever.ro3.mesh.AABB;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.NodeAttachListener;
+import com.marginallyclever.ro3.node.NodeDetachListener;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import com.marginallyclever.ro3.node.nodes.pose.PoseChangeListener;
+import com.marginallyclever.ro3.node.nodes.pose.poses.MeshInstance;
+
+import javax.vecmath.Matrix4d;
+import javax.vecmath.Point3d;
+import javax.vecmath.Vector3d;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.*;
+
+/**
+ * <p>{@link RayPickIndex} is a bounding volume hierarchy over the world-space bounding boxes of every
+ * {@link MeshInstance} in a tree of {@link Node}s.  It answers nearest-hit and any-hit ray queries without walking
+ * the whole scene.</p>
+ * <p>The index listens to attach and detach events on every node in the tree, to {@link PoseChangeListener} events
+ * on every {@link MeshInstance}, and to mesh changes.  Any of these marks the index dirty and it is rebuilt on the
+ * next query.  Queries may come from many threads at once.</p>
+ * <p>Children that have not yet been read from a file are not made by the index.  They join it when they are
+ * attached.</p>
+ */
+public class RayPickIndex implements NodeAttachListener, NodeDetachListener, PoseChangeListener, PropertyChangeListener {
+    /**
+     * Hits closer than this are ignored to handle rays that start on the surface of a mesh ("shadow acne").
+     */
+    public static final double MINIMUM_DISTANCE = 1e-9;
+    private static final int MAX_INSTANCES_PER_LEAF = 2;
+
+    private Node root;
+    private final Set<MeshInstance> instances = new LinkedHashSet<>();
+    private volatile boolean isDirty = true;
+    private volatile Tree tree = new Tree(new MeshInstance[0], new double[0]);
+
+    public RayPickIndex() {
+        super();
+    }
+
+    /**
+     * Start watching a new tree.  Does nothing if the root has not changed.
+     * @param newRoot the root of the tree to index.  may be null.
+     */
+    public synchronized void setRoot(Node newRoot) {
+        if(root == newRoot) return;
+        if(root != null) stopListeningTo(root);
+        instances.clear();
+        root = newRoot;
+        if(root != null) listenTo(root);
+        isDirty = true;
+    }
+
+    public synchronized Node getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the number of {@link MeshInstance}s in the index.
+     */
+    public synchronized int size() {
+        return instances.size();
+    }
+
+    private void listenTo(Node node) {
+        List<Node> toScan = new ArrayList<>();
+        toScan.add(node);
+        while(!toScan.isEmpty()) {
+            Node n = toScan.remove(toScan.size()-1);
+            n.addAttachListener(this);
+            n.addDetachListener(this);
+            if(n instanceof MeshInstance meshInstance) {
+                meshInstance.addPoseChangeListener(this);
+                meshInstance.addPropertyChangedListener(this);
+                instances.add(meshInstance);
+            }
+            // children still in the file are indexed when they are attached.
+            if(!n.hasPendingChildren()) toScan.addAll(n.getChildren());
+        }
+    }
+
+    private void stopListeningTo(Node node) {
+        List<Node> toScan = new ArrayList<>();
+        toScan.add(node);
+        while(!toScan.isEmpty()) {
+            Node n = toScan.remove(toScan.size()-1);
+            n.removeAttachListener(this);
+            n.removeDetachListener(this);
+            if(n instanceof MeshInstance meshInstance) {
+                meshInstance.removePoseChangeListener(this);
+                meshInstance.removePropertyChangedListener(this);
+                instances.remove(meshInstance);
+            }
+            if(!n.hasPendingChildren()) toScan.addAll(n.getChildren());
+        }
+    }
+
+    @Override
+    public synchronized void nodeAttached(Node child) {
+        listenTo(child);
+        isDirty = true;
+    }
+
+    @Override
+    public synchronized void nodeDetached(Node child) {
+        stopListeningTo(child);
+        isDirty = true;
+    }
+
+    @Override
+    public void onPoseChange(Pose pose) {
+        isDirty = true;
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        isDirty = true;
+    }
+
+    /**
+     * Rebuild the hierarchy if anything has changed since the last query.
+     * @return the current hierarchy.
+     */
+    private Tree getTree() {
+        if(isDirty) {
+            synchronized (this) {
+                if(isDirty) {
+                    // clear first so that changes during the build are not lost.
+                    isDirty = false;
+                    tree = buildTree();
+                }
+            }
+        }
+        return tree;
+    }
+
+    private Tree buildTree() {
+        List<MeshInstance> list = new ArrayList<>();
+        List<double[]> boxes = new ArrayList<>();
+        for(MeshInstance meshInstance : instances) {
+            if(meshInstance.getMesh()==null) continue;
+            list.add(meshInstance);
+            boxes.add(getWorldBounds(meshInstance));
+        }
+        double [] bounds = new double[list.size()*6];
+        for(int i=0;i<list.size();++i) {
+            System.arraycopy(boxes.get(i),0,bounds,i*6,6);
+        }
+        return new Tree(list.toArray(new MeshInstance[0]),bounds);
+    }
+
+    /**
+     * @param meshInstance the instance to measure
+     * @return min xyz, max xyz of the mesh bounding box transformed into world space.
+     */
+    private double [] getWorldBounds(MeshInstance meshInstance) {
+        AABB box = meshInstance.getMesh().getBoundingBox();
+        Point3d top = box.getBoundsTop();
+        Point3d bottom = box.getBoundsBottom();
+        Matrix4d world = meshInstance.getWorld();
+
+        double [] result = {
+                Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE,
+                -Double.MAX_VALUE,-Double.MAX_VALUE,-Double.MAX_VALUE};
+        Point3d p = new Point3d();
+        for(int i=0;i<8;++i) {
+            p.set( (i&1)==0 ? bottom.x : top.x,
+                   (i&2)==0 ? bottom.y : top.y,
+                   (i&4)==0 ? bottom.z : top.z);
+            world.transform(p);
+            result[0] = Math.min(result[0],p.x);
+            result[1] = Math.min(result[1],p.y);
+            result[2] = Math.min(result[2],p.z);
+            result[3] = Math.max(result[3],p.x);
+            result[4] = Math.max(result[4],p.y);
+            result[5] = Math.max(result[5],p.z);
+        }
+        // a little padding so flat meshes still have volume.
+        for(int i=0;i<3;++i) {
+            result[i  ] -= 1e-6;
+            result[i+3] += 1e-6;
+        }
+        return result;
+    }
+
+    /**
+     * Find the nearest {@link MeshInstance} hit by the ray.  Boxes further away than the best hit so far are skipped.
+     * @param ray the ray in world space.
+     * @return the nearest hit, or null if nothing was hit.
+     */
+    public RayHit getFirstHit(Ray ray) {
+        return getTree().getFirstHit(ray);
+    }
+
+    /**
+     * Find any {@link MeshInstance} hit by the ray closer than {@link Ray#getMaxDistance()}.  Stops at the first hit
+     * found, which makes it suitable for shadow rays.
+     * @param ray the ray in world space.
+     * @return true if anything was hit.
+     */
+    public boolean anyHit(Ray ray) {
+        return getTree().anyHit(ray);
+    }
+
+    /**
+     * Find every {@link MeshInstance} hit by the ray.
+     * @param ray the ray in world space.
+     * @return all hits, in no particular order.  It may be an empty list.
+     */
+    public List<RayHit> findRayIntersections(Ray ray) {
+        return getTree().findRayIntersections(ray);
+    }
+
+    /**
+     * An immutable snapshot of the hierarchy.  Nodes are stored in flat arrays.
+     */
+    private static class Tree {
+        private final MeshInstance [] items;
+        private final double [] itemBounds;
+        private final int [] order;
+        private final double [] nodeBounds;
+        private final int [] nodeStart;
+        private final int [] nodeCount;
+        private int nodesUsed;
+        private int maxDepth;
+
+        Tree(MeshInstance [] items,double [] itemBounds) {
+            this.items = items;
+            this.itemBounds = itemBounds;
+            int n = items.length;
+            order = new int[n];
+            for(int i=0;i<n;++i) order[i]=i;
+
+            int maxNodes = Math.max(1,n*2);
+            nodeBounds = new double[maxNodes*6];
+            nodeStart = new int[maxNodes];
+            nodeCount = new int[maxNodes];
+            nodesUsed = 1;
+            nodeStart[0] = 0;
+            nodeCount[0] = n;
+            if(n>0) {
+                updateNodeBounds(0);
+                subdivide(0, 1);
+            }
+        }
+
+        private double center(int item,int axis) {
+            return (itemBounds[item*6+axis]+itemBounds[item*6+axis+3])*0.5;
+        }
+
+        private void updateNodeBounds(int node) {
+            int b = node*6;
+            for(int a=0;a<3;++a) {
+                nodeBounds[b+a] = Double.MAX_VALUE;
+                nodeBounds[b+a+3] = -Double.MAX_VALUE;
+            }
+            for(int i=nodeStart[node];i<nodeStart[node]+nodeCount[node];++i) {
+                int k = order[i]*6;
+                for(int a=0;a<3;++a) {
+                    nodeBounds[b+a] = Math.min(nodeBounds[b+a],itemBounds[k+a]);
+                    nodeBounds[b+a+3] = Math.max(nodeBounds[b+a+3],itemBounds[k+a+3]);
+                }
+            }
+        }
+
+        private void subdivide(int node,int depth) {
+            maxDepth = Math.max(maxDepth,depth);
+            int first = nodeStart[node];
+            int count = nodeCount[node];
+            if(count<=MAX_INSTANCES_PER_LEAF) return;
+
+            double [] cMin = {Double.MAX_VALUE,Double.MAX_VALUE,Double.MAX_VALUE};
+            double [] cMax = {-Double.MAX_VALUE,-Double.MAX_VALUE,-Double.MAX_VALUE};
+            for(int i=first;i<first+count;++i) {
+                for(int a=0;a<3;++a) {
+                    double c = center(order[i],a);
+                    cMin[a] = Math.min(cMin[a],c);
+                    cMax[a] = Math.max(cMax[a],c);
+                }
+            }
+            int axis=0;
+            if(cMax[1]-cMin[1] > cMax[axis]-cMin[axis]) axis=1;
+            if(cMax[2]-cMin[2] > cMax[axis]-cMin[axis]) axis=2;
+            double split = (cMin[axis]+cMax[axis])*0.5;
+
+            int i = first;
+            int j = first+count-1;
+            while(i<=j) {
+                if(center(order[i],axis) < split) {
+                    i++;
+                } else {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j--] = t;
+                }
+            }
+            int leftCount = i-first;
+            if(leftCount==0 || leftCount==count) leftCount = count/2;
+
+            int left = nodesUsed;
+            nodesUsed += 2;
+            nodeStart[left] = first;
+            nodeCount[left] = leftCount;
+            nodeStart[left+1] = first+leftCount;
+            nodeCount[left+1] = count-leftCount;
+            nodeStart[node] = left;
+            nodeCount[node] = 0;
+            updateNodeBounds(left);
+            updateNodeBounds(left+1);
+            subdivide(left,depth+1);
+            subdivide(left+1,depth+1);
+        }
+
+        /**
+         * @return the distance to the entry point of the node bounds, or Double.MAX_VALUE if the ray misses.
+         */
+        private double rayBoxDistance(int node,Point3d o,double ix,double iy,double iz) {
+            int b = node*6;
+            double t1 = (nodeBounds[b  ]-o.x)*ix;
+            double t2 = (nodeBounds[b+3]-o.x)*ix;
+            double tmin = Math.min(t1,t2);
+            double tmax = Math.max(t1,t2);
+            t1 = (nodeBounds[b+1]-o.y)*iy;
+            t2 = (nodeBounds[b+4]-o.y)*iy;
+            tmin = Math.max(tmin,Math.min(t1,t2));
+            tmax = Math.min(tmax,Math.max(t1,t2));
+            t1 = (nodeBounds[b+2]-o.z)*iz;
+            t2 = (nodeBounds[b+5]-o.z)*iz;
+            tmin = Math.max(tmin,Math.min(t1,t2));
+            tmax = Math.min(tmax,Math.max(t1,t2));
+            if(Double.isNaN(tmin) || Double.isNaN(tmax)) return 0;
+            if(tmax<tmin || tmax<0) return Double.MAX_VALUE;
+            return Math.max(tmin,0);
+        }
+
+        RayHit getFirstHit(Ray ray) {
+            if(items.length==0) return null;
+            Point3d o = ray.getOrigin();
+            Vector3d d = ray.getDirection();
+            double ix = 1.0/d.x, iy = 1.0/d.y, iz = 1.0/d.z;
+
+            RayHit best = null;
+            double nearest = ray.getMaxDistance();
+            int [] stack = new int[maxDepth+1];
+            int top = 0;
+            stack[top++] = 0;
+            while(top>0) {
+                int node = stack[--top];
+                if(rayBoxDistance(node,o,ix,iy,iz) >= nearest) continue;
+                int count = nodeCount[node];
+                if(count>0) {
+                    for(int i=nodeStart[node];i<nodeStart[node]+count;++i) {
+                        RayHit hit = items[order[i]].intersect(ray);
+                        if(hit!=null && hit.distance() >= MINIMUM_DISTANCE && hit.distance() < nearest) {
+                            nearest = hit.distance();
+                            best = hit;
+                        }
+                    }
+                } else {
+                    // visit the nearer child first so the far child can be skipped.
+                    int left = nodeStart[node];
+                    double dl = rayBoxDistance(left  ,o,ix,iy,iz);
+                    double dr = rayBoxDistance(left+1,o,ix,iy,iz);
+                    if(dl<dr) {
+                        if(dr<nearest) stack[top++] = left+1;
+                        if(dl<nearest) stack[top++] = left;
+                    } else {
+                        if(dl<nearest) stack[top++] = left;
+                        if(dr<nearest) stack[top++] = left+1;
+                    }
+                }
+            }
+            return best;
+        }
+
+        boolean anyHit(Ray ray) {
+            if(items.length==0) return false;
+            Point3d o = ray.getOrigin();
+            Vector3d d = ray.getDirection();
+            double ix = 1.0/d.x, iy = 1.0/d.y, iz = 1.0/d.z;
+            double limit = ray.getMaxDistance();
+
+            int [] stack = new int[maxDepth+1];
+            int top = 0;
+            stack[top++] = 0;
+            while(top>0) {
+                int node = stack[--top];
+                if(rayBoxDistance(node,o,ix,iy,iz) >= limit) continue;
+                int count = nodeCount[node];
+                if(count>0) {
+                    for(int i=nodeStart[node];i<nodeStart[node]+count;++i) {
+                        RayHit hit = items[order[i]].intersect(ray);
+                        if(hit!=null && hit.distance() >= MINIMUM_DISTANCE && hit.distance() < limit) return true;
+                    }
+                } else {
+                    stack[top++] = nodeStart[node];
+                    stack[top++] = nodeStart[node]+1;
+                }
+            }
+            return false;
+        }
+
+        List<RayHit> findRayIntersections(Ray ray) {
+            List<RayHit> rayHits = new ArrayList<>();
+            if(items.length==0) return rayHits;
+            Point3d o = ray.getOrigin();
+            Vector3d d = ray.getDirection();
+            double ix = 1.0/d.x, iy = 1.0/d.y, iz = 1.0/d.z;
+            double limit = ray.getMaxDistance();
+
+            int [] stack = new int[maxDepth+1];
+            int top = 0;
+            stack[top++] = 0;
+            while(top>0) {
+                int node = stack[--top];
+                if(rayBoxDistance(node,o,ix,iy,iz) >= limit) continue;
+                int count = nodeCount[node];
+                if(count>0) {
+                    for(int i=nodeStart[node];i<nodeStart[node]+count;++i) {
+                        RayHit hit = items[order[i]].intersect(ray);
+                        if(hit!=null) rayHits.add(hit);
+                    }
+                } else {
+                    stack[top++] = nodeStart[node];
+                    stack[top++] = nodeStart[node]+1;
+                }
+            }
+            return rayHits;
+        }
+    }
+}
@@ -10,7 +10,8 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 
 /**
- * A system for finding the nearest {@link MeshInstance} that collides with a ray.
+ * A system for finding the nearest {@link MeshInstance} that collides with a ray.  Queries go through the
+ * {@link RayPickIndex} of the current scene.
  */
 public class RayPickSystem {
     private static final Logger logger = LoggerFactory.getLogger(RayPickSystem.class);
@@ -20,35 +21,45 @@ public class RayPickSystem {
     }
 
     /**
-     * Traverse the scene Entities and find the nearest {@link MeshInstance} that collides with the ray.
-     * This computes all intersections and then sorts them by distance, so it is a good idea to keey the ray length
-     * short.
+     * Find the nearest {@link MeshInstance} that collides with the ray.  Instances further away than the best hit so
+     * far are never tested.
      * @param ray the ray to test.
      * @return the nearest {@link RayHit} by the ray, or null if no entity was hit.
      */
     public RayHit getFirstHit(Ray ray) {
-        //
-        List<RayHit> rayHits = findRayIntersections(ray);
-        if(rayHits.isEmpty()) return null;
-        rayHits.sort(Comparator.comparingDouble(RayHit::distance));
-        // handle the case where the ray starts inside the mesh ("shadow acne")
-        while(!rayHits.isEmpty() && rayHits.get(0).distance() < 1e-9) {
-            rayHits.remove(0);
-        }
-        if(rayHits.isEmpty()) return null;
-        return rayHits.get(0);
+        return Registry.getRayPickIndex().getFirstHit(ray);
+    }
+
+    /**
+     * Find if any {@link MeshInstance} is closer than {@link Ray#getMaxDistance()}.  Useful for shadow rays.
+     * @param ray the ray to test.
+     * @return true if anything was hit.
+     */
+    public boolean anyHit(Ray ray) {
+        return Registry.getRayPickIndex().anyHit(ray);
     }
 
     /**
-     * Traverse the scene {@link Node}s and find all the {@link MeshInstance}s that collide with the ray.
+     * Find all the {@link MeshInstance}s in the scene that collide with the ray.
      * @param ray the ray to test.
      * @return all {@link RayHit} by the ray.  It may be an empty list.
      */
     public List<RayHit> findRayIntersections(Ray ray) {
+        return Registry.getRayPickIndex().findRayIntersections(ray);
+    }
+
+    /**
+     * Traverse the scene {@link Node}s and find all the {@link MeshInstance}s that collide with the ray.  This is the
+     * slow way, kept for comparison with {@link RayPickIndex}.
+     * @param root the root of the tree to search.
+     * @param ray the ray to test.
+     * @return all {@link RayHit} by the ray.  It may be an empty list.
+     */
+    public static List<RayHit> findRayIntersectionsBruteForce(Node root,Ray ray) {
         List<RayHit> rayHits = new ArrayList<>();
 
         Queue<Node> toTest = new LinkedList<>();
-        toTest.add(Registry.getScene());
+        toTest.add(root);
         while(!toTest.isEmpty()) {
             Node node = toTest.remove();
             toTest.addAll(node.getChildren());
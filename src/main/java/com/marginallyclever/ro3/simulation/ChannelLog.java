@@ -0,0 +1,73 @@
+package com.marginallyclever.ro3.simulation;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * <p>{@link ChannelLog} writes one row of numbers per simulation step.  The first column is always the simulated
+ * time in seconds.</p>
+ * <p>Files ending in <code>.csv</code> are written as text with a header row.  Anything else is written as big endian
+ * binary: the int {@link #MAGIC}, the int column count, each column name as UTF, then each row as doubles.</p>
+ */
+public class ChannelLog implements Closeable {
+    public static final int MAGIC = 0x524f334c;  // "RO3L"
+
+    private final boolean binary;
+    private final Writer text;
+    private final DataOutputStream data;
+    private final StringBuilder line = new StringBuilder();
+
+    /**
+     * @param path the file to write
+     * @param columns the names of the columns after time
+     * @throws IOException if the file cannot be written.
+     */
+    public ChannelLog(Path path,List<String> columns) throws IOException {
+        binary = !path.getFileName().toString().toLowerCase().endsWith(".csv");
+        OutputStream stream = new BufferedOutputStream(Files.newOutputStream(path),65536);
+        if(binary) {
+            text = null;
+            data = new DataOutputStream(stream);
+            data.writeInt(MAGIC);
+            data.writeInt(columns.size()+1);
+            data.writeUTF("time");
+            for(String c : columns) data.writeUTF(c);
+        } else {
+            data = null;
+            text = new OutputStreamWriter(stream,StandardCharsets.UTF_8);
+            text.write("time");
+            for(String c : columns) {
+                text.write(',');
+                text.write(c);
+            }
+            text.write('\n');
+        }
+    }
+
+    /**
+     * @param time the simulated time in seconds
+     * @param values one value per column
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(double time,double [] values) throws IOException {
+        if(binary) {
+            data.writeDouble(time);
+            for(double v : values) data.writeDouble(v);
+        } else {
+            line.setLength(0);
+            line.append(time);
+            for(double v : values) line.append(',').append(v);
+            line.append('\n');
+            text.write(line.toString());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(binary) data.close();
+        else text.close();
+    }
+}
@@ -0,0 +1,20 @@
+package com.marginallyclever.ro3.simulation;
+
+/**
+ * A {@link SimulationClock} that jumps straight to any time it is asked to wait for, so the simulation runs as fast
+ * as the computer allows.
+ */
+public class FastClock implements SimulationClock {
+    private volatile long now = 0;
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public void waitUntil(long nanoTime) throws InterruptedException {
+        if(Thread.interrupted()) throw new InterruptedException();
+        if(nanoTime>now) now = nanoTime;
+    }
+}
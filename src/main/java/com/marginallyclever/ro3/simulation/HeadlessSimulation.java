@@ -0,0 +1,181 @@
+package com.marginallyclever.ro3.simulation;
+
+import com.marginallyclever.convenience.CommandLineOptions;
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.apps.actions.LoadScene;
+import com.marginallyclever.ro3.node.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <p>{@link HeadlessSimulation} loads a scene file and steps the physics and the scene as fast as the computer
+ * allows, without any user interface.  It is meant for batch jobs that evaluate robot programs or creature gaits.</p>
+ * <p>The run stops when the simulated time budget is spent or the stop condition is met.  The values of the chosen
+ * channels (see {@link SimulationChannel}) can be written to a {@link ChannelLog} after every step.</p>
+ * <p>Usage:</p>
+ * <pre>java -cp RobotOverlord.jar com.marginallyclever.ro3.simulation.HeadlessSimulation
+ *     --scene cell.ro [--time seconds] [--dt seconds] [--substeps n]
+ *     [--log out.csv] [--channels "/Scene/arm/j0,/Scene/arm/ee"] [--paused]</pre>
+ */
+public class HeadlessSimulation {
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessSimulation.class);
+
+    private File sceneFile;
+    private Path logFile;
+    private final List<String> channelPaths = new ArrayList<>();
+    // simulated seconds.
+    private double timeBudget = 10;
+    private double timeStep = SimulationScheduler.DEFAULT_TIME_STEP;
+    private int substeps = 1;
+    private boolean startPaused = false;
+    private BooleanSupplier stopCondition = () -> false;
+
+    private long stepsTaken;
+    private double simulatedTime;
+    private double wallTime;
+
+    public static void main(String[] args) {
+        CommandLineOptions options = new CommandLineOptions();
+        options.set(args);
+        if(!options.hasOption("--scene")) {
+            System.out.println("Usage: HeadlessSimulation --scene file [--time seconds] [--dt seconds]"
+                    +" [--substeps n] [--log file.csv|file.bin] [--channels path,path,...] [--paused]");
+            System.exit(1);
+        }
+
+        HeadlessSimulation job = new HeadlessSimulation();
+        job.setOptions(options);
+        try {
+            Registry.start();
+            job.run();
+        } catch(Exception e) {
+            logger.error("Simulation failed.",e);
+            System.exit(2);
+        }
+        System.exit(0);
+    }
+
+    public void setOptions(CommandLineOptions options) {
+        sceneFile = new File(options.getOption("--scene",""));
+        timeBudget = Double.parseDouble(options.getOption("--time",Double.toString(timeBudget)));
+        timeStep = Double.parseDouble(options.getOption("--dt",Double.toString(timeStep)));
+        substeps = Integer.parseInt(options.getOption("--substeps",Integer.toString(substeps)));
+        startPaused = options.hasOption("--paused");
+        String log = options.getOption("--log",null);
+        logFile = (log==null) ? null : Path.of(log);
+        String channels = options.getOption("--channels",null);
+        if(channels!=null) {
+            for(String c : channels.split(",")) {
+                if(!c.isBlank()) channelPaths.add(c.trim());
+            }
+        }
+    }
+
+    /**
+     * @param stopCondition checked after every step.  The run ends when it returns true.
+     */
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    /**
+     * Load the scene and simulate it.
+     * @throws IOException if the scene cannot be read or the log cannot be written.
+     * @throws InterruptedException if the thread is interrupted while waiting for meshes to load.
+     */
+    public void run() throws IOException, InterruptedException {
+        // the paths are resolved before the working directory changes.
+        sceneFile = sceneFile.getAbsoluteFile();
+        if(logFile!=null) logFile = logFile.toAbsolutePath();
+
+        new LoadScene(null,sceneFile.getAbsolutePath()).commitLoad(sceneFile);
+        // some nodes need their meshes, such as ODE bodies that size themselves to fit.
+        Registry.meshFactory.waitForLoads();
+        simulate(Registry.getScene());
+    }
+
+    /**
+     * Simulate a scene that is already loaded into the {@link Registry}.
+     * @param scene the root of the scene, used to find the channels
+     * @throws IOException if the log cannot be written.
+     */
+    public void simulate(Node scene) throws IOException {
+        List<SimulationChannel> channels = findChannels(scene);
+        List<String> columns = new ArrayList<>();
+        for(SimulationChannel c : channels) columns.addAll(List.of(c.getColumns()));
+        double [] values = new double[columns.size()];
+
+        SimulationScheduler scheduler = Registry.getSimulation();
+        scheduler.setTimeStep(timeStep);
+        scheduler.setSubsteps(substeps);
+        Registry.getPhysics().setPaused(startPaused);
+
+        stepsTaken = 0;
+        simulatedTime = 0;
+        long start = System.nanoTime();
+        try(ChannelLog log = (logFile==null) ? null : new ChannelLog(logFile,columns)) {
+            if(log!=null) record(log,channels,values);
+            while(simulatedTime < timeBudget) {
+                scheduler.step();
+                stepsTaken++;
+                simulatedTime = stepsTaken * scheduler.getTimeStep();
+                if(log!=null) record(log,channels,values);
+                if(stopCondition.getAsBoolean()) {
+                    logger.info("Stop condition met.");
+                    break;
+                }
+            }
+        }
+        wallTime = (System.nanoTime()-start)/1e9;
+        logger.info("Simulated {}s in {} steps and {}s. {}x real time.",
+                String.format("%.3f",simulatedTime),stepsTaken,String.format("%.3f",wallTime),
+                String.format("%.1f",getThroughput()));
+    }
+
+    private void record(ChannelLog log,List<SimulationChannel> channels,double [] values) throws IOException {
+        int offset = 0;
+        for(SimulationChannel c : channels) {
+            c.sample(values,offset);
+            offset += c.getColumns().length;
+        }
+        log.write(simulatedTime,values);
+    }
+
+    private List<SimulationChannel> findChannels(Node scene) {
+        List<SimulationChannel> list = new ArrayList<>();
+        for(String path : channelPaths) {
+            Node found = scene.findByPath(path);
+            // getAbsolutePath() starts with the name of the root but findByPath() does not.  accept both.
+            String root = scene.getAbsolutePath();
+            if(found==null && path.startsWith(root+"/")) found = scene.findByPath(path.substring(root.length()));
+            if(found==null) throw new IllegalArgumentException("No node at "+path);
+            list.add(new SimulationChannel(found,path));
+        }
+        return list;
+    }
+
+    public long getStepsTaken() {
+        return stepsTaken;
+    }
+
+    /**
+     * @return the simulated time of the last run, in seconds.
+     */
+    public double getSimulatedTime() {
+        return simulatedTime;
+    }
+
+    /**
+     * @return simulated seconds per wall clock second in the last run.
+     */
+    public double getThroughput() {
+        return wallTime>0 ? simulatedTime/wallTime : 0;
+    }
+}
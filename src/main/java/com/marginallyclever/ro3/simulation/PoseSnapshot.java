@@ -0,0 +1,50 @@
+package com.marginallyclever.ro3.simulation;
+
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+
+import javax.vecmath.Matrix4d;
+import java.util.Map;
+
+/**
+ * <p>{@link PoseSnapshot} holds the world matrix before and after the most recent simulation step of every
+ * {@link Pose} that moved in that step.  Poses that did not move are left out.  It is never changed after it is made,
+ * so the renderer can read it while the next step runs.</p>
+ */
+public class PoseSnapshot {
+    public static final PoseSnapshot EMPTY = new PoseSnapshot(Map.of(),Map.of(),0);
+
+    private final Map<Pose,Matrix4d> before;
+    private final Map<Pose,Matrix4d> after;
+    private final long time;
+
+    /**
+     * @param before the world matrices before the step
+     * @param after the world matrices after the step
+     * @param time the {@link SimulationClock} time when the step finished
+     */
+    PoseSnapshot(Map<Pose,Matrix4d> before,Map<Pose,Matrix4d> after,long time) {
+        this.before = before;
+        this.after = after;
+        this.time = time;
+    }
+
+    /**
+     * @param pose the pose to look up
+     * @return the world matrix of the pose before the step, or null if the pose did not move or was not in the scene.
+     */
+    public Matrix4d getBefore(Pose pose) {
+        return before.get(pose);
+    }
+
+    /**
+     * @param pose the pose to look up
+     * @return the world matrix of the pose after the step, or null if the pose did not move or was not in the scene.
+     */
+    public Matrix4d getAfter(Pose pose) {
+        return after.get(pose);
+    }
+
+    public long getTime() {
+        return time;
+    }
+}
@@ -0,0 +1,17 @@
+package com.marginallyclever.ro3.simulation;
+
+/**
+ * A {@link SimulationClock} that follows the wall clock.
+ */
+public class RealTimeClock implements SimulationClock {
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void waitUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if(remaining>0) Thread.sleep(remaining/1_000_000, (int)(remaining%1_000_000));
+    }
+}
@@ -0,0 +1,71 @@
+package com.marginallyclever.ro3.simulation;
+
+import com.marginallyclever.convenience.helpers.MatrixHelper;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.HingeJoint;
+import com.marginallyclever.ro3.node.nodes.LinearJoint;
+import com.marginallyclever.ro3.node.nodes.odenode.ODEHinge;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+
+import javax.vecmath.Matrix4d;
+import javax.vecmath.Vector3d;
+
+/**
+ * <p>A {@link SimulationChannel} reads one or more numbers from a {@link Node} so they can be logged each step.</p>
+ * <ul>
+ *     <li>{@link HingeJoint} and {@link ODEHinge} give their angle.</li>
+ *     <li>{@link LinearJoint} gives its position.</li>
+ *     <li>{@link Pose} gives its world position and its world rotation as XYZ euler angles in degrees.</li>
+ * </ul>
+ */
+public class SimulationChannel {
+    private final Node node;
+    private final String [] columns;
+
+    /**
+     * @param node the node to read
+     * @param name the prefix for each column name
+     * @throws IllegalArgumentException if there is nothing to read from the node.
+     */
+    public SimulationChannel(Node node,String name) {
+        this.node = node;
+        if(node instanceof HingeJoint || node instanceof ODEHinge) {
+            columns = new String[]{name+".angle"};
+        } else if(node instanceof LinearJoint) {
+            columns = new String[]{name+".position"};
+        } else if(node instanceof Pose) {
+            columns = new String[]{name+".x",name+".y",name+".z",name+".rx",name+".ry",name+".rz"};
+        } else {
+            throw new IllegalArgumentException("Nothing to log in "+node.getAbsolutePath());
+        }
+    }
+
+    public String [] getColumns() {
+        return columns;
+    }
+
+    /**
+     * Read the current values.
+     * @param out where to put the values
+     * @param offset the index of the first value in out
+     */
+    public void sample(double [] out,int offset) {
+        if(node instanceof HingeJoint hinge) {
+            out[offset] = hinge.getAngle();
+        } else if(node instanceof ODEHinge hinge) {
+            out[offset] = hinge.getAngle();
+        } else if(node instanceof LinearJoint linear) {
+            out[offset] = linear.getPosition();
+        } else if(node instanceof Pose pose) {
+            Matrix4d world = new Matrix4d();
+            pose.getWorld(world);
+            out[offset  ] = world.m03;
+            out[offset+1] = world.m13;
+            out[offset+2] = world.m23;
+            Vector3d r = MatrixHelper.matrixToEuler(world,MatrixHelper.EulerSequence.XYZ);
+            out[offset+3] = Math.toDegrees(r.x);
+            out[offset+4] = Math.toDegrees(r.y);
+            out[offset+5] = Math.toDegrees(r.z);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.marginallyclever.ro3.simulation;
+
+/**
+ * A {@link SimulationClock} tells the {@link SimulationScheduler} what time it is and how to wait for the next step.
+ * {@link RealTimeClock} follows the wall clock.  {@link FastClock} never waits, so the simulation runs as fast as
+ * possible.
+ */
+public interface SimulationClock {
+    /**
+     * @return the current time in nanoseconds.  Only the difference between two calls is meaningful.
+     */
+    long nanoTime();
+
+    /**
+     * Block until {@link #nanoTime()} reaches the given time.
+     * @param nanoTime the time to wait for.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    void waitUntil(long nanoTime) throws InterruptedException;
+}
@@ -0,0 +1,314 @@
+package com.marginallyclever.ro3.simulation;
+
+import com.marginallyclever.convenience.helpers.MatrixHelper;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import com.marginallyclever.ro3.physics.ODEPhysics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.vecmath.Matrix4d;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * <p>{@link SimulationScheduler} advances the physics and the scene with a fixed time step on its own thread, apart
+ * from the rendering.  Elapsed time from a {@link SimulationClock} is collected in an accumulator and spent one step
+ * at a time.  Each step can split the physics into several smaller substeps.  If the simulation falls too far behind
+ * the extra time is dropped rather than trying to catch up forever.</p>
+ * <p>All changes to the scene made by the simulation happen while holding {@link #getLock()}.  Changes made on other
+ * threads must hold the same lock, usually through {@link com.marginallyclever.ro3.Registry#changeScene(Runnable)}.
+ * Anything that walks the scene from another thread, such as the renderer, should hold the lock while it walks and
+ * let go of it before doing anything slow.</p>
+ * <p>After each step a {@link PoseSnapshot} of the poses that moved is published.
+ * {@link #getInterpolatedWorld(Pose, Matrix4d)} uses it to blend between the last two steps so that motion looks
+ * smooth when the renderer runs faster than the simulation.</p>
+ */
+public class SimulationScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(SimulationScheduler.class);
+    public static final double DEFAULT_TIME_STEP = 1.0/60.0;
+    public static final int DEFAULT_MAX_STEPS_PER_ADVANCE = 5;
+
+    private final ODEPhysics physics;
+    private final Supplier<Node> sceneSupplier;
+    private final Object lock;
+
+    private volatile long timeStepNanos = toNanos(DEFAULT_TIME_STEP);
+    private volatile int substeps = 1;
+    private volatile int maxStepsPerAdvance = DEFAULT_MAX_STEPS_PER_ADVANCE;
+    private volatile SimulationClock clock = new RealTimeClock();
+    private volatile PoseSnapshot snapshot = PoseSnapshot.EMPTY;
+
+    // guarded by lock
+    private long accumulatorNanos = 0;
+    private long stepCount = 0;
+    // the world of every pose at the end of the last step, and the same for the step being taken.  swapped each step.
+    private IdentityHashMap<Pose,Matrix4d> lastWorlds = new IdentityHashMap<>();
+    private IdentityHashMap<Pose,Matrix4d> nextWorlds = new IdentityHashMap<>();
+    private final ArrayDeque<Node> toScan = new ArrayDeque<>();
+    private final Matrix4d scratch = new Matrix4d();
+
+    private Thread thread;
+    private volatile boolean running = false;
+
+    /**
+     * @param physics the physics world to advance
+     * @param sceneSupplier supplies the root of the scene at each step.
+     */
+    public SimulationScheduler(ODEPhysics physics, Supplier<Node> sceneSupplier) {
+        this.physics = physics;
+        this.sceneSupplier = sceneSupplier;
+        // one lock for the scene and the physics bodies, so a change to either never lands in the middle of a step.
+        this.lock = physics.getLock();
+    }
+
+    private static long toNanos(double seconds) {
+        return Math.round(seconds*1e9);
+    }
+
+    /**
+     * @return the lock held while the simulation changes the scene.  The same as {@link ODEPhysics#getLock()}.
+     */
+    public Object getLock() {
+        return lock;
+    }
+
+    /**
+     * Start the simulation thread.  Does nothing if it is already running.
+     */
+    public synchronized void start() {
+        if(running) return;
+        running = true;
+        thread = new Thread(this::run,"Simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the simulation thread and wait for it to finish the current step.
+     */
+    public synchronized void stop() {
+        if(!running) return;
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        logger.info("Simulation started.");
+        SimulationClock myClock = clock;
+        long last = myClock.nanoTime();
+        while(running) {
+            if(myClock!=clock) {
+                // the clock was swapped.  start counting from the new clock.
+                myClock = clock;
+                last = myClock.nanoTime();
+            }
+            long now = myClock.nanoTime();
+            try {
+                advanceNanos(now-last);
+            } catch(Exception e) {
+                logger.error("Simulation step failed.",e);
+            }
+            last = now;
+
+            long due;
+            synchronized (lock) {
+                due = now + timeStepNanos - accumulatorNanos;
+            }
+            try {
+                myClock.waitUntil(due);
+            } catch(InterruptedException e) {
+                // stop() or setClock().  the loop condition tells them apart.
+            }
+        }
+        logger.info("Simulation stopped.");
+    }
+
+    /**
+     * Add elapsed time to the accumulator and run as many fixed steps as it allows, up to
+     * {@link #getMaxStepsPerAdvance()}.
+     * @param seconds the time that has passed.
+     * @return the number of steps taken.
+     */
+    public int advance(double seconds) {
+        return advanceNanos(toNanos(seconds));
+    }
+
+    private int advanceNanos(long elapsed) {
+        synchronized (lock) {
+            accumulatorNanos += Math.max(0,elapsed);
+            int steps = 0;
+            while(accumulatorNanos >= timeStepNanos) {
+                if(steps == maxStepsPerAdvance) {
+                    // too far behind.  drop the backlog instead of spiraling.
+                    accumulatorNanos %= timeStepNanos;
+                    break;
+                }
+                step();
+                accumulatorNanos -= timeStepNanos;
+                steps++;
+            }
+            return steps;
+        }
+    }
+
+    /**
+     * Run exactly one fixed step: the physics in {@link #getSubsteps()} parts, then the scene.
+     */
+    public void step() {
+        synchronized (lock) {
+            double dt = getTimeStep();
+            int n = substeps;
+            for(int i=0;i<n;++i) physics.update(dt/n);
+            Node scene = sceneSupplier.get();
+            long start = System.nanoTime();
+            scene.update(dt);
+            physics.getStats().endStep(System.nanoTime()-start);
+            stepCount++;
+            publishSnapshot(scene);
+        }
+    }
+
+    /**
+     * Publish the poses that moved in this step.  A pose that did not move keeps the matrix it had, so a step where
+     * nothing moves makes no new matrices.
+     * @param scene the root of the scene
+     */
+    private void publishSnapshot(Node scene) {
+        Map<Pose,Matrix4d> before = new IdentityHashMap<>();
+        Map<Pose,Matrix4d> after = new IdentityHashMap<>();
+        toScan.add(scene);
+        while(!toScan.isEmpty()) {
+            Node node = toScan.remove();
+            if(node instanceof Pose pose) {
+                pose.getWorld(scratch);
+                Matrix4d last = lastWorlds.get(pose);
+                if(last==null || !last.equals(scratch)) {
+                    Matrix4d moved = new Matrix4d(scratch);
+                    if(last!=null) before.put(pose,last);
+                    after.put(pose,moved);
+                    last = moved;
+                }
+                nextWorlds.put(pose,last);
+            }
+            // children still in the file have not moved.  making them here would change the scene from this walk.
+            if(!node.hasPendingChildren()) toScan.addAll(node.getChildren());
+        }
+        // poses that left the scene are forgotten.
+        var swap = lastWorlds;
+        lastWorlds = nextWorlds;
+        nextWorlds = swap;
+        nextWorlds.clear();
+        snapshot = new PoseSnapshot(before,after,clock.nanoTime());
+    }
+
+    /**
+     * Forget the accumulated time and the last snapshot.  Call when the scene is replaced.
+     */
+    public void reset() {
+        synchronized (lock) {
+            accumulatorNanos = 0;
+            lastWorlds.clear();
+            snapshot = PoseSnapshot.EMPTY;
+        }
+    }
+
+    /**
+     * <p>Get the world matrix of a pose blended between the last two steps.  The blend is based on how much of the
+     * next step has passed, so the result lags the simulation by up to one step.</p>
+     * <p>If the pose did not move in the last step, or has been moved by something other than the simulation since
+     * then, such as the user dragging it, the live world matrix is used.</p>
+     * @param pose the pose to look up
+     * @param out the world matrix to fill
+     */
+    public void getInterpolatedWorld(Pose pose, Matrix4d out) {
+        pose.getWorld(out);
+        PoseSnapshot s = snapshot;
+        Matrix4d after = s.getAfter(pose);
+        if(after==null || !after.equals(out)) return;
+        Matrix4d before = s.getBefore(pose);
+        if(before==null || before.equals(after)) return;
+
+        double alpha = (double)(clock.nanoTime() - s.getTime()) / (double)timeStepNanos;
+        alpha = Math.max(0,Math.min(1,alpha));
+        MatrixHelper.interpolate(before,after,alpha,out);
+    }
+
+    public PoseSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the number of steps taken since this scheduler was made.
+     */
+    public long getStepCount() {
+        synchronized (lock) {
+            return stepCount;
+        }
+    }
+
+    /**
+     * @return the length of one step, in seconds.
+     */
+    public double getTimeStep() {
+        return timeStepNanos/1e9;
+    }
+
+    /**
+     * @param seconds the length of one step.  Must be greater than zero.
+     */
+    public void setTimeStep(double seconds) {
+        if(seconds<=0) throw new IllegalArgumentException("Time step must be greater than zero.");
+        timeStepNanos = toNanos(seconds);
+    }
+
+    public int getSubsteps() {
+        return substeps;
+    }
+
+    /**
+     * @param substeps the number of physics updates in each step.  Must be at least one.
+     */
+    public void setSubsteps(int substeps) {
+        if(substeps<1) throw new IllegalArgumentException("Substeps must be at least one.");
+        this.substeps = substeps;
+    }
+
+    public int getMaxStepsPerAdvance() {
+        return maxStepsPerAdvance;
+    }
+
+    /**
+     * @param maxSteps the most steps {@link #advance(double)} will take before dropping the rest of the time.
+     */
+    public void setMaxStepsPerAdvance(int maxSteps) {
+        if(maxSteps<1) throw new IllegalArgumentException("Max steps must be at least one.");
+        this.maxStepsPerAdvance = maxSteps;
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * @param clock {@link RealTimeClock} to follow the wall clock, or {@link FastClock} to run as fast as possible.
+     */
+    public void setClock(SimulationClock clock) {
+        this.clock = clock;
+        Thread t = thread;
+        // wake the thread so it notices the new clock.
+        if(t!=null) t.interrupt();
+    }
+}
@@ -31,14 +31,17 @@ public class TextureFactory {
     public TextureWithMetadata load(String filename) {
         String absolutePath = FileHelper.getAbsolutePathOrFilename(filename);
 
-        for(TextureWithMetadata t : texturePool.getList()) {
-            if(t.getSource().equals(absolutePath)) {
-                return t;
+        // nodes in physics rollouts may load textures from many threads at once.
+        synchronized (texturePool) {
+            for(TextureWithMetadata t : texturePool.getList()) {
+                if(t.getSource().equals(absolutePath)) {
+                    return t;
+                }
             }
+            TextureWithMetadata t = loadTexture(absolutePath);
+            if(t!=null) texturePool.add(t);
+            return t;
         }
-        TextureWithMetadata t = loadTexture(absolutePath);
-        if(t!=null) texturePool.add(t);
-        return t;
     }
 
     private TextureWithMetadata loadTexture(String filename) {
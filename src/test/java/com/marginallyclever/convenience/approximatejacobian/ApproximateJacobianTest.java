@@ -9,7 +9,7 @@ import java.io.File;
 import java.util.Arrays;
 
 /**
- * Checking if Approximate jacobians are commutative.  This test is ignored because they are not.
+ * Checking if Approximate jacobians agree.
  *
  */
 public class ApproximateJacobianTest {
@@ -22,7 +22,7 @@ public class ApproximateJacobianTest {
         var load = new LoadScene(null,null);
         File file = new File("src/test/resources/com/marginallyclever/ro3/apps/node/nodes/marlinrobotarm/Sixi3-5.RO");
         load.commitLoad(file);
-        return (Limb) Registry.getScene().findByPath("./Sixi3/MarlinRobotArm");
+        return (Limb) Registry.getScene().findByPath("./Sixi3");
     }
 
     /**
@@ -30,7 +30,6 @@ public class ApproximateJacobianTest {
      * @throws Exception if error
      */
     @Test
-    @Disabled
     public void compare() throws Exception {
         Limb robot = build6AxisArm();
         ApproximateJacobian finite = new ApproximateJacobianFiniteDifferences(robot);
@@ -46,13 +45,76 @@ public class ApproximateJacobianTest {
             }
         }
 
-        double [] v = new double[] {1,2,3,4,5,6};
-        double [] vFinite = finite.getJointFromCartesian(v);
-        double [] vScrew = screw.getJointFromCartesian(v);
+        // a motion the arm can make, so that the solve has one good answer.
+        double [] expected = new double[finite.DOF];
+        for(int k=0;k<expected.length;++k) expected[k] = k+1;
+        double [] v = new double[6];
+        for(int i=0;i<6;++i) {
+            for(int k=0;k<expected.length;++k) v[i] += finiteJacobian[i][k] * Math.toRadians(expected[k]);
+        }
+        double [] vFinite = new double[finite.DOF];
+        double [] vScrew = new double[screw.DOF];
+        finite.getJointFromCartesian(v,vFinite);
+        screw.getJointFromCartesian(v,vScrew);
         System.out.println(Arrays.toString(vFinite));
         System.out.println(Arrays.toString(vScrew));
+        // damped least squares trades a little accuracy for stability, and the two jacobians differ a little, so the
+        // answers agree to a few percent of the fastest joint.
+        double tolerance = 0.05 * expected[expected.length-1];
         for(int i=0;i<vFinite.length;++i) {
-            Assertions.assertEquals(vFinite[i],vScrew[i],0.01);
+            Assertions.assertEquals(vFinite[i],vScrew[i],tolerance);
+        }
+    }
+
+    /**
+     * The solve that does not allocate should find the joint velocity that made a cartesian velocity.
+     * @throws Exception if error
+     */
+    @Test
+    public void solveWithoutAllocating() throws Exception {
+        for(int dof=4;dof<=7;++dof) {
+            ApproximateJacobian aj = new ApproximateJacobian(dof) {};
+            for(int i=0;i<6;++i) {
+                for(int k=0;k<dof;++k) aj.jacobian[i][k] = (i==k ? 10 : 0) + Math.sin(i*7+k*3);
+            }
+            double [] expected = new double[dof];
+            for(int k=0;k<dof;++k) expected[k] = k-2;
+            double [] v = new double[6];
+            for(int i=0;i<6;++i) {
+                for(int k=0;k<dof;++k) v[i] += aj.jacobian[i][k] * Math.toRadians(expected[k]);
+            }
+            double [] actual = new double[dof];
+            aj.getJointFromCartesian(v,actual);
+            if(dof<=6) {
+                Assertions.assertArrayEquals(expected,actual,1e-4);
+            } else {
+                // more joints than needed.  any answer that makes the same motion is fine.
+                double [] v2 = new double[6];
+                for(int i=0;i<6;++i) {
+                    for(int k=0;k<dof;++k) v2[i] += aj.jacobian[i][k] * Math.toRadians(actual[k]);
+                }
+                Assertions.assertArrayEquals(v,v2,1e-6);
+            }
+        }
+    }
+
+    /**
+     * The screw theory jacobian can be reused after the arm moves.
+     * @throws Exception if error
+     */
+    @Test
+    public void updateAfterMove() throws Exception {
+        Limb robot = build6AxisArm();
+        ApproximateJacobianScrewTheory screw = new ApproximateJacobianScrewTheory(robot);
+        double [] angles = robot.getAllJointAngles();
+        angles[1] += 10;
+        robot.setAllJointAngles(angles);
+        screw.update(robot);
+        ApproximateJacobian finite = new ApproximateJacobianFiniteDifferences(robot);
+        double [][] a = finite.getJacobian();
+        double [][] b = screw.getJacobian();
+        for(int i=0;i<a.length;++i) {
+            Assertions.assertArrayEquals(a[i],b[i],0.1);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.marginallyclever.ro3.apps.actions;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.NodeBinaryWriter;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import com.marginallyclever.ro3.node.nodes.pose.poses.MeshInstance;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class LoadSceneTest {
+    @BeforeAll
+    public static void beforeAll() {
+        Registry.start();
+    }
+
+    /**
+     * Opening a binary scene makes only the top of the tree.  The rest is made when it is needed, and joins the
+     * ray pick index when it is.
+     */
+    @Test
+    public void binarySceneStaysLazy(@TempDir Path dir) throws IOException {
+        Node scene = new Node("Scene");
+        for(int i=0;i<10;++i) {
+            Pose group = new Pose("g"+i);
+            scene.addChild(group);
+            for(int j=0;j<10;++j) {
+                group.addChild(new MeshInstance("m"+j));
+            }
+        }
+        Path file = dir.resolve("lazy."+NodeBinaryWriter.EXTENSION);
+        try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            NodeBinaryWriter.write(scene,out);
+        }
+
+        new LoadScene(null,file.toString()).commitLoad(file.toFile());
+
+        Node loaded = Registry.getScene();
+        Assertions.assertEquals(10,loaded.getChildren().size());
+        for(Node group : loaded.getChildren()) {
+            Assertions.assertTrue(group.hasPendingChildren(),group.getName()+" was made on load");
+        }
+        Assertions.assertEquals(0,Registry.getRayPickIndex().size());
+
+        Node first = loaded.getChildren().get(0);
+        Registry.changeScene(first::getChildren);
+        Assertions.assertEquals(10,Registry.getRayPickIndex().size());
+    }
+}
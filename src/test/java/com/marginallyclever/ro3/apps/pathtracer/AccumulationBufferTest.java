@@ -0,0 +1,71 @@
+package com.marginallyclever.ro3.apps.pathtracer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class AccumulationBufferTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testAverage() {
+        AccumulationBuffer buffer = new AccumulationBuffer(4,3);
+        buffer.add(1,2,new ColorDouble(1,0,0));
+        buffer.add(1,2,new ColorDouble(0,1,0));
+        ColorDouble c = new ColorDouble(0,0,0);
+        buffer.getAverage(1,2,c);
+        Assertions.assertEquals(0.5,c.r,EPSILON);
+        Assertions.assertEquals(0.5,c.g,EPSILON);
+        Assertions.assertEquals(0,c.b,EPSILON);
+        Assertions.assertEquals(2,buffer.getSamples(1,2));
+        Assertions.assertEquals(0,buffer.getMinimumSamples());
+        Assertions.assertEquals(2,buffer.getTotalSamples());
+    }
+
+    @Test
+    public void testSaveAndLoad(@TempDir Path dir) throws IOException {
+        AccumulationBuffer buffer = new AccumulationBuffer(5,7);
+        for(int y=0;y<7;++y) {
+            for(int x=0;x<5;++x) {
+                for(int i=0;i<=x;++i) buffer.add(x,y,new ColorDouble(x*0.1,y*0.1,i*0.01));
+            }
+        }
+        Path file = dir.resolve("render.checkpoint");
+        buffer.save(file);
+        // saving again replaces the old checkpoint.
+        buffer.save(file);
+
+        AccumulationBuffer loaded = AccumulationBuffer.load(file);
+        Assertions.assertEquals(5,loaded.getWidth());
+        Assertions.assertEquals(7,loaded.getHeight());
+        Assertions.assertEquals(buffer.getTotalSamples(),loaded.getTotalSamples());
+        Assertions.assertEquals(1,loaded.getMinimumSamples());
+        ColorDouble a = new ColorDouble(0,0,0);
+        ColorDouble b = new ColorDouble(0,0,0);
+        for(int y=0;y<7;++y) {
+            for(int x=0;x<5;++x) {
+                Assertions.assertEquals(buffer.getSamples(x,y),loaded.getSamples(x,y));
+                buffer.getAverage(x,y,a);
+                loaded.getAverage(x,y,b);
+                Assertions.assertEquals(a.r,b.r,EPSILON);
+                Assertions.assertEquals(a.g,b.g,EPSILON);
+                Assertions.assertEquals(a.b,b.b,EPSILON);
+            }
+        }
+        // no temporary files are left behind.
+        try(var list = Files.list(dir)) {
+            Assertions.assertEquals(1,list.count());
+        }
+    }
+
+    @Test
+    public void testLoadRejectsOtherFiles(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("not.checkpoint");
+        Files.write(file,new byte[]{1,2,3,4,5,6,7,8});
+        Assertions.assertThrows(IOException.class,()->AccumulationBuffer.load(file));
+    }
+}
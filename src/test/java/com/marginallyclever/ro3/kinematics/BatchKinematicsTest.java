@@ -0,0 +1,101 @@
+package com.marginallyclever.ro3.kinematics;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.apps.actions.LoadScene;
+import com.marginallyclever.ro3.node.nodes.pose.poses.Limb;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.vecmath.Matrix4d;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BatchKinematicsTest {
+    private Limb limb;
+
+    @BeforeEach
+    public void setup() {
+        Registry.start();
+        var load = new LoadScene(null,null);
+        File file = new File("src/test/resources/com/marginallyclever/ro3/apps/node/nodes/marlinrobotarm/Sixi3-5.RO");
+        load.commitLoad(file);
+        limb = (Limb) Registry.getScene().findByPath("./Sixi3");
+    }
+
+    private static void assertMatrixEquals(Matrix4d expected, Matrix4d actual, double epsilon) {
+        for(int r=0;r<4;++r) {
+            for(int c=0;c<4;++c) {
+                Assertions.assertEquals(expected.getElement(r,c),actual.getElement(r,c),epsilon);
+            }
+        }
+    }
+
+    private double[] randomAngles(Random random, double[] around) {
+        double[] a = around.clone();
+        for(int i=0;i<a.length;++i) a[i] += random.nextDouble()*40-20;
+        return a;
+    }
+
+    /**
+     * The detached chain should agree with the limb for any joint angles.
+     */
+    @Test
+    public void forwardMatchesLimb() {
+        KinematicChain chain = KinematicChain.fromLimb(limb);
+        Assertions.assertEquals(limb.getNumJoints(),chain.getNumJoints());
+        var ee = limb.getEndEffector().getSubject();
+        assertMatrixEquals(ee.getWorld(),chain.forward(chain.getInitialAngles()),1e-6);
+
+        Random random = new Random(1);
+        for(int i=0;i<5;++i) {
+            double[] angles = randomAngles(random,chain.getInitialAngles());
+            limb.setAllJointAngles(angles);
+            assertMatrixEquals(ee.getWorld(),chain.forward(angles),1e-6);
+        }
+    }
+
+    /**
+     * Solve many reachable targets in parallel without moving the limb.
+     */
+    @Test
+    public void inverseManyTargets() {
+        KinematicChain chain = KinematicChain.fromLimb(limb);
+        double[] home = chain.getInitialAngles();
+        var ee = limb.getEndEffector().getSubject();
+        Matrix4d before = ee.getWorld();
+
+        Random random = new Random(2);
+        double[][] angles = new double[200][];
+        for(int i=0;i<angles.length;++i) angles[i] = randomAngles(random,home);
+        BatchKinematics batch = new BatchKinematics(chain);
+        Matrix4d[] poses = batch.forward(angles);
+        List<Matrix4d> targets = new ArrayList<>(List.of(poses));
+        // one target far out of reach.
+        Matrix4d far = new Matrix4d(poses[0]);
+        far.m03 += 1e4;
+        targets.add(far);
+
+        IKResult[] results = batch.inverse(targets,home);
+        Assertions.assertEquals(targets.size(),results.length);
+        int solved = 0;
+        for(int i=0;i<poses.length;++i) {
+            IKResult r = results[i];
+            if(r.success()) {
+                solved++;
+                Assertions.assertTrue(r.residual()<=batch.getTolerance());
+                assertMatrixEquals(poses[i],chain.forward(r.angles()),0.1);
+            }
+        }
+        Assertions.assertTrue(solved > poses.length*0.9,"solved "+solved+" of "+poses.length);
+
+        IKResult lost = results[results.length-1];
+        Assertions.assertFalse(lost.success());
+        Assertions.assertTrue(lost.residual()>1);
+
+        // the scene was not changed.
+        assertMatrixEquals(before,ee.getWorld(),0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.marginallyclever.ro3.mesh;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FloatListTest {
+    private static final Logger logger = LoggerFactory.getLogger(FloatListTest.class);
+
+    @Test
+    public void addGetSet() {
+        FloatList list = new FloatList(1);
+        Assertions.assertTrue(list.isEmpty());
+        for(int i=0;i<100;++i) list.add(i);
+        list.add(100,101,102);
+        list.addAll(new float[]{102,103,104,105},1,2);
+        Assertions.assertEquals(105,list.size());
+        for(int i=0;i<105;++i) Assertions.assertEquals(i,list.get(i));
+        list.set(3,-3);
+        Assertions.assertEquals(-3,list.get(3));
+        Assertions.assertThrows(IndexOutOfBoundsException.class,()->list.get(105));
+
+        var buffer = list.asBuffer();
+        Assertions.assertEquals(105,buffer.remaining());
+        Assertions.assertEquals(-3,buffer.get(3));
+
+        list.clear();
+        Assertions.assertEquals(0,list.size());
+        Assertions.assertEquals(0,list.asBuffer().remaining());
+    }
+
+    @Test
+    public void meshBulkAdd() {
+        Mesh mesh = new Mesh();
+        mesh.addVertices(new float[]{0,0,0, 1,0,0, 0,1,0});
+        mesh.addNormals(new float[]{0,0,1, 0,0,1, 0,0,1});
+        mesh.addColors(new float[]{1,1,1,1, 1,1,1,0.5f, 1,1,1,1});
+        mesh.addIndexes(new int[]{0,1,2});
+        Assertions.assertEquals(3,mesh.getNumVertices());
+        Assertions.assertEquals(1,mesh.getVertex(1).x);
+        Assertions.assertEquals(1,mesh.getNormal(2).z);
+        Assertions.assertTrue(mesh.getHasNormals());
+        Assertions.assertTrue(mesh.getHasColors());
+        Assertions.assertTrue(mesh.isTransparent());
+        Assertions.assertTrue(mesh.getHasIndexes());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i=0;i<3;++i) System.gc();
+        return runtime.totalMemory()-runtime.freeMemory();
+    }
+
+    /**
+     * Compare the heap used by one million vertices (three million floats) in a boxed list and in a
+     * {@link FloatList}.
+     */
+    @Test
+    public void memoryBenchmark() {
+        final int count = 3_000_000;
+
+        long before = usedMemory();
+        List<Float> boxed = new ArrayList<>();
+        for(int i=0;i<count;++i) boxed.add((float)i);
+        long boxedBytes = usedMemory()-before;
+        Assertions.assertEquals(count,boxed.size());
+        boxed = null;
+
+        before = usedMemory();
+        FloatList primitive = new FloatList();
+        for(int i=0;i<count;++i) primitive.add(i);
+        long primitiveBytes = usedMemory()-before;
+        Assertions.assertEquals(count,primitive.size());
+
+        logger.info("{} floats: List<Float> {} bytes, FloatList {} bytes.",count,boxedBytes,primitiveBytes);
+        Assertions.assertTrue(primitiveBytes < boxedBytes);
+    }
+}
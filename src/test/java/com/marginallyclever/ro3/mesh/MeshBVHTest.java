@@ -0,0 +1,144 @@
+package com.marginallyclever.ro3.mesh;
+
+import com.marginallyclever.convenience.Ray;
+import com.marginallyclever.ro3.mesh.proceduralmesh.Sphere;
+import com.marginallyclever.ro3.raypicking.RayHit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.vecmath.Point3d;
+import javax.vecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class MeshBVHTest {
+    private static final Logger logger = LoggerFactory.getLogger(MeshBVHTest.class);
+
+    /**
+     * @return a mesh of random small triangles scattered in a 10x10x10 cube.
+     */
+    private Mesh buildTriangleSoup(int count, Random random) {
+        Mesh mesh = new Mesh();
+        for(int i=0;i<count;++i) {
+            float x = random.nextFloat()*10-5;
+            float y = random.nextFloat()*10-5;
+            float z = random.nextFloat()*10-5;
+            for(int j=0;j<3;++j) {
+                mesh.addVertex(
+                        x+random.nextFloat()*0.5f,
+                        y+random.nextFloat()*0.5f,
+                        z+random.nextFloat()*0.5f);
+            }
+        }
+        mesh.updateCuboid();
+        return mesh;
+    }
+
+    private List<Ray> buildRays(int count, Random random) {
+        List<Ray> rays = new ArrayList<>();
+        for(int i=0;i<count;++i) {
+            var origin = new Point3d(random.nextDouble()*20-10,random.nextDouble()*20-10,random.nextDouble()*20-10);
+            var target = new Point3d(random.nextDouble()*4-2,random.nextDouble()*4-2,random.nextDouble()*4-2);
+            var direction = new Vector3d();
+            direction.sub(target,origin);
+            direction.normalize();
+            rays.add(new Ray(origin,direction));
+        }
+        return rays;
+    }
+
+    private void compare(Mesh mesh,List<Ray> rays) {
+        int hits=0;
+        for(Ray ray : rays) {
+            RayHit a = mesh.intersectBruteForce(ray);
+            RayHit b = mesh.intersect(ray);
+            if(a==null) {
+                Assertions.assertNull(b);
+            } else {
+                Assertions.assertNotNull(b);
+                Assertions.assertEquals(a.distance(),b.distance(),1e-9);
+                Assertions.assertTrue(a.point().epsilonEquals(b.point(),1e-9));
+                hits++;
+            }
+        }
+        Assertions.assertTrue(hits>0);
+    }
+
+    @Test
+    public void matchesBruteForceOnTriangleSoup() {
+        Random random = new Random(1234);
+        compare(buildTriangleSoup(2000,random),buildRays(500,random));
+    }
+
+    @Test
+    public void matchesBruteForceOnIndexedMesh() {
+        Random random = new Random(5678);
+        Mesh mesh = new Mesh();
+        Sphere sphere = new Sphere(2);
+        // copy the indexed sphere into a plain Mesh so Sphere's analytic intersect is not used.
+        for(int i=0;i<sphere.getNumVertices();++i) {
+            var v = sphere.getVertex(i);
+            var n = sphere.getNormal(i);
+            mesh.addVertex((float)v.x,(float)v.y,(float)v.z);
+            mesh.addNormal((float)n.x,(float)n.y,(float)n.z);
+        }
+        mesh.addIndexes(sphere.indexArray.toArray());
+        mesh.updateCuboid();
+        compare(mesh,buildRays(500,random));
+    }
+
+    @Test
+    public void rebuildsWhenMeshChanges() {
+        Mesh mesh = new Mesh();
+        mesh.addVertex(-1,-1,0);
+        mesh.addVertex( 1,-1,0);
+        mesh.addVertex( 0, 1,0);
+        mesh.updateCuboid();
+        Ray ray = new Ray(new Point3d(0,0,5),new Vector3d(0,0,-1));
+        var first = mesh.getBVH();
+        Assertions.assertEquals(5,mesh.intersect(ray).distance(),1e-9);
+        Assertions.assertSame(first,mesh.getBVH());
+
+        mesh.clear();
+        mesh.addVertex(-1,-1,2);
+        mesh.addVertex( 1,-1,2);
+        mesh.addVertex( 0, 1,2);
+        mesh.updateCuboid();
+        mesh.fireMeshChanged();
+        Assertions.assertNotSame(first,mesh.getBVH());
+        Assertions.assertEquals(3,mesh.intersect(ray).distance(),1e-9);
+    }
+
+    @Test
+    public void emptyMeshNeverHits() {
+        Mesh mesh = new Mesh();
+        Assertions.assertEquals(0,mesh.getBVH().getNumTriangles());
+        Assertions.assertEquals(-1,mesh.getBVH().intersect(new Ray(),new double[1]));
+    }
+
+    /**
+     * The hierarchy should test a small part of the triangles for each ray.  Counted instead of timed so it does not
+     * depend on the speed of the machine.
+     */
+    @Test
+    public void testsFewerTrianglesThanBruteForce() {
+        Random random = new Random(42);
+        Mesh mesh = buildTriangleSoup(50_000,random);
+        List<Ray> rays = buildRays(200,random);
+        MeshBVH tree = mesh.getBVH();
+
+        double [] result = new double[2];
+        long tested = 0;
+        for(Ray ray : rays) {
+            tree.intersect(ray,result);
+            tested += (long)result[1];
+        }
+        long bruteForce = (long)mesh.getNumTriangles() * rays.size();
+        logger.info("{} triangles, {} rays: brute force tests {}, bvh tests {} ({} nodes, depth {})",
+                mesh.getNumTriangles(), rays.size(), bruteForce, tested, tree.getNumNodes(), tree.getMaxDepth());
+        Assertions.assertTrue(tested*10 < bruteForce);
+    }
+}
@@ -0,0 +1,100 @@
+package com.marginallyclever.ro3.mesh;
+
+import com.jogamp.opengl.GL3;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+public class MeshCacheTest {
+    private Mesh buildMesh() {
+        Mesh mesh = new Mesh();
+        mesh.addVertices(new float[]{0,0,0, 1,0,0, 0,1,0, 0,0,2});
+        mesh.addNormals(new float[]{0,0,1, 0,0,1, 0,0,1, 0,0,1});
+        mesh.addColors(new float[]{1,1,1,1, 1,1,1,0.5f, 1,1,1,1, 1,1,1,1});
+        mesh.addTexCoords(new float[]{0,0, 1,0, 0,1, 1,1});
+        mesh.addIndexes(new int[]{0,1,2, 0,2,3});
+        mesh.updateCuboid();
+        return mesh;
+    }
+
+    private Path writeSource(Path dir,String name) throws IOException {
+        Path source = dir.resolve(name);
+        Files.write(source,new byte[]{1,2,3,4});
+        return source;
+    }
+
+    @Test
+    public void saveAndLoad(@TempDir Path dir) throws IOException {
+        MeshCache cache = new MeshCache(dir.resolve("cache"));
+        Path source = writeSource(dir,"a.stl");
+        Mesh original = buildMesh();
+        original.setRenderStyle(GL3.GL_POINTS);
+        cache.save(source,original);
+
+        Mesh loaded = new Mesh();
+        Assertions.assertTrue(cache.load(source,loaded));
+        Assertions.assertArrayEquals(original.vertexArray.toArray(),loaded.vertexArray.toArray());
+        Assertions.assertArrayEquals(original.normalArray.toArray(),loaded.normalArray.toArray());
+        Assertions.assertArrayEquals(original.colorArray.toArray(),loaded.colorArray.toArray());
+        Assertions.assertArrayEquals(original.textureArray.toArray(),loaded.textureArray.toArray());
+        Assertions.assertArrayEquals(original.indexArray.toArray(),loaded.indexArray.toArray());
+        Assertions.assertEquals(GL3.GL_POINTS,loaded.getRenderStyle());
+        Assertions.assertTrue(loaded.getHasNormals());
+        Assertions.assertTrue(loaded.getHasColors());
+        Assertions.assertTrue(loaded.isTransparent());
+        Assertions.assertTrue(loaded.getHasIndexes());
+        Assertions.assertEquals(original.getBoundingBox().getBoundsTop(),loaded.getBoundingBox().getBoundsTop());
+        Assertions.assertEquals(original.getBoundingBox().getBoundsBottom(),loaded.getBoundingBox().getBoundsBottom());
+    }
+
+    @Test
+    public void changedSourceIsNotUsed(@TempDir Path dir) throws IOException {
+        MeshCache cache = new MeshCache(dir.resolve("cache"));
+        Path source = writeSource(dir,"a.stl");
+        cache.save(source,buildMesh());
+
+        // different size
+        Files.write(source,new byte[]{1,2,3,4,5});
+        Assertions.assertFalse(cache.load(source,new Mesh()));
+
+        cache.save(source,buildMesh());
+        Assertions.assertTrue(cache.load(source,new Mesh()));
+        // same size, different time
+        Files.setLastModifiedTime(source,FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis()-60000));
+        Assertions.assertFalse(cache.load(source,new Mesh()));
+
+        // never saved
+        Assertions.assertFalse(cache.load(writeSource(dir,"b.stl"),new Mesh()));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted(@TempDir Path dir) throws IOException {
+        Path cacheDir = dir.resolve("cache");
+        Path a = writeSource(dir,"a.stl");
+        Path b = writeSource(dir,"b.stl");
+        Path c = writeSource(dir,"c.stl");
+
+        // find the size of one entry, then allow room for two.
+        MeshCache measure = new MeshCache(dir.resolve("measure"));
+        measure.save(a,buildMesh());
+        long entrySize = Files.size(measure.getEntry(a));
+
+        MeshCache cache = new MeshCache(cacheDir,entrySize*2+entrySize/2);
+        cache.save(a,buildMesh());
+        cache.save(b,buildMesh());
+        // make a older than b, then use a so that b becomes the oldest.
+        Files.setLastModifiedTime(cache.getEntry(a),FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(cache.getEntry(b),FileTime.fromMillis(2000));
+        Assertions.assertTrue(cache.load(a,new Mesh()));
+        cache.save(c,buildMesh());
+
+        Assertions.assertTrue(Files.exists(cache.getEntry(a)));
+        Assertions.assertFalse(Files.exists(cache.getEntry(b)));
+        Assertions.assertTrue(Files.exists(cache.getEntry(c)));
+    }
+}
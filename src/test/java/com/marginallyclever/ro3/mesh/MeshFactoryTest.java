@@ -1,20 +1,128 @@
 package com.marginallyclever.ro3.mesh;
 
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.pose.poses.MeshInstance;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 public class MeshFactoryTest {
     public static final String path = "src/test/resources/com/marginallyclever/ro3/apps/node/nodes/marlinrobotarm/j0.obj";
     @Test
-    public void test() {
+    public void test(@TempDir Path cache) throws Exception {
         MeshFactory factory = new MeshFactory();
+        factory.setMeshCache(new MeshCache(cache));
         assert(factory.getPool().getList().isEmpty());
         assert(factory.getAllSourcesForExport().isEmpty());
         assert(factory.canLoad(path));
         var a = factory.load(path);
+        // the pool is updated on the event dispatch thread.
+        SwingUtilities.invokeAndWait(()->{});
         assert(!factory.getPool().getList().isEmpty());
         assert(a.getNumVertices()>0);
         var b = factory.load(path);
         assert(a==b);
         assert(!factory.getAllSourcesForExport().isEmpty());
     }
+
+    @Test
+    public void loadAsync(@TempDir Path cache) throws Exception {
+        String folder = "src/test/resources/com/marginallyclever/ro3/apps/node/nodes/marlinrobotarm/";
+        String [] names = {"j0.obj","j1.obj","j4.obj","j5.obj","left arm.obj","right arm.obj"};
+        MeshFactory factory = new MeshFactory();
+        factory.setMeshCache(new MeshCache(cache));
+        var futures = new ArrayList<CompletableFuture<Mesh>>();
+        for(String name : names) futures.add(factory.loadAsync(folder+name));
+        // asking again gets the same mesh.
+        var again = factory.loadAsync(folder+names[0]);
+        factory.waitForLoads();
+
+        Assertions.assertEquals(names.length,factory.getPool().size());
+        for(var f : futures) {
+            Assertions.assertTrue(f.isDone());
+            Assertions.assertTrue(f.get().getNumVertices()>0);
+        }
+        Assertions.assertSame(futures.get(0).get(),again.get());
+        Assertions.assertSame(futures.get(0).get(),factory.load(folder+names[0]));
+        Assertions.assertNull(factory.loadAsync(""));
+    }
+
+    /**
+     * A second factory loading the same file reads the snapshot the first one wrote, and gets the same mesh.
+     */
+    @Test
+    public void secondLoadHitsTheCache(@TempDir Path dir) throws Exception {
+        MeshCache cache = new MeshCache(dir.resolve("cache"));
+        Path source = dir.resolve("j0.obj");
+        Files.copy(Path.of(path),source);
+
+        MeshFactory first = new MeshFactory();
+        first.setMeshCache(cache);
+        Mesh a = first.load(source.toString());
+        Path entry = cache.getEntry(source);
+        Assertions.assertTrue(Files.exists(entry));
+        // a snapshot that is used is touched, so its modified time moves forward.
+        Files.setLastModifiedTime(entry,FileTime.fromMillis(1000));
+
+        MeshFactory second = new MeshFactory();
+        second.setMeshCache(cache);
+        Mesh b = second.load(source.toString());
+        Assertions.assertNotEquals(1000,Files.getLastModifiedTime(entry).toMillis());
+        Assertions.assertArrayEquals(a.vertexArray.toArray(),b.vertexArray.toArray());
+        Assertions.assertArrayEquals(a.normalArray.toArray(),b.normalArray.toArray());
+        Assertions.assertEquals(a.getBoundingBox().getBoundsTop(),b.getBoundingBox().getBoundsTop());
+    }
+
+    @Test
+    public void meshInstanceShowsPlaceholderWhileLoading() throws Exception {
+        Registry.start();
+        MeshInstance source = new MeshInstance();
+        JSONObject json = source.toJSON();
+        json.put("mesh",path);
+
+        MeshInstance instance = new MeshInstance();
+        instance.fromJSON(json);
+        Assertions.assertNotNull(instance.getMesh());
+        // the placeholder is not saved.
+        Assertions.assertTrue(instance.toJSON().getString("mesh").endsWith("j0.obj"));
+
+        Registry.meshFactory.waitForLoads();
+        Assertions.assertFalse(instance.isMeshLoading());
+        Assertions.assertSame(Registry.meshFactory.load(path),instance.getMesh());
+    }
+
+    /**
+     * A mesh that arrives after its node left the scene waits until the node is attached again.
+     */
+    @Test
+    public void detachedMeshInstanceWaitsForAttach() throws Exception {
+        Registry.start();
+        Node scene = Registry.getScene();
+        MeshInstance source = new MeshInstance();
+        JSONObject json = source.toJSON();
+        json.put("mesh",path);
+
+        MeshInstance instance = new MeshInstance();
+        // hold the lock so the mesh can not be swapped in before the node is detached.
+        synchronized (Registry.getSimulation().getLock()) {
+            scene.addChild(instance);
+            instance.fromJSON(json);
+            scene.removeChild(instance);
+        }
+        Registry.meshFactory.waitForLoads();
+        Assertions.assertTrue(instance.isMeshLoading());
+
+        Registry.changeScene(() -> scene.addChild(instance));
+        Assertions.assertFalse(instance.isMeshLoading());
+        Assertions.assertSame(Registry.meshFactory.load(path),instance.getMesh());
+    }
 }
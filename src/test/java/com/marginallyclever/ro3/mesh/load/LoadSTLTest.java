@@ -0,0 +1,123 @@
+package com.marginallyclever.ro3.mesh.load;
+
+import com.marginallyclever.ro3.mesh.Mesh;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class LoadSTLTest {
+    private static final int NUM_TRIANGLES = 100;
+
+    /**
+     * @return a binary STL with triangles whose values count up from zero.
+     */
+    private byte [] buildBinarySTL() {
+        ByteBuffer buffer = ByteBuffer.allocate(84+50*NUM_TRIANGLES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(80);
+        buffer.putInt(NUM_TRIANGLES);
+        float f=0;
+        for(int i=0;i<NUM_TRIANGLES;++i) {
+            for(int j=0;j<12;++j) buffer.putFloat(f++);
+            buffer.putShort((short)0);
+        }
+        return buffer.array();
+    }
+
+    private void checkMesh(Mesh mesh) {
+        Assertions.assertEquals(NUM_TRIANGLES*3,mesh.getNumVertices());
+        Assertions.assertTrue(mesh.getHasNormals());
+        for(int i=0;i<NUM_TRIANGLES;++i) {
+            float base = i*12;
+            for(int v=0;v<3;++v) {
+                var n = mesh.getNormal(i*3+v);
+                Assertions.assertEquals(base,n.x);
+                Assertions.assertEquals(base+2,n.z);
+                var p = mesh.getVertex(i*3+v);
+                Assertions.assertEquals(base+3+v*3,p.x);
+                Assertions.assertEquals(base+5+v*3,p.z);
+            }
+        }
+    }
+
+    @Test
+    public void loadBinaryFromFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("test.stl");
+        Files.write(file,buildBinarySTL());
+        Mesh mesh = new Mesh();
+        new LoadSTL().load(file,mesh);
+        checkMesh(mesh);
+    }
+
+    /**
+     * A stream that returns one byte per read must still load everything.
+     */
+    @Test
+    public void loadBinaryFromSlowStream() throws Exception {
+        InputStream slow = new ByteArrayInputStream(buildBinarySTL()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b,off,Math.min(len,1));
+            }
+        };
+        Mesh mesh = new Mesh();
+        new LoadSTL().load(new BufferedInputStream(slow,16),mesh);
+        checkMesh(mesh);
+    }
+
+    @Test
+    public void truncatedFileFails(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("short.stl");
+        byte [] data = buildBinarySTL();
+        Files.write(file,Arrays.copyOf(data,data.length-10));
+        Assertions.assertThrows(IOException.class,()->new LoadSTL().load(file,new Mesh()));
+        Assertions.assertThrows(IOException.class,()->new LoadSTL().load(new BufferedInputStream(Files.newInputStream(file)),new Mesh()));
+    }
+
+    /**
+     * A count too big for an int array, or one that does not match the file, must fail before any memory is taken.
+     */
+    @Test
+    public void hugeCountFails(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("huge.stl");
+        for(int count : new int[]{ 300_000_000, -1 }) {
+            byte [] data = buildBinarySTL();
+            ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(80,count);
+            Files.write(file,data);
+            Assertions.assertThrows(IOException.class,()->new LoadSTL().load(file,new Mesh()));
+            Assertions.assertThrows(IOException.class,()->new LoadSTL().load(new BufferedInputStream(Files.newInputStream(file)),new Mesh()));
+        }
+    }
+
+    @Test
+    public void loadASCIIFromFile(@TempDir Path dir) throws Exception {
+        String ascii = """
+                solid test
+                  facet normal 0 0 2
+                    outer loop
+                      vertex 0 0 0
+                      vertex 1 0 0
+                      vertex 0 1 0
+                    endloop
+                  endfacet
+                endsolid test
+                """;
+        Path file = dir.resolve("ascii.stl");
+        Files.writeString(file,ascii, StandardCharsets.UTF_8);
+        Mesh mesh = new Mesh();
+        new LoadSTL().load(file,mesh);
+        Assertions.assertEquals(3,mesh.getNumVertices());
+        Assertions.assertEquals(1,mesh.getNormal(0).z,1e-6);
+        Assertions.assertEquals(1,mesh.getVertex(1).x,1e-6);
+    }
+}
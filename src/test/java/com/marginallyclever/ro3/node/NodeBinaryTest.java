@@ -0,0 +1,339 @@
+package com.marginallyclever.ro3.node;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import com.marginallyclever.ro3.node.nodes.pose.poses.MeshInstance;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.vecmath.Vector3d;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.UnaryOperator;
+
+public class NodeBinaryTest {
+    private static final Logger logger = LoggerFactory.getLogger(NodeBinaryTest.class);
+    private static final Path FOLDER = Path.of("src/test/resources/com/marginallyclever/ro3/apps/node/nodes/marlinrobotarm");
+    private static final Path SCENE = FOLDER.resolve("Sixi3-5.RO");
+
+    @BeforeAll
+    public static void beforeAll() {
+        Registry.start();
+    }
+
+    private static byte [] write(Node node) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NodeBinaryWriter.write(node,out);
+        return out.toByteArray();
+    }
+
+    private static JSONObject asText(Node node) {
+        // compare as text.  in memory the arrays may hold null where the parsed copy holds JSONObject.NULL.
+        return new JSONObject(node.toJSON().toString());
+    }
+
+    private static int countMade(Node node) {
+        int count = 0;
+        List<Node> toScan = new ArrayList<>(List.of(node));
+        while(!toScan.isEmpty()) {
+            Node n = toScan.remove(toScan.size()-1);
+            count++;
+            if(!n.hasPendingChildren()) toScan.addAll(n.getChildren());
+        }
+        return count;
+    }
+
+    /**
+     * A scene should come back the same whether it is read all at once or a piece at a time.
+     */
+    @Test
+    public void sameAsJSON() throws IOException {
+        String oldCWD = System.getProperty("user.dir");
+        System.setProperty("user.dir",SCENE.toAbsolutePath().getParent()+File.separator);
+        try {
+            Node scene = new Node("Scene");
+            scene.fromJSON(new JSONObject(Files.readString(SCENE)));
+            JSONObject expected = asText(scene);
+
+            byte [] bytes = write(scene);
+            NodeBinaryReader reader = new NodeBinaryReader(ByteBuffer.wrap(bytes));
+            Assertions.assertEquals(countMade(scene),reader.getNodeCount());
+
+            Node all = reader.read(Integer.MAX_VALUE);
+            Assertions.assertFalse(all.hasPendingChildren());
+            Assertions.assertTrue(expected.similar(asText(all)));
+
+            Node lazy = new Node("Scene");
+            reader.readInto(lazy,0);
+            Assertions.assertTrue(lazy.hasPendingChildren());
+            Assertions.assertEquals(1,countMade(lazy));
+            Assertions.assertTrue(expected.similar(asText(lazy)));
+            Assertions.assertFalse(lazy.hasPendingChildren());
+
+            logger.info("{} nodes.  JSON {} bytes, binary {} bytes.",reader.getNodeCount(),
+                    expected.toString().length(),bytes.length);
+        } finally {
+            System.setProperty("user.dir",oldCWD);
+        }
+    }
+
+    /**
+     * Values of every type that JSON can hold should come back with the same type.
+     */
+    @Test
+    public void values() throws IOException {
+        JSONObject fields = new JSONObject();
+        fields.put("int",3);
+        fields.put("long",1L<<40);
+        fields.put("double",-0.0);
+        fields.put("string","hello");
+        fields.put("uuid","123e4567-e89b-12d3-a456-426614174000");
+        fields.put("notUUID","123E4567-E89B-12D3-A456-426614174000");
+        fields.put("bool",true);
+        fields.put("null",JSONObject.NULL);
+        fields.put("doubles",new JSONArray(new double[]{1,2.5,-3}));
+        fields.put("mixed",new JSONArray(List.of(1,"two",3.0,new JSONObject().put("four",4))));
+        fields.put("empty",new JSONArray());
+
+        Node node = new Node("a") {
+            @Override
+            public JSONObject toJSON() {
+                JSONObject json = super.toJSON();
+                for(String key : fields.keySet()) json.put(key,fields.get(key));
+                return json;
+            }
+        };
+        NodeBinaryReader reader = new NodeBinaryReader(ByteBuffer.wrap(write(node)));
+        // the reader has no such type, so it makes a plain Node.  read the fields the way it would.
+        Node [] got = new Node[1];
+        reader.readInto(new Node() {
+            @Override
+            public void fromJSON(JSONObject from) {
+                super.fromJSON(from);
+                for(String key : fields.keySet()) {
+                    Object expected = fields.get(key);
+                    Object actual = from.get(key);
+                    if(expected instanceof JSONObject || expected instanceof JSONArray) {
+                        Assertions.assertEquals(expected.toString(),actual.toString(),key);
+                    } else {
+                        Assertions.assertEquals(expected,actual,key);
+                    }
+                }
+                got[0] = this;
+            }
+        },0);
+        Assertions.assertNotNull(got[0]);
+        Assertions.assertEquals("a",got[0].getName());
+        Assertions.assertEquals(node.getUniqueID(),got[0].getUniqueID());
+    }
+
+    /**
+     * Looking for a node by ID should make only the subtrees on the way to it.
+     */
+    @Test
+    public void findMakesOnlyThePath() throws IOException {
+        Node scene = new Node("Scene");
+        Node target = null;
+        for(int i=0;i<10;++i) {
+            Pose group = new Pose("g"+i);
+            scene.addChild(group);
+            for(int j=0;j<10;++j) {
+                Pose p = new Pose("p"+j);
+                group.addChild(p);
+                if(i==7 && j==3) target = p;
+            }
+        }
+        Assertions.assertNotNull(target);
+
+        Node loaded = new NodeBinaryReader(ByteBuffer.wrap(write(scene))).read(0);
+        Assertions.assertEquals(1,countMade(loaded));
+        Pose found = loaded.findNodeByID(target.getUniqueID(),Pose.class);
+        Assertions.assertNotNull(found);
+        Assertions.assertEquals("/Scene/g7/p3",found.getAbsolutePath());
+        // the scene, the 10 groups, and the 10 poses in g7.
+        Assertions.assertEquals(21,countMade(loaded));
+        Assertions.assertNull(loaded.findNodeByID("00000000-0000-0000-0000-000000000000",Node.class));
+
+        Assertions.assertNotNull(loaded.findByPath("g2/p9"));
+        Assertions.assertEquals(31,countMade(loaded));
+    }
+
+    /**
+     * Children still in the file are made once, even when several threads ask for them at the same time.
+     */
+    @Test
+    public void manyThreadsMakeChildrenOnce() throws Exception {
+        Node scene = new Node("Scene");
+        for(int i=0;i<100;++i) scene.addChild(new Pose("p"+i));
+        byte [] bytes = write(scene);
+
+        for(int repeat=0;repeat<20;++repeat) {
+            Node loaded = new NodeBinaryReader(ByteBuffer.wrap(bytes)).read(0);
+            Assertions.assertTrue(loaded.hasPendingChildren());
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            int [] seen = new int[8];
+            for(int t=0;t<seen.length;++t) {
+                int index = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        go.await();
+                    } catch(InterruptedException e) {
+                        return;
+                    }
+                    seen[index] = loaded.getChildren().size();
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            go.countDown();
+            for(Thread thread : threads) thread.join();
+            Assertions.assertEquals(100,loaded.getChildren().size());
+            for(int count : seen) Assertions.assertEquals(100,count);
+        }
+    }
+
+    /**
+     * Asset paths are kept in one table and can be renamed when the file is written and when it is read.
+     */
+    @Test
+    public void renameAssets() throws IOException {
+        String mesh = FOLDER.resolve("j0.obj").toAbsolutePath().toString();
+        Node scene = new Node("Scene");
+        for(int i=0;i<3;++i) {
+            MeshInstance m = new MeshInstance("m"+i);
+            m.fromJSON(new JSONObject().put("name","m"+i).put("nodeID",m.getUniqueID())
+                    .put("children",new JSONArray()).put("mesh",mesh));
+            scene.addChild(m);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NodeBinaryWriter.write(scene,out,Set.of(mesh),path -> "j0.obj");
+        Node loaded = new NodeBinaryReader(ByteBuffer.wrap(out.toByteArray()),
+                path -> FOLDER.resolve(path).toAbsolutePath().toString()).read(Integer.MAX_VALUE);
+        for(Node n : loaded.getChildren()) {
+            Assertions.assertEquals(mesh,n.toJSON().getString("mesh"));
+        }
+        Assertions.assertEquals(1,countOccurrences(out.toByteArray(),"j0.obj".getBytes()));
+    }
+
+    private static int countOccurrences(byte [] haystack, byte [] needle) {
+        int count = 0;
+        outer:
+        for(int i=0;i+needle.length<=haystack.length;++i) {
+            for(int j=0;j<needle.length;++j) {
+                if(haystack[i+j]!=needle[j]) continue outer;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void rejectsBadFiles() {
+        Assertions.assertThrows(IOException.class,() -> new NodeBinaryReader(ByteBuffer.wrap("{\"name\":\"a\"}".getBytes())));
+        Assertions.assertThrows(IOException.class,() -> new NodeBinaryReader(ByteBuffer.allocate(64)));
+    }
+
+    /**
+     * Open a scene of 10k {@link MeshInstance}s as JSON and as binary, and compare the time and memory used.
+     */
+    @Test
+    public void openTimeAndMemory(@TempDir Path dir) throws IOException {
+        String mesh = FOLDER.resolve("j0.obj").toAbsolutePath().toString();
+        Node scene = new Node("Scene");
+        final int groups = 100;
+        final int perGroup = 100;
+        for(int i=0;i<groups;++i) {
+            Pose group = new Pose("g"+i);
+            scene.addChild(group);
+            for(int j=0;j<perGroup;++j) {
+                MeshInstance m = new MeshInstance("m"+j);
+                m.fromJSON(new JSONObject().put("name","m"+j).put("nodeID",m.getUniqueID())
+                        .put("children",new JSONArray()).put("mesh",mesh));
+                m.setPosition(new Vector3d(i,j,0));
+                group.addChild(m);
+            }
+        }
+        Path json = dir.resolve("big.RO");
+        Path binary = dir.resolve("big."+NodeBinaryWriter.EXTENSION);
+        try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(json))) {
+            NodeJSONStream.write(scene,out);
+        }
+        try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(binary))) {
+            NodeBinaryWriter.write(scene,out);
+        }
+        Assertions.assertTrue(NodeBinaryReader.isBinary(binary));
+        Assertions.assertFalse(NodeBinaryReader.isBinary(json));
+        JSONObject expected = asText(scene);
+        scene = null;
+
+        // warm up both paths so the first one measured is not paying for class loading.
+        try(InputStream in = new BufferedInputStream(Files.newInputStream(json))) {
+            NodeJSONStream.read(in);
+        }
+        NodeBinaryReader.open(binary,UnaryOperator.identity()).read(Integer.MAX_VALUE);
+
+        long before = usedMemory();
+        long start = System.nanoTime();
+        Node fromJSON;
+        try(InputStream in = new BufferedInputStream(Files.newInputStream(json))) {
+            fromJSON = NodeJSONStream.read(in);
+        }
+        long jsonNanos = System.nanoTime()-start;
+        long jsonBytes = usedMemory()-before;
+
+        before = usedMemory();
+        start = System.nanoTime();
+        Node lazy = NodeBinaryReader.open(binary,UnaryOperator.identity()).read(1);
+        long lazyNanos = System.nanoTime()-start;
+        long lazyBytes = usedMemory()-before;
+
+        before = usedMemory();
+        start = System.nanoTime();
+        Node full = NodeBinaryReader.open(binary,UnaryOperator.identity()).read(Integer.MAX_VALUE);
+        long fullNanos = System.nanoTime()-start;
+        long fullBytes = usedMemory()-before;
+
+        logger.info("{} MeshInstances.  JSON {} bytes, binary {} bytes.",groups*perGroup,Files.size(json),Files.size(binary));
+        logger.info("JSON open {}ms {}kB.  binary open {}ms {}kB.  binary all {}ms {}kB.  RSS {}kB.",
+                jsonNanos/1_000_000,jsonBytes/1024,lazyNanos/1_000_000,lazyBytes/1024,
+                fullNanos/1_000_000,fullBytes/1024,residentKilobytes());
+
+        Assertions.assertTrue(Files.size(binary)<Files.size(json));
+        Assertions.assertEquals(1+groups,countMade(lazy));
+        Assertions.assertTrue(expected.similar(asText(fromJSON)));
+        Assertions.assertTrue(expected.similar(asText(full)));
+        Assertions.assertTrue(expected.similar(asText(lazy)));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i=0;i<3;++i) System.gc();
+        return runtime.totalMemory()-runtime.freeMemory();
+    }
+
+    /**
+     * @return the resident set size of this process, or -1 if it is not known.
+     */
+    private static long residentKilobytes() {
+        try {
+            for(String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if(line.startsWith("VmRSS:")) return Long.parseLong(line.replaceAll("\\D",""));
+            }
+        } catch(IOException | NumberFormatException ignored) {}
+        return -1;
+    }
+}
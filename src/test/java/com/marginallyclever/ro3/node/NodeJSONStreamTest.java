@@ -0,0 +1,133 @@
+package com.marginallyclever.ro3.node;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.vecmath.Vector3d;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class NodeJSONStreamTest {
+    private static final Logger logger = LoggerFactory.getLogger(NodeJSONStreamTest.class);
+    private static final Path SCENE = Path.of("src/test/resources/com/marginallyclever/ro3/apps/node/nodes/marlinrobotarm/Sixi3-5.RO");
+
+    @BeforeAll
+    public static void beforeAll() {
+        Registry.start();
+    }
+
+    /**
+     * A file written by {@link JSONObject#toString()} should load the same either way, and the streamed copy should
+     * load the same again.
+     */
+    @Test
+    public void sameAsDOM() throws IOException {
+        String oldCWD = System.getProperty("user.dir");
+        System.setProperty("user.dir",SCENE.toAbsolutePath().getParent()+File.separator);
+        try {
+            Node dom = new Node("Scene");
+            dom.fromJSON(new JSONObject(Files.readString(SCENE)));
+
+            Node streamed = new Node("Scene");
+            try(InputStream in = Files.newInputStream(SCENE)) {
+                NodeJSONStream.readInto(streamed,in);
+            }
+            JSONObject expected = dom.toJSON();
+            Assertions.assertTrue(expected.similar(streamed.toJSON()));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            NodeJSONStream.write(streamed,out);
+            String written = out.toString(StandardCharsets.UTF_8);
+            Assertions.assertTrue(written.startsWith("{\"type\":\"Node\",\"name\":\"Scene\""));
+            // compare as text.  in memory the arrays may hold null where the parsed copy holds JSONObject.NULL.
+            Assertions.assertTrue(new JSONObject(expected.toString()).similar(new JSONObject(written)));
+
+            Node again = NodeJSONStream.read(new ByteArrayInputStream(out.toByteArray()));
+            Assertions.assertTrue(expected.similar(again.toJSON()));
+        } finally {
+            System.setProperty("user.dir",oldCWD);
+        }
+    }
+
+    /**
+     * Save and load a scene with many nodes through a file.
+     */
+    @Test
+    public void largeScene(@TempDir Path dir) throws IOException {
+        Node scene = new Node("Scene");
+        final int count = 30_000;
+        Node parent = scene;
+        for(int i=0;i<count;++i) {
+            Pose p = new Pose("p"+i);
+            p.setPosition(new Vector3d(i,0,0));
+            // a few deep branches and a lot of wide ones.
+            (i%100==0 ? scene : parent).addChild(p);
+            if(i%100==0) parent = p;
+        }
+
+        Path file = dir.resolve("large.RO");
+        long start = System.nanoTime();
+        try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            NodeJSONStream.write(scene,out);
+        }
+        long saved = System.nanoTime();
+        Node loaded;
+        try(InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            loaded = NodeJSONStream.read(in);
+        }
+        long done = System.nanoTime();
+        logger.info("{} nodes, {} bytes.  save {}ms, load {}ms.",count,Files.size(file),
+                (saved-start)/1_000_000,(done-saved)/1_000_000);
+
+        int [] found = {0};
+        List<Node> toScan = new ArrayList<>(List.of(loaded));
+        while(!toScan.isEmpty()) {
+            Node n = toScan.remove(toScan.size()-1);
+            if(n instanceof Pose) found[0]++;
+            toScan.addAll(n.getChildren());
+        }
+        Assertions.assertEquals(count,found[0]);
+        Assertions.assertTrue(new JSONObject(scene.toJSON().toString()).similar(new JSONObject(loaded.toJSON().toString())));
+    }
+
+    @Test
+    public void childrenBeforeFields() throws IOException {
+        String json = "{\"children\":[{\"children\":[],\"nodeID\":\"00000000-0000-0000-0000-000000000002\",\"name\":\"b\",\"type\":\"Pose\"}],"
+                + "\"nodeID\":\"00000000-0000-0000-0000-000000000001\",\"name\":\"a\",\"type\":\"Node\"}";
+        Node a = NodeJSONStream.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals("a",a.getName());
+        Assertions.assertEquals(1,a.getChildren().size());
+        Node b = a.getChildren().get(0);
+        Assertions.assertEquals("b",b.getName());
+        Assertions.assertSame(a,b.getParent());
+        Assertions.assertEquals("Pose",b.getClass().getSimpleName());
+    }
+
+    @Test
+    public void validateRejectsBadJSON() {
+        Assertions.assertThrows(IOException.class,() -> NodeJSONStream.validate(
+                new ByteArrayInputStream("{\"name\":\"a\",\"children\":[}".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertThrows(IOException.class,() -> NodeJSONStream.validate(
+                new ByteArrayInputStream("{}{}".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertDoesNotThrow(() -> NodeJSONStream.validate(
+                new ByteArrayInputStream("{\"name\":\"a\",\"children\":[]}".getBytes(StandardCharsets.UTF_8))));
+    }
+}
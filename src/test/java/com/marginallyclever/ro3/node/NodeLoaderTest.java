@@ -0,0 +1,154 @@
+package com.marginallyclever.ro3.node;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.nodefactory.NodeFactory;
+import com.marginallyclever.ro3.node.nodes.marlinrobot.marlinrobotarm.MarlinRobotArm;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.vecmath.Matrix4d;
+import javax.vecmath.Vector3d;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class NodeLoaderTest {
+    private static final Logger logger = LoggerFactory.getLogger(NodeLoaderTest.class);
+    private static final Path SCENE = Path.of("src/test/resources/com/marginallyclever/ro3/apps/node/nodes/marlinrobotarm/Sixi3-5.RO");
+
+    @BeforeAll
+    public static void beforeAll() {
+        Registry.start();
+    }
+
+    private static Node buildTree(int groups, int depth) {
+        Node scene = new Node("Scene");
+        for(int i=0;i<groups;++i) {
+            Node parent = scene;
+            for(int j=0;j<depth;++j) {
+                Pose p = new Pose("p"+j);
+                p.setPosition(new Vector3d(i,j,1));
+                parent.addChild(p);
+                parent = p;
+            }
+        }
+        return scene;
+    }
+
+    private static List<Node> allNodes(Node root) {
+        List<Node> list = new ArrayList<>(List.of(root));
+        for(int i=0;i<list.size();++i) list.addAll(list.get(i).getChildren());
+        return list;
+    }
+
+    /**
+     * A tree loaded in bulk should be the same as one loaded one node at a time, with every pose attached to its
+     * parent pose.
+     */
+    @Test
+    public void sameAsOneAtATime() {
+        JSONObject json = buildTree(200,50).toJSON();
+
+        long start = System.nanoTime();
+        Node slow = new Node();
+        slow.fromJSON(json);
+        long middle = System.nanoTime();
+        Node fast = NodeLoader.fromJSON(json);
+        long end = System.nanoTime();
+        logger.info("10k poses.  one at a time {}ms, bulk {}ms.",(middle-start)/1_000_000,(end-middle)/1_000_000);
+
+        Assertions.assertFalse(NodeLoader.isLoading());
+        Assertions.assertTrue(json.similar(fast.toJSON()));
+        for(Node n : allNodes(fast)) {
+            if(!(n instanceof Pose p)) continue;
+            Node parent = p.getParent();
+            Assertions.assertSame(parent instanceof Pose ? parent : null,p.getParentPose());
+        }
+        // the world of the deepest pose includes every pose above it.
+        Pose deepest = (Pose)fast.findByPath("p0/p1/p2/p3/p4/p5/p6/p7/p8/p9/p10/p11/p12/p13/p14/p15/p16/p17/p18/p19/p20"
+                + "/p21/p22/p23/p24/p25/p26/p27/p28/p29/p30/p31/p32/p33/p34/p35/p36/p37/p38/p39/p40/p41/p42/p43/p44"
+                + "/p45/p46/p47/p48/p49");
+        Assertions.assertNotNull(deepest);
+        Matrix4d world = deepest.getWorld();
+        Assertions.assertEquals(50,world.m23,1e-9);
+    }
+
+    /**
+     * Attach and ready run once for every node, children before their parent.
+     */
+    @Test
+    public void hooksRunAfterTheTreeIsBuilt() {
+        JSONObject json = buildTree(3,3).toJSON();
+        List<String> attached = new ArrayList<>();
+        Node root = new Node();
+        NodeLoader.load(root,() -> {
+            root.fromJSON(json);
+            for(Node n : allNodes(root)) {
+                n.addAttachListener(child -> attached.add(child.getAbsolutePath()));
+            }
+            Assertions.assertTrue(attached.isEmpty());
+        });
+        Assertions.assertEquals(9,attached.size());
+        Assertions.assertEquals(9,allNodes(root).size()-1);
+        Assertions.assertTrue(attached.indexOf("/Scene/p0/p1/p2") < attached.indexOf("/Scene/p0/p1"));
+        Assertions.assertTrue(attached.indexOf("/Scene/p0/p1") < attached.indexOf("/Scene/p0"));
+    }
+
+    /**
+     * Paths read during a load point at their subjects as soon as it is done.
+     */
+    @Test
+    public void pathsAreLinked() throws IOException {
+        String oldCWD = System.getProperty("user.dir");
+        System.setProperty("user.dir",SCENE.toAbsolutePath().getParent().toString());
+        try {
+            Node scene = new Node("Scene");
+            NodeLoader.fromJSON(scene,new JSONObject(Files.readString(SCENE)));
+            MarlinRobotArm arm = null;
+            for(Node n : allNodes(scene)) {
+                if(n instanceof MarlinRobotArm a) arm = a;
+            }
+            Assertions.assertNotNull(arm);
+            Assertions.assertNotNull(arm.limb.getSubject());
+            Assertions.assertTrue(arm.limb.getSubject().getNumJoints()>0);
+        } finally {
+            System.setProperty("user.dir",oldCWD);
+        }
+    }
+
+    /**
+     * Types are found by name the same as before, including types added after the first search.
+     */
+    @Test
+    public void factoryFindsTypes() {
+        NodeFactory factory = new NodeFactory();
+        var pose = factory.getRoot().add("Pose",Pose::new);
+        pose.add("Deep",Node::new);
+        Assertions.assertInstanceOf(Pose.class,factory.create("Pose"));
+        Assertions.assertNotNull(factory.create("Deep"));
+        Assertions.assertNull(factory.create("Later"));
+        factory.getRoot().add("Later",Pose::new);
+        Assertions.assertInstanceOf(Pose.class,factory.create("Later"));
+        // below the top, and a branch made before it was added.
+        Assertions.assertNull(factory.create("Deeper"));
+        pose.add("Deeper",Pose::new);
+        Assertions.assertInstanceOf(Pose.class,factory.create("Deeper"));
+        var branch = new NodeFactory.Category("Branch",null);
+        branch.add("Leaf",Pose::new);
+        factory.getRoot().add(branch);
+        Assertions.assertNull(factory.create("Branch"));
+        Assertions.assertInstanceOf(Pose.class,factory.create("Leaf"));
+        branch.add("Twig",Pose::new);
+        Assertions.assertInstanceOf(Pose.class,factory.create("Twig"));
+        factory.clear();
+        Assertions.assertNull(factory.create("Later"));
+        Assertions.assertNotNull(factory.create("Node"));
+    }
+}
@@ -42,4 +42,53 @@ class NodePathTest {
         nodePath.setUniqueIDByNode(goal);
         assertEquals(goal.getUniqueID(), nodePath.getUniqueID());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetSubjectFollowsChanges() {
+        Node root = new Node("root");
+        Node owner = new Node("owner");
+        Node goal = new Node("goal");
+        root.addChild(owner);
+        root.addChild(goal);
+        NodePath<Node> nodePath = new NodePath<>(owner, Node.class);
+        nodePath.setUniqueIDByNode(goal);
+        assertSame(goal, nodePath.getSubject());
+        assertSame(goal, nodePath.getSubject());
+
+        root.removeChild(goal);
+        assertNull(nodePath.getSubject());
+        root.addChild(goal);
+        assertSame(goal, nodePath.getSubject());
+
+        nodePath.setUniqueIDByNode(owner);
+        assertSame(owner, nodePath.getSubject());
+        nodePath.setUniqueIDByNode(null);
+        assertNull(nodePath.getSubject());
+    }
+
+    @Test
+    void testOtherTreesDoNotInvalidate() {
+        Node root = new Node("root");
+        Node goal = new Node("goal");
+        root.addChild(goal);
+        NodePath<Node> nodePath = new NodePath<>(root, Node.class);
+        nodePath.setUniqueIDByNode(goal);
+        assertSame(goal, nodePath.getSubject());
+        Node.IdIndex index = root.getIndex();
+        int version = index.getVersion();
+
+        Node other = new Node("other");
+        Node leaf = new Node("leaf");
+        other.addChild(leaf);
+        other.findNodeByID(leaf.getUniqueID(), Node.class);
+        other.removeChild(leaf);
+        assertSame(index, root.getIndex());
+        assertEquals(version, index.getVersion());
+
+        // moving the owner into another tree is noticed.
+        Node bigger = new Node("bigger");
+        bigger.addChild(root);
+        assertNotSame(index, root.getIndex());
+        assertSame(goal, nodePath.getSubject());
+    }
+}
@@ -173,6 +173,49 @@ public class NodeTest {
         assertEquals(childNode, parentNode.findNodeByID(id, Node.class));
     }
 
+    @Test
+    public void testFindNodeByIDFollowsChanges() {
+        Node grandChild = new Node("grandChild");
+        String id = grandChild.getUniqueID();
+        // build the index before the node is attached.
+        assertNull(parentNode.findNodeByID(id, Node.class));
+
+        childNode.addChild(grandChild);
+        parentNode.addChild(childNode);
+        assertEquals(grandChild, parentNode.findNodeByID(id, Node.class));
+        assertEquals(grandChild, childNode.findNodeByID(id, Node.class));
+        assertNull(parentNode.findNodeByID(id, Pose.class));
+        assertNull(parentNode.findNodeByID("not a uuid", Node.class));
+        assertNull(parentNode.findNodeByID("", Node.class));
+
+        // a search from below the root only finds nodes below.
+        assertNull(childNode.findNodeByID(parentNode.getUniqueID(), Node.class));
+
+        parentNode.removeChild(childNode);
+        assertNull(parentNode.findNodeByID(id, Node.class));
+        assertEquals(grandChild, childNode.findNodeByID(id, Node.class));
+
+        parentNode.addChild(childNode);
+        grandChild.witnessProtection();
+        assertNull(parentNode.findNodeByID(id, Node.class));
+        assertEquals(grandChild, parentNode.findNodeByID(grandChild.getUniqueID(), Node.class));
+    }
+
+    /**
+     * Scene files edited by hand can contain nodes that share an ID.  The type decides which one is found.
+     */
+    @Test
+    public void testFindNodeByIDWithDuplicates() {
+        Pose pose = new Pose("pose");
+        pose.fromJSON(new Pose("pose").toJSON().put("nodeID",childNode.getUniqueID()));
+        parentNode.addChild(childNode);
+        parentNode.addChild(pose);
+        assertEquals(pose, parentNode.findNodeByID(childNode.getUniqueID(), Pose.class));
+        assertEquals(childNode, parentNode.findNodeByID(childNode.getUniqueID(), Node.class));
+        parentNode.removeChild(childNode);
+        assertEquals(pose, parentNode.findNodeByID(childNode.getUniqueID(), Node.class));
+    }
+
     @Test
     public void testFindNodeByPath() {
         parentNode.addChild(childNode);
@@ -0,0 +1,43 @@
+package com.marginallyclever.ro3.node.nodefactory;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.Motor;
+import com.marginallyclever.ro3.node.nodes.marlinrobot.MarlinRobot;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import com.marginallyclever.ro3.node.nodes.pose.poses.MeshInstance;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class NodeFactoryTest {
+    @BeforeAll
+    public static void beforeAll() {
+        Registry.start();
+    }
+
+    /**
+     * {@link Registry#start()} does not scan the classpath, so every type of node must be listed there.
+     */
+    @Test
+    public void everyNodeIsRegistered() {
+        Assertions.assertEquals(0,Registry.nodeFactory.scan().size());
+    }
+
+    /**
+     * The scan finds the types of the app, but not the bases they extend or the types in the tests.
+     */
+    @Test
+    public void scanFindsMissingTypes() {
+        NodeFactory empty = new NodeFactory();
+        var missing = empty.scan();
+        Assertions.assertTrue(missing.contains(Motor.class));
+        Assertions.assertTrue(missing.contains(MeshInstance.class));
+        Assertions.assertFalse(missing.contains(Node.class));
+        Assertions.assertFalse(missing.contains(Pose.class));
+        Assertions.assertFalse(missing.contains(MarlinRobot.class));
+        Assertions.assertFalse(missing.contains(TestNode.class));
+    }
+
+    public static class TestNode extends Node {}
+}
@@ -0,0 +1,157 @@
+package com.marginallyclever.ro3.node.nodes.marlinrobot;
+
+import com.marginallyclever.convenience.helpers.StringHelper;
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.apps.actions.LoadScene;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.NodePath;
+import com.marginallyclever.ro3.node.nodes.Motor;
+import com.marginallyclever.ro3.node.nodes.marlinrobot.marlinrobotarm.MarlinRobotArm;
+import com.marginallyclever.ro3.node.nodes.pose.poses.Limb;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class GCodeJobTest {
+    private MarlinRobotArm arm;
+    private Limb limb;
+
+    @BeforeEach
+    public void setup() {
+        Registry.start();
+        var load = new LoadScene(null,null);
+        File file = new File("src/test/resources/com/marginallyclever/ro3/apps/node/nodes/marlinrobotarm/Sixi3-5.RO");
+        load.commitLoad(file);
+        arm = find(Registry.getScene(),MarlinRobotArm.class);
+        Assertions.assertNotNull(arm);
+        limb = arm.limb.getSubject();
+        Assertions.assertNotNull(limb);
+        // move at the default feedrate instead of the speed of the solver.
+        arm.setSolver(null);
+    }
+
+    private static <T extends Node> T find(Node node, Class<T> type) {
+        if(type.isInstance(node)) return type.cast(node);
+        for(Node child : node.getChildren()) {
+            T found = find(child,type);
+            if(found!=null) return found;
+        }
+        return null;
+    }
+
+    /**
+     * Stream a long file of moves.  The robot should never be more than a few commands behind, every command should
+     * get a reply, and the robot should end where the file says.
+     */
+    @Test
+    public void streamMoves(@TempDir Path dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        for(NodePath<Motor> path : limb.getMotors()) {
+            if(path.getSubject()!=null) names.add(path.getSubject().getName());
+        }
+        double [] angles = limb.getAllJointAngles();
+
+        Path file = dir.resolve("job.gcode");
+        Random random = new Random(0);
+        final int moves = 2000;
+        try(BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("; a test job\n\n");
+            for(int i=0;i<moves;++i) {
+                StringBuilder sb = new StringBuilder("G0");
+                for(int j=0;j<angles.length;++j) {
+                    angles[j] += random.nextDouble()*2-1;
+                    sb.append(" ").append(names.get(j)).append(StringHelper.formatDouble(angles[j]));
+                }
+                out.write(sb.append(" ; move ").append(i).append("\n").toString());
+            }
+            out.write("M114\n");
+        }
+
+        GCodeJob job = new GCodeJob(arm,file);
+        arm.runJob(job);
+        int frames = 0;
+        boolean checkedHalfway = false;
+        while(!job.isFinished()) {
+            arm.update(1.0/30.0);
+            Assertions.assertTrue(job.getLinesSent()-job.getLinesDone() <= job.getMaxInFlight());
+            Assertions.assertTrue(arm.getWaitingCommandCount() <= MarlinRobotArm.COMMAND_BUFFER_SIZE);
+            Assertions.assertTrue(++frames < 1_000_000,"job never finished");
+            // the reader thread sets the pace at the start, so check by lines done instead of by frames.
+            if(!checkedHalfway && job.getLinesDone()>=moves/2) {
+                checkedHalfway = true;
+                Assertions.assertTrue(job.getProgress()>0 && job.getProgress()<1);
+                Assertions.assertTrue(job.getEstimatedTimeRemaining()>0);
+            }
+        }
+
+        Assertions.assertTrue(checkedHalfway);
+        Assertions.assertEquals(moves+1,job.getLinesDone());
+        Assertions.assertEquals(0,job.getErrorCount());
+        Assertions.assertEquals(1.0,job.getProgress());
+        Assertions.assertTrue(job.getLinesPerSecond()>0);
+        Assertions.assertNull(job.getReadError());
+
+        // let the last moves finish.
+        for(int i=0;i<1000;++i) arm.update(1.0/30.0);
+        double [] end = limb.getAllJointAngles();
+        for(int j=0;j<angles.length;++j) {
+            Assertions.assertEquals(angles[j],end[j],1e-2);
+        }
+    }
+
+    /**
+     * A robot that replies from another thread, like one on a serial port.  The job should keep going on replies
+     * alone, without {@link MarlinRobot#update(double)}.
+     */
+    @Test
+    public void repliesSendTheNextCommand() throws InterruptedException {
+        ExecutorService port = Executors.newSingleThreadExecutor();
+        MarlinRobot robot = new MarlinRobot() {
+            @Override
+            public void sendGCode(String gcode) {
+                port.execute(() -> fireMarlinMessage("Ok: "+gcode));
+            }
+        };
+        StringBuilder program = new StringBuilder("; header\n\n");
+        final int lines = 5000;
+        for(int i=0;i<lines;++i) program.append("G0 X").append(i).append("\n");
+
+        GCodeJob job = new GCodeJob(robot,"test",program.toString(),GCodeJob.DEFAULT_QUEUE_SIZE,8);
+        Assertions.assertNull(job.getPath());
+        Assertions.assertTrue(Double.isNaN(job.getLatencyPercentile(50)));
+        robot.runJob(job);
+        // the reader thread may not have filled the queue yet.
+        long end = System.currentTimeMillis()+10_000;
+        while(job.getLinesSent()==0 && System.currentTimeMillis()<end) {
+            robot.update(0);
+            Thread.sleep(1);
+        }
+        while(!job.isFinished() && System.currentTimeMillis()<end) {
+            // only pump when the replies have stopped because the reader fell behind.
+            if(job.getLinesSent()==job.getLinesDone()) robot.update(0);
+            Thread.sleep(1);
+        }
+        port.shutdown();
+
+        Assertions.assertTrue(job.isFinished());
+        Assertions.assertEquals(lines,job.getLinesDone());
+        Assertions.assertEquals(lines+1,job.getLastLineDone());
+        Assertions.assertEquals(1.0,job.getProgress());
+        double p50 = job.getLatencyPercentile(50);
+        double p99 = job.getLatencyPercentile(99);
+        Assertions.assertTrue(p50>0 && p50<=p99 && p99<=job.getLatencyPercentile(100));
+        Assertions.assertTrue(job.getLinesPerSecondReal()>0);
+    }
+}
@@ -2,6 +2,8 @@ package com.marginallyclever.ro3.node.nodes.marlinrobot.marlinrobotarm;
 
 import com.marginallyclever.convenience.helpers.StringHelper;
 import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.apps.actions.LoadScene;
+import com.marginallyclever.ro3.node.Node;
 import com.marginallyclever.ro3.node.nodes.marlinrobot.MarlinListener;
 import com.marginallyclever.ro3.node.nodes.marlinrobot.marlinrobotarm.MarlinRobotArm;
 import com.marginallyclever.ro3.node.nodes.pose.Pose;
@@ -10,6 +12,10 @@ import com.marginallyclever.ro3.node.nodes.limbsolver.LimbSolver;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -97,4 +103,35 @@ class MarlinRobotArmTest {
             Locale.setDefault(defaultLocale);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A move at zero speed has no end time.  The arm must give up on it instead of spinning forever in update().
+     */
+    @Test
+    public void blockWithNoEndTimeIsSkipped() {
+        Registry.start();
+        new LoadScene(null,null).commitLoad(new File("src/test/resources/com/marginallyclever/ro3/apps/node/nodes/marlinrobotarm/Sixi3-5.RO"));
+        MarlinRobotArm arm = null;
+        List<Node> toScan = new ArrayList<>(List.of(Registry.getScene()));
+        while(arm==null && !toScan.isEmpty()) {
+            Node n = toScan.remove(0);
+            if(n instanceof MarlinRobotArm found) arm = found;
+            toScan.addAll(n.getChildren());
+        }
+        assertNotNull(arm);
+        LimbSolver solver = arm.getSolver().getSubject();
+        assertNotNull(solver);
+        solver.setLinearVelocity(0);
+
+        String name = arm.getLimb().getSubject().getMotors().get(0).getSubject().getName();
+        List<String> replies = new ArrayList<>();
+        arm.addMarlinListener(replies::add);
+        arm.sendGCode("G0 "+name+"10");
+        arm.sendGCode("M114");
+        MarlinRobotArm finalArm = arm;
+        assertTimeoutPreemptively(Duration.ofSeconds(5),() -> {
+            for(int i=0;i<100;++i) finalArm.update(1.0/30.0);
+        });
+        assertEquals(2,replies.size());
+    }
+}
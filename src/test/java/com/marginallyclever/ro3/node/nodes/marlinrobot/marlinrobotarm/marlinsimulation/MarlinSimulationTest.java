@@ -0,0 +1,80 @@
+package com.marginallyclever.ro3.node.nodes.marlinrobot.marlinrobotarm.marlinsimulation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+public class MarlinSimulationTest {
+    private static final Logger logger = LoggerFactory.getLogger(MarlinSimulationTest.class);
+
+    /**
+     * A long line is split into more segments than fit in the queue.  The rest should follow as the queue empties.
+     */
+    @Test
+    public void longLineWaitsForRoom() {
+        MarlinSettings settings = new MarlinSettings();
+        MarlinSimulation sim = new MarlinSimulation(settings);
+        Assertions.assertEquals(settings.getInteger(MarlinSettings.BLOCK_BUFFER_SIZE),sim.getCapacity());
+
+        MarlinCoordinate destination = new MarlinCoordinate();
+        destination.p[0] = 100;
+        Assertions.assertTrue(sim.bufferLine(destination,5,3000));
+        Assertions.assertTrue(sim.isFull());
+        Assertions.assertFalse(sim.canBufferLine());
+        Assertions.assertFalse(sim.bufferLine(new MarlinCoordinate(),5,3000));
+
+        MarlinCoordinate last = new MarlinCoordinate();
+        int blocks = 0;
+        while(!sim.isEmpty()) {
+            Assertions.assertTrue(sim.getQueueSize()<=sim.getCapacity());
+            MarlinSimulationBlock block = sim.peek();
+            Assertions.assertEquals(last.p[0],block.start.p[0],1e-9);
+            Assertions.assertTrue(block.end_s>0);
+            last.set(block.end);
+            sim.popHead();
+            blocks++;
+        }
+        Assertions.assertTrue(blocks>sim.getCapacity());
+        Assertions.assertEquals(100,last.p[0],1e-9);
+        Assertions.assertTrue(sim.canBufferLine());
+    }
+
+    /**
+     * Plan a long job the way a time estimate would, popping blocks as soon as the queue is full.
+     */
+    @Test
+    public void estimateLongJob() {
+        MarlinSimulation sim = new MarlinSimulation(new MarlinSettings());
+        Random random = new Random(0);
+        MarlinCoordinate destination = new MarlinCoordinate();
+        final double feedrate = 5;
+        final int lines = 200_000;
+        double distance = 0;
+        double seconds = 0;
+
+        long start = System.nanoTime();
+        for(int i=0;i<lines;++i) {
+            MarlinCoordinate previous = new MarlinCoordinate(destination);
+            for(int j=0;j<MarlinCoordinate.SIZE;++j) destination.p[j] += random.nextDouble()*2-1;
+            previous.sub(destination,previous);
+            distance += previous.length();
+            while(!sim.bufferLine(destination,feedrate,3000)) {
+                seconds += sim.peek().end_s;
+                sim.popHead();
+            }
+        }
+        while(!sim.isEmpty()) {
+            seconds += sim.peek().end_s;
+            sim.popHead();
+        }
+        long ms = (System.nanoTime()-start)/1_000_000;
+        logger.info("planned {} lines in {}ms.  estimate {}s",lines,ms,seconds);
+
+        Assertions.assertTrue(Double.isFinite(seconds));
+        // can't go faster than the feedrate.
+        Assertions.assertTrue(seconds >= distance/feedrate*0.99);
+    }
+}
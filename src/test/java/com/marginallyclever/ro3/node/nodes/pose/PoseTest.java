@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import javax.vecmath.Matrix4d;
 import javax.vecmath.Vector3d;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class PoseTest {
@@ -96,4 +98,105 @@ class PoseTest {
         parent.removeChild(child);
         assertNull(child.getParentPose());
     }
-}
\ No newline at end of file
+
+    /**
+     * Read the world of a deep chain so every pose caches it, then move the root and detach a middle link.
+     * The cached world must follow both changes.
+     */
+    @Test
+    public void testCachedWorldFollowsChanges() {
+        Pose [] chain = new Pose[5];
+        for(int i=0;i<chain.length;++i) {
+            chain[i] = new Pose("p"+i);
+            chain[i].setPosition(new Vector3d(1,0,0));
+            if(i>0) chain[i-1].addChild(chain[i]);
+        }
+        Pose last = chain[chain.length-1];
+        assertEquals(new Vector3d(5,0,0),MatrixHelper.getPosition(last.getWorld()));
+
+        chain[0].setPosition(new Vector3d(10,0,0));
+        assertEquals(new Vector3d(14,0,0),MatrixHelper.getPosition(last.getWorld()));
+
+        // changing the result must not change the cache.
+        last.getWorld().setTranslation(new Vector3d(-1,-1,-1));
+        Matrix4d out = new Matrix4d();
+        last.getWorld(out);
+        assertEquals(new Vector3d(14,0,0),MatrixHelper.getPosition(out));
+
+        chain[1].removeChild(chain[2]);
+        assertEquals(new Vector3d(3,0,0),MatrixHelper.getPosition(last.getWorld()));
+    }
+
+    /**
+     * Changes that are not moves - reading a new local transform, or moving a branch under a new parent - must
+     * still reach the cached world of every pose below.
+     */
+    @Test
+    public void testCachedWorldFollowsLoadAndReparent() {
+        Pose [] chain = new Pose[4];
+        for(int i=0;i<chain.length;++i) {
+            chain[i] = new Pose("p"+i);
+            chain[i].setPosition(new Vector3d(1,0,0));
+            if(i>0) chain[i-1].addChild(chain[i]);
+        }
+        Pose last = chain[chain.length-1];
+        assertEquals(new Vector3d(4,0,0),MatrixHelper.getPosition(last.getWorld()));
+
+        Pose moved = new Pose("moved");
+        moved.setPosition(new Vector3d(7,0,0));
+        chain[0].fromJSON(moved.toJSON());
+        assertEquals(new Vector3d(10,0,0),MatrixHelper.getPosition(last.getWorld()));
+
+        Pose other = new Pose("other");
+        other.setPosition(new Vector3d(0,2,0));
+        chain[1].removeChild(chain[2]);
+        assertEquals(new Vector3d(2,0,0),MatrixHelper.getPosition(last.getWorld()));
+        other.addChild(chain[2]);
+        assertEquals(new Vector3d(2,2,0),MatrixHelper.getPosition(last.getWorld()));
+    }
+
+    /**
+     * A reader on another thread must never leave behind a cached world that is older than the last change.
+     */
+    @Test
+    public void testCachedWorldWithAReaderThread() throws InterruptedException {
+        Pose [] chain = new Pose[5];
+        for(int i=0;i<chain.length;++i) {
+            chain[i] = new Pose("p"+i);
+            chain[i].setPosition(new Vector3d(1,0,0));
+            if(i>0) chain[i-1].addChild(chain[i]);
+        }
+        Pose last = chain[chain.length-1];
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            Matrix4d out = new Matrix4d();
+            while(!done.get()) last.getWorld(out);
+        });
+        reader.start();
+        for(int i=0;i<20000;++i) {
+            chain[i%2].setPosition(new Vector3d(i,0,0));
+            double expected = chain[0].getPosition().x + chain[1].getPosition().x + 3;
+            assertEquals(expected,MatrixHelper.getPosition(last.getWorld()).x,1e-9);
+        }
+        done.set(true);
+        reader.join();
+    }
+
+    @Test
+    public void testWorldInverse() {
+        Pose a = new Pose();
+        Pose b = new Pose();
+        a.addChild(b);
+        a.setRotationEuler(new Vector3d(10,20,30),MatrixHelper.EulerSequence.YXZ);
+        b.setPosition(new Vector3d(1,2,3));
+
+        Matrix4d m = b.getWorld();
+        m.mul(b.getWorldInverse());
+        assertTrue(m.epsilonEquals(MatrixHelper.createIdentityMatrix4(),1e-9));
+
+        a.setPosition(new Vector3d(4,5,6));
+        m = b.getWorld();
+        m.mul(b.getWorldInverse());
+        assertTrue(m.epsilonEquals(MatrixHelper.createIdentityMatrix4(),1e-9));
+    }
+}
@@ -0,0 +1,180 @@
+package com.marginallyclever.ro3.physics;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.Material;
+import com.marginallyclever.ro3.node.nodes.odenode.CreatureController;
+import com.marginallyclever.ro3.node.nodes.odenode.ODEHinge;
+import com.marginallyclever.ro3.node.nodes.odenode.ODEPlane;
+import com.marginallyclever.ro3.node.nodes.odenode.odebody.ODEBody;
+import com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies.ODEBox;
+import com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies.ODESphere;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.vecmath.Vector3d;
+
+public class ODEPhysicsTest {
+    private static final Logger logger = LoggerFactory.getLogger(ODEPhysicsTest.class);
+    private ODEPhysics physics;
+    private Node root;
+
+    @BeforeEach
+    public void setup() {
+        physics = new ODEPhysics();
+        Registry.setThreadPhysics(physics);
+        physics.reset();
+        root = new Node("root");
+    }
+
+    @AfterEach
+    public void teardown() {
+        for(Node child : root.getChildren().toArray(new Node[0])) root.removeChild(child);
+        physics.dispose();
+        Registry.setThreadPhysics(null);
+    }
+
+    private void addBodies(int count) {
+        int side = (int)Math.ceil(Math.sqrt(count));
+        for(int i=0;i<count;++i) {
+            ODEBody body = (i%2==0) ? new ODEBox() : new ODESphere();
+            body.setPosition(new Vector3d((i%side)*10,(i/side)*10,5+(i%3)*5));
+            root.addChild(body);
+        }
+    }
+
+    private void run(int steps) {
+        root.update(0);
+        physics.setPaused(false);
+        for(int i=0;i<steps;++i) {
+            physics.update(1.0/60.0);
+            root.update(1.0/60.0);
+        }
+    }
+
+    @Test
+    public void automaticSpaceFollowsBodyCount() {
+        Assertions.assertEquals(ODEPhysics.SpaceType.AUTOMATIC,physics.getSpaceType());
+        Assertions.assertEquals(ODEPhysics.SpaceType.SIMPLE,physics.getActiveSpaceType());
+        addBodies(ODEPhysics.AUTOMATIC_THRESHOLD);
+        run(1);
+        Assertions.assertEquals(ODEPhysics.SpaceType.HASH,physics.getActiveSpaceType());
+        Assertions.assertEquals(ODEPhysics.AUTOMATIC_THRESHOLD,physics.getODESpace().getNumGeoms());
+
+        // the space changes on the next step.
+        physics.setSpaceType(ODEPhysics.SpaceType.SWEEP_AND_PRUNE);
+        Assertions.assertEquals(ODEPhysics.SpaceType.HASH,physics.getActiveSpaceType());
+        run(1);
+        Assertions.assertEquals(ODEPhysics.SpaceType.SWEEP_AND_PRUNE,physics.getActiveSpaceType());
+        Assertions.assertEquals(ODEPhysics.AUTOMATIC_THRESHOLD,physics.getODESpace().getNumGeoms());
+    }
+
+    @Test
+    public void materialLimitsContacts() {
+        root.addChild(new ODEPlane());
+        ODEBox box = new ODEBox();
+        box.setPosition(new Vector3d(0,0,2.4));
+        root.addChild(box);
+        int [] contacts = {0};
+        physics.addCollisionListener((g1,g2,c)->contacts[0]++);
+
+        Assertions.assertTrue(mostContactsPerStep(contacts,30) > 1,"a box resting on a plane makes several contacts per step.");
+
+        // a cap on one side of the pair is enough.  the plane still allows the default.
+        box.findFirstChild(Material.class).setMaxContacts(1);
+        Assertions.assertEquals(1,mostContactsPerStep(contacts,30));
+    }
+
+    @Test
+    public void ownerHearsOnlyItsOwnBodies() {
+        root.addChild(new ODEPlane());
+        ODESphere a = new ODESphere("a");
+        a.setPosition(new Vector3d(0,0,5));
+        ODESphere b = new ODESphere("b");
+        b.setPosition(new Vector3d(50,0,5));
+        root.addChild(a);
+        root.addChild(b);
+        Assertions.assertSame(a,physics.getBody(a.getGeom()));
+
+        int [] heard = {0};
+        physics.setCollisionOwner(a,(g1,g2,c)->{
+            Assertions.assertTrue(g1==a.getGeom() || g2==a.getGeom());
+            heard[0]++;
+        });
+        int [] all = {0};
+        physics.addCollisionListener((g1,g2,c)->all[0]++);
+        run(120);
+        Assertions.assertTrue(heard[0]>0);
+        Assertions.assertTrue(all[0]>heard[0],"b also touched the floor.");
+
+        var geom = a.getGeom();
+        root.removeChild(a);
+        Assertions.assertNull(physics.getBody(geom));
+        Assertions.assertNull(physics.getCollisionOwner(a));
+    }
+
+    @Test
+    public void creatureOwnsBodiesWhenAttached() {
+        CreatureController creature = new CreatureController();
+        ODEBox a = new ODEBox("a");
+        ODEBox b = new ODEBox("b");
+        ODEHinge hinge = new ODEHinge();
+        creature.addChild(a);
+        creature.addChild(b);
+        creature.addChild(hinge);
+        hinge.setPartA(a);
+        hinge.setPartB(b);
+        root.addChild(creature);
+        // before any update.
+        Assertions.assertSame(creature,physics.getCollisionOwner(a));
+        Assertions.assertSame(creature,physics.getCollisionOwner(b));
+
+        // a body that leaves and comes back is claimed again.
+        creature.removeChild(b);
+        Assertions.assertNull(physics.getCollisionOwner(b));
+        creature.addChild(b);
+        Assertions.assertSame(creature,physics.getCollisionOwner(b));
+
+        root.removeChild(creature);
+        Assertions.assertNull(physics.getCollisionOwner(a));
+    }
+
+    private int mostContactsPerStep(int [] contacts,int steps) {
+        root.update(0);
+        physics.setPaused(false);
+        int most = 0;
+        for(int i=0;i<steps;++i) {
+            contacts[0] = 0;
+            physics.update(1.0/60.0);
+            root.update(1.0/60.0);
+            most = Math.max(most,contacts[0]);
+        }
+        return most;
+    }
+
+    /**
+     * Compare the time to step 500 bodies in each kind of space.
+     */
+    @Test
+    @Disabled("benchmark.  run by hand.")
+    public void benchmarkSpaceTypes() {
+        root.addChild(new ODEPlane());
+        addBodies(500);
+        run(1);
+        for(ODEPhysics.SpaceType type : ODEPhysics.SpaceType.values()) {
+            if(type==ODEPhysics.SpaceType.AUTOMATIC) continue;
+            physics.setSpaceType(type);
+            run(1);
+            long start = System.nanoTime();
+            run(20);
+            long elapsed = System.nanoTime()-start;
+            logger.info("{}: {}ms per step with 500 bodies.",type,String.format("%.3f",elapsed/20/1e6));
+            Assertions.assertEquals(501,physics.getODESpace().getNumGeoms());
+        }
+    }
+}
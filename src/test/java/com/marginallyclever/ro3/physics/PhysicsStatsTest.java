@@ -0,0 +1,65 @@
+package com.marginallyclever.ro3.physics;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.odenode.ODEPlane;
+import com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies.ODESphere;
+import com.marginallyclever.ro3.simulation.SimulationScheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.vecmath.Vector3d;
+import java.util.List;
+
+public class PhysicsStatsTest {
+    @Test
+    public void ringKeepsTheNewestSteps() {
+        PhysicsStats stats = new PhysicsStats(3);
+        Assertions.assertNull(stats.getLatest());
+        for(int i=0;i<5;++i) {
+            stats.addPoseSync(10);
+            stats.endStep(100);
+        }
+        List<PhysicsSample> samples = stats.getSamples();
+        Assertions.assertEquals(3,samples.size());
+        Assertions.assertEquals(2,samples.get(0).step());
+        Assertions.assertEquals(4,samples.get(2).step());
+        Assertions.assertSame(samples.get(2),stats.getLatest());
+        Assertions.assertEquals(10,samples.get(0).poseSyncNanos());
+        Assertions.assertEquals(90,samples.get(0).nodeUpdateNanos());
+
+        stats.clear();
+        Assertions.assertTrue(stats.getSamples().isEmpty());
+    }
+
+    @Test
+    public void stepsAreMeasured() {
+        ODEPhysics physics = new ODEPhysics();
+        Registry.setThreadPhysics(physics);
+        Node root = new Node("root");
+        try {
+            physics.reset();
+            root.addChild(new ODEPlane());
+            ODESphere ball = new ODESphere();
+            ball.setPosition(new Vector3d(0,0,ball.getRadius()));
+            root.addChild(ball);
+            root.update(0);
+            physics.setPaused(false);
+
+            SimulationScheduler scheduler = new SimulationScheduler(physics,()->root);
+            for(int i=0;i<10;++i) scheduler.step();
+
+            List<PhysicsSample> samples = physics.getStats().getSamples();
+            Assertions.assertEquals(10,samples.size());
+            PhysicsSample last = samples.get(9);
+            Assertions.assertEquals(1,last.pairs());
+            Assertions.assertTrue(last.contacts()>0);
+            Assertions.assertTrue(last.solverNanos()>0);
+            Assertions.assertTrue(last.totalNanos()>0);
+        } finally {
+            for(Node child : root.getChildren().toArray(new Node[0])) root.removeChild(child);
+            physics.dispose();
+            Registry.setThreadPhysics(null);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.marginallyclever.ro3.physics;
+
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.odenode.ODEPlane;
+import com.marginallyclever.ro3.node.nodes.odenode.odebody.odebodies.ODESphere;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.vecmath.Vector3d;
+import java.util.List;
+
+public class RolloutPoolTest {
+    /**
+     * Drop a ball on the floor in many worlds at once.  Every world should agree.
+     */
+    @Test
+    public void dropBallInManyWorlds() throws Exception {
+        Registry.start();
+        ODEPhysics shared = Registry.getPhysics();
+
+        ODESphere ball = new ODESphere("ball");
+        ball.setPosition(new Vector3d(0,0,20));
+        Rollout rollout = new Rollout(List.of(new ODEPlane(),ball));
+        rollout.setTimeStep(1.0/60.0);
+        rollout.setSteps(240);
+        rollout.setSetup((episode,root)->Assertions.assertNotSame(shared,Registry.getPhysics()));
+        rollout.setFitness(root->((ODESphere)root.findByPath("ball")).getPosition().z);
+
+        List<RolloutResult> results;
+        try(RolloutPool pool = new RolloutPool(2)) {
+            results = pool.run(rollout,6);
+        }
+
+        Assertions.assertEquals(6,results.size());
+        for(int i=0;i<results.size();++i) {
+            RolloutResult r = results.get(i);
+            Assertions.assertEquals(i,r.episode());
+            Assertions.assertEquals(240,r.steps());
+            Assertions.assertEquals(4.0,r.simulatedTime(),1e-9);
+            // the ball fell and hit the floor.
+            Assertions.assertTrue(r.fitness()<20);
+            Assertions.assertTrue(r.contacts()>0);
+            Assertions.assertTrue(r.stepsWithContact()>0);
+            Assertions.assertEquals(results.get(0).fitness(),r.fitness(),1e-9);
+        }
+        // the scene physics was not used.
+        Assertions.assertSame(shared,Registry.getPhysics());
+    }
+
+    @Test
+    public void stopEarly() throws Exception {
+        Registry.start();
+        Rollout rollout = new Rollout(List.of(new Node("empty")));
+        rollout.setSteps(100);
+        int [] count = {0};
+        rollout.setStopCondition(root->++count[0]==10);
+        try(RolloutPool pool = new RolloutPool(1)) {
+            Assertions.assertEquals(10,pool.submit(rollout,0).get().steps());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.marginallyclever.ro3.raypicking;
+
+import com.marginallyclever.convenience.Ray;
+import com.marginallyclever.ro3.mesh.proceduralmesh.Box;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import com.marginallyclever.ro3.node.nodes.pose.poses.MeshInstance;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.vecmath.Point3d;
+import javax.vecmath.Vector3d;
+import java.util.Comparator;
+import java.util.Random;
+
+public class RayPickIndexTest {
+    private Node root;
+    private RayPickIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        root = new Node("Scene");
+        index = new RayPickIndex();
+        index.setRoot(root);
+    }
+
+    private MeshInstance addBox(Node parent,double x,double y,double z) {
+        MeshInstance meshInstance = new MeshInstance();
+        meshInstance.setMesh(new Box());
+        meshInstance.setPosition(new Vector3d(x,y,z));
+        parent.addChild(meshInstance);
+        return meshInstance;
+    }
+
+    private Ray rayDown(double x,double y) {
+        return new Ray(new Point3d(x,y,100),new Vector3d(0,0,-1));
+    }
+
+    @Test
+    public void emptyScene() {
+        Assertions.assertNull(index.getFirstHit(rayDown(0,0)));
+        Assertions.assertFalse(index.anyHit(rayDown(0,0)));
+    }
+
+    @Test
+    public void nearestOfStackedBoxes() {
+        addBox(root,0,0,0);
+        var top = addBox(root,0,0,5);
+        addBox(root,0,0,-5);
+        Assertions.assertEquals(3,index.size());
+
+        RayHit hit = index.getFirstHit(rayDown(0,0));
+        Assertions.assertNotNull(hit);
+        Assertions.assertSame(top,hit.target());
+        Assertions.assertEquals(94.5,hit.distance(),1e-6);
+        Assertions.assertEquals(3,index.findRayIntersections(rayDown(0,0)).size());
+        Assertions.assertNull(index.getFirstHit(rayDown(10,10)));
+    }
+
+    @Test
+    public void anyHitRespectsMaxDistance() {
+        addBox(root,0,0,0);
+        Ray ray = rayDown(0,0);
+        ray.setMaxDistance(50);
+        Assertions.assertFalse(index.anyHit(ray));
+        ray.setMaxDistance(100);
+        Assertions.assertTrue(index.anyHit(ray));
+    }
+
+    @Test
+    public void followsPoseChanges() {
+        Pose parent = new Pose();
+        root.addChild(parent);
+        var box = addBox(parent,0,0,0);
+        Assertions.assertSame(box,index.getFirstHit(rayDown(0,0)).target());
+
+        // moving the parent moves the child.
+        parent.setPosition(new Vector3d(10,0,0));
+        Assertions.assertNull(index.getFirstHit(rayDown(0,0)));
+        Assertions.assertSame(box,index.getFirstHit(rayDown(10,0)).target());
+    }
+
+    @Test
+    public void followsAttachAndDetach() {
+        Pose parent = new Pose();
+        var box = addBox(parent,0,0,0);
+        // attach a subtree that already contains a mesh.
+        root.addChild(parent);
+        Assertions.assertEquals(1,index.size());
+        Assertions.assertSame(box,index.getFirstHit(rayDown(0,0)).target());
+
+        root.removeChild(parent);
+        Assertions.assertEquals(0,index.size());
+        Assertions.assertNull(index.getFirstHit(rayDown(0,0)));
+    }
+
+    @Test
+    public void matchesBruteForce() {
+        Random random = new Random(1234);
+        for(int i=0;i<200;++i) {
+            addBox(root,random.nextDouble()*40-20,random.nextDouble()*40-20,random.nextDouble()*40-20);
+        }
+        for(int i=0;i<500;++i) {
+            var origin = new Point3d(random.nextDouble()*100-50,random.nextDouble()*100-50,random.nextDouble()*100-50);
+            var direction = new Vector3d(random.nextDouble()-0.5,random.nextDouble()-0.5,random.nextDouble()-0.5);
+            direction.normalize();
+            Ray ray = new Ray(origin,direction);
+
+            var expected = RayPickSystem.findRayIntersectionsBruteForce(root,ray).stream()
+                    .filter(h->h.distance()>=RayPickIndex.MINIMUM_DISTANCE)
+                    .min(Comparator.comparingDouble(RayHit::distance))
+                    .orElse(null);
+            var actual = index.getFirstHit(ray);
+            if(expected==null) {
+                Assertions.assertNull(actual);
+                Assertions.assertFalse(index.anyHit(ray));
+            } else {
+                Assertions.assertNotNull(actual);
+                Assertions.assertEquals(expected.distance(),actual.distance(),1e-9);
+                Assertions.assertTrue(index.anyHit(ray));
+            }
+        }
+    }
+}
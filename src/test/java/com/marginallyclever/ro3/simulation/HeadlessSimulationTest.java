@@ -0,0 +1,86 @@
+package com.marginallyclever.ro3.simulation;
+
+import com.marginallyclever.convenience.CommandLineOptions;
+import com.marginallyclever.ro3.Registry;
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.HingeJoint;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.vecmath.Vector3d;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class HeadlessSimulationTest {
+    private Path writeScene(Path dir) throws IOException {
+        Node scene = new Node("Scene");
+        Pose pose = new Pose("arm");
+        pose.setPosition(new Vector3d(1,2,3));
+        scene.addChild(pose);
+        scene.addChild(new HingeJoint("j0"));
+        Path file = dir.resolve("test.ro");
+        Files.writeString(file,scene.toJSON().toString());
+        return file;
+    }
+
+    private HeadlessSimulation create(String ... args) {
+        CommandLineOptions options = new CommandLineOptions();
+        options.set(args);
+        HeadlessSimulation job = new HeadlessSimulation();
+        job.setOptions(options);
+        return job;
+    }
+
+    @Test
+    public void runToTimeBudgetWithCSV(@TempDir Path dir) throws Exception {
+        Registry.start();
+        Path scene = writeScene(dir);
+        Path log = dir.resolve("out.csv");
+        HeadlessSimulation job = create("--scene",scene.toString(),"--time","1","--dt","0.01",
+                "--log",log.toString(),"--channels","/Scene/arm,/Scene/j0");
+        job.run();
+
+        Assertions.assertEquals(100,job.getStepsTaken());
+        Assertions.assertEquals(1.0,job.getSimulatedTime(),1e-6);
+        Assertions.assertTrue(job.getThroughput()>0);
+
+        List<String> lines = Files.readAllLines(log);
+        // header, the starting state, and one row per step.
+        Assertions.assertEquals(102,lines.size());
+        Assertions.assertEquals("time,/Scene/arm.x,/Scene/arm.y,/Scene/arm.z,/Scene/arm.rx,/Scene/arm.ry,/Scene/arm.rz,/Scene/j0.angle",lines.get(0));
+        String [] last = lines.get(101).split(",");
+        Assertions.assertEquals(1.0,Double.parseDouble(last[0]),1e-6);
+        Assertions.assertEquals(1.0,Double.parseDouble(last[1]),1e-9);
+        Assertions.assertEquals(3.0,Double.parseDouble(last[3]),1e-9);
+    }
+
+    @Test
+    public void stopConditionAndBinaryLog(@TempDir Path dir) throws Exception {
+        Registry.start();
+        Path scene = writeScene(dir);
+        Path log = dir.resolve("out.bin");
+        HeadlessSimulation job = create("--scene",scene.toString(),"--time","100","--dt","0.01",
+                "--log",log.toString(),"--channels","/Scene/j0");
+        job.setStopCondition(()->Registry.getSimulation().getStepCount()%10==0);
+        job.run();
+        long steps = job.getStepsTaken();
+        Assertions.assertTrue(steps>0 && steps<=10);
+
+        try(DataInputStream in = new DataInputStream(Files.newInputStream(log))) {
+            Assertions.assertEquals(ChannelLog.MAGIC,in.readInt());
+            Assertions.assertEquals(2,in.readInt());
+            Assertions.assertEquals("time",in.readUTF());
+            Assertions.assertEquals("/Scene/j0.angle",in.readUTF());
+            for(int i=0;i<=steps;++i) {
+                Assertions.assertEquals(i*0.01,in.readDouble(),1e-9);
+                in.readDouble();
+            }
+            Assertions.assertEquals(-1,in.read());
+        }
+    }
+}
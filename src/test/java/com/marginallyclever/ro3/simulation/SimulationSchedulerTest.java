@@ -0,0 +1,139 @@
+package com.marginallyclever.ro3.simulation;
+
+import com.marginallyclever.ro3.node.Node;
+import com.marginallyclever.ro3.node.nodes.pose.Pose;
+import com.marginallyclever.ro3.physics.ODEPhysics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.vecmath.Matrix4d;
+import javax.vecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SimulationSchedulerTest {
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Moves one unit along x every update.
+     */
+    private static class Mover extends Pose {
+        final List<Double> steps = new ArrayList<>();
+
+        @Override
+        public void update(double dt) {
+            super.update(dt);
+            steps.add(dt);
+            Vector3d p = getPosition();
+            p.x += 1;
+            setPosition(p);
+        }
+    }
+
+    private Node scene;
+    private Mover mover;
+    private SimulationScheduler scheduler;
+
+    @BeforeEach
+    public void setup() {
+        scene = new Node("Scene");
+        mover = new Mover();
+        scene.addChild(mover);
+        ODEPhysics physics = new ODEPhysics();
+        physics.setPaused(true);
+        scheduler = new SimulationScheduler(physics,()->scene);
+        scheduler.setTimeStep(0.01);
+    }
+
+    @Test
+    public void fixedStepsFromAccumulator() {
+        Assertions.assertEquals(0,scheduler.advance(0.005));
+        Assertions.assertEquals(1,scheduler.advance(0.005));
+        Assertions.assertEquals(3,scheduler.advance(0.035));
+        // the leftover 0.005 is kept.
+        Assertions.assertEquals(1,scheduler.advance(0.005));
+        Assertions.assertEquals(5,scheduler.getStepCount());
+        for(double dt : mover.steps) Assertions.assertEquals(0.01,dt,EPSILON);
+    }
+
+    @Test
+    public void backlogIsDropped() {
+        scheduler.setMaxStepsPerAdvance(4);
+        Assertions.assertEquals(4,scheduler.advance(1.0));
+        Assertions.assertEquals(0,scheduler.advance(0));
+    }
+
+    @Test
+    public void fastClockRunsOnItsOwnThread() throws InterruptedException {
+        scheduler.setClock(new FastClock());
+        scheduler.start();
+        long timeout = System.currentTimeMillis()+10000;
+        while(scheduler.getStepCount()<100 && System.currentTimeMillis()<timeout) {
+            Thread.sleep(1);
+        }
+        scheduler.stop();
+        Assertions.assertFalse(scheduler.isRunning());
+        Assertions.assertTrue(scheduler.getStepCount()>=100);
+        long count = scheduler.getStepCount();
+        Thread.sleep(20);
+        Assertions.assertEquals(count,scheduler.getStepCount());
+    }
+
+    @Test
+    public void interpolateBetweenSteps() throws InterruptedException {
+        FastClock clock = new FastClock();
+        scheduler.setClock(clock);
+        scheduler.step();
+        scheduler.step();
+
+        Matrix4d world = new Matrix4d();
+        // no time has passed since the last step, so the pose is drawn where it was before the step.
+        scheduler.getInterpolatedWorld(mover,world);
+        Assertions.assertEquals(1,world.m03,EPSILON);
+
+        clock.waitUntil(clock.nanoTime()+5_000_000);
+        scheduler.getInterpolatedWorld(mover,world);
+        Assertions.assertEquals(1.5,world.m03,EPSILON);
+
+        clock.waitUntil(clock.nanoTime()+50_000_000);
+        scheduler.getInterpolatedWorld(mover,world);
+        Assertions.assertEquals(2,world.m03,EPSILON);
+
+        // moved by something other than the simulation.  use the live value.
+        mover.setPosition(new Vector3d(10,0,0));
+        scheduler.getInterpolatedWorld(mover,world);
+        Assertions.assertEquals(10,world.m03,EPSILON);
+    }
+
+    @Test
+    public void onlyMovedPosesAreInTheSnapshot() {
+        Pose still = new Pose("still");
+        still.setPosition(new Vector3d(0,5,0));
+        scene.addChild(still);
+        scheduler.step();
+        // new to the scheduler, so it counts as moved once.
+        Assertions.assertNotNull(scheduler.getSnapshot().getAfter(still));
+        scheduler.step();
+        Assertions.assertNull(scheduler.getSnapshot().getAfter(still));
+        Assertions.assertNotNull(scheduler.getSnapshot().getAfter(mover));
+
+        Matrix4d world = new Matrix4d();
+        scheduler.getInterpolatedWorld(still,world);
+        Assertions.assertEquals(5,world.m13,EPSILON);
+
+        scene.removeChild(mover);
+        scheduler.step();
+        Assertions.assertNull(scheduler.getSnapshot().getAfter(mover));
+    }
+
+    @Test
+    public void substeps() {
+        scheduler.setSubsteps(4);
+        Assertions.assertEquals(4,scheduler.getSubsteps());
+        Assertions.assertThrows(IllegalArgumentException.class,()->scheduler.setSubsteps(0));
+        Assertions.assertThrows(IllegalArgumentException.class,()->scheduler.setTimeStep(0));
+        scheduler.step();
+        Assertions.assertEquals(1,mover.steps.size());
+    }
+}